@@ -133,6 +133,65 @@ public class BuiltinPrimesIntegTest
         subtest("8192", prime8192, iterations);
     }
 
+    @Test
+    public void testRabinMillerSparse()
+    {
+        subtest("sparse 192", SecretShare.getSparsePrimeUsedFor192bitSecretPayload(), iterations);
+        subtest("sparse 384", SecretShare.getSparsePrimeUsedFor384bitSecretPayload(), iterations);
+        subtest("sparse 521", SecretShare.getSparsePrimeUsedFor521bitSecretPayload(), iterations);
+        subtest("sparse 4096", SecretShare.getSparsePrimeUsedFor4096bitSecretPayload(), iterations);
+        subtest("sparse 8192", SecretShare.getSparsePrimeUsedFor8192bitSecretPayload(), iterations);
+    }
+
+    /**
+     * The prime ladder up to 8192 bits [each one takes less than a minute].
+     * The bigger ones were checked with 20 rounds when the ladder was made.
+     */
+    @Test
+    public void testRabinMillerLadder()
+    {
+        final int ladderIterations = 20;
+        for (BigInteger prime : PrimeLadder.getPrimes())
+        {
+            if (prime.bitLength() <= 8192)
+            {
+                subtest("ladder " + prime.bitLength(), prime, ladderIterations);
+            }
+        }
+    }
+
+    /**
+     * The Mersenne primes of the ladder are proven with Lucas-Lehmer:
+     *   2^p - 1 is prime if and only if s(p - 2) = 0 mod 2^p - 1, where s(0) = 4, s(i + 1) = s(i)^2 - 2.
+     * On one 3GHz core, 2^86243-1 takes about 2 minutes.
+     */
+    @Test
+    public void testLucasLehmerLadder()
+    {
+        for (BigInteger prime : PrimeLadder.getPrimes())
+        {
+            final int p = prime.bitLength();
+            if (prime.bitCount() == p)
+            {
+                BigInteger s = BigInteger.valueOf(4);
+                for (int i = 0; i < p - 2; i++)
+                {
+                    s = s.multiply(s).subtract(BigInteger.TWO);
+                    // x mod 2^p - 1 = (x & (2^p - 1)) + (x >> p)
+                    while (s.bitLength() > p)
+                    {
+                        s = s.and(prime).add(s.shiftRight(p));
+                    }
+                    if (s.signum() < 0)
+                    {
+                        s = s.add(prime);
+                    }
+                }
+                assertTrue((s.signum() == 0) || s.equals(prime), "Lucas-Lehmer failed on 2^" + p + "-1");
+            }
+        }
+    }
+
     // ==================================================
     // non public methods
     // ==================================================
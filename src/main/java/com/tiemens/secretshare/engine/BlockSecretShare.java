@@ -0,0 +1,331 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2014 Tim Tiemens.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ *
+ * Contributors:
+ *     Tim Tiemens - initial API and implementation
+ *******************************************************************************/
+package com.tiemens.secretshare.engine;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import com.tiemens.secretshare.engine.SecretShare.BulkSplitOutput;
+import com.tiemens.secretshare.engine.SecretShare.PublicInfo;
+import com.tiemens.secretshare.exceptions.SecretShareException;
+
+/**
+ * Block mode: split a secret of any size with one of the builtin primes.
+ *
+ * The secret is cut into fixed-size blocks [lowest bits first], and each block
+ *   is split on its own with the same k, n and prime.
+ * Each holder gets one BlockShareInfo, with its share of every block.
+ *
+ * Without block mode, a secret of 8120+ bits needs a new random prime [see
+ *   SecretShare.createAppropriateModulusForSecret()], and the prime search time
+ *   is not bounded.  With block mode, split and combine time grow linearly with the secret size.
+ *
+ * Each block is stored as (block value + 1), since split() does not accept a zero secret.
+ *
+ * @author tiemens
+ *
+ */
+public class BlockSecretShare
+{
+    // ==================================================
+    // class static data
+    // ==================================================
+
+    // ==================================================
+    // class static methods
+    // ==================================================
+
+    /**
+     * The block size for a builtin prime, a multiple of 8, that keeps (block + 1)
+     *   under the conservative cutoffs in SecretShare.createAppropriateModulusForSecret().
+     *
+     * @param prime one of the builtin primes
+     * @return bits per block
+     * @throws SecretShareException if prime is not one of the builtin primes
+     */
+    public static int getBlockBits(final BigInteger prime)
+    {
+        if (SecretShare.getPrimeUsedFor192bitSecretPayload().equals(prime))
+        {
+            return 176;
+        }
+        else if (SecretShare.getPrimeUsedFor384bitSecretPayload().equals(prime))
+        {
+            return 368;
+        }
+        else if (SecretShare.getPrimeUsedFor4096bigSecretPayload().equals(prime))
+        {
+            return 4016;
+        }
+        else if (SecretShare.getPrimeUsedFor8192bigSecretPayload().equals(prime))
+        {
+            return 8112;
+        }
+        else
+        {
+            throw new SecretShareException("Block mode needs one of the builtin (192, 384, 4096, 8192) primes");
+        }
+    }
+
+    /**
+     * @param secret to cut
+     * @param blockBits bits per block
+     * @return (block + 1) values, [0] has the lowest bits
+     */
+    static List<BigInteger> toBlocks(final BigInteger secret,
+                                     final int blockBits)
+    {
+        final int count = Math.max(1, (secret.bitLength() + blockBits - 1) / blockBits);
+        final BigInteger mask = BigInteger.ONE.shiftLeft(blockBits).subtract(BigInteger.ONE);
+        List<BigInteger> ret = new ArrayList<BigInteger>(count);
+        for (int i = 0; i < count; i++)
+        {
+            ret.add(secret.shiftRight(i * blockBits).and(mask).add(BigInteger.ONE));
+        }
+        return ret;
+    }
+
+    /**
+     * @param blocks (block + 1) values, [0] has the lowest bits
+     * @param blockBits bits per block
+     * @return the secret
+     */
+    static BigInteger fromBlocks(final BigInteger[] blocks,
+                                 final int blockBits)
+    {
+        BigInteger ret = BigInteger.ZERO;
+        for (int i = blocks.length - 1; i >= 0; i--)
+        {
+            final BigInteger block = blocks[i].subtract(BigInteger.ONE);
+            if ((block.signum() < 0) || (block.bitLength() > blockBits))
+            {
+                throw new SecretShareException("Block " + i + " is out of range, the shares do not match");
+            }
+            ret = ret.shiftLeft(blockBits).or(block);
+        }
+        return ret;
+    }
+
+    // ==================================================
+    // instance data
+    // ==================================================
+
+    private final SecretShare secretShare;
+    private final int blockBits;
+
+    // ==================================================
+    // factories
+    // ==================================================
+
+    // ==================================================
+    // constructors
+    // ==================================================
+
+    /**
+     * @param inPublicInfo k, n and the prime for every block; the prime must be one of the builtin primes
+     */
+    public BlockSecretShare(final PublicInfo inPublicInfo)
+    {
+        blockBits = getBlockBits(inPublicInfo.getPrimeModulus());
+        secretShare = new SecretShare(inPublicInfo);
+    }
+
+    // ==================================================
+    // public methods
+    // ==================================================
+
+    public final PublicInfo getPublicInfo()
+    {
+        return secretShare.getPublicInfo();
+    }
+
+    public int getBlockBits()
+    {
+        return blockBits;
+    }
+
+    /**
+     * @param secret to split, must be positive
+     * @return one share per holder, x = 1..n
+     */
+    public List<BlockShareInfo> split(final BigInteger secret)
+    {
+        return split(secret, new SecureRandom());
+    }
+
+    /**
+     * @param secret to split, must be positive
+     * @param random to use for random number generation
+     * @return one share per holder, x = 1..n
+     */
+    public List<BlockShareInfo> split(final BigInteger secret,
+                                      final Random random)
+    {
+        if (secret == null)
+        {
+            throw new SecretShareException("Secret cannot be null");
+        }
+        if (secret.signum() <= 0)
+        {
+            throw new SecretShareException("Secret cannot be negative");
+        }
+
+        final List<BigInteger> blocks = toBlocks(secret, blockBits);
+        final BulkSplitOutput bulk = secretShare.splitAll(blocks, random);
+
+        final int nforSplit = getPublicInfo().getNforSplit();
+        List<BlockShareInfo> ret = new ArrayList<BlockShareInfo>(nforSplit);
+        for (int x = 1; x <= nforSplit; x++)
+        {
+            BigInteger[] holder = new BigInteger[blocks.size()];
+            for (int b = 0; b < holder.length; b++)
+            {
+                holder[b] = bulk.getShare(b, x);
+            }
+            ret.add(new BlockShareInfo(x, holder, getPublicInfo()));
+        }
+        return ret;
+    }
+
+    /**
+     * @param shares at least k shares from split(), only the first k are used
+     * @return the secret
+     */
+    public BigInteger combine(final List<BlockShareInfo> shares)
+    {
+        final int k = getPublicInfo().getK();
+        if (shares.size() < k)
+        {
+            throw new SecretShareException("Must have " + k + " shares to solve.  Only provided " + shares.size());
+        }
+
+        final int numberOfBlocks = shares.get(0).getNumberOfBlocks();
+        Set<Integer> seen = new HashSet<Integer>();
+        BigInteger[] xs = new BigInteger[k];
+        BigInteger[][] blockShares = new BigInteger[numberOfBlocks][k];
+        for (int i = 0; i < k; i++)
+        {
+            final BlockShareInfo share = shares.get(i);
+            if (share.getNumberOfBlocks() != numberOfBlocks)
+            {
+                throw new SecretShareException("Share x=" + share.getX() + " has " + share.getNumberOfBlocks() +
+                                               " blocks, should be " + numberOfBlocks);
+            }
+            if (! getPublicInfo().getPrimeModulus().equals(share.getPublicInfo().getPrimeModulus()) ||
+                (getPublicInfo().getK() != share.getPublicInfo().getK()))
+            {
+                throw new SecretShareException("Share x=" + share.getX() + " does not match k or the modulus");
+            }
+            if (! seen.add(share.getX()))
+            {
+                throw new SecretShareException("Duplicate share x=" + share.getX());
+            }
+            xs[i] = BigInteger.valueOf(share.getX());
+            for (int b = 0; b < numberOfBlocks; b++)
+            {
+                blockShares[b][i] = share.blocks[b];
+            }
+        }
+
+        return fromBlocks(secretShare.combineAll(xs, blockShares), blockBits);
+    }
+
+    /**
+     * One holder's share of every block.
+     */
+    public static class BlockShareInfo
+    {
+        private final int x;
+        private final BigInteger[] blocks;
+        private final PublicInfo publicInfo;
+
+        public BlockShareInfo(final int inX,
+                              final BigInteger[] inBlocks,
+                              final PublicInfo inPublicInfo)
+        {
+            if ((inBlocks == null) || (inBlocks.length == 0))
+            {
+                throw new SecretShareException("blocks cannot be empty");
+            }
+            if (inPublicInfo == null)
+            {
+                throw new SecretShareException("publicinfo cannot be null");
+            }
+            x = inX;
+            blocks = inBlocks.clone();
+            publicInfo = inPublicInfo;
+        }
+
+        public final int getX()
+        {
+            return x;
+        }
+
+        public final PublicInfo getPublicInfo()
+        {
+            return publicInfo;
+        }
+
+        public int getNumberOfBlocks()
+        {
+            return blocks.length;
+        }
+
+        /**
+         * @return this holder's share of each block, [0] is the lowest block
+         */
+        public List<BigInteger> getBlockShares()
+        {
+            return Collections.unmodifiableList(Arrays.asList(blocks));
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return x * 31 + Arrays.hashCode(blocks);
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (obj instanceof BlockShareInfo)
+            {
+                BlockShareInfo other = (BlockShareInfo) obj;
+                return ((x == other.x) &&
+                        Arrays.equals(blocks, other.blocks) &&
+                        (publicInfo.getK() == other.publicInfo.getK()));
+            }
+            else
+            {
+                return false;
+            }
+        }
+
+        @Override
+        public String toString()
+        {
+            return "BlockShareInfo[x=" + x + ", blocks=" + blocks.length + "]";
+        }
+    }
+}
@@ -0,0 +1,601 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2014 Tim Tiemens.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ *
+ * Contributors:
+ *     Tim Tiemens - initial API and implementation
+ *******************************************************************************/
+package com.tiemens.secretshare.engine;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+import com.tiemens.secretshare.engine.Gf256SecretShare.Gf256ShareInfo;
+import com.tiemens.secretshare.engine.SecretShare.PublicInfo;
+import com.tiemens.secretshare.exceptions.SecretShareException;
+
+/**
+ * Split a file into n share files, and combine k share files back into the file,
+ *   without holding the file in memory.
+ *
+ * Each chunk of the file is split with Gf256SecretShare, so each share file is about as big as the file.
+ * Both directions are a pipeline of three stages:
+ *
+ *   read chunks [FileChannel, mapped share files]  -&gt;  split/combine chunks [worker pool]  -&gt;
+ *     write chunks, in order
+ *
+ * The reader hands each chunk to the pool, and puts the pending result on a bounded queue;
+ *   the writer takes the results off the queue in chunk order.
+ * When the queue is full the reader waits, so at most (capacity + 2) pending results are in memory
+ *   [the queue, one the reader has submitted but not queued yet, and one the writer is writing].
+ * A pending split result is the input chunk plus n shares of it, (n + 1) * chunkSize bytes;
+ *   a pending combine result is k shares plus the output, (k + 1) * chunkSize bytes.
+ * So the queue capacity is max(1, memoryBudget / bytesPerResult), but no more than 2 * threads,
+ *   and memory stays below about memoryBudget + 2 * bytesPerResult, whatever the file size.
+ * With n = 255 and the default 1 MB chunk a result is 256 MB, so the queue holds 1 of them and only
+ *   about 2 workers are busy; use a smaller chunk size to keep more threads busy at large n.
+ *
+ * The share files are ShareFile containers: a header with the PublicInfo, a chunk index, and the raw
+ *   share bytes.  recoverRange() uses the index to recover part of the file from only the chunks it needs.
+ *
+ * @author tiemens
+ *
+ */
+public class FileSecretShare
+{
+    // ==================================================
+    // class static data
+    // ==================================================
+
+    public static final int DEFAULT_CHUNK_SIZE = 1024 * 1024;
+
+    // bytes of pending results the queue may hold [see the class comment]
+    public static final long DEFAULT_MEMORY_BUDGET = 256L * 1024 * 1024;
+
+    // ==================================================
+    // class static methods
+    // ==================================================
+
+    /**
+     * @param inFile the file that was split
+     * @param outDir directory of the share files
+     * @param x share number
+     * @return the name split() uses for share file x
+     */
+    public static Path getShareFile(final Path inFile,
+                                    final Path outDir,
+                                    final int x)
+    {
+        return outDir.resolve(inFile.getFileName().toString() + ".share" + x);
+    }
+
+    // ==================================================
+    // instance data
+    // ==================================================
+
+    private final int threads;
+    private final int chunkSize;
+    private final long memoryBudget;
+
+    // ==================================================
+    // factories
+    // ==================================================
+
+    // ==================================================
+    // constructors
+    // ==================================================
+
+    public FileSecretShare()
+    {
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * @param inThreads worker threads for the split/combine stage
+     * @param inChunkSize bytes per chunk [split only, combine uses the size in the share files]
+     */
+    public FileSecretShare(final int inThreads,
+                           final int inChunkSize)
+    {
+        this(inThreads, inChunkSize, DEFAULT_MEMORY_BUDGET);
+    }
+
+    /**
+     * @param inThreads worker threads for the split/combine stage
+     * @param inChunkSize bytes per chunk [split only, combine uses the size in the share files]
+     * @param inMemoryBudget bytes of pending results the queue may hold [see the class comment]
+     */
+    public FileSecretShare(final int inThreads,
+                           final int inChunkSize,
+                           final long inMemoryBudget)
+    {
+        if (inThreads < 1)
+        {
+            throw new SecretShareException("threads must be at least 1, was " + inThreads);
+        }
+        if (inChunkSize < 1)
+        {
+            throw new SecretShareException("chunk size must be at least 1, was " + inChunkSize);
+        }
+        if (inMemoryBudget < 1)
+        {
+            throw new SecretShareException("memory budget must be at least 1, was " + inMemoryBudget);
+        }
+        threads = inThreads;
+        chunkSize = inChunkSize;
+        memoryBudget = inMemoryBudget;
+    }
+
+    // ==================================================
+    // public methods
+    // ==================================================
+
+    public int getThreads()
+    {
+        return threads;
+    }
+
+    public int getChunkSize()
+    {
+        return chunkSize;
+    }
+
+    public long getMemoryBudget()
+    {
+        return memoryBudget;
+    }
+
+    /**
+     * @param inFile file to split
+     * @param outDir directory for the share files [see getShareFile()]
+     * @param n number of shares, 1..255
+     * @param k threshold
+     * @return the share files, [x - 1]
+     * @throws IOException on read or write failure
+     */
+    public List<Path> split(final Path inFile,
+                            final Path outDir,
+                            final int n,
+                            final int k)
+        throws IOException
+    {
+        return split(inFile, outDir, n, k, new SecureRandom());
+    }
+
+    /**
+     * @param inFile file to split
+     * @param outDir directory for the share files [see getShareFile()]
+     * @param n number of shares, 1..255
+     * @param k threshold
+     * @param random for the polynomials [must be thread-safe, it is used by every worker]
+     * @return the share files, [x - 1]
+     * @throws IOException on read or write failure
+     */
+    public List<Path> split(final Path inFile,
+                            final Path outDir,
+                            final int n,
+                            final int k,
+                            final Random random)
+        throws IOException
+    {
+        return split(inFile, outDir, new PublicInfo(n, k, null, null), random);
+    }
+
+    /**
+     * @param inFile file to split
+     * @param outDir directory for the share files [see getShareFile()]
+     * @param publicInfo n [1..255], k, and the description, uuid and date for the share file headers;
+     *                   the modulus must be null
+     * @param random for the polynomials [must be thread-safe, it is used by every worker]
+     * @return the share files, [x - 1]
+     * @throws IOException on read or write failure
+     */
+    public List<Path> split(final Path inFile,
+                            final Path outDir,
+                            final PublicInfo publicInfo,
+                            final Random random)
+        throws IOException
+    {
+        if (publicInfo.getPrimeModulus() != null)
+        {
+            throw new SecretShareException("File shares are over GF(256), the modulus must be null");
+        }
+        final int n = publicInfo.getNforSplit();
+        final Gf256SecretShare gf256 = new Gf256SecretShare(n, publicInfo.getK());
+        final byte[] splitId = new byte[ShareFile.SPLIT_ID_BYTES];
+        random.nextBytes(splitId);
+
+        List<Path> ret = new ArrayList<Path>();
+        final FileChannel in = FileChannel.open(inFile, StandardOpenOption.READ);
+        final FileChannel[] outs = new FileChannel[n];
+        try
+        {
+            final long fileLength = in.size();
+            for (int i = 0; i < n; i++)
+            {
+                final Path path = getShareFile(inFile, outDir, i + 1);
+                ret.add(path);
+                outs[i] = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                           StandardOpenOption.TRUNCATE_EXISTING);
+                writeFully(outs[i], ShareFile.createHeader(splitId, publicInfo, i + 1, chunkSize, fileLength));
+            }
+
+            run((n + 1L) * chunkSize, new Source<List<Gf256ShareInfo>>()
+            {
+                private long remaining = fileLength;
+
+                @Override
+                public Callable<List<Gf256ShareInfo>> next()
+                    throws IOException
+                {
+                    if (remaining == 0)
+                    {
+                        return null;
+                    }
+                    final byte[] chunk = readChunk(in, (int) Math.min(chunkSize, remaining));
+                    remaining -= chunk.length;
+                    return new Callable<List<Gf256ShareInfo>>()
+                    {
+                        @Override
+                        public List<Gf256ShareInfo> call()
+                        {
+                            return gf256.split(chunk, random);
+                        }
+                    };
+                }
+            },
+            new Sink<List<Gf256ShareInfo>>()
+            {
+                @Override
+                public void write(List<Gf256ShareInfo> shares)
+                    throws IOException
+                {
+                    for (int i = 0; i < n; i++)
+                    {
+                        writeFully(outs[i], ByteBuffer.wrap(shares.get(i).getData()));
+                    }
+                }
+            });
+
+            if (in.size() != fileLength)
+            {
+                throw new SecretShareException("File " + inFile + " changed size during the split");
+            }
+        }
+        finally
+        {
+            in.close();
+            for (FileChannel out : outs)
+            {
+                if (out != null)
+                {
+                    out.close();
+                }
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * @param shareFiles at least k share files from split(), only the first k are read
+     * @param outFile the recovered file
+     * @throws IOException on read or write failure
+     * @throws SecretShareException if the share files do not belong together
+     */
+    public void combine(final List<Path> shareFiles,
+                        final Path outFile)
+        throws IOException
+    {
+        final List<ShareFile> ins = openShareFiles(shareFiles);
+        FileChannel out = null;
+        try
+        {
+            final ShareFile first = ins.get(0);
+            final Gf256SecretShare gf256 = new Gf256SecretShare(Gf256SecretShare.MAXIMUM_N, ins.size());
+
+            out = FileChannel.open(outFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                   StandardOpenOption.TRUNCATE_EXISTING);
+            final FileChannel output = out;
+            run((ins.size() + 1L) * first.getChunkSize(), new Source<byte[]>()
+            {
+                private int chunkIndex = 0;
+
+                @Override
+                public Callable<byte[]> next()
+                    throws IOException
+                {
+                    if (chunkIndex == first.getNumberOfChunks())
+                    {
+                        return null;
+                    }
+                    final long start = (long) chunkIndex * first.getChunkSize();
+                    final List<Gf256ShareInfo> shares = readShares(ins, start, first.getChunkLength(chunkIndex));
+                    chunkIndex++;
+                    return new Callable<byte[]>()
+                    {
+                        @Override
+                        public byte[] call()
+                        {
+                            return gf256.combine(shares);
+                        }
+                    };
+                }
+            },
+            new Sink<byte[]>()
+            {
+                @Override
+                public void write(byte[] chunk)
+                    throws IOException
+                {
+                    writeFully(output, ByteBuffer.wrap(chunk));
+                }
+            });
+        }
+        finally
+        {
+            close(ins);
+            if (out != null)
+            {
+                out.close();
+            }
+        }
+    }
+
+    /**
+     * Recover part of the file, reading only the chunks of the k share files that hold it.
+     *
+     * @param shareFiles at least k share files from split(), only the first k are read
+     * @param start first byte of the original file to recover
+     * @param length number of bytes to recover
+     * @return original bytes [start, start + length)
+     * @throws IOException on read failure
+     * @throws SecretShareException if the share files do not belong together, or the range is outside the file
+     */
+    public byte[] recoverRange(final List<Path> shareFiles,
+                               final long start,
+                               final int length)
+        throws IOException
+    {
+        final List<ShareFile> ins = openShareFiles(shareFiles);
+        try
+        {
+            final Gf256SecretShare gf256 = new Gf256SecretShare(Gf256SecretShare.MAXIMUM_N, ins.size());
+            return gf256.combine(readShares(ins, start, length));
+        }
+        finally
+        {
+            close(ins);
+        }
+    }
+
+    // ==================================================
+    // non public methods
+    // ==================================================
+
+    /**
+     * The reader stage: the next chunk's work, or null at the end.
+     */
+    private interface Source<T>
+    {
+        Callable<T> next()
+            throws IOException;
+    }
+
+    /**
+     * The writer stage: called with the results in chunk order.
+     */
+    private interface Sink<T>
+    {
+        void write(T result)
+            throws IOException;
+    }
+
+    /**
+     * @param bytesPerResult memory a pending result holds, for the queue capacity
+     */
+    private <T> void run(final long bytesPerResult,
+                         final Source<T> source,
+                         final Sink<T> sink)
+        throws IOException
+    {
+        final BlockingQueue<Future<T>> queue = new ArrayBlockingQueue<Future<T>>(getQueueCapacity(bytesPerResult));
+        final FutureTask<T> end = new FutureTask<T>(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                // marks the end of the queue
+            }
+        }, null);
+        end.run();
+
+        final ExecutorService workers = Executors.newFixedThreadPool(threads);
+        final ExecutorService reader = Executors.newSingleThreadExecutor();
+        Future<?> readerFuture = reader.submit(new Callable<Void>()
+        {
+            @Override
+            public Void call()
+                throws Exception
+            {
+                try
+                {
+                    Callable<T> work;
+                    while ((work = source.next()) != null)
+                    {
+                        queue.put(workers.submit(work));
+                    }
+                    queue.put(end);
+                }
+                catch (final IOException | RuntimeException e)
+                {
+                    // hand the failure to the writer, in order:
+                    FutureTask<T> failed = new FutureTask<T>(new Callable<T>()
+                    {
+                        @Override
+                        public T call()
+                            throws Exception
+                        {
+                            throw e;
+                        }
+                    });
+                    failed.run();
+                    queue.put(failed);
+                }
+                return null;
+            }
+        });
+
+        try
+        {
+            Future<T> next;
+            while ((next = queue.take()) != end)
+            {
+                sink.write(next.get());
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new SecretShareException("Interrupted during file split/combine", e);
+        }
+        catch (ExecutionException e)
+        {
+            if (e.getCause() instanceof IOException)
+            {
+                throw (IOException) e.getCause();
+            }
+            if (e.getCause() instanceof RuntimeException)
+            {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new SecretShareException("File split/combine failed", e.getCause());
+        }
+        finally
+        {
+            readerFuture.cancel(true);
+            reader.shutdownNow();
+            workers.shutdownNow();
+        }
+    }
+
+    /**
+     * @return max(1, memoryBudget / bytesPerResult), but no more than 2 * threads
+     */
+    int getQueueCapacity(final long bytesPerResult)
+    {
+        return (int) Math.max(1, Math.min(2L * threads, memoryBudget / bytesPerResult));
+    }
+
+    /**
+     * @return the next size bytes
+     */
+    private static byte[] readChunk(final FileChannel in,
+                                    final int size)
+        throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        while (buffer.hasRemaining())
+        {
+            if (in.read(buffer) < 0)
+            {
+                throw new SecretShareException("File ended early, it changed size during the split");
+            }
+        }
+        return buffer.array();
+    }
+
+    /**
+     * @return the first k share files, opened and checked to be from the same split
+     */
+    private static List<ShareFile> openShareFiles(final List<Path> shareFiles)
+        throws IOException
+    {
+        if (shareFiles.isEmpty())
+        {
+            throw new SecretShareException("Must have at least one share file");
+        }
+        List<ShareFile> ret = new ArrayList<ShareFile>();
+        try
+        {
+            // the first header says how many to open:
+            ret.add(ShareFile.open(shareFiles.get(0)));
+            final int k = ret.get(0).getPublicInfo().getK();
+            if (shareFiles.size() < k)
+            {
+                throw new SecretShareException("Must have " + k + " share files to solve.  Only provided " +
+                                               shareFiles.size());
+            }
+            for (int i = 1; i < k; i++)
+            {
+                ret.add(ShareFile.open(shareFiles.get(i)));
+                if (! ret.get(0).isSameSplit(ret.get(i)))
+                {
+                    throw new SecretShareException("Share file " + shareFiles.get(i) + " is from a different split");
+                }
+            }
+        }
+        catch (IOException | RuntimeException e)
+        {
+            close(ret);
+            throw e;
+        }
+        return ret;
+    }
+
+    private static List<Gf256ShareInfo> readShares(final List<ShareFile> ins,
+                                                   final long start,
+                                                   final int length)
+        throws IOException
+    {
+        final int k = ins.size();
+        List<Gf256ShareInfo> ret = new ArrayList<Gf256ShareInfo>(k);
+        for (ShareFile in : ins)
+        {
+            ret.add(new Gf256ShareInfo(in.getX(), in.read(start, length), k));
+        }
+        return ret;
+    }
+
+    private static void close(final List<ShareFile> shareFiles)
+        throws IOException
+    {
+        for (ShareFile shareFile : shareFiles)
+        {
+            shareFile.close();
+        }
+    }
+
+    private static void writeFully(final FileChannel out,
+                                   final ByteBuffer buffer)
+        throws IOException
+    {
+        while (buffer.hasRemaining())
+        {
+            out.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,317 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2014 Tim Tiemens.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ *
+ * Contributors:
+ *     Tim Tiemens - initial API and implementation
+ *******************************************************************************/
+package com.tiemens.secretshare.engine;
+
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import com.tiemens.secretshare.exceptions.SecretShareException;
+import com.tiemens.secretshare.math.field.GF2128;
+
+/**
+ * Shamir secret sharing of keys [AES-128, AES-256, or any multiple of 16 bytes] over GF(2^128).
+ *
+ * Each 16 bytes of the key is one GF(2^128) value, the constant term of its own random polynomial
+ *   of degree (k - 1), and share x gets the value of every polynomial at x.
+ *
+ * Encoded share: 1 byte x [1..255], then 16 bytes per value.  So an AES-128 key share is 17 bytes.
+ *
+ * split(long[], Random, long[][]) and combine(long[], long[][], long[]) work in buffers from the caller,
+ *   and allocate nothing themselves [no BigInteger, no arrays]; the byte[] methods are wrappers around them.
+ *
+ * This is a different engine than SecretShare: the shares are not compatible.
+ *
+ * @author tiemens
+ *
+ */
+public class Gf2128SecretShare
+{
+    // ==================================================
+    // class static data
+    // ==================================================
+
+    public static final int MAXIMUM_N = 255;
+
+    // ==================================================
+    // class static methods
+    // ==================================================
+
+    /**
+     * @param x 1..255
+     * @param values the share values, 2 longs per GF(2^128) value
+     * @return x, then 16 bytes per value
+     */
+    public static byte[] encodeShare(final int x,
+                                     final long[] values)
+    {
+        checkX(x);
+        byte[] ret = new byte[1 + 8 * values.length];
+        ret[0] = (byte) x;
+        GF2128.toBytes(values, ret, 1);
+        return ret;
+    }
+
+    /**
+     * @param share from encodeShare()
+     * @return the x of the share
+     */
+    public static int getShareX(final byte[] share)
+    {
+        if ((share.length < 1 + GF2128.BYTES) || (((share.length - 1) % GF2128.BYTES) != 0))
+        {
+            throw new SecretShareException("A GF(2^128) share is 1 + 16*m bytes, was " + share.length);
+        }
+        final int x = share[0] & 0xFF;
+        checkX(x);
+        return x;
+    }
+
+    /**
+     * @param share from encodeShare()
+     * @return the share values, 2 longs per GF(2^128) value
+     */
+    public static long[] getShareValues(final byte[] share)
+    {
+        getShareX(share);
+        return GF2128.fromBytes(share, 1, share.length - 1);
+    }
+
+    // ==================================================
+    // instance data
+    // ==================================================
+
+    private final int n;
+    private final int k;
+
+    // ==================================================
+    // factories
+    // ==================================================
+
+    // ==================================================
+    // constructors
+    // ==================================================
+
+    /**
+     * @param inN number of shares, 1..255
+     * @param inK threshold, 1..n
+     */
+    public Gf2128SecretShare(final int inN,
+                             final int inK)
+    {
+        if ((inK < 1) || (inK > inN))
+        {
+            throw new SecretShareException("k must be 1..n [k=" + inK + " n=" + inN + "]");
+        }
+        if (inN > MAXIMUM_N)
+        {
+            throw new SecretShareException("n cannot be bigger than " + MAXIMUM_N + " for GF(2^128) shares, was " +
+                                           inN);
+        }
+        n = inN;
+        k = inK;
+    }
+
+    // ==================================================
+    // public methods
+    // ==================================================
+
+    public int getN()
+    {
+        return n;
+    }
+
+    public int getK()
+    {
+        return k;
+    }
+
+    /**
+     * @param secret the key, a multiple of 16 bytes, at least 16
+     * @return n encoded shares, x = 1..n
+     */
+    public byte[][] split(final byte[] secret)
+    {
+        return split(secret, new SecureRandom());
+    }
+
+    /**
+     * @param secret the key, a multiple of 16 bytes, at least 16
+     * @param random to use for the coefficients
+     * @return n encoded shares, x = 1..n
+     */
+    public byte[][] split(final byte[] secret,
+                          final Random random)
+    {
+        if ((secret == null) || (secret.length == 0))
+        {
+            throw new SecretShareException("Secret cannot be empty");
+        }
+        final long[] values = GF2128.fromBytes(secret, 0, secret.length);
+        long[][] shares = new long[n][values.length];
+        byte[][] ret = new byte[n][];
+        try
+        {
+            split(values, random, shares);
+            for (int x = 1; x <= n; x++)
+            {
+                ret[x - 1] = encodeShare(x, shares[x - 1]);
+            }
+        }
+        finally
+        {
+            Arrays.fill(values, 0);
+            for (long[] share : shares)
+            {
+                Arrays.fill(share, 0);
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * Horner's rule, with the coefficients made highest first, so each one is used for every share
+     *   and then dropped:  f(x) = (((c[k-1] * x + c[k-2]) * x + ...) * x + c[1]) * x + secret
+     *
+     * @param secret 2 longs per GF(2^128) value
+     * @param random to use for the coefficients
+     * @param shares n buffers, each as long as secret; gets share x in shares[x - 1]
+     */
+    public void split(final long[] secret,
+                      final Random random,
+                      final long[][] shares)
+    {
+        final int length = secret.length;
+        if ((length == 0) || ((length % 2) != 0))
+        {
+            throw new SecretShareException("Secret must be 2 longs per value, was " + length + " longs");
+        }
+        if (shares.length != n)
+        {
+            throw new SecretShareException("Need " + n + " share buffers, was " + shares.length);
+        }
+        for (long[] share : shares)
+        {
+            if (share.length != length)
+            {
+                throw new SecretShareException("Share buffer has " + share.length + " longs, should be " + length);
+            }
+            Arrays.fill(share, 0);
+        }
+
+        for (int j = 0; j < length; j += 2)
+        {
+            for (int t = k - 1; t >= 1; t--)
+            {
+                final long coeffHigh = random.nextLong();
+                final long coeffLow = random.nextLong();
+                for (int x = 1; x <= n; x++)
+                {
+                    final long[] share = shares[x - 1];
+                    GF2128.multiplyByInt(share[j], share[j + 1], x, share, j);
+                    share[j] ^= coeffHigh;
+                    share[j + 1] ^= coeffLow;
+                }
+            }
+            for (int x = 1; x <= n; x++)
+            {
+                final long[] share = shares[x - 1];
+                GF2128.multiplyByInt(share[j], share[j + 1], x, share, j);
+                share[j] ^= secret[j];
+                share[j + 1] ^= secret[j + 1];
+            }
+        }
+    }
+
+    /**
+     * @param shares at least k encoded shares from split(), only the first k are used
+     * @return the key
+     */
+    public byte[] combine(final List<byte[]> shares)
+    {
+        if (shares.size() < k)
+        {
+            throw new SecretShareException("Must have " + k + " shares to solve.  Only provided " + shares.size());
+        }
+        Set<Integer> seen = new HashSet<Integer>();
+        int[] xs = new int[k];
+        long[][] values = new long[k][];
+        for (int i = 0; i < k; i++)
+        {
+            xs[i] = getShareX(shares.get(i));
+            if (! seen.add(xs[i]))
+            {
+                throw new SecretShareException("Duplicate share x=" + xs[i]);
+            }
+            values[i] = getShareValues(shares.get(i));
+        }
+
+        long[] secret = new long[values[0].length];
+        combine(GF2128.computeWeightsAtZero(xs), values, secret);
+        byte[] ret = new byte[8 * secret.length];
+        GF2128.toBytes(secret, ret, 0);
+        Arrays.fill(secret, 0);
+        return ret;
+    }
+
+    /**
+     * @param weights from GF2128.computeWeightsAtZero() for the x of each share [can be reused for the same x]
+     * @param shares shares[i] goes with weight i, only the first k are used
+     * @param secret buffer as long as a share, gets the secret
+     */
+    public void combine(final long[] weights,
+                        final long[][] shares,
+                        final long[] secret)
+    {
+        if ((weights.length < 2 * k) || (shares.length < k))
+        {
+            throw new SecretShareException("Must have " + k + " shares to solve.  Only provided " +
+                                           Math.min(weights.length / 2, shares.length));
+        }
+        final int length = secret.length;
+        Arrays.fill(secret, 0);
+        for (int i = 0; i < k; i++)
+        {
+            final long[] share = shares[i];
+            if (share.length != length)
+            {
+                throw new SecretShareException("Share has " + share.length + " longs, should be " + length);
+            }
+            final long weightHigh = weights[2 * i];
+            final long weightLow = weights[2 * i + 1];
+            for (int j = 0; j < length; j += 2)
+            {
+                GF2128.multiplyAndAdd(weightHigh, weightLow, share[j], share[j + 1], secret, j);
+            }
+        }
+    }
+
+    // ==================================================
+    // non public methods
+    // ==================================================
+
+    private static void checkX(final int x)
+    {
+        if ((x < 1) || (x > MAXIMUM_N))
+        {
+            throw new SecretShareException("x must be 1.." + MAXIMUM_N + ", was " + x);
+        }
+    }
+}
@@ -0,0 +1,317 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2014 Tim Tiemens.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ *
+ * Contributors:
+ *     Tim Tiemens - initial API and implementation
+ *******************************************************************************/
+package com.tiemens.secretshare.engine;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import com.tiemens.secretshare.exceptions.SecretShareException;
+import com.tiemens.secretshare.math.field.GF256;
+
+/**
+ * Shamir secret sharing of bulk binary data, one byte at a time, over GF(2^8).
+ *
+ * Each byte of the secret is the constant term of its own random polynomial of degree (k - 1),
+ *   and share x gets the value of every polynomial at x.
+ * So every share is the same length as the secret, x is 1..255, and there is no BigInteger:
+ *   split and combine are loops over byte[] with one table lookup and one XOR per byte per term.
+ *
+ * This is a different engine than SecretShare: the shares are not compatible.
+ *
+ * @author tiemens
+ *
+ */
+public class Gf256SecretShare
+{
+    // ==================================================
+    // class static data
+    // ==================================================
+
+    public static final int MAXIMUM_N = GF256.ORDER - 1;
+
+    // ==================================================
+    // class static methods
+    // ==================================================
+
+    // ==================================================
+    // instance data
+    // ==================================================
+
+    private final int n;
+    private final int k;
+
+    // ==================================================
+    // factories
+    // ==================================================
+
+    // ==================================================
+    // constructors
+    // ==================================================
+
+    /**
+     * @param inN number of shares, 1..255
+     * @param inK threshold, 1..n
+     */
+    public Gf256SecretShare(final int inN,
+                            final int inK)
+    {
+        if ((inK < 1) || (inK > inN))
+        {
+            throw new SecretShareException("k must be 1..n [k=" + inK + " n=" + inN + "]");
+        }
+        if (inN > MAXIMUM_N)
+        {
+            throw new SecretShareException("n cannot be bigger than " + MAXIMUM_N + " in GF(256), was " + inN);
+        }
+        n = inN;
+        k = inK;
+    }
+
+    // ==================================================
+    // public methods
+    // ==================================================
+
+    public int getN()
+    {
+        return n;
+    }
+
+    public int getK()
+    {
+        return k;
+    }
+
+    /**
+     * @param secret bytes to split, at least 1
+     * @return n shares, x = 1..n
+     */
+    public List<Gf256ShareInfo> split(final byte[] secret)
+    {
+        return split(secret, new SecureRandom());
+    }
+
+    /**
+     * @param secret bytes to split, at least 1
+     * @param random to use for the coefficients
+     * @return n shares, x = 1..n
+     */
+    public List<Gf256ShareInfo> split(final byte[] secret,
+                                      final Random random)
+    {
+        if ((secret == null) || (secret.length == 0))
+        {
+            throw new SecretShareException("Secret cannot be empty");
+        }
+        final int length = secret.length;
+
+        // coeffs[t][j] is the coefficient of x^(t+1) for byte j:
+        byte[][] coeffs = new byte[k - 1][length];
+        for (int t = 0; t < k - 1; t++)
+        {
+            random.nextBytes(coeffs[t]);
+        }
+
+        List<Gf256ShareInfo> ret = new ArrayList<Gf256ShareInfo>(n);
+        try
+        {
+            for (int x = 1; x <= n; x++)
+            {
+                ret.add(new Gf256ShareInfo(x, evaluate(coeffs, secret, x), k));
+            }
+        }
+        finally
+        {
+            for (byte[] row : coeffs)
+            {
+                Arrays.fill(row, (byte) 0);
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * @param shares at least k shares from split(), only the first k are used
+     * @return the secret bytes
+     * @throws SecretShareException if a share has a different k, length or a duplicate x
+     */
+    public byte[] combine(final List<Gf256ShareInfo> shares)
+    {
+        if (shares.size() < k)
+        {
+            throw new SecretShareException("Must have " + k + " shares to solve.  Only provided " + shares.size());
+        }
+        final int length = shares.get(0).data.length;
+        Set<Integer> seen = new HashSet<Integer>();
+        int[] xs = new int[k];
+        for (int i = 0; i < k; i++)
+        {
+            final Gf256ShareInfo share = shares.get(i);
+            if (share.getK() != k)
+            {
+                throw new SecretShareException("Share x=" + share.getX() + " has k=" + share.getK() +
+                                               ", should be " + k);
+            }
+            if (share.data.length != length)
+            {
+                throw new SecretShareException("Share x=" + share.getX() + " has " + share.data.length +
+                                               " bytes, should be " + length);
+            }
+            if (! seen.add(share.getX()))
+            {
+                throw new SecretShareException("Duplicate share x=" + share.getX());
+            }
+            xs[i] = share.getX();
+        }
+
+        final int[] weights = GF256.computeWeightsAtZero(xs);
+        byte[] ret = new byte[length];
+        for (int i = 0; i < k; i++)
+        {
+            final byte[] table = GF256.multiplicationTable(weights[i]);
+            final byte[] data = shares.get(i).data;
+            for (int j = 0; j < length; j++)
+            {
+                ret[j] ^= table[data[j] & 0xFF];
+            }
+        }
+        return ret;
+    }
+
+    // ==================================================
+    // non public methods
+    // ==================================================
+
+    /**
+     * Horner's rule, one coefficient row at a time:
+     *   f(x) = secret + x * (c[0] + x * (c[1] + ... + x * c[k-2]))
+     */
+    private static byte[] evaluate(final byte[][] coeffs,
+                                   final byte[] secret,
+                                   final int x)
+    {
+        final int length = secret.length;
+        final byte[] times = GF256.multiplicationTable(x);
+        byte[] ret = new byte[length];
+        if (coeffs.length > 0)
+        {
+            System.arraycopy(coeffs[coeffs.length - 1], 0, ret, 0, length);
+            for (int t = coeffs.length - 2; t >= 0; t--)
+            {
+                final byte[] row = coeffs[t];
+                for (int j = 0; j < length; j++)
+                {
+                    ret[j] = (byte) (times[ret[j] & 0xFF] ^ row[j]);
+                }
+            }
+            for (int j = 0; j < length; j++)
+            {
+                ret[j] = (byte) (times[ret[j] & 0xFF] ^ secret[j]);
+            }
+        }
+        else
+        {
+            System.arraycopy(secret, 0, ret, 0, length);
+        }
+        return ret;
+    }
+
+    /**
+     * One share: x, and the value of every byte's polynomial at x.
+     */
+    public static class Gf256ShareInfo
+    {
+        private final int x;
+        private final byte[] data;
+        private final int k;
+
+        /**
+         * @param inX 1..255
+         * @param inData the share bytes [copied]
+         * @param inK the threshold
+         */
+        public Gf256ShareInfo(final int inX,
+                              final byte[] inData,
+                              final int inK)
+        {
+            if ((inX < 1) || (inX > MAXIMUM_N))
+            {
+                throw new SecretShareException("x must be 1.." + MAXIMUM_N + ", was " + inX);
+            }
+            if (inData == null)
+            {
+                throw new SecretShareException("share data cannot be null");
+            }
+            x = inX;
+            data = inData.clone();
+            k = inK;
+        }
+
+        public final int getX()
+        {
+            return x;
+        }
+
+        public final int getK()
+        {
+            return k;
+        }
+
+        /**
+         * @return copy of the share bytes
+         */
+        public byte[] getData()
+        {
+            return data.clone();
+        }
+
+        public int getLength()
+        {
+            return data.length;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return x * 31 + Arrays.hashCode(data);
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (obj instanceof Gf256ShareInfo)
+            {
+                Gf256ShareInfo other = (Gf256ShareInfo) obj;
+                return ((x == other.x) && (k == other.k) && Arrays.equals(data, other.data));
+            }
+            else
+            {
+                return false;
+            }
+        }
+
+        @Override
+        public String toString()
+        {
+            return "Gf256ShareInfo[x=" + x + ", k=" + k + ", bytes=" + data.length + "]";
+        }
+    }
+}
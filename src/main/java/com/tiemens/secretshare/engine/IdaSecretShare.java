@@ -0,0 +1,546 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2014 Tim Tiemens.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ *
+ * Contributors:
+ *     Tim Tiemens - initial API and implementation
+ *******************************************************************************/
+package com.tiemens.secretshare.engine;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import com.tiemens.secretshare.engine.SecretShare.PublicInfo;
+import com.tiemens.secretshare.engine.SecretShare.ShareInfo;
+import com.tiemens.secretshare.exceptions.SecretShareException;
+import com.tiemens.secretshare.math.field.GF256;
+
+/**
+ * Hybrid sharing of a large payload [Krawczyk, "Secret Sharing Made Short"]:
+ *
+ *   1. the payload is encrypted with a random 256-bit key  [AES-CTR, then HMAC-SHA256 over each chunk]
+ *   2. the key is split with SecretShare [Shamir, 384-bit prime]
+ *   3. the ciphertext is dispersed with Rabin's IDA over GF(256):
+ *        every k ciphertext bytes are the coefficients of a polynomial, and share x gets its value at x.
+ *
+ * So each share holds |payload| / k bytes of ciphertext [plus a small header], not |payload| bytes,
+ *   and any k shares recover the key, the ciphertext, and then the payload.
+ * Fewer than k shares reveal nothing about the key, so nothing about the payload.
+ *
+ * Split and combine both stream: the payload is read, and written, one chunk at a time.
+ * Each chunk has its own tag, and combine() checks it before it decrypts the chunk, so it never writes
+ *   plaintext that was not authenticated.  The tag covers the chunk number and a last-chunk flag, so chunks
+ *   cannot be reordered, and the payload cannot be truncated at a chunk boundary.
+ *
+ * Share stream format [DataOutputStream]:
+ *   int magic, byte version, int n, int k, int x,
+ *   int length + bytes: the prime modulus of the key share,
+ *   int length + bytes: the key share,
+ *   16 bytes: the AES-CTR initial counter,
+ *   repeated: int ciphertextLength, byte last [1 on the final chunk, else 0],
+ *             then ceil((ciphertextLength + 32) / k) dispersed bytes of the ciphertext and its tag,
+ *             tag = HMAC-SHA256(initial counter, long chunk number, byte last, ciphertext)
+ *   The final chunk can be empty, and there is nothing after it.
+ *
+ * @author tiemens
+ *
+ */
+public class IdaSecretShare
+{
+    // ==================================================
+    // class static data
+    // ==================================================
+
+    // "SSID"
+    private static final int MAGIC = 0x53534944;
+    private static final byte VERSION = 1;
+
+    private static final int KEY_BYTES = 32;
+    private static final int IV_BYTES = 16;
+    private static final int TAG_BYTES = 32;
+
+    // ciphertext bytes per chunk, per k: a chunk is (k * GROUPS_PER_CHUNK) bytes
+    private static final int GROUPS_PER_CHUNK = 16 * 1024;
+
+    // ==================================================
+    // class static methods
+    // ==================================================
+
+    // ==================================================
+    // instance data
+    // ==================================================
+
+    private final int n;
+    private final int k;
+
+    // ==================================================
+    // factories
+    // ==================================================
+
+    // ==================================================
+    // constructors
+    // ==================================================
+
+    /**
+     * @param inN number of shares, 1..255
+     * @param inK threshold, 1..n
+     */
+    public IdaSecretShare(final int inN,
+                          final int inK)
+    {
+        if ((inK < 1) || (inK > inN))
+        {
+            throw new SecretShareException("k must be 1..n [k=" + inK + " n=" + inN + "]");
+        }
+        if (inN > GF256.ORDER - 1)
+        {
+            throw new SecretShareException("n cannot be bigger than " + (GF256.ORDER - 1) + ", was " + inN);
+        }
+        n = inN;
+        k = inK;
+    }
+
+    // ==================================================
+    // public methods
+    // ==================================================
+
+    public int getN()
+    {
+        return n;
+    }
+
+    public int getK()
+    {
+        return k;
+    }
+
+    /**
+     * @param payload read to the end [not closed]
+     * @param shares n streams, shares[i] gets share x = i + 1 [not closed]
+     * @throws IOException from the streams
+     */
+    public void split(final InputStream payload,
+                      final OutputStream[] shares)
+        throws IOException
+    {
+        split(payload, shares, new SecureRandom());
+    }
+
+    /**
+     * @param payload read to the end [not closed]
+     * @param shares n streams, shares[i] gets share x = i + 1 [not closed]
+     * @param random for the key, the initial counter and the key split
+     * @throws IOException from the streams
+     */
+    public void split(final InputStream payload,
+                      final OutputStream[] shares,
+                      final Random random)
+        throws IOException
+    {
+        if (shares.length != n)
+        {
+            throw new SecretShareException("Must have " + n + " share streams, have " + shares.length);
+        }
+
+        byte[] key = new byte[KEY_BYTES];
+        BigInteger keyAsNumber;
+        do
+        {
+            random.nextBytes(key);
+            keyAsNumber = new BigInteger(1, key);
+        }
+        while (keyAsNumber.signum() == 0);
+        byte[] iv = new byte[IV_BYTES];
+        random.nextBytes(iv);
+
+        final BigInteger modulus = SecretShare.getPrimeUsedFor384bitSecretPayload();
+        SecretShare secretShare = new SecretShare(new PublicInfo(n, k, modulus, "IdaSecretShare key"));
+        List<ShareInfo> keyShares = secretShare.split(keyAsNumber, random).getShareInfos();
+
+        DataOutputStream[] outs = new DataOutputStream[n];
+        for (int i = 0; i < n; i++)
+        {
+            outs[i] = new DataOutputStream(shares[i]);
+            outs[i].writeInt(MAGIC);
+            outs[i].writeByte(VERSION);
+            outs[i].writeInt(n);
+            outs[i].writeInt(k);
+            outs[i].writeInt(i + 1);
+            writeBytes(outs[i], modulus.toByteArray());
+            writeBytes(outs[i], keyShares.get(i).getShare().toByteArray());
+            outs[i].write(iv);
+        }
+
+        final Cipher cipher = createCipher(Cipher.ENCRYPT_MODE, key, iv);
+        final Mac mac = createMac(key);
+        Arrays.fill(key, (byte) 0);
+
+        final byte[][] times = new byte[n][];
+        for (int i = 0; i < n; i++)
+        {
+            times[i] = GF256.multiplicationTable(i + 1);
+        }
+
+        final int chunkSize = k * GROUPS_PER_CHUNK;
+        byte[] plain = new byte[chunkSize];
+        byte[] chunk = new byte[chunkSize + TAG_BYTES];
+        byte[] dispersed = new byte[getMaximumGroups()];
+        long chunkNumber = 0;
+        boolean last = false;
+        while (! last)
+        {
+            // a short read is the end [so a payload that fills its chunks ends with an empty one]
+            final int count = readFully(payload, plain, chunkSize);
+            last = (count < chunkSize);
+            final byte[] ciphertext = (last) ? doFinal(cipher, plain, count) : cipher.update(plain, 0, count);
+            final int length = (ciphertext != null) ? ciphertext.length : 0;
+            if (length > 0)
+            {
+                System.arraycopy(ciphertext, 0, chunk, 0, length);
+            }
+            System.arraycopy(computeTag(mac, iv, chunkNumber, last, chunk, length), 0, chunk, length, TAG_BYTES);
+            writeChunk(outs, times, chunk, length, last, dispersed);
+            chunkNumber++;
+        }
+
+        for (DataOutputStream out : outs)
+        {
+            out.flush();
+        }
+    }
+
+    /**
+     * @param shares at least k share streams from split(), only the first k are read [not closed]
+     * @param payload gets the original payload [not closed]
+     * @throws IOException from the streams
+     * @throws SecretShareException if the shares do not match, or the payload fails authentication
+     */
+    public void combine(final InputStream[] shares,
+                        final OutputStream payload)
+        throws IOException
+    {
+        if (shares.length < k)
+        {
+            throw new SecretShareException("Must have " + k + " shares to solve.  Only provided " + shares.length);
+        }
+
+        DataInputStream[] ins = new DataInputStream[k];
+        int[] xs = new int[k];
+        List<ShareInfo> keyShares = new ArrayList<ShareInfo>();
+        BigInteger modulus = null;
+        byte[] iv = null;
+        for (int i = 0; i < k; i++)
+        {
+            ins[i] = new DataInputStream(shares[i]);
+            if ((ins[i].readInt() != MAGIC) || (ins[i].readByte() != VERSION))
+            {
+                throw new SecretShareException("Share stream " + i + " is not an IdaSecretShare share");
+            }
+            final int shareN = ins[i].readInt();
+            final int shareK = ins[i].readInt();
+            if (shareK != k)
+            {
+                throw new SecretShareException("Share stream " + i + " has k=" + shareK + ", should be " + k);
+            }
+            xs[i] = ins[i].readInt();
+            final BigInteger shareModulus = new BigInteger(readBytes(ins[i]));
+            final BigInteger keyShare = new BigInteger(readBytes(ins[i]));
+            final byte[] shareIv = new byte[IV_BYTES];
+            ins[i].readFully(shareIv);
+            if (i == 0)
+            {
+                modulus = shareModulus;
+                iv = shareIv;
+            }
+            else if ((! modulus.equals(shareModulus)) || (! Arrays.equals(iv, shareIv)))
+            {
+                throw new SecretShareException("Share stream " + i + " is from a different split");
+            }
+            keyShares.add(new ShareInfo(xs[i], keyShare, new PublicInfo(shareN, k, modulus, "IdaSecretShare key")));
+        }
+
+        final BigInteger keyAsNumber = new SecretShare(keyShares.get(0).getPublicInfo()).combine(keyShares).getSecret();
+        final byte[] key = toFixedBytes(keyAsNumber, KEY_BYTES);
+        final Cipher cipher = createCipher(Cipher.DECRYPT_MODE, key, iv);
+        final Mac mac = createMac(key);
+        Arrays.fill(key, (byte) 0);
+
+        // inverse[j][i]: coefficient j is the sum of inverse[j][i] * share i
+        final int[][] inverse = GF256.invertVandermonde(xs);
+        final byte[][][] times = new byte[k][k][];
+        for (int j = 0; j < k; j++)
+        {
+            for (int i = 0; i < k; i++)
+            {
+                times[j][i] = GF256.multiplicationTable(inverse[j][i]);
+            }
+        }
+
+        final int maximumGroups = getMaximumGroups();
+        byte[][] dispersed = new byte[k][maximumGroups];
+        byte[] ciphertext = new byte[k * maximumGroups];
+        byte[] expected = new byte[TAG_BYTES];
+        long chunkNumber = 0;
+        boolean last = false;
+        while (! last)
+        {
+            final int length = ins[0].readInt();
+            final byte lastFlag = ins[0].readByte();
+            for (int i = 1; i < k; i++)
+            {
+                if ((ins[i].readInt() != length) || (ins[i].readByte() != lastFlag))
+                {
+                    throw new SecretShareException("Share stream " + i + " has a different chunk header");
+                }
+            }
+            if ((length < 0) || (length > k * GROUPS_PER_CHUNK) || ((lastFlag != 0) && (lastFlag != 1)))
+            {
+                throw new SecretShareException("Chunk length " + length + " is not valid");
+            }
+            last = (lastFlag == 1);
+            final int groups = (length + TAG_BYTES + k - 1) / k;
+            for (int i = 0; i < k; i++)
+            {
+                ins[i].readFully(dispersed[i], 0, groups);
+            }
+
+            // c[g*k + j] = sum over i of inverse[j][i] * dispersed[i][g]
+            Arrays.fill(ciphertext, 0, groups * k, (byte) 0);
+            for (int j = 0; j < k; j++)
+            {
+                for (int i = 0; i < k; i++)
+                {
+                    final byte[] table = times[j][i];
+                    final byte[] row = dispersed[i];
+                    for (int g = 0, c = j; g < groups; g++, c += k)
+                    {
+                        ciphertext[c] ^= table[row[g] & 0xFF];
+                    }
+                }
+            }
+
+            // the tag follows the ciphertext: check it before anything of this chunk is decrypted
+            System.arraycopy(ciphertext, length, expected, 0, TAG_BYTES);
+            if (! MessageDigest.isEqual(computeTag(mac, iv, chunkNumber, last, ciphertext, length), expected))
+            {
+                throw new SecretShareException("Chunk " + chunkNumber + " failed authentication, " +
+                                               "the shares are damaged or do not match");
+            }
+            final byte[] plain = (last) ? doFinal(cipher, ciphertext, length) : cipher.update(ciphertext, 0, length);
+            if ((plain != null) && (plain.length > 0))
+            {
+                payload.write(plain);
+            }
+            chunkNumber++;
+        }
+        payload.flush();
+    }
+
+    // ==================================================
+    // non public methods
+    // ==================================================
+
+    /**
+     * @return dispersed bytes per share of the biggest chunk, with its tag
+     */
+    private int getMaximumGroups()
+    {
+        return (k * GROUPS_PER_CHUNK + TAG_BYTES + k - 1) / k;
+    }
+
+    /**
+     * Disperse one chunk of ciphertext and its tag [chunk[0 .. length + TAG_BYTES - 1]]:
+     *   group g is the k bytes [g*k .. g*k+k-1] [zero padded],
+     *   and share x gets f(x) = c[0] + c[1] x + ... + c[k-1] x^(k-1)  [Horner's rule].
+     */
+    private void writeChunk(final DataOutputStream[] outs,
+                            final byte[][] times,
+                            final byte[] chunk,
+                            final int ciphertextLength,
+                            final boolean last,
+                            final byte[] dispersed)
+        throws IOException
+    {
+        final int length = ciphertextLength + TAG_BYTES;
+        final int groups = (length + k - 1) / k;
+        for (int i = 0; i < n; i++)
+        {
+            final byte[] table = times[i];
+            for (int g = 0; g < groups; g++)
+            {
+                final int base = g * k;
+                int acc = 0;
+                for (int j = k - 1; j >= 0; j--)
+                {
+                    final int c = base + j;
+                    acc = (table[acc] & 0xFF) ^ ((c < length) ? (chunk[c] & 0xFF) : 0);
+                }
+                dispersed[g] = (byte) acc;
+            }
+            outs[i].writeInt(ciphertextLength);
+            outs[i].writeByte((last) ? 1 : 0);
+            outs[i].write(dispersed, 0, groups);
+        }
+    }
+
+    private static Cipher createCipher(final int mode,
+                                       final byte[] key,
+                                       final byte[] iv)
+    {
+        try
+        {
+            Cipher ret = Cipher.getInstance("AES/CTR/NoPadding");
+            ret.init(mode, new SecretKeySpec(deriveKey(key, "enc"), "AES"), new IvParameterSpec(iv));
+            return ret;
+        }
+        catch (GeneralSecurityException e)
+        {
+            throw new SecretShareException("AES/CTR is not available", e);
+        }
+    }
+
+    private static Mac createMac(final byte[] key)
+    {
+        try
+        {
+            Mac ret = Mac.getInstance("HmacSHA256");
+            ret.init(new SecretKeySpec(deriveKey(key, "mac"), "HmacSHA256"));
+            return ret;
+        }
+        catch (GeneralSecurityException e)
+        {
+            throw new SecretShareException("HmacSHA256 is not available", e);
+        }
+    }
+
+    /**
+     * The tag of one chunk covers the initial counter, the chunk number, the last flag, then the ciphertext.
+     *
+     * @return the tag of chunk[0 .. length - 1]
+     */
+    private static byte[] computeTag(final Mac mac,
+                                     final byte[] iv,
+                                     final long chunkNumber,
+                                     final boolean last,
+                                     final byte[] chunk,
+                                     final int length)
+    {
+        mac.update(iv);
+        for (int shift = 56; shift >= 0; shift -= 8)
+        {
+            mac.update((byte) (chunkNumber >>> shift));
+        }
+        mac.update((byte) ((last) ? 1 : 0));
+        mac.update(chunk, 0, length);
+        return mac.doFinal();
+    }
+
+    /**
+     * Separate keys for the cipher and the MAC: SHA-256(label || key).
+     */
+    private static byte[] deriveKey(final byte[] key,
+                                    final String label)
+        throws GeneralSecurityException
+    {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        digest.update(label.getBytes(StandardCharsets.US_ASCII));
+        return digest.digest(key);
+    }
+
+    private static byte[] doFinal(final Cipher cipher,
+                                  final byte[] input,
+                                  final int length)
+    {
+        try
+        {
+            return cipher.doFinal(input, 0, length);
+        }
+        catch (GeneralSecurityException e)
+        {
+            throw new SecretShareException("Cipher failed", e);
+        }
+    }
+
+    private static byte[] toFixedBytes(final BigInteger value,
+                                       final int length)
+    {
+        final byte[] bytes = value.toByteArray();
+        if ((value.signum() < 0) || (value.bitLength() > length * 8))
+        {
+            throw new SecretShareException("Recovered key is out of range, the key shares do not match");
+        }
+        byte[] ret = new byte[length];
+        final int copy = Math.min(bytes.length, length);
+        System.arraycopy(bytes, bytes.length - copy, ret, length - copy, copy);
+        return ret;
+    }
+
+    /**
+     * @return number of bytes read, less than max only at the end of the stream
+     */
+    private static int readFully(final InputStream in,
+                                 final byte[] buffer,
+                                 final int max)
+        throws IOException
+    {
+        int ret = 0;
+        while (ret < max)
+        {
+            final int count = in.read(buffer, ret, max - ret);
+            if (count < 0)
+            {
+                break;
+            }
+            ret += count;
+        }
+        return ret;
+    }
+
+    private static void writeBytes(final DataOutputStream out,
+                                   final byte[] bytes)
+        throws IOException
+    {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static byte[] readBytes(final DataInputStream in)
+        throws IOException
+    {
+        final int length = in.readInt();
+        // the longest field is a 384-bit number:
+        if ((length < 1) || (length > 1024))
+        {
+            throw new SecretShareException("Share field length " + length + " is not valid");
+        }
+        byte[] ret = new byte[length];
+        in.readFully(ret);
+        return ret;
+    }
+}
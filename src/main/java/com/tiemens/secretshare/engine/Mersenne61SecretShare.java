@@ -0,0 +1,300 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2014 Tim Tiemens.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ *
+ * Contributors:
+ *     Tim Tiemens - initial API and implementation
+ *******************************************************************************/
+package com.tiemens.secretshare.engine;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Random;
+
+import com.tiemens.secretshare.engine.SecretShare.PublicInfo;
+import com.tiemens.secretshare.exceptions.SecretShareException;
+import com.tiemens.secretshare.math.field.Mersenne61;
+
+/**
+ * Shamir secret sharing of a vector of small secrets ["limbs"] over p = 2^61 - 1, with long arithmetic only.
+ *
+ * Each limb is the constant term of its own random polynomial of degree (k - 1),
+ *   and share x is the vector of every polynomial's value at x.
+ * Shares are long[] [one value per limb], not ShareInfo objects, and there is no BigInteger.
+ *
+ * The PublicInfo modulus is the marker for this field: it must be Mersenne61.MODULUS.
+ * A share of one limb is the same as a SecretShare share over that modulus.
+ *
+ * A BigInteger secret of any size is cut into LIMB_BITS limbs by toLimbs() [fromLimbs() puts it back].
+ *
+ * @author tiemens
+ *
+ */
+public class Mersenne61SecretShare
+{
+    // ==================================================
+    // class static data
+    // ==================================================
+
+    // limbs are whole bytes, and always smaller than p
+    public static final int LIMB_BITS = 56;
+
+    private static final long LIMB_MASK = (1L << LIMB_BITS) - 1;
+
+    // ==================================================
+    // class static methods
+    // ==================================================
+
+    /**
+     * @param publicInfo to check
+     * @return true if publicInfo's modulus selects this engine
+     */
+    public static boolean isMersenne61(final PublicInfo publicInfo)
+    {
+        return Mersenne61.MODULUS.equals(publicInfo.getPrimeModulus());
+    }
+
+    /**
+     * @param secret non-negative
+     * @return secret in base 2^LIMB_BITS, most significant limb first, at least 1 limb
+     */
+    public static long[] toLimbs(final BigInteger secret)
+    {
+        if (secret.signum() < 0)
+        {
+            throw new SecretShareException("Secret cannot be negative");
+        }
+        final int count = Math.max(1, (secret.bitLength() + LIMB_BITS - 1) / LIMB_BITS);
+        long[] ret = new long[count];
+        for (int i = 0; i < count; i++)
+        {
+            ret[i] = secret.shiftRight(LIMB_BITS * (count - 1 - i)).longValue() & LIMB_MASK;
+        }
+        return ret;
+    }
+
+    /**
+     * @param limbs from toLimbs(), each 0 .. 2^LIMB_BITS - 1
+     * @return the secret
+     */
+    public static BigInteger fromLimbs(final long[] limbs)
+    {
+        BigInteger ret = BigInteger.ZERO;
+        for (long limb : limbs)
+        {
+            if ((limb & ~LIMB_MASK) != 0)
+            {
+                throw new SecretShareException("Limb " + limb + " is bigger than " + LIMB_BITS + " bits");
+            }
+            ret = ret.shiftLeft(LIMB_BITS).or(BigInteger.valueOf(limb));
+        }
+        return ret;
+    }
+
+    // ==================================================
+    // instance data
+    // ==================================================
+
+    private final PublicInfo publicInfo;
+
+    // ==================================================
+    // factories
+    // ==================================================
+
+    // ==================================================
+    // constructors
+    // ==================================================
+
+    /**
+     * @param inPublicInfo with k, and a modulus of Mersenne61.MODULUS; n is needed for split()
+     */
+    public Mersenne61SecretShare(final PublicInfo inPublicInfo)
+    {
+        if (! isMersenne61(inPublicInfo))
+        {
+            throw new SecretShareException("modulus must be 2^61-1, was " + inPublicInfo.getPrimeModulus());
+        }
+        if (inPublicInfo.getK() < 1)
+        {
+            throw new SecretShareException("k must be at least 1, was " + inPublicInfo.getK());
+        }
+        publicInfo = inPublicInfo;
+    }
+
+    // ==================================================
+    // public methods
+    // ==================================================
+
+    public final PublicInfo getPublicInfo()
+    {
+        return publicInfo;
+    }
+
+    /**
+     * @param secrets the limbs to split, each 0 .. p-1, at least 1
+     * @return n shares, ret[x - 1] is share x, with one value per limb
+     */
+    public long[][] split(final long[] secrets)
+    {
+        return split(secrets, new SecureRandom());
+    }
+
+    /**
+     * @param secrets the limbs to split, each 0 .. p-1, at least 1
+     * @param random to use for the coefficients
+     * @return n shares, ret[x - 1] is share x, with one value per limb
+     */
+    public long[][] split(final long[] secrets,
+                          final Random random)
+    {
+        if ((secrets == null) || (secrets.length == 0))
+        {
+            throw new SecretShareException("Secret cannot be empty");
+        }
+        checkValues("Secret", secrets);
+        final int n = publicInfo.getNforSplit();
+        final int k = publicInfo.getK();
+        final int length = secrets.length;
+
+        // coeffs[t][j] is the coefficient of x^(t+1) for limb j:
+        long[][] coeffs = new long[k - 1][length];
+        for (int t = 0; t < k - 1; t++)
+        {
+            for (int j = 0; j < length; j++)
+            {
+                coeffs[t][j] = randomValue(random);
+            }
+        }
+
+        long[][] ret = new long[n][];
+        try
+        {
+            for (int x = 1; x <= n; x++)
+            {
+                ret[x - 1] = evaluate(coeffs, secrets, x);
+            }
+        }
+        finally
+        {
+            for (long[] row : coeffs)
+            {
+                Arrays.fill(row, 0);
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * @param xs the x of each share, only the first k are used
+     * @param shares shares[i] is share xs[i], all the same length
+     * @return the limbs
+     */
+    public long[] combine(final int[] xs,
+                          final long[][] shares)
+    {
+        final int k = publicInfo.getK();
+        if ((xs.length < k) || (shares.length < k))
+        {
+            throw new SecretShareException("Must have " + k + " shares to solve.  Only provided " +
+                                           Math.min(xs.length, shares.length));
+        }
+        final int length = shares[0].length;
+        long[] use = new long[k];
+        for (int i = 0; i < k; i++)
+        {
+            if (shares[i].length != length)
+            {
+                throw new SecretShareException("Share x=" + xs[i] + " has " + shares[i].length +
+                                               " values, should be " + length);
+            }
+            checkValues("Share x=" + xs[i], shares[i]);
+            use[i] = xs[i];
+        }
+
+        final long[] weights = Mersenne61.computeWeightsAtZero(use);
+        long[] ret = new long[length];
+        for (int i = 0; i < k; i++)
+        {
+            final long weight = weights[i];
+            final long[] share = shares[i];
+            for (int j = 0; j < length; j++)
+            {
+                ret[j] = Mersenne61.add(ret[j], Mersenne61.multiply(weight, share[j]));
+            }
+        }
+        return ret;
+    }
+
+    // ==================================================
+    // non public methods
+    // ==================================================
+
+    /**
+     * Horner's rule, one coefficient row at a time:
+     *   f(x) = secret + x * (c[0] + x * (c[1] + ... + x * c[k-2]))
+     */
+    private static long[] evaluate(final long[][] coeffs,
+                                   final long[] secrets,
+                                   final long x)
+    {
+        final int length = secrets.length;
+        long[] ret = new long[length];
+        if (coeffs.length > 0)
+        {
+            System.arraycopy(coeffs[coeffs.length - 1], 0, ret, 0, length);
+            for (int t = coeffs.length - 2; t >= 0; t--)
+            {
+                final long[] row = coeffs[t];
+                for (int j = 0; j < length; j++)
+                {
+                    ret[j] = Mersenne61.add(Mersenne61.multiply(ret[j], x), row[j]);
+                }
+            }
+            for (int j = 0; j < length; j++)
+            {
+                ret[j] = Mersenne61.add(Mersenne61.multiply(ret[j], x), secrets[j]);
+            }
+        }
+        else
+        {
+            System.arraycopy(secrets, 0, ret, 0, length);
+        }
+        return ret;
+    }
+
+    /**
+     * @return uniform in 0 .. p-1 [61 random bits, and p itself is rejected]
+     */
+    private static long randomValue(final Random random)
+    {
+        long ret;
+        do
+        {
+            ret = random.nextLong() >>> 3;
+        }
+        while (ret == Mersenne61.P);
+        return ret;
+    }
+
+    private static void checkValues(final String what,
+                                    final long[] values)
+    {
+        for (long value : values)
+        {
+            if ((value < 0) || (value >= Mersenne61.P))
+            {
+                throw new SecretShareException(what + " value " + value + " is not in 0..2^61-2");
+            }
+        }
+    }
+}
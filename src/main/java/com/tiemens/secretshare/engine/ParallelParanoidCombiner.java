@@ -0,0 +1,308 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2014 Tim Tiemens.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ *
+ * Contributors:
+ *     Tim Tiemens - initial API and implementation
+ *******************************************************************************/
+package com.tiemens.secretshare.engine;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.tiemens.secretshare.engine.SecretShare.ParanoidInput;
+import com.tiemens.secretshare.engine.SecretShare.ParanoidOutput;
+import com.tiemens.secretshare.engine.SecretShare.ShareInfo;
+import com.tiemens.secretshare.exceptions.SecretShareException;
+import com.tiemens.secretshare.math.combination.CombinationCursor;
+import com.tiemens.secretshare.math.combination.CombinationGenerator;
+
+/**
+ * The exhaustive "paranoid" combine, run on several threads.
+ *
+ * The combination space is handed out in blocks of consecutive combination numbers
+ *   (rank ranges), and each worker unranks the start of its block with its own
+ *   CombinationCursor, so no combination is replayed or generated under a lock.
+ * Each worker combines its blocks and keeps its own tally,
+ *   and the tallies are merged into the ParanoidOutput at the end.
+ *
+ * The settings keep their meaning:
+ *   maximumCombinationsAllowedToTest - exactly the same combinations as the sequential loop are tested
+ *   stopCombiningWhenAnyCount        - all workers stop once any secret has been seen this many times,
+ *                                      the secret that stopped them is counted exactly this many times,
+ *                                      and no secret is counted more than this many times
+ * Without stopCombiningWhenAnyCount the output is identical to the sequential loop.
+ * With it, which combinations were tested before the stop depends on thread timing.
+ *
+ * @author tiemens
+ *
+ */
+final class ParallelParanoidCombiner
+{
+    // ==================================================
+    // class static data
+    // ==================================================
+
+    // combinations handed to a worker at a time
+    private static final int BLOCK_SIZE = 64;
+
+    // ==================================================
+    // instance data
+    // ==================================================
+
+    private final SecretShare secretShare;
+    private final int threads;
+
+    // ==================================================
+    // constructors
+    // ==================================================
+
+    ParallelParanoidCombiner(final SecretShare inSecretShare,
+                             final int inThreads)
+    {
+        if (inThreads < 1)
+        {
+            throw new SecretShareException("threads must be at least 1, was " + inThreads);
+        }
+        secretShare = inSecretShare;
+        threads = inThreads;
+    }
+
+    // ==================================================
+    // public methods
+    // ==================================================
+
+    ParanoidOutput combine(final List<ShareInfo> shares,
+                           final ParanoidInput paranoidInput)
+    {
+        final ParanoidOutput ret = new ParanoidOutput(paranoidInput);
+
+        final BigInteger total = CombinationGenerator.binomial(shares.size(), secretShare.getPublicInfo().getK());
+        ret.setTotalNumberOfAvailableCombinations(total);
+        ret.initCount();
+
+        BigInteger limit = total;
+        if ((paranoidInput.getMaximumCombinationsAllowedToTest() != null) &&
+            (paranoidInput.getMaximumCombinationsAllowedToTest().compareTo(limit) < 0))
+        {
+            limit = paranoidInput.getMaximumCombinationsAllowedToTest().max(BigInteger.ZERO);
+        }
+
+        final Source source = new Source(limit);
+        final Integer stopWhen = paranoidInput.getStopCombiningWhenAnyCount();
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Tally> tallies = new ArrayList<Tally>();
+        try
+        {
+            List<Future<Tally>> futures = new ArrayList<Future<Tally>>();
+            for (int i = 0; i < threads; i++)
+            {
+                futures.add(pool.submit(new Worker(shares, source, ret, stopWhen)));
+            }
+            for (Future<Tally> future : futures)
+            {
+                tallies.add(future.get());
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new SecretShareException("Interrupted during parallel paranoid combine", e);
+        }
+        catch (ExecutionException e)
+        {
+            if (e.getCause() instanceof RuntimeException)
+            {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new SecretShareException("Parallel paranoid combine failed", e.getCause());
+        }
+        finally
+        {
+            source.stop.set(true);
+            pool.shutdownNow();
+        }
+
+        // merge, with the recorded lines in combination-number order:
+        TreeMap<BigInteger, String[]> records = new TreeMap<BigInteger, String[]>();
+        for (Tally tally : tallies)
+        {
+            for (Map.Entry<BigInteger, Integer> entry : tally.secretToCount.entrySet())
+            {
+                ret.addThisSecret(entry.getKey(), entry.getValue());
+            }
+            ret.addToCount(tally.count);
+            records.putAll(tally.records);
+        }
+        for (Map.Entry<BigInteger, String[]> entry : records.entrySet())
+        {
+            ret.recordCombination(entry.getKey(), entry.getValue()[0], entry.getValue()[1]);
+        }
+
+        return ret;
+    }
+
+    // ==================================================
+    // non public methods
+    // ==================================================
+
+    /**
+     * Hands out blocks of consecutive combination numbers (rank ranges), and holds the shared stop state.
+     */
+    private static final class Source
+    {
+        private final BigInteger limit;
+        private final AtomicBoolean stop = new AtomicBoolean(false);
+        // only used when stopCombiningWhenAnyCount is set:
+        private final ConcurrentHashMap<BigInteger, AtomicInteger> globalCounts =
+            new ConcurrentHashMap<BigInteger, AtomicInteger>();
+
+        // 0-based rank of the next combination to hand out
+        private BigInteger next = BigInteger.ZERO;
+
+        private Source(BigInteger inLimit)
+        {
+            limit = inLimit;
+        }
+
+        /**
+         * @return {from, to} ranks, to is exclusive, or null if there is no more work
+         */
+        private synchronized BigInteger[] nextBlock()
+        {
+            if (stop.get() || (next.compareTo(limit) >= 0))
+            {
+                return null;
+            }
+            BigInteger from = next;
+            next = limit.min(next.add(BigInteger.valueOf(BLOCK_SIZE)));
+            return new BigInteger[] {from, next};
+        }
+    }
+
+    /**
+     * The per-worker results.
+     */
+    private static final class Tally
+    {
+        private final Map<BigInteger, Integer> secretToCount = new HashMap<BigInteger, Integer>();
+        private long count = 0;
+        // combination number to {indexesAsString, dumpshares}
+        private final Map<BigInteger, String[]> records = new HashMap<BigInteger, String[]>();
+    }
+
+    private final class Worker
+        implements Callable<Tally>
+    {
+        private final List<ShareInfo> shares;
+        private final Source source;
+        private final ParanoidOutput output;
+        private final Integer stopWhen;
+
+        private Worker(List<ShareInfo> inShares,
+                       Source inSource,
+                       ParanoidOutput inOutput,
+                       Integer inStopWhen)
+        {
+            shares = inShares;
+            source = inSource;
+            output = inOutput;
+            stopWhen = inStopWhen;
+        }
+
+        @Override
+        public Tally call()
+        {
+            Tally ret = new Tally();
+            final int k = secretShare.getPublicInfo().getK();
+            // each worker has its own cursor, positioned at the start of each block:
+            CombinationCursor cursor = new CombinationCursor(shares.size(), k);
+            List<ShareInfo> usetheseshares = new ArrayList<ShareInfo>(shares.subList(0, k));
+            BigInteger[] block;
+            while ((block = source.nextBlock()) != null)
+            {
+                cursor.moveToCombinationNumber(block[0]);
+                final long blockSize = block[1].subtract(block[0]).longValue();
+                for (long done = 0; done < blockSize; done++)
+                {
+                    if (source.stop.get())
+                    {
+                        return ret;
+                    }
+
+                    // the sequential loop checks timeToOutput() with count == (number - 1)
+                    final boolean record = output.timeToOutput(cursor.getCurrentCombinationNumberAsBigInteger());
+                    cursor.advance();
+                    final int[] indexes = cursor.getIndexes();
+                    for (int i = 0; i < k; i++)
+                    {
+                        usetheseshares.set(i, shares.get(indexes[i]));
+                    }
+
+                    BigInteger solve = secretShare.combine(usetheseshares).getSecret();
+
+                    boolean last = false;
+                    if (stopWhen != null)
+                    {
+                        AtomicInteger global = source.globalCounts.get(solve);
+                        if (global == null)
+                        {
+                            source.globalCounts.putIfAbsent(solve, new AtomicInteger());
+                            global = source.globalCounts.get(solve);
+                        }
+                        final int seen = global.incrementAndGet();
+                        if (seen > stopWhen)
+                        {
+                            // another worker already counted this secret stopWhen times
+                            return ret;
+                        }
+                        if (seen == stopWhen)
+                        {
+                            // this is the combine that hit the limit, so it is counted before stopping
+                            source.stop.set(true);
+                            last = true;
+                        }
+                        // seen < stopWhen is counted even if another worker stopped in the meantime
+                    }
+
+                    if (record)
+                    {
+                        ret.records.put(cursor.getCurrentCombinationNumberAsBigInteger(),
+                                        new String[] {cursor.getIndexesAsString(),
+                                                      SecretShare.dumpshares(usetheseshares)});
+                    }
+                    Integer prev = ret.secretToCount.get(solve);
+                    ret.secretToCount.put(solve, (prev == null) ? 1 : prev + 1);
+                    ret.count++;
+                    if (last)
+                    {
+                        return ret;
+                    }
+                }
+            }
+            return ret;
+        }
+    }
+}
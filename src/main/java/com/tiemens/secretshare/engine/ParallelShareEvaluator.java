@@ -0,0 +1,150 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2014 Tim Tiemens.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ *
+ * Contributors:
+ *     Tim Tiemens - initial API and implementation
+ *******************************************************************************/
+package com.tiemens.secretshare.engine;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+
+import com.tiemens.secretshare.exceptions.SecretShareException;
+import com.tiemens.secretshare.math.equation.PolyEquationImpl;
+import com.tiemens.secretshare.math.field.ModularField;
+
+/**
+ * The share evaluation of split(), run on several threads.
+ *
+ * The coefficients are drawn from the Random by the caller, before this class is used,
+ *   so the polynomial is the same no matter how many threads evaluate it.
+ * x = 1..n is cut into one contiguous range per thread, each range is evaluated
+ *   into its own slots of the result array, and the caller builds the shares in x order.
+ * The output is identical to the sequential split().
+ *
+ * @author tiemens
+ *
+ */
+final class ParallelShareEvaluator
+{
+    // ==================================================
+    // class static data
+    // ==================================================
+
+    // ==================================================
+    // instance data
+    // ==================================================
+
+    private final int threads;
+    // if null, a pool of 'threads' is created [and shut down] for each evaluate()
+    private final Executor executor;
+
+    // ==================================================
+    // constructors
+    // ==================================================
+
+    ParallelShareEvaluator(final int inThreads,
+                           final Executor inExecutor)
+    {
+        if (inThreads < 1)
+        {
+            throw new SecretShareException("threads must be at least 1, was " + inThreads);
+        }
+        threads = inThreads;
+        executor = inExecutor;
+    }
+
+    // ==================================================
+    // public methods
+    // ==================================================
+
+    /**
+     * @param equation the split polynomial
+     * @param n evaluate x = 1..n
+     * @param k threshold [number of coefficients]
+     * @param field the prime modulus, or null for exact values
+     * @return values, [x - 1] is f(x)
+     */
+    BigInteger[] evaluate(final PolyEquationImpl equation,
+                          final int n,
+                          final int k,
+                          final ModularField field)
+    {
+        final BigInteger[] ret = new BigInteger[n];
+        final int ranges = Math.min(threads, n);
+        if (ranges <= 1)
+        {
+            SecretShare.evaluateRange(equation, 1, n, k, field, ret);
+            return ret;
+        }
+
+        ExecutorService pool = null;
+        Executor use = executor;
+        if (use == null)
+        {
+            pool = Executors.newFixedThreadPool(ranges);
+            use = pool;
+        }
+        try
+        {
+            List<FutureTask<Void>> tasks = new ArrayList<FutureTask<Void>>();
+            for (int r = 0; r < ranges; r++)
+            {
+                // ranges differ in size by at most 1:
+                final int from = 1 + (int) ((long) n * r / ranges);
+                final int to = 1 + (int) ((long) n * (r + 1) / ranges);
+                FutureTask<Void> task = new FutureTask<Void>(new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        SecretShare.evaluateRange(equation, from, to - from, k, field, ret);
+                    }
+                }, null);
+                tasks.add(task);
+                use.execute(task);
+            }
+            for (FutureTask<Void> task : tasks)
+            {
+                task.get();
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new SecretShareException("Interrupted during parallel split", e);
+        }
+        catch (ExecutionException e)
+        {
+            if (e.getCause() instanceof RuntimeException)
+            {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new SecretShareException("Parallel split failed", e.getCause());
+        }
+        finally
+        {
+            if (pool != null)
+            {
+                pool.shutdownNow();
+            }
+        }
+        return ret;
+    }
+}
@@ -0,0 +1,195 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2014 Tim Tiemens.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ *
+ * Contributors:
+ *     Tim Tiemens - initial API and implementation
+ *******************************************************************************/
+package com.tiemens.secretshare.engine;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.tiemens.secretshare.exceptions.SecretShareException;
+
+/**
+ * The builtin prime ladder: the largest prime below 2^n for n every quarter octave from 128 to 20480 bits,
+ *   then the Mersenne primes 2^23209-1, 2^44497-1 and 2^86243-1, so a secret of up to 84887 bits gets
+ *   a modulus without a runtime search [at most about 1.3 times its size up to 20480 bits, up to twice it past that].
+ *
+ * Each prime is p = 2^bits - c with a small c, so ModularField reduces with shifts and adds.
+ * They are stored as "bits c" lines in the RESOURCE_NAME file next to this class,
+ *   which is read on first use.
+ *
+ * @author tiemens
+ *
+ */
+public final class PrimeLadder
+{
+    // ==================================================
+    // class static data
+    // ==================================================
+
+    public static final String RESOURCE_NAME = "prime-ladder.txt";
+
+    // read on first use, then never changed
+    private static List<BigInteger> primes = null;
+
+    // ==================================================
+    // class static methods
+    // ==================================================
+
+    /**
+     * @return every prime of the ladder, smallest first
+     * @throws SecretShareException if the resource is missing or bad
+     */
+    public static List<BigInteger> getPrimes()
+    {
+        synchronized (PrimeLadder.class)
+        {
+            if (primes == null)
+            {
+                primes = Collections.unmodifiableList(load());
+            }
+            return primes;
+        }
+    }
+
+    /**
+     * The same margin as the createAppropriateModulusForSecret() cutoffs [4096 bits -&gt; 4024]:
+     *   a secret must be shorter than bits - bits/64 - 8.
+     *
+     * @param primeBits bit length of a modulus
+     * @return the secret bit length that is too big for primeBits
+     */
+    public static int getSecretBitsCutoff(final int primeBits)
+    {
+        return primeBits - (primeBits / 64) - 8;
+    }
+
+    /**
+     * @param secret number
+     * @return the smallest prime of the ladder that is appropriate for secret,
+     *         or null if secret is too big for all of them
+     */
+    public static BigInteger getPrimeForSecret(final BigInteger secret)
+    {
+        final int secretBits = secret.bitLength();
+        for (BigInteger prime : getPrimes())
+        {
+            if (secretBits < getSecretBitsCutoff(prime.bitLength()))
+            {
+                return prime;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param reader lines of "bits c" for p = 2^bits - c, smallest first;
+     *               blank lines and lines that start with "#" are skipped
+     * @return the primes
+     * @throws IOException from reader
+     * @throws SecretShareException if a line is bad, or out of order
+     */
+    public static List<BigInteger> parse(final Reader reader)
+        throws IOException
+    {
+        List<BigInteger> ret = new ArrayList<BigInteger>();
+        BufferedReader br = new BufferedReader(reader);
+        int lineNumber = 0;
+        int previousBits = 0;
+        String line;
+        while ((line = br.readLine()) != null)
+        {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#"))
+            {
+                continue;
+            }
+            final String[] fields = line.split("\\s+");
+            final int bits;
+            final BigInteger c;
+            try
+            {
+                if (fields.length != 2)
+                {
+                    throw new NumberFormatException("need 2 fields, was " + fields.length);
+                }
+                bits = Integer.parseInt(fields[0]);
+                c = new BigInteger(fields[1]);
+            }
+            catch (NumberFormatException e)
+            {
+                throw new SecretShareException("Prime ladder line " + lineNumber + " is not 'bits c': " + line, e);
+            }
+            if ((bits <= previousBits) || (c.signum() <= 0) || (! c.testBit(0)) || (c.bitLength() > bits / 2))
+            {
+                throw new SecretShareException("Prime ladder line " + lineNumber + " is not a sparse prime " +
+                                               "bigger than the line before it: " + line);
+            }
+            previousBits = bits;
+            ret.add(BigInteger.ONE.shiftLeft(bits).subtract(c));
+        }
+        return ret;
+    }
+
+    // ==================================================
+    // constructors
+    // ==================================================
+
+    private PrimeLadder()
+    {
+        // no instances
+    }
+
+    // ==================================================
+    // non public methods
+    // ==================================================
+
+    private static List<BigInteger> load()
+    {
+        InputStream inputStream = PrimeLadder.class.getResourceAsStream(RESOURCE_NAME);
+        if (inputStream == null)
+        {
+            throw new SecretShareException("Prime ladder resource " + RESOURCE_NAME + " not found");
+        }
+        try
+        {
+            return parse(new InputStreamReader(inputStream, StandardCharsets.US_ASCII));
+        }
+        catch (IOException e)
+        {
+            throw new SecretShareException("Prime ladder resource " + RESOURCE_NAME + " could not be read", e);
+        }
+        finally
+        {
+            try
+            {
+                inputStream.close();
+            }
+            catch (IOException e)
+            {
+                // ignore it
+            }
+        }
+    }
+}
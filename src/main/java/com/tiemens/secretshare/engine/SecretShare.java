@@ -21,29 +21,46 @@ import java.math.BigInteger;
 import java.security.SecureRandom;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.NoSuchElementException;
 import java.util.Random;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 
 import com.tiemens.secretshare.exceptions.SecretShareException;
+import com.tiemens.secretshare.math.combination.CombinationCursor;
 import com.tiemens.secretshare.math.combination.CombinationGenerator;
+import com.tiemens.secretshare.math.equation.BerlekampWelchDecoder;
 import com.tiemens.secretshare.math.equation.EasyLinearEquation;
+import com.tiemens.secretshare.math.equation.LagrangeInterpolator;
+import com.tiemens.secretshare.math.equation.LagrangeWeightCache;
 import com.tiemens.secretshare.math.equation.PolyEquationImpl;
+import com.tiemens.secretshare.math.field.ModularField;
 import com.tiemens.secretshare.math.matrix.BigRationalMatrix;
 import com.tiemens.secretshare.math.matrix.NumberMatrix;
 import com.tiemens.secretshare.math.matrix.NumberSimplex;
 import com.tiemens.secretshare.math.type.BigIntStringChecksum;
 import com.tiemens.secretshare.math.type.BigIntUtilities;
 import com.tiemens.secretshare.math.type.BigRational;
+import com.tiemens.secretshare.math.type.PrimeSearch;
 
 /**
  * Main class for the "Shamir's Secret Sharing" implementation.
@@ -67,10 +84,24 @@ public class SecretShare
     // class static data
     // ==================================================
 
+    // shared by all instances: the weights only depend on (x values, modulus)
+    private static final LagrangeWeightCache DEFAULT_WEIGHT_CACHE = new LagrangeWeightCache();
+
+    // split() evaluates all shares at once [forward differences] at or above this n:
+    public static final int CONSECUTIVE_EVALUATION_MINIMUM_N = 16;
+
     // ==================================================
     // class static methods
     // ==================================================
 
+    /**
+     * @return the Lagrange weight cache that new instances use by default
+     */
+    public static LagrangeWeightCache getDefaultLagrangeWeightCache()
+    {
+        return DEFAULT_WEIGHT_CACHE;
+    }
+
     /**
      * http://www.cromwell-intl.com/security/crypto/diffie-hellman.html says
      * "... choosing some prime p which is larger than the largest possible secret key".
@@ -90,6 +121,26 @@ public class SecretShare
      */
     public static BigInteger createAppropriateModulusForSecret(BigInteger secret)
     {
+        return createAppropriateModulusForSecret(secret, false);
+    }
+
+    /**
+     * Same as createAppropriateModulusForSecret(secret), but with useSparsePrimes
+     *   the builtin primes are the getSparsePrime*() ones, which ModularField reduces with shifts and adds.
+     * This is opt-in: the shares have a different modulus than the default, so combine must use it too
+     *   [it is printed with the shares].
+     *
+     * @param secret number
+     * @param useSparsePrimes true for the sparse builtin primes
+     * @return a modulus that (should) work in this library.
+     */
+    public static BigInteger createAppropriateModulusForSecret(BigInteger secret,
+                                                               boolean useSparsePrimes)
+    {
+        if (useSparsePrimes)
+        {
+            return createAppropriateSparseModulusForSecret(secret);
+        }
         final BigInteger ret;
         final int originalBitLength = secret.bitLength();
 
@@ -119,14 +170,75 @@ public class SecretShare
         else
         {
             //
-            // if you make it here, you are 4000+ bits big.
-            // and this call is going to be really expensive
+            // if you make it here, you are 8000+ bits big.
+            // so the default uses the prime ladder, which has a step every quarter octave to 20480 bits,
+            //   then only the Mersenne primes 2^23209-1, 2^44497-1 and 2^86243-1 [so up to a 2x fit].
+            // a runtime search [really expensive] is only for secrets of 84888 bits and more
+            //   [the 86243-bit cutoff, see PrimeLadder.getSecretBitsCutoff()]
+            //   [BlockSecretShare splits big secrets with a builtin prime instead]
             //
+            ret = createLadderModulusForSecret(secret);
+        }
+        return ret;
+    }
+
+    /**
+     * The smallest PrimeLadder prime for secret, with the same margins as createAppropriateModulusForSecret().
+     * The ladder has a step every quarter octave from 128 to 20480 bits, so up to there the modulus is
+     *   at most about 1.3 times the size of the secret; past that it is a Mersenne prime, and can be nearly
+     *   twice the size of the secret.  The ladder primes are sparse, so ModularField reduces with shifts and adds.
+     *
+     * createAppropriateModulusForSecret() [with or without useSparsePrimes] only uses the ladder for secrets
+     *   of 8120 bits and more; this fit below 8120 bits is opt-in [split -primeLadder].
+     *
+     * @param secret number
+     * @return a modulus that (should) work in this library;
+     *         a random one only if secret is too big for the ladder [84888 bits and more]
+     */
+    public static BigInteger createLadderModulusForSecret(BigInteger secret)
+    {
+        BigInteger ret = PrimeLadder.getPrimeForSecret(secret);
+        if (ret == null)
+        {
             ret = createRandomModulusForSecret(secret);
         }
         return ret;
     }
 
+    private static BigInteger createAppropriateSparseModulusForSecret(BigInteger secret)
+    {
+        final BigInteger ret;
+        final int originalBitLength = secret.bitLength();
+
+        // same margins as createAppropriateModulusForSecret(), and 521 bits -> 505 cutoff
+        if (originalBitLength < 180)
+        {
+            ret = getSparsePrimeUsedFor192bitSecretPayload();
+        }
+        else if (originalBitLength < 370)
+        {
+            ret = getSparsePrimeUsedFor384bitSecretPayload();
+        }
+        else if (originalBitLength < 505)
+        {
+            ret = getSparsePrimeUsedFor521bitSecretPayload();
+        }
+        else if (originalBitLength < 4024)
+        {
+            ret = getSparsePrimeUsedFor4096bitSecretPayload();
+        }
+        else if (originalBitLength < 8120)
+        {
+            ret = getSparsePrimeUsedFor8192bitSecretPayload();
+        }
+        else
+        {
+            // no runtime search below 84888 bits
+            ret = createLadderModulusForSecret(secret);
+        }
+        return ret;
+    }
+
     /**
      * NOTE: you should prefer createAppropriateModulusForSecret() over this method.
      *
@@ -149,6 +261,22 @@ public class SecretShare
      */
     public static BigInteger createRandomModulusForSecret(BigInteger secret,
                                                           Random random)
+    {
+        return createRandomModulusForSecret(secret, random, new PrimeSearch());
+    }
+
+    /**
+     * NOTE: you should prefer createAppropriateModulusForSecret() over this method.
+     *
+     * @param secret as biginteger
+     * @param random you provide the random
+     * @param primeSearch threads, certainty and timeout for the search [and cancel()]
+     * @return prime modulus big enough for secret
+     * @throws SecretShareException if the search timed out or was cancelled
+     */
+    public static BigInteger createRandomModulusForSecret(BigInteger secret,
+                                                          Random random,
+                                                          PrimeSearch primeSearch)
     {
         final BigInteger ret;
         final int originalBitLength = secret.bitLength();
@@ -160,7 +288,8 @@ public class SecretShare
         //System.out.println("Secret.bits=" + originalBitLength + " modulus.bits=" + numbits);
 
         // This could take a really long time, especially for 4000+ bits....
-        ret = BigInteger.probablePrime(numbits, random);
+        //   [PrimeSearch spreads it over the threads, and is BigInteger.probablePrime() for small numbits]
+        ret = primeSearch.probablePrime(numbits, random);
 
         return ret;
     }
@@ -458,6 +587,58 @@ public class SecretShare
     }
 
 
+    // The sparse primes are p = 2^m - c, with c much smaller than p,
+    //   so ModularField reduces mod p with shifts and adds [2^m = c mod p] instead of a division.
+    // They are written as formulas, so there are no digit strings to guard.
+
+    /**
+     * @return NIST P-192, the Solinas prime 2^192 - 2^64 - 1
+     */
+    public static BigInteger getSparsePrimeUsedFor192bitSecretPayload()
+    {
+        return twoTo(192).subtract(twoTo(64)).subtract(BigInteger.ONE);
+    }
+
+    /**
+     * @return NIST P-384, the Solinas prime 2^384 - 2^128 - 2^96 + 2^32 - 1
+     */
+    public static BigInteger getSparsePrimeUsedFor384bitSecretPayload()
+    {
+        return twoTo(384).subtract(twoTo(128)).subtract(twoTo(96)).add(twoTo(32)).subtract(BigInteger.ONE);
+    }
+
+    /**
+     * @return NIST P-521, the Mersenne prime 2^521 - 1
+     */
+    public static BigInteger getSparsePrimeUsedFor521bitSecretPayload()
+    {
+        return twoTo(521).subtract(BigInteger.ONE);
+    }
+
+    /**
+     * @return the pseudo-Mersenne prime 2^4096 - 2549 [the largest prime below 2^4096]
+     */
+    public static BigInteger getSparsePrimeUsedFor4096bitSecretPayload()
+    {
+        // GENERATE: the first c = 1, 3, 5, ... with 2^4096 - c prime [small-prime sieve, then Fermat base 2],
+        //   then checked with isProbablePrime(100)
+        return twoTo(4096).subtract(BigInteger.valueOf(2549));
+    }
+
+    /**
+     * @return the pseudo-Mersenne prime 2^8192 - 2439 [the largest prime below 2^8192]
+     */
+    public static BigInteger getSparsePrimeUsedFor8192bitSecretPayload()
+    {
+        // GENERATE: same as the 4096-bit sparse prime
+        return twoTo(8192).subtract(BigInteger.valueOf(2439));
+    }
+
+    private static BigInteger twoTo(int exponent)
+    {
+        return BigInteger.ONE.shiftLeft(exponent);
+    }
+
     /**
      * Guard against accidental changes to the strings.
      *
@@ -488,6 +669,14 @@ public class SecretShare
     // ==================================================
     private final PublicInfo publicInfo;
     private PrintStream out = null;
+    private CombineAlgorithm combineAlgorithm = CombineAlgorithm.LAGRANGE;
+    private LagrangeWeightCache weightCache = DEFAULT_WEIGHT_CACHE;
+    // split(): evaluate the shares on this many threads, 1 is "the calling thread only"
+    private int splitThreads = 1;
+    // split(): if not null, run the evaluation on this executor instead of a new pool
+    private Executor splitExecutor = null;
+    // splitAll(): one SecureRandom for all of the batches of this instance, created when first needed
+    private SecureRandom bulkRandom = null;
 
     // ==================================================
     // factories
@@ -528,42 +717,30 @@ public class SecretShare
     public SplitSecretOutput split(final BigInteger secret,
                                    final Random random)
     {
-        if (secret == null)
-        {
-            throw new SecretShareException("Secret cannot be null");
-        }
-        if (secret.signum() <= 0)
-        {
-            throw new SecretShareException("Secret cannot be negative");
-        }
-        if (publicInfo.getPrimeModulus() != null)
-        {
-            checkThatModulusIsAppropriate(publicInfo.getPrimeModulus(),
-                                          secret);
-
-        }
-
-        BigInteger[] coeffs = new BigInteger[publicInfo.getK()];
-
-        // create the equation by setting the coefficients:
-        // [a] randomize the coefficients:
-        randomizeCoeffs(coeffs, random, publicInfo.getPrimeModulus(), secret);
-        // [b] set the constant coefficient to the secret:
-        coeffs[0] = secret;
+        BigInteger[] coeffs = createCoefficients(secret, random);
 
         final PolyEquationImpl equation = new PolyEquationImpl(coeffs);
 
         SplitSecretOutput ret = new SplitSecretOutput(this.publicInfo,
                                                       equation);
 
-        for (int x = 1, n = publicInfo.getNforSplit() + 1; x < n; x++)
+        final int nforSplit = publicInfo.getNforSplit();
+        final BigInteger[] values;
+        if ((splitThreads > 1) || (splitExecutor != null))
         {
-            final BigInteger fofx = equation.calculateFofX(BigInteger.valueOf(x));
-            BigInteger data = fofx;
-            if (publicInfo.primeModulus != null)
-            {
-                data = data.mod(publicInfo.primeModulus);
-            }
+            // the coefficients are already drawn, so this is the same output as the sequential path:
+            values = new ParallelShareEvaluator(getSplitThreadsToUse(), splitExecutor)
+                .evaluate(equation, nforSplit, publicInfo.getK(), publicInfo.getPrimeField());
+        }
+        else
+        {
+            values = new BigInteger[nforSplit];
+            evaluateRange(equation, 1, nforSplit, publicInfo.getK(), publicInfo.getPrimeField(), values);
+        }
+
+        for (int x = 1, n = nforSplit + 1; x < n; x++)
+        {
+            final BigInteger data = values[x - 1];
             final ShareInfo share = new ShareInfo(x, data, this.publicInfo);
             if (publicInfo.primeModulus != null)
             {
@@ -578,6 +755,177 @@ public class SecretShare
         return ret;
     }
 
+    /**
+     * Split the secret, and hand each share to the sink as soon as it is evaluated.
+     *
+     * No SplitSecretOutput is built: only the k coefficients are held, so memory does not grow with n.
+     * The coefficients are dropped when the last share is handed out, or when the sink throws.
+     * The shares are the same as split(secret, random) for the same Random.
+     *
+     * @param secret to split
+     * @param random to use for random number generation
+     * @param sink receives the shares, in x order
+     */
+    public void split(final BigInteger secret,
+                      final Random random,
+                      final Consumer<ShareInfo> sink)
+    {
+        if (sink == null)
+        {
+            throw new SecretShareException("sink cannot be null");
+        }
+        ShareIterator iterator = new ShareIterator(createCoefficients(secret, random));
+        try
+        {
+            while (iterator.hasNext())
+            {
+                sink.accept(iterator.next());
+            }
+        }
+        finally
+        {
+            iterator.scrub();
+        }
+    }
+
+    /**
+     * Split the secret, and evaluate each share when next() is called.
+     *
+     * The coefficients are drawn from the Random now, so the shares are the same as
+     *   split(secret, random) no matter when they are read.
+     * Only the k coefficients are held, and they are dropped when the last share is returned.
+     *
+     * @param secret to split
+     * @param random to use for random number generation
+     * @return the shares, in x order
+     */
+    public Iterator<ShareInfo> splitIterator(final BigInteger secret,
+                                             final Random random)
+    {
+        return new ShareIterator(createCoefficients(secret, random));
+    }
+
+    /**
+     * Split many secrets with this PublicInfo, using one SecureRandom for all of them.
+     *
+     * @param secrets to split
+     * @return the shares of every secret, in columnar form
+     */
+    public BulkSplitOutput splitAll(final List<BigInteger> secrets)
+    {
+        synchronized (this)
+        {
+            if (bulkRandom == null)
+            {
+                bulkRandom = new SecureRandom();
+            }
+        }
+        return splitAll(secrets, bulkRandom);
+    }
+
+    /**
+     * Split many secrets with this PublicInfo.
+     *
+     * Cheaper than calling split() for each secret: the coefficient buffer is reused,
+     *   no PublicInfo/ShareInfo objects are created, and the share values go
+     *   straight into one array per secret.
+     * The shares of each secret are the same as calling split(secret, random)
+     *   for each secret in order, with the same Random.
+     *
+     * @param secrets to split
+     * @param random to use for random number generation
+     * @return the shares of every secret, in columnar form
+     */
+    public BulkSplitOutput splitAll(final List<BigInteger> secrets,
+                                    final Random random)
+    {
+        if (secrets == null)
+        {
+            throw new SecretShareException("secrets cannot be null");
+        }
+        final int nforSplit = publicInfo.getNforSplit();
+        final int k = publicInfo.getK();
+        final ModularField field = publicInfo.getPrimeField();
+        BigInteger[][] values = new BigInteger[secrets.size()][nforSplit];
+        BigInteger[] coeffs = new BigInteger[k];
+        try
+        {
+            for (int i = 0, max = secrets.size(); i < max; i++)
+            {
+                fillCoefficients(secrets.get(i), random, coeffs);
+                evaluateRange(new PolyEquationImpl(coeffs), 1, nforSplit, k, field, values[i]);
+            }
+        }
+        finally
+        {
+            Arrays.fill(coeffs, null);
+        }
+        return new BulkSplitOutput(publicInfo, values);
+    }
+
+    public final PublicInfo getPublicInfo()
+    {
+        return publicInfo;
+    }
+
+    /**
+     * Forward differences beat per-point Horner once n is about 2*k,
+     *   see SplitBenchmarkIntegTest for the crossover.
+     *
+     * @param n number of shares
+     * @param k threshold
+     * @return true if split() should evaluate all n points at once
+     */
+    static boolean useConsecutiveEvaluation(final int n,
+                                            final int k)
+    {
+        return (n >= CONSECUTIVE_EVALUATION_MINIMUM_N) && (n >= 2 * k);
+    }
+
+    /**
+     * Evaluate f(x) for x = firstX .. (firstX + count - 1).
+     *
+     * @param equation the split polynomial
+     * @param firstX first x value
+     * @param count number of x values
+     * @param k threshold [number of coefficients]
+     * @param field the prime modulus, or null for exact values
+     * @param values output, [x - 1] is set to f(x)
+     */
+    static void evaluateRange(final PolyEquationImpl equation,
+                              final int firstX,
+                              final int count,
+                              final int k,
+                              final ModularField field,
+                              final BigInteger[] values)
+    {
+        if (useConsecutiveEvaluation(count, k))
+        {
+            // the whole range at once, by forward differences:
+            BigInteger[] range = equation.calculateFofXConsecutiveInField(firstX, count, field);
+            System.arraycopy(range, 0, values, firstX - 1, count);
+        }
+        else
+        {
+            // otherwise, Horner's rule [mod p, if there is a modulus]:
+            for (int i = 0; i < count; i++)
+            {
+                final BigInteger x = BigInteger.valueOf(firstX + i);
+                values[firstX - 1 + i] = (field == null) ? equation.calculateFofX(x) :
+                                                           equation.calculateFofXInField(x, field);
+            }
+        }
+    }
+
+    private int getSplitThreadsToUse()
+    {
+        if (splitThreads > 1)
+        {
+            return splitThreads;
+        }
+        return Runtime.getRuntime().availableProcessors();
+    }
+
     private void println(String line)
     {
         if (out != null)
@@ -624,47 +972,32 @@ public class SecretShare
             xarray[i] = usetheseshares.get(i).getXasBigInteger();
             fofxarray[i] = usetheseshares.get(i).getShare();
         }
-        EasyLinearEquation ele =
-            EasyLinearEquation.createForPolynomial(xarray, fofxarray);
-        if (publicInfo.getPrimeModulus() != null)
-        {
-            ele = ele.createWithPrimeModulus(publicInfo.getPrimeModulus());
-        }
-
         BigInteger solveSecret = null;
 
-        if (false)
-        {
-            EasyLinearEquation.EasySolve solve = ele.solve();
-
-            solveSecret = solve.getAnswer(1);
-        }
-        else
+        if (useLagrange())
         {
-            BigInteger[][] matrix = ele.getMatrix();
-            NumberMatrix.print("SS.java", matrix, out);
-            println("CVT matrix.height=" + matrix.length + " width=" + matrix[0].length);
-            BigRationalMatrix brm = BigRationalMatrix.create(matrix);
-            NumberMatrix.print("SS.java brm", brm.getArray(), out);
-
-            NumberSimplex<BigRational> simplex = new NumberSimplex<BigRational>(brm, 0);
-            simplex.initForSolve(out);
-            simplex.solve(out);
-
-            BigRational answer = simplex.getAnswer(0);
-            if (publicInfo.getPrimeModulus() != null)
+            try
             {
-                solveSecret = answer.computeBigIntegerMod(publicInfo.getPrimeModulus());
+                BigInteger[] weights = computeLagrangeWeightsAtZero(xarray);
+                solveSecret = LagrangeInterpolator.combineWeights(weights, fofxarray,
+                                                                  publicInfo.getPrimeField());
             }
-            else
+            catch (ArithmeticException e)
             {
-                solveSecret = answer.bigIntegerValue();
+                // the modulus is not prime, and an x difference has no inverse
+                println("Lagrange failed (" + e.getMessage() + "), using simplex");
+                solveSecret = null;
             }
         }
 
+        if (solveSecret == null)
+        {
+            solveSecret = combineUsingSimplex(xarray, fofxarray);
+        }
+
         if (publicInfo.getPrimeModulus() != null)
         {
-            solveSecret = solveSecret.mod(publicInfo.getPrimeModulus());
+            solveSecret = publicInfo.getPrimeField().reduce(solveSecret);
         }
         ret = new CombineOutput(solveSecret);
 
@@ -673,43 +1006,350 @@ public class SecretShare
     }
 
     /**
-     * @param outer - usually the one from SecretShare.publicInfo
-     * @param list  - share info list that also have publicInfos
-     * @throws SecretShareException if something does not match
+     * Combine many secrets that were split with this PublicInfo, from the same share holders.
+     *
+     * @param xs the x values of the share holders, only the first k are used
+     * @param shares [secretIndex][i] is the share of secret secretIndex at xs[i]
+     * @return the secrets, [secretIndex]
      */
-    private void sanityCheckPublicInfos(PublicInfo      outer,
-                                        List<ShareInfo> list)
+    public BigInteger[] combineAll(final BigInteger[] xs,
+                                   final BigInteger[][] shares)
     {
-        // Basic sanity checks:
-        if (outer == null)
+        return combineAll(xs, shares, 1);
+    }
+
+    /**
+     * Combine many secrets that were split with this PublicInfo, from the same share holders.
+     *
+     * The Lagrange weights depend only on the x values, so they are computed once,
+     *   and each secret is then just sum(weights[i] * shares[secretIndex][i]) mod p.
+     * With no modulus, or with CombineAlgorithm.SIMPLEX, each secret is combined with combine().
+     *
+     * @param xs the x values of the share holders, only the first k are used
+     * @param shares [secretIndex][i] is the share of secret secretIndex at xs[i]
+     * @param threads number of threads for the dot products, 1 for the calling thread only
+     * @return the secrets, [secretIndex]
+     */
+    public BigInteger[] combineAll(final BigInteger[] xs,
+                                   final BigInteger[][] shares,
+                                   final int threads)
+    {
+        if ((xs == null) || (shares == null))
         {
-            throw new SecretShareException("Public Info [outer] cannot be null");
+            throw new SecretShareException("xs and shares cannot be null");
         }
-        if (outer.k <= 0)
+        if (threads < 1)
         {
-            throw new SecretShareException("Public Info [outer] k must be positive, k=" + outer.k);
+            throw new SecretShareException("threads must be at least 1, was " + threads);
         }
-        // Note: there is no restriction on outer.primeModulus -- it is allowed to be null
-
-        if (list == null)
+        final int k = publicInfo.getK();
+        if (k > xs.length)
         {
-            throw new SecretShareException("Public Info [list] cannot be null");
+            throw new SecretShareException("Must have " + k + " shares to solve.  Only provided " + xs.length);
         }
-
-        // First way you are ok: if every list[x].getPublicInfo() == null
-
-        // any list[x] == null?
-        boolean anyShareNullsInList = false;
-        // ALL list[x].publicInfo() == null?
-        boolean allNullInList       = true;
-        // ANY list[x].publicInfo() == null?
-        boolean anyNullInList       = false;
-
-        for (ShareInfo share : list)
+        for (int s = 0; s < shares.length; s++)
         {
-            if (share != null)
+            if (shares[s].length != xs.length)
             {
-                if (share.getPublicInfo() != null)
+                throw new SecretShareException("secret index=" + s + " has " + shares[s].length +
+                                               " shares, should be " + xs.length);
+            }
+        }
+
+        final ModularField field = publicInfo.getPrimeField();
+        final BigInteger[] ret = new BigInteger[shares.length];
+        final BigInteger[] usexs = Arrays.copyOf(xs, k);
+        BigInteger[] lagrangeWeights = null;
+        if (useLagrange())
+        {
+            try
+            {
+                lagrangeWeights = computeLagrangeWeightsAtZero(usexs);
+            }
+            catch (ArithmeticException e)
+            {
+                // the modulus is not prime, and an x difference has no inverse
+                println("Lagrange failed (" + e.getMessage() + "), using combine()");
+            }
+        }
+
+        if (lagrangeWeights == null)
+        {
+            for (int s = 0; s < shares.length; s++)
+            {
+                List<ShareInfo> list = new ArrayList<ShareInfo>(k);
+                for (int i = 0; i < k; i++)
+                {
+                    list.add(new ShareInfo(usexs[i].intValue(), shares[s][i], publicInfo));
+                }
+                ret[s] = combine(list).getSecret();
+            }
+            return ret;
+        }
+
+        final BigInteger[] weights = lagrangeWeights;
+        final int ranges = Math.min(threads, shares.length);
+        if (ranges <= 1)
+        {
+            combineRange(weights, shares, 0, shares.length, field, ret);
+            return ret;
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(ranges);
+        try
+        {
+            List<Future<?>> futures = new ArrayList<Future<?>>();
+            for (int r = 0; r < ranges; r++)
+            {
+                final int from = (int) ((long) shares.length * r / ranges);
+                final int to = (int) ((long) shares.length * (r + 1) / ranges);
+                futures.add(pool.submit(new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        combineRange(weights, shares, from, to, field, ret);
+                    }
+                }));
+            }
+            for (Future<?> future : futures)
+            {
+                future.get();
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new SecretShareException("Interrupted during combineAll", e);
+        }
+        catch (ExecutionException e)
+        {
+            if (e.getCause() instanceof RuntimeException)
+            {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new SecretShareException("combineAll failed", e.getCause());
+        }
+        finally
+        {
+            pool.shutdownNow();
+        }
+        return ret;
+    }
+
+    /**
+     * @param weights Lagrange weights at zero, for the first k x values
+     * @param shares [secretIndex][i] is the share at x[i]
+     * @param from first secret index
+     * @param to last secret index, exclusive
+     * @param field the prime modulus
+     * @param secrets output, [secretIndex] is set
+     */
+    private static void combineRange(final BigInteger[] weights,
+                                     final BigInteger[][] shares,
+                                     final int from,
+                                     final int to,
+                                     final ModularField field,
+                                     final BigInteger[] secrets)
+    {
+        final int k = weights.length;
+        BigInteger[] ys = new BigInteger[k];
+        for (int s = from; s < to; s++)
+        {
+            System.arraycopy(shares[s], 0, ys, 0, k);
+            secrets[s] = field.dot(weights, ys);
+        }
+    }
+
+    /**
+     * The original combine: solve the Vandermonde matrix with BigRational simplex pivots,
+     *   and only then reduce mod the prime.
+     *
+     * @param xarray the x values
+     * @param fofxarray the f(x) values
+     * @return the constant term, i.e. the secret [not yet reduced mod the prime]
+     */
+    private BigInteger combineUsingSimplex(final BigInteger[] xarray,
+                                           final BigInteger[] fofxarray)
+    {
+        final BigInteger ret;
+
+        EasyLinearEquation ele =
+            EasyLinearEquation.createForPolynomial(xarray, fofxarray);
+        if (publicInfo.getPrimeModulus() != null)
+        {
+            ele = ele.createWithPrimeModulus(publicInfo.getPrimeModulus());
+        }
+
+        BigInteger[][] matrix = ele.getMatrix();
+        NumberMatrix.print("SS.java", matrix, out);
+        println("CVT matrix.height=" + matrix.length + " width=" + matrix[0].length);
+        BigRationalMatrix brm = BigRationalMatrix.create(matrix);
+        NumberMatrix.print("SS.java brm", brm.getArray(), out);
+
+        NumberSimplex<BigRational> simplex = new NumberSimplex<BigRational>(brm, 0);
+        simplex.initForSolve(out);
+        simplex.solve(out);
+
+        BigRational answer = simplex.getAnswer(0);
+        if (publicInfo.getPrimeModulus() != null)
+        {
+            ret = answer.computeBigIntegerMod(publicInfo.getPrimeModulus());
+        }
+        else
+        {
+            ret = answer.bigIntegerValue();
+        }
+        return ret;
+    }
+
+    /**
+     * @param xarray the x values
+     * @return Lagrange weights at zero, from the weight cache if there is one
+     */
+    private BigInteger[] computeLagrangeWeightsAtZero(final BigInteger[] xarray)
+    {
+        if (weightCache != null)
+        {
+            return weightCache.getWeightsAtZero(xarray, publicInfo.getPrimeModulus());
+        }
+        else
+        {
+            return LagrangeInterpolator.computeWeightsAtZero(xarray, publicInfo.getPrimeField());
+        }
+    }
+
+    /**
+     * @return true if combine() will use Lagrange interpolation mod p
+     */
+    private boolean useLagrange()
+    {
+        return ((combineAlgorithm == CombineAlgorithm.LAGRANGE) &&
+                (publicInfo.getPrimeModulus() != null));
+    }
+
+    /**
+     * @return the algorithm used by combine()
+     */
+    public CombineAlgorithm getCombineAlgorithm()
+    {
+        return combineAlgorithm;
+    }
+
+    /**
+     * Select the algorithm used by combine().
+     * Note: LAGRANGE requires a prime modulus; without a modulus, SIMPLEX is always used.
+     *
+     * @param inCombineAlgorithm the algorithm to use
+     */
+    public void setCombineAlgorithm(CombineAlgorithm inCombineAlgorithm)
+    {
+        if (inCombineAlgorithm == null)
+        {
+            throw new SecretShareException("combine algorithm cannot be null");
+        }
+        combineAlgorithm = inCombineAlgorithm;
+    }
+
+    /**
+     * @return the weight cache used by combine(), or null if caching is disabled
+     */
+    public LagrangeWeightCache getLagrangeWeightCache()
+    {
+        return weightCache;
+    }
+
+    /**
+     * By default, all instances share getDefaultLagrangeWeightCache().
+     *
+     * @param inWeightCache cache to use, or null to disable caching
+     */
+    public void setLagrangeWeightCache(LagrangeWeightCache inWeightCache)
+    {
+        weightCache = inWeightCache;
+    }
+
+    /**
+     * @return number of threads split() uses to evaluate the shares
+     */
+    public int getSplitThreads()
+    {
+        return splitThreads;
+    }
+
+    /**
+     * Opt-in parallel split: the coefficients are still drawn on the calling thread,
+     *   only the evaluation of the n shares is spread over the threads.
+     * The shares, and their order, are the same as the sequential split() for the same Random.
+     *
+     * @param inSplitThreads 1 for sequential [the default], 0 for the number of available processors
+     */
+    public void setSplitThreads(int inSplitThreads)
+    {
+        if (inSplitThreads < 0)
+        {
+            throw new SecretShareException("split threads cannot be negative, was " + inSplitThreads);
+        }
+        splitThreads = (inSplitThreads == 0) ? Runtime.getRuntime().availableProcessors() : inSplitThreads;
+    }
+
+    /**
+     * @return the executor split() uses to evaluate the shares, or null
+     */
+    public Executor getSplitExecutor()
+    {
+        return splitExecutor;
+    }
+
+    /**
+     * Run the parallel split on the caller's executor, instead of a pool created for each split().
+     * The work is cut into getSplitThreads() pieces, or the number of available processors if that is 1.
+     *
+     * @param inSplitExecutor executor to use, or null to go back to getSplitThreads()
+     */
+    public void setSplitExecutor(Executor inSplitExecutor)
+    {
+        splitExecutor = inSplitExecutor;
+    }
+
+    /**
+     * @param outer - usually the one from SecretShare.publicInfo
+     * @param list  - share info list that also have publicInfos
+     * @throws SecretShareException if something does not match
+     */
+    private void sanityCheckPublicInfos(PublicInfo      outer,
+                                        List<ShareInfo> list)
+    {
+        // Basic sanity checks:
+        if (outer == null)
+        {
+            throw new SecretShareException("Public Info [outer] cannot be null");
+        }
+        if (outer.k <= 0)
+        {
+            throw new SecretShareException("Public Info [outer] k must be positive, k=" + outer.k);
+        }
+        // Note: there is no restriction on outer.primeModulus -- it is allowed to be null
+
+        if (list == null)
+        {
+            throw new SecretShareException("Public Info [list] cannot be null");
+        }
+
+        // First way you are ok: if every list[x].getPublicInfo() == null
+
+        // any list[x] == null?
+        boolean anyShareNullsInList = false;
+        // ALL list[x].publicInfo() == null?
+        boolean allNullInList       = true;
+        // ANY list[x].publicInfo() == null?
+        boolean anyNullInList       = false;
+
+        for (ShareInfo share : list)
+        {
+            if (share != null)
+            {
+                if (share.getPublicInfo() != null)
                 {
                     allNullInList = false;
                 }
@@ -816,11 +1456,61 @@ public class SecretShare
     // private methods
     // ==================================================
 
+    /**
+     * Check the secret, and create the coefficients of a new random polynomial with f(0) = secret.
+     *
+     * @param secret to split
+     * @param random to use for random number generation
+     * @return k coefficients, [0] is the secret
+     */
+    private BigInteger[] createCoefficients(final BigInteger secret,
+                                            final Random random)
+    {
+        BigInteger[] coeffs = new BigInteger[publicInfo.getK()];
+        fillCoefficients(secret, random, coeffs);
+        return coeffs;
+    }
+
+    /**
+     * Same as createCoefficients(), into the caller's buffer.
+     *
+     * @param secret to split
+     * @param random to use for random number generation
+     * @param coeffs k coefficients, filled in, [0] is the secret
+     */
+    private void fillCoefficients(final BigInteger secret,
+                                  final Random random,
+                                  final BigInteger[] coeffs)
+    {
+        if (secret == null)
+        {
+            throw new SecretShareException("Secret cannot be null");
+        }
+        if (secret.signum() <= 0)
+        {
+            throw new SecretShareException("Secret cannot be negative");
+        }
+        if (publicInfo.getPrimeModulus() != null)
+        {
+            checkThatModulusIsAppropriate(publicInfo.getPrimeModulus(),
+                                          secret);
+
+        }
+
+        // create the equation by setting the coefficients:
+        // [a] randomize the coefficients:
+        randomizeCoeffs(coeffs, random, publicInfo.getPrimeModulus(), secret);
+        // [b] set the constant coefficient to the secret:
+        coeffs[0] = secret;
+    }
+
     private void randomizeCoeffs(final BigInteger[] coeffs,
                                  final Random random,
                                  final BigInteger modulus,
                                  final BigInteger secret)
     {
+        // resolved once, not once per coefficient:
+        final ModularField field = (modulus == null) ? null : ModularField.forModulus(modulus);
         for (int i = 1, n = coeffs.length; i < n; i++)
         {
             BigInteger big = null;
@@ -834,9 +1524,9 @@ public class SecretShare
             coeffs[i] = big;
 
             // Book says "all coefficients are smaller than the modulus"
-            if (modulus != null)
+            if (field != null)
             {
-                coeffs[i] = coeffs[i].mod(modulus);
+                coeffs[i] = field.reduce(coeffs[i]);
             }
 
             // FIX? TODO: FIX? experiment says "all coefficients are smaller than the secret"
@@ -883,6 +1573,30 @@ public class SecretShare
     // public
     // ==================================================
 
+    /**
+     * How combine() recovers the secret.
+     */
+    public enum CombineAlgorithm
+    {
+        // Lagrange interpolation at x=0, mod p [default, requires a prime modulus]
+        LAGRANGE,
+        // BigRational simplex on the Vandermonde matrix [original implementation]
+        SIMPLEX
+    }
+
+    /**
+     * How the "paranoid" combine checks the shares.
+     */
+    public enum ParanoidMode
+    {
+        // interpolate once from k shares, then check that the other n-k shares are on it
+        CONSISTENCY,
+        // combine every k-subset of the shares [original implementation]
+        EXHAUSTIVE,
+        // combine uniformly random k-subsets, until the requested confidence is reached
+        SAMPLING
+    }
+
     /**
      * Holds all the "publicly available" information about a secret share.
      * Holds both "required" and "optional" information.
@@ -901,7 +1615,11 @@ public class SecretShare
         // just descriptive info:
         private final String description;            // any string, including null
         private final String uuid;                   // a "Random" UUID string
-        private final String date;                   // yyyy-MM-dd HH:mm:ss string
+        private final String date;                   // yyyy-MM-dd HH:mm:ss string [local time]
+        private final long dateMillis;               // the same date, milliseconds since 1970 UTC
+
+        // the ModularField of primeModulus, resolved on first use [a race just resolves it twice]
+        private volatile ModularField primeField = null;
 
         public PublicInfo(final Integer inN,
                           final int inK,
@@ -940,6 +1658,7 @@ public class SecretShare
             {
                 datetimeMillis = inDatetimeMillis;
             }
+            dateMillis = datetimeMillis;
             date = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date(datetimeMillis));
 
             if (n != null)
@@ -996,6 +1715,20 @@ public class SecretShare
         {
             return primeModulus;
         }
+        /**
+         * @return the field of getPrimeModulus(), or null if there is no modulus;
+         *         resolve it here once, not with ModularField.forModulus() on every use
+         */
+        public final ModularField getPrimeField()
+        {
+            ModularField ret = primeField;
+            if ((ret == null) && (primeModulus != null))
+            {
+                ret = ModularField.forModulus(primeModulus);
+                primeField = ret;
+            }
+            return ret;
+        }
         public final String getDescription()
         {
             return description;
@@ -1008,6 +1741,13 @@ public class SecretShare
         {
             return date;
         }
+        /**
+         * @return the date, in milliseconds since 1970 UTC [getDate() is in the local time zone, to the second]
+         */
+        public final long getDateMillis()
+        {
+            return dateMillis;
+        }
     }
 
     /**
@@ -1105,6 +1845,64 @@ public class SecretShare
         }
     }
 
+    /**
+     * The lazy shares of split(secret, random, sink) and splitIterator().
+     * Holds only the coefficients [the same ones split() would use], and evaluates
+     *   f(x) with Horner's rule when next() is called.
+     * Note: BigInteger is immutable, so "scrub" drops the references to the coefficients,
+     *         it cannot overwrite their values.
+     */
+    private final class ShareIterator
+        implements Iterator<ShareInfo>
+    {
+        private BigInteger[] coeffs;
+        private PolyEquationImpl equation;
+        private final int nforSplit;
+        private int nextX = 1;
+
+        private ShareIterator(BigInteger[] inCoeffs)
+        {
+            coeffs = inCoeffs;
+            equation = new PolyEquationImpl(inCoeffs);
+            nforSplit = publicInfo.getNforSplit();
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            return nextX <= nforSplit;
+        }
+
+        @Override
+        public ShareInfo next()
+        {
+            if (! hasNext())
+            {
+                throw new NoSuchElementException("all " + nforSplit + " shares have been returned");
+            }
+            final int x = nextX++;
+            final BigInteger xValue = BigInteger.valueOf(x);
+            final BigInteger data = (publicInfo.getPrimeField() == null) ? equation.calculateFofX(xValue) :
+                                        equation.calculateFofXInField(xValue, publicInfo.getPrimeField());
+            if (! hasNext())
+            {
+                scrub();
+            }
+            return new ShareInfo(x, data, publicInfo);
+        }
+
+        private void scrub()
+        {
+            if (coeffs != null)
+            {
+                Arrays.fill(coeffs, null);
+                coeffs = null;
+            }
+            equation = null;
+            nextX = nforSplit + 1;
+        }
+    }
+
     /**
      * When the secret is split, this is the information that is returned.
      * Note: This object is NOT the "public" information, since the polynomial
@@ -1141,97 +1939,493 @@ public class SecretShare
         }
         public final PublicInfo getPublicInfo()
         {
-            return publicInfo;
+            return publicInfo;
+        }
+        public void debugPrintEquationCoefficients(PrintStream out)
+        {
+            polynomial.debugPrintEquationCoefficients(out);
+        }
+    }
+
+    /**
+     * The result of splitAll(): one PublicInfo, and a table of share values,
+     *   [secretIndex][x - 1] is the share at x of secret number secretIndex.
+     * Unlike SplitSecretOutput, no polynomial is kept.
+     */
+    public static class BulkSplitOutput
+    {
+        private final PublicInfo publicInfo;
+        private final BigInteger[][] values;
+
+        private BulkSplitOutput(final PublicInfo inPublicInfo,
+                                final BigInteger[][] inValues)
+        {
+            publicInfo = inPublicInfo;
+            values = inValues;
+        }
+
+        public final PublicInfo getPublicInfo()
+        {
+            return publicInfo;
+        }
+
+        public int getNumberOfSecrets()
+        {
+            return values.length;
+        }
+
+        /**
+         * @param secretIndex index into the list given to splitAll()
+         * @param x share number, 1 .. n
+         * @return the share value
+         */
+        public BigInteger getShare(final int secretIndex,
+                                   final int x)
+        {
+            return values[secretIndex][x - 1];
+        }
+
+        /**
+         * @param secretIndex index into the list given to splitAll()
+         * @return copy of the share values, [x - 1] is the share at x
+         */
+        public BigInteger[] getShares(final int secretIndex)
+        {
+            return values[secretIndex].clone();
+        }
+
+        /**
+         * @param secretIndex index into the list given to splitAll()
+         * @return the shares of that secret, as split() would return them
+         */
+        public List<ShareInfo> getShareInfos(final int secretIndex)
+        {
+            final BigInteger[] row = values[secretIndex];
+            List<ShareInfo> ret = new ArrayList<ShareInfo>(row.length);
+            for (int x = 1; x <= row.length; x++)
+            {
+                ret.add(new ShareInfo(x, row[x - 1], publicInfo));
+            }
+            return ret;
+        }
+    }
+
+    public ParanoidOutput combineParanoid(List<ShareInfo> shares)
+    {
+        return combineParanoid(shares, ParanoidInput.createAll());
+    }
+
+    /**
+     * This version does the combines, and throws an exception if there is not 100% agreement.
+     *
+     * @param shares - all shares available to make unique subsets from
+     * @param paranoidInput control over the process
+     * @return ParanoidOutput
+     * @throws SecretShareException if there is not 100% agreement on the reconstructed secret
+     */
+    public ParanoidOutput combineParanoid(List<ShareInfo> shares,
+                                          ParanoidInput paranoidInput)
+    {
+        ParanoidOutput ret = performParanoidCombines(shares, paranoidInput);
+
+        if (paranoidInput != null)
+        {
+            if (! ret.getInconsistentShareIndexes().isEmpty())
+            {
+                throw new SecretShareException("Paranoid combine failed, shares x=" +
+                                               ret.getInconsistentShareIndexes() +
+                                               " are not on the polynomial from shares x=" +
+                                               ret.getConsistencyBaseIndexes());
+            }
+            if (ret.getAgreedAnswer() == null)
+            {
+                throw new SecretShareException("Paranoid combine failed, on combination at count=" + ret.getCount());
+            }
+        }
+
+        return ret;
+    }
+
+    /**
+     * This version just collects all of the reconstructed secrets.
+     *
+     * @param shares to use
+     * @param paranoidInput - control over process
+     *  if greater than 0        use that number
+     *  if less than 0  OR null  no limit
+     * @return ParanoidOutput
+     */
+    public ParanoidOutput performParanoidCombines(List<ShareInfo> shares,
+                                                  ParanoidInput paranoidInput)
+    {
+        if (paranoidInput == null)
+        {
+            return ParanoidOutput.createEmpty();
+        }
+        else
+        {
+            return performParanoidCombinesNonNull(shares, paranoidInput);
+        }
+    }
+
+    /**
+     * Note: each combine() consults the Lagrange weight cache,
+     *   so repeating the paranoid check on secrets from the same share holders
+     *   only pays for the weights once per subset.
+     *
+     * @param shares ALL of the available shares, size() &gt;= k
+     * @param paranoidInput non-null input control of the "paranoid" process
+     * @return paranoid output
+     */
+    public ParanoidOutput performParanoidCombinesNonNull(List<ShareInfo> shares,
+                                                         ParanoidInput paranoidInput)
+    {
+        if (paranoidInput.getMode() == ParanoidMode.CONSISTENCY)
+        {
+            ParanoidOutput ret = performParanoidConsistencyCheck(shares, paranoidInput);
+            if (ret != null)
+            {
+                return ret;
+            }
+            // else: could not interpolate mod p, so fall back to combining every subset
+        }
+        else if (paranoidInput.getMode() == ParanoidMode.SAMPLING)
+        {
+            return performParanoidSampling(shares, paranoidInput);
+        }
+        return performParanoidCombinesExhaustive(shares, paranoidInput);
+    }
+
+    /**
+     * Combine uniformly random k-subsets of the shares, drawn without replacement
+     *   by picking a random combination number and unranking it.
+     * Unlike the first N combinations in order, the samples do not favor the low-index shares.
+     *
+     * If a single share were bad, every subset containing it would produce a different secret
+     *   [its Lagrange weight at zero is never zero].
+     * A random subset contains a given share with probability k/n, so after m samples
+     *   the chance that any one bad share was never sampled is at most  n * (1 - k/n)^m.
+     * Sampling stops once that is at most (1 - confidence), or every subset has been drawn,
+     *   or maximumCombinationsAllowedToTest/stopCombiningWhenAnyCount says to stop.
+     *
+     * @param shares ALL of the available shares, size() &gt;= k
+     * @param paranoidInput non-null input control of the "paranoid" process
+     * @return paranoid output, with the per-share coverage recorded
+     */
+    private ParanoidOutput performParanoidSampling(List<ShareInfo> shares,
+                                                   ParanoidInput paranoidInput)
+    {
+        ParanoidOutput ret = new ParanoidOutput(paranoidInput);
+
+        final int n = shares.size();
+        final int k = publicInfo.getK();
+        final BigInteger total = CombinationGenerator.binomial(n, k);
+        ret.setTotalNumberOfAvailableCombinations(total);
+
+        final double confidence = paranoidInput.getConfidence();
+        final BigInteger target = computeSamplesForConfidence(n, k, confidence).min(total);
+
+        println(" ***  * PARANOID, sampling " + target + " of total combinations=" + total);
+
+        Random random = paranoidInput.getRandom();
+        if (random == null)
+        {
+            random = new SecureRandom();
+        }
+
+        Set<BigInteger> drawn = new HashSet<BigInteger>();
+        int[] coverage = new int[n];
+        // re-filled for every combination, combine() does not keep it:
+        List<ShareInfo> usetheseshares = new ArrayList<ShareInfo>(shares.subList(0, k));
+
+        ret.initCount();
+        while (ret.getCount().compareTo(target) < 0)
+        {
+            if (ret.timeToStopLoop())
+            {
+                break;
+            }
+
+            BigInteger rank;
+            do
+            {
+                rank = new BigInteger(total.bitLength(), random);
+            }
+            while ((rank.compareTo(total) >= 0) || (! drawn.add(rank)));
+
+            final int[] indexes = CombinationGenerator.unrank(n, k, rank);
+            for (int i = 0; i < k; i++)
+            {
+                usetheseshares.set(i, shares.get(indexes[i]));
+                coverage[indexes[i]]++;
+            }
+
+            if (ret.timeToOutput())
+            {
+                ret.recordCombination(rank.add(BigInteger.ONE),
+                                      Arrays.toString(indexes),
+                                      dumpshares(usetheseshares));
+            }
+
+            SecretShare.CombineOutput solved = this.combine(usetheseshares);
+            BigInteger solve =  solved.getSecret();
+
+            ret.incCount();
+            ret.addThisSecret(solve);
+        }
+
+        Map<Integer, Integer> coverageByX = new TreeMap<Integer, Integer>();
+        for (int i = 0; i < n; i++)
+        {
+            coverageByX.put(shares.get(i).getX(), coverage[i]);
+        }
+        ret.recordSampling(coverageByX, computeConfidenceForSamples(n, k, ret.getCount(), total));
+
+        return ret;
+    }
+
+    /**
+     * @return smallest m with  n * (1 - k/n)^m  &lt;= (1 - confidence), at least 1
+     */
+    static BigInteger computeSamplesForConfidence(final int n,
+                                                  final int k,
+                                                  final double confidence)
+    {
+        if (k >= n)
+        {
+            return BigInteger.ONE;
+        }
+        final double m = Math.log((1.0 - confidence) / n) / Math.log(1.0 - ((double) k / n));
+        return BigInteger.valueOf((long) Math.max(1.0, Math.ceil(m)));
+    }
+
+    /**
+     * @return 1 - n * (1 - k/n)^samples, clamped to [0, 1];  1 if every subset was combined
+     */
+    static double computeConfidenceForSamples(final int n,
+                                              final int k,
+                                              final BigInteger samples,
+                                              final BigInteger total)
+    {
+        if (samples.compareTo(total) >= 0)
+        {
+            return 1.0;
+        }
+        final double missed = n * Math.pow(1.0 - ((double) k / n), samples.doubleValue());
+        return Math.max(0.0, 1.0 - missed);
+    }
+
+    /**
+     * Interpolate the polynomial once from the first k shares,
+     *   then check that each of the remaining n-k shares lies on it.
+     * That is n-k modular evaluations, instead of C(n,k) combines.
+     *
+     * If any share disagrees, the exhaustive combines are run as well
+     *   [still bounded by maximumCombinationsAllowedToTest],
+     *   since the count of each reconstructed secret is what shows which secret is correct.
+     * The inconsistent shares are then the ones off the polynomial that the most shares agree on,
+     *   not the ones off the first k [which may hold the bad share].
+     *
+     * @param shares ALL of the available shares, size() &gt;= k
+     * @param paranoidInput non-null input control of the "paranoid" process
+     * @return paranoid output, or null if there is no modulus or the modulus is not prime
+     */
+    private ParanoidOutput performParanoidConsistencyCheck(List<ShareInfo> shares,
+                                                           ParanoidInput paranoidInput)
+    {
+        final BigInteger modulus = publicInfo.getPrimeModulus();
+        if (modulus == null)
+        {
+            return null;
+        }
+        final ModularField field = publicInfo.getPrimeField();
+
+        sanityCheckPublicInfos(publicInfo, shares);
+        final int k = publicInfo.getK();
+        if (k > shares.size())
+        {
+            throw new SecretShareException("Must have " + k +
+                                           " shares to solve.  Only provided " +
+                                           shares.size());
+        }
+        checkForDuplicatesOrThrow(shares);
+
+        BigInteger[] xarray = new BigInteger[k];
+        BigInteger[] fofxarray = new BigInteger[k];
+        List<Integer> baseIndexes = new ArrayList<Integer>();
+        for (int i = 0; i < k; i++)
+        {
+            xarray[i] = shares.get(i).getXasBigInteger();
+            fofxarray[i] = shares.get(i).getShare();
+            baseIndexes.add(shares.get(i).getX());
+        }
+
+        final BigInteger[] coefficients;
+        try
+        {
+            coefficients = LagrangeInterpolator.interpolateCoefficients(xarray, fofxarray, field);
         }
-        public void debugPrintEquationCoefficients(PrintStream out)
+        catch (ArithmeticException e)
         {
-            polynomial.debugPrintEquationCoefficients(out);
+            println("Consistency check failed (" + e.getMessage() + "), using exhaustive");
+            return null;
         }
-    }
-
-    public ParanoidOutput combineParanoid(List<ShareInfo> shares)
-    {
-        return combineParanoid(shares, ParanoidInput.createAll());
-    }
-
-    /**
-     * This version does the combines, and throws an exception if there is not 100% agreement.
-     *
-     * @param shares - all shares available to make unique subsets from
-     * @param paranoidInput control over the process
-     * @return ParanoidOutput
-     * @throws SecretShareException if there is not 100% agreement on the reconstructed secret
-     */
-    public ParanoidOutput combineParanoid(List<ShareInfo> shares,
-                                          ParanoidInput paranoidInput)
-    {
-        ParanoidOutput ret = performParanoidCombines(shares, paranoidInput);
+        final PolyEquationImpl polynomial = new PolyEquationImpl(coefficients);
 
-        if (paranoidInput != null)
+        List<Integer> inconsistent = new ArrayList<Integer>();
+        for (int i = k, n = shares.size(); i < n; i++)
         {
-            if (ret.getReconstructedMap().size() != 1)
+            final ShareInfo share = shares.get(i);
+            final BigInteger expected = polynomial.calculateFofXInField(share.getXasBigInteger(), field);
+            if (! expected.equals(share.getShare().mod(modulus)))
             {
-                throw new SecretShareException("Paranoid combine failed, on combination at count=" + ret.getCount());
+                inconsistent.add(share.getX());
             }
         }
 
+        final ParanoidOutput ret;
+        if (inconsistent.isEmpty())
+        {
+            ret = new ParanoidOutput(paranoidInput);
+            ret.setTotalNumberOfAvailableCombinations(CombinationGenerator.binomial(shares.size(), k));
+            ret.initCount();
+            ret.incCount();
+            ret.addThisSecret(coefficients[0]);
+        }
+        else
+        {
+            println(" ***  * PARANOID, shares x=" + inconsistent + " disagree with base " + baseIndexes +
+                    ", running exhaustive");
+            ret = performParanoidCombinesExhaustive(shares, paranoidInput);
+            // a bad share in the base puts every good share off of it, so name the shares off the best polynomial:
+            inconsistent = findSharesOffBestPolynomial(shares, modulus, paranoidInput);
+        }
+        ret.recordConsistencyCheck(baseIndexes, shares.size() - k, inconsistent);
+
         return ret;
     }
 
     /**
-     * This version just collects all of the reconstructed secrets.
+     * Re-base on the shares that agree: interpolate k-subsets [in combination order, up to
+     *   maximumCombinationsAllowedToTest of them] and keep the polynomial that the most shares lie on.
+     * A polynomial with more than (n + k - 1) / 2 shares on it is the only one that can have that many
+     *   [two different ones share at most k - 1 points], so the search stops there.
      *
-     * @param shares to use
-     * @param paranoidInput - control over process
-     *  if greater than 0        use that number
-     *  if less than 0  OR null  no limit
-     * @return ParanoidOutput
+     * @return x values of the shares off the best polynomial; if several polynomials tie for the most shares
+     *         [e.g. n = k + 1 with one bad share], the bad shares cannot be told apart,
+     *         and every share off any of them is returned
      */
-    public ParanoidOutput performParanoidCombines(List<ShareInfo> shares,
-                                                  ParanoidInput paranoidInput)
+    private List<Integer> findSharesOffBestPolynomial(final List<ShareInfo> shares,
+                                                      final BigInteger modulus,
+                                                      final ParanoidInput paranoidInput)
     {
-        if (paranoidInput == null)
-        {
-            return ParanoidOutput.createEmpty();
-        }
-        else
-        {
-            return performParanoidCombinesNonNull(shares, paranoidInput);
+        final int n = shares.size();
+        final int k = publicInfo.getK();
+        final ModularField field = publicInfo.getPrimeField();
+        final BigInteger limit = paranoidInput.getMaximumCombinationsAllowedToTest();
+
+        int bestCount = -1;
+        Set<Integer> off = new TreeSet<Integer>();
+        BigInteger[] xarray = new BigInteger[k];
+        BigInteger[] fofxarray = new BigInteger[k];
+        CombinationCursor cursor = new CombinationCursor(n, k);
+        while (cursor.advance())
+        {
+            if ((limit != null) && (limit.signum() >= 0) &&
+                (cursor.getCurrentCombinationNumberAsBigInteger().compareTo(limit) > 0))
+            {
+                break;
+            }
+            final int[] indexes = cursor.getIndexes();
+            for (int i = 0; i < k; i++)
+            {
+                xarray[i] = shares.get(indexes[i]).getXasBigInteger();
+                fofxarray[i] = shares.get(indexes[i]).getShare();
+            }
+            final PolyEquationImpl polynomial;
+            try
+            {
+                polynomial = new PolyEquationImpl(LagrangeInterpolator.interpolateCoefficients(xarray, fofxarray,
+                                                                                               field));
+            }
+            catch (ArithmeticException e)
+            {
+                continue;
+            }
+
+            List<Integer> offThis = new ArrayList<Integer>();
+            for (ShareInfo share : shares)
+            {
+                final BigInteger expected = polynomial.calculateFofXInField(share.getXasBigInteger(), field);
+                if (! expected.equals(share.getShare().mod(modulus)))
+                {
+                    offThis.add(share.getX());
+                }
+            }
+            final int count = n - offThis.size();
+            if (count > bestCount)
+            {
+                bestCount = count;
+                off.clear();
+            }
+            if (count == bestCount)
+            {
+                off.addAll(offThis);
+            }
+            if (2 * count > n + k - 1)
+            {
+                break;
+            }
         }
+        return new ArrayList<Integer>(off);
     }
 
     /**
+     * Combine every k-subset of the shares, and count how many times each secret is seen.
      *
      * @param shares ALL of the available shares, size() &gt;= k
      * @param paranoidInput non-null input control of the "paranoid" process
      * @return paranoid output
      */
-    public ParanoidOutput performParanoidCombinesNonNull(List<ShareInfo> shares,
-                                                         ParanoidInput paranoidInput)
+    private ParanoidOutput performParanoidCombinesExhaustive(List<ShareInfo> shares,
+                                                             ParanoidInput paranoidInput)
     {
+        if (paranoidInput.getThreads() > 1)
+        {
+            return new ParallelParanoidCombiner(this, paranoidInput.getThreads()).combine(shares, paranoidInput);
+        }
+
         ParanoidOutput ret = new ParanoidOutput(paranoidInput);
 
-        CombinationGenerator<ShareInfo> combo =
-            new CombinationGenerator<ShareInfo>(shares,
-                                                publicInfo.getK());
+        final int k = publicInfo.getK();
+        CombinationCursor cursor = new CombinationCursor(shares.size(), k);
         // setting the total number available indirectly sets the "timeToStopLoop" and "timeToOutput" settings:
-        ret.setTotalNumberOfAvailableCombinations(combo.getTotalNumberOfCombinations());
+        ret.setTotalNumberOfAvailableCombinations(cursor.getTotalNumberOfCombinations());
 
 
         println(" ***  * PARANOID, total combinations=" + ret.totalNumberOfAvailableCombinations);
 
+        // re-filled for every combination, combine() does not keep it:
+        List<ShareInfo> usetheseshares = new ArrayList<ShareInfo>(shares.subList(0, k));
+
         ret.initCount();
-        for (List<SecretShare.ShareInfo> usetheseshares : combo)
+        while (cursor.advance())
         {
             if (ret.timeToStopLoop())
             {
                 break;
             }
 
+            final int[] indexes = cursor.getIndexes();
+            for (int i = 0; i < k; i++)
+            {
+                usetheseshares.set(i, shares.get(indexes[i]));
+            }
+
             if (ret.timeToOutput())
             {
-                ret.recordCombination(combo.getCurrentCombinationNumber(),
-                                      combo.getIndexesAsString(),
+                ret.recordCombination(cursor.getCurrentCombinationNumberAsBigInteger(),
+                                      cursor.getIndexesAsString(),
                                       dumpshares(usetheseshares));
             }
 
@@ -1246,6 +2440,80 @@ public class SecretShare
         return ret;
     }
 
+    /**
+     * Combine ALL of the shares, correcting up to (m - k) / 2 bad shares,
+     *   where m is the number of shares, using Berlekamp-Welch decoding.
+     *
+     * Instead of the C(m,k) combines of the exhaustive paranoid mode,
+     *   this is one linear solve mod p, and it names the rejected shares.
+     *
+     * @param shares ALL of the available shares, size() &gt;= k
+     * @return the secret, and the x values of the rejected shares
+     * @throws SecretShareException if there is no modulus, or too many shares are bad to correct
+     */
+    public CorrectedCombineOutput combineWithErrorCorrection(final List<ShareInfo> shares)
+    {
+        final BigInteger modulus = publicInfo.getPrimeModulus();
+        if (modulus == null)
+        {
+            throw new SecretShareException("Error correction requires a prime modulus");
+        }
+        final ModularField field = publicInfo.getPrimeField();
+
+        sanityCheckPublicInfos(publicInfo, shares);
+        final int k = publicInfo.getK();
+        final int m = shares.size();
+        if (k > m)
+        {
+            throw new SecretShareException("Must have " + k +
+                                           " shares to solve.  Only provided " +
+                                           m);
+        }
+        checkForDuplicatesOrThrow(shares);
+
+        BigInteger[] xarray = new BigInteger[m];
+        BigInteger[] fofxarray = new BigInteger[m];
+        for (int i = 0; i < m; i++)
+        {
+            xarray[i] = shares.get(i).getXasBigInteger();
+            fofxarray[i] = shares.get(i).getShare();
+        }
+
+        final int correctable = BerlekampWelchDecoder.maximumCorrectableErrors(m, k);
+        final BigInteger[] coefficients;
+        try
+        {
+            coefficients = BerlekampWelchDecoder.decode(xarray, fofxarray, k, modulus);
+        }
+        catch (ArithmeticException e)
+        {
+            throw new SecretShareException("Error correction requires a prime modulus, modulus=" + modulus, e);
+        }
+        if (coefficients == null)
+        {
+            throw new SecretShareException("More than " + correctable + " of the " + m +
+                                           " shares are bad, cannot correct (k=" + k + ")");
+        }
+
+        PolyEquationImpl poly = new PolyEquationImpl(coefficients);
+        List<Integer> rejected = new ArrayList<Integer>();
+        for (ShareInfo share : shares)
+        {
+            BigInteger expected = poly.calculateFofXInField(share.getXasBigInteger(), field);
+            if (! expected.equals(share.getShare().mod(modulus)))
+            {
+                rejected.add(share.getX());
+            }
+        }
+        if (rejected.size() > correctable)
+        {
+            throw new SecretShareException("More than " + correctable + " of the " + m +
+                                           " shares are bad, cannot correct (k=" + k + ")");
+        }
+
+        return new CorrectedCombineOutput(coefficients[0], rejected, correctable);
+    }
+
     /**
      * Holds the output of the combine() operation, i.e. the original secret.
      *
@@ -1265,6 +2533,37 @@ public class SecretShare
         }
     }
 
+    /**
+     * Holds the output of the combineWithErrorCorrection() operation.
+     *
+     */
+    public static class CorrectedCombineOutput
+        extends CombineOutput
+    {
+        // x values of the shares that are not on the recovered polynomial
+        private final List<Integer> rejectedShareIndexes;
+        private final int maximumCorrectableErrors;
+
+        public CorrectedCombineOutput(final BigInteger inSecret,
+                                      final List<Integer> inRejectedShareIndexes,
+                                      final int inMaximumCorrectableErrors)
+        {
+            super(inSecret);
+            rejectedShareIndexes = Collections.unmodifiableList(new ArrayList<Integer>(inRejectedShareIndexes));
+            maximumCorrectableErrors = inMaximumCorrectableErrors;
+        }
+
+        public List<Integer> getRejectedShareIndexes()
+        {
+            return rejectedShareIndexes;
+        }
+
+        public int getMaximumCorrectableErrors()
+        {
+            return maximumCorrectableErrors;
+        }
+    }
+
     /**
      * Holds the input of the combineParanoid operation.
      * Controls the operation:<ul>
@@ -1282,6 +2581,16 @@ public class SecretShare
         private Integer stopCombiningWhenAnyCount = null;
         // limit the number of "combine.N" lines printed
         private Integer limitPrint = null;
+        // how to check the shares
+        private ParanoidMode mode = ParanoidMode.EXHAUSTIVE;
+        // number of threads for the exhaustive combines, 1 means "sequential"
+        private int threads = 1;
+        // sampling: stop once this confident that every share was checked
+        private double confidence = DEFAULT_SAMPLING_CONFIDENCE;
+        // sampling: source of the random subsets, null means "new SecureRandom()"
+        private Random random = null;
+
+        public static final double DEFAULT_SAMPLING_CONFIDENCE = 0.999;
 
         @Override
         public String toString()
@@ -1291,38 +2600,70 @@ public class SecretShare
                     ", percentEvery=" + percentEvery +
                     ", stopCombiningWhenAnyCount=" + stopCombiningWhenAnyCount +
                     ", limitPrint=" + limitPrint +
+                    ", mode=" + mode +
+                    ", threads=" + threads +
+                    ", confidence=" + confidence +
                     "]";
         }
 
 
-        // split only allows <number> or the string "all"
+        // split allows <number> or the string "all", optionally with ",mode=<mode>"
+        // the command line default is mode=consistency
         public static ParanoidInput parseForSplit(String argumentName, String arg)
         {
             ParanoidInput ret = new ParanoidInput();
-            if ("all".equals(arg))
-            {
-                ret.maximumCombinationsAllowedToTest = null;
-            }
-            else
+            ret.mode = ParanoidMode.CONSISTENCY;
+            String[] pieces = arg.split(",");
+            for (String piece : pieces)
             {
-                ret.maximumCombinationsAllowedToTest = new BigInteger(arg);
+                if (parseMode(ret, piece, arg))
+                {
+                    continue;
+                }
+                if (parseConfidence(ret, piece, arg))
+                {
+                    continue;
+                }
+                Integer v = parse(piece, "threads=");
+                if (v != null)
+                {
+                    ret.setThreads(v);
+                }
+                else if ("all".equals(piece))
+                {
+                    ret.maximumCombinationsAllowedToTest = null;
+                }
+                else
+                {
+                    ret.maximumCombinationsAllowedToTest = new BigInteger(piece);
+                }
             }
             return ret;
         }
 
         // combine allows <number>|"all" followed by other options
+        // the command line default is mode=consistency
         public static ParanoidInput parseForCombine(String argumentName, String arg)
         {
             ParanoidInput ret = new ParanoidInput();
+            ret.mode = ParanoidMode.CONSISTENCY;
             String[] pieces = arg.split(",");
             for (String piece : pieces)
             {
+                if (parseMode(ret, piece, arg) || parseConfidence(ret, piece, arg))
+                {
+                    continue;
+                }
                 Integer v;
                 v = parse(piece, "limitPrint=");
                 if (v != null)
                 {
                     ret.limitPrint = v;
                 }
+                else if ((v = parse(piece, "threads=")) != null)
+                {
+                    ret.setThreads(v);
+                }
                 else
                 {
                     v = parse(piece, "stopCombiningWhenAnyCount=");
@@ -1353,6 +2694,46 @@ public class SecretShare
             return ret;
         }
 
+        private static boolean parseMode(ParanoidInput ret, String piece, String arg)
+        {
+            final String lookfor = "mode=";
+            if (piece.toLowerCase().startsWith(lookfor))
+            {
+                String rest = piece.substring(lookfor.length()).trim();
+                for (ParanoidMode m : ParanoidMode.values())
+                {
+                    if (m.name().equalsIgnoreCase(rest))
+                    {
+                        ret.mode = m;
+                        return true;
+                    }
+                }
+                throw new SecretShareException("Failed to parse mode '" + rest +
+                                               "' as part of argument '" + arg + "'");
+            }
+            return false;
+        }
+
+        private static boolean parseConfidence(ParanoidInput ret, String piece, String arg)
+        {
+            final String lookfor = "confidence=";
+            if (piece.toLowerCase().startsWith(lookfor))
+            {
+                String rest = piece.substring(lookfor.length()).trim();
+                try
+                {
+                    ret.setConfidence(Double.parseDouble(rest));
+                }
+                catch (NumberFormatException e)
+                {
+                    throw new SecretShareException("Failed to parse confidence '" + rest +
+                                                   "' as part of argument '" + arg + "'", e);
+                }
+                return true;
+            }
+            return false;
+        }
+
         private static Integer parse(String arg, String lookfor)
         {
             arg = arg.toLowerCase();
@@ -1421,6 +2802,75 @@ public class SecretShare
         {
             return limitPrint;
         }
+
+        public ParanoidMode getMode()
+        {
+            return mode;
+        }
+
+        public int getThreads()
+        {
+            return threads;
+        }
+
+        /**
+         * @param inThreads number of threads for the exhaustive combines,
+         *                  1 is sequential, 0 means "one per available processor"
+         */
+        public void setThreads(int inThreads)
+        {
+            if (inThreads < 0)
+            {
+                throw new SecretShareException("paranoid threads cannot be negative, was " + inThreads);
+            }
+            else if (inThreads == 0)
+            {
+                threads = Runtime.getRuntime().availableProcessors();
+            }
+            else
+            {
+                threads = inThreads;
+            }
+        }
+
+        public double getConfidence()
+        {
+            return confidence;
+        }
+
+        /**
+         * @param inConfidence for mode=SAMPLING, strictly between 0 and 1, e.g. 0.999
+         */
+        public void setConfidence(double inConfidence)
+        {
+            if (! ((inConfidence > 0.0) && (inConfidence < 1.0)))
+            {
+                throw new SecretShareException("confidence must be between 0 and 1, was " + inConfidence);
+            }
+            confidence = inConfidence;
+        }
+
+        public Random getRandom()
+        {
+            return random;
+        }
+
+        /**
+         * @param inRandom for mode=SAMPLING, null means "new SecureRandom()"
+         */
+        public void setRandom(Random inRandom)
+        {
+            random = inRandom;
+        }
+
+        public void setMode(ParanoidMode inMode)
+        {
+            if (inMode == null)
+            {
+                throw new SecretShareException("paranoid mode cannot be null");
+            }
+            mode = inMode;
+        }
     }
 
     /**
@@ -1444,6 +2894,20 @@ public class SecretShare
         // map of secret to count of how many times that secret has been seen
         private final Map<BigInteger, Integer> mapReconstructedToCount = new HashMap<BigInteger, Integer>();
 
+        // consistency check: null means "not performed",
+        //   otherwise the x values of the shares used to interpolate the polynomial
+        private List<Integer> consistencyBaseIndexes = null;
+        // consistency check: number of other shares checked against the polynomial
+        private int consistencyCheckedCount = 0;
+        // consistency check: the x values of the shares that are NOT on the polynomial most shares agree on
+        private final List<Integer> inconsistentShareIndexes = new ArrayList<Integer>();
+
+        // sampling: null means "not performed",
+        //   otherwise x value to the number of sampled subsets that contained that share
+        private Map<Integer, Integer> shareCoverage = null;
+        // sampling: confidence reached that any single bad share was sampled
+        private double samplingConfidence = 0.0;
+
 
         public ParanoidOutput(ParanoidInput input)
         {
@@ -1458,7 +2922,16 @@ public class SecretShare
         private BigInteger outputEvery = BigInteger.ONE;
         public boolean timeToOutput()
         {
-            if (getCount().mod(outputEvery).equals(BigInteger.ZERO))
+            return timeToOutput(getCount());
+        }
+
+        /**
+         * @param countBeforeCombine the number of combines performed before this one
+         * @return true if this combination should be recorded
+         */
+        public boolean timeToOutput(BigInteger countBeforeCombine)
+        {
+            if (countBeforeCombine.mod(outputEvery).equals(BigInteger.ZERO))
             {
                 return true;
             }
@@ -1533,6 +3006,11 @@ public class SecretShare
             count = count.add(BigInteger.ONE);
         }
 
+        public void addToCount(long amount)
+        {
+            count = count.add(BigInteger.valueOf(amount));
+        }
+
         public void initCount()
         {
             count = BigInteger.ZERO;
@@ -1559,13 +3037,18 @@ public class SecretShare
 
 
         public void addThisSecret(BigInteger secret)
+        {
+            addThisSecret(secret, 1);
+        }
+
+        public void addThisSecret(BigInteger secret, int times)
         {
             if (! mapReconstructedToCount.containsKey(secret))
             {
                 mapReconstructedToCount.put(secret, Integer.valueOf(0));
             }
             Integer prev = mapReconstructedToCount.get(secret);
-            Integer now = prev + 1;
+            Integer now = prev + times;
             mapReconstructedToCount.put(secret, now);
         }
 
@@ -1599,6 +3082,21 @@ public class SecretShare
                         totalNumberOfAvailableCombinations +
                         ")";
             ret += "\n";
+            if (isConsistencyChecked())
+            {
+                ret += "SecretShare.consistency(base=" + consistencyBaseIndexes +
+                       " checked=" + consistencyCheckedCount +
+                       " inconsistent=" + inconsistentShareIndexes +
+                       ")";
+                ret += "\n";
+            }
+            if (isSampled())
+            {
+                ret += "SecretShare.sampling(confidence=" + samplingConfidence +
+                       " coverage=" + shareCoverage +
+                       ")";
+                ret += "\n";
+            }
             return ret;
         }
 
@@ -1629,9 +3127,77 @@ public class SecretShare
 
         public BigInteger getAgreedAnswer()
         {
+            if (! inconsistentShareIndexes.isEmpty())
+            {
+                return null;
+            }
             return getAgreedAnswerFromMap();
         }
 
+        public void recordConsistencyCheck(List<Integer> baseIndexes,
+                                           int checkedCount,
+                                           List<Integer> inconsistentIndexes)
+        {
+            consistencyBaseIndexes = new ArrayList<Integer>(baseIndexes);
+            consistencyCheckedCount = checkedCount;
+            inconsistentShareIndexes.clear();
+            inconsistentShareIndexes.addAll(inconsistentIndexes);
+        }
+
+        public void recordSampling(Map<Integer, Integer> coverageByX,
+                                   double confidenceReached)
+        {
+            shareCoverage = new TreeMap<Integer, Integer>(coverageByX);
+            samplingConfidence = confidenceReached;
+        }
+
+        public boolean isSampled()
+        {
+            return (shareCoverage != null);
+        }
+
+        /**
+         * @return x value to the number of sampled subsets containing that share, or null if not sampled
+         */
+        public Map<Integer, Integer> getShareCoverage()
+        {
+            return (shareCoverage == null) ? null : Collections.unmodifiableMap(shareCoverage);
+        }
+
+        /**
+         * @return confidence that any single bad share would have been in a sampled subset
+         */
+        public double getSamplingConfidence()
+        {
+            return samplingConfidence;
+        }
+
+        public boolean isConsistencyChecked()
+        {
+            return (consistencyBaseIndexes != null);
+        }
+
+        /**
+         * @return x values of the shares used to interpolate, or null if no consistency check was done
+         */
+        public List<Integer> getConsistencyBaseIndexes()
+        {
+            return (consistencyBaseIndexes == null) ? null : Collections.unmodifiableList(consistencyBaseIndexes);
+        }
+
+        public int getConsistencyCheckedCount()
+        {
+            return consistencyCheckedCount;
+        }
+
+        /**
+         * @return x values of the shares that are not on the polynomial most shares agree on [empty if none]
+         */
+        public List<Integer> getInconsistentShareIndexes()
+        {
+            return Collections.unmodifiableList(inconsistentShareIndexes);
+        }
+
         public BigInteger getTotalNumberOfCombinations()
         {
             return totalNumberOfAvailableCombinations;
@@ -1653,6 +3219,17 @@ public class SecretShare
                         ((getMaximumCombinationsAllowedToTest() == null) ?
                                 "all" : getMaximumCombinationsAllowedToTest()));
             out.println("paranoid.count = " + getCount());
+            if (isConsistencyChecked())
+            {
+                out.println("paranoid.consistency.base = " + consistencyBaseIndexes);
+                out.println("paranoid.consistency.checked = " + consistencyCheckedCount);
+                out.println("paranoid.consistency.inconsistent = " + inconsistentShareIndexes);
+            }
+            if (isSampled())
+            {
+                out.println("paranoid.sampling.confidence = " + samplingConfidence);
+                out.println("paranoid.sampling.coverage = " + shareCoverage);
+            }
             String paranoidSummary = "Agreement";
             if (getAgreedAnswer() == null)
             {
@@ -1736,7 +3313,7 @@ public class SecretShare
     }
 
 
-    private String dumpshares(List<ShareInfo> usetheseshares)
+    static String dumpshares(List<ShareInfo> usetheseshares)
     {
         String ret = "";
         for (ShareInfo share : usetheseshares)
@@ -0,0 +1,493 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2014 Tim Tiemens.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ *
+ * Contributors:
+ *     Tim Tiemens - initial API and implementation
+ *******************************************************************************/
+package com.tiemens.secretshare.engine;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.UUID;
+
+import com.tiemens.secretshare.engine.SecretShare.PublicInfo;
+import com.tiemens.secretshare.exceptions.SecretShareException;
+
+/**
+ * The binary share file written by FileSecretShare: one holder's share of a whole file.
+ *
+ * Layout [big-endian]:
+ *   header:  int magic, byte version, 16 bytes split id, int x, int valueBytes, int chunkSize, long fileLength,
+ *            then the PublicInfo fields: int n, int k, modulus, description, uuid, long date
+ *            [date is milliseconds since 1970 UTC, so it reads the same in every time zone;
+ *             modulus is int length + bytes, length 0 for none;
+ *             strings are int length + UTF-8 bytes, length -1 for null]
+ *   index:   int numberOfChunks, then long offset of each chunk in this file
+ *   values:  the share values, valueBytes each, chunkSize values per chunk [the last chunk can be short]
+ *
+ * With GF(256) shares a value is 1 byte, and value i is the share of byte i of the original file.
+ * So a byte range of the original is recovered from the same range of k share files,
+ *   and read() copies only that range out of the values.
+ * The values are mapped once, by open() [in SEGMENT_BYTES pieces, since a mapping is at most 2 GB].
+ *
+ * @author tiemens
+ *
+ */
+public class ShareFile
+    implements Closeable
+{
+    // ==================================================
+    // class static data
+    // ==================================================
+
+    // "SSFS"
+    private static final int MAGIC = 0x53534653;
+    private static final byte VERSION = 2;
+
+    public static final int SPLIT_ID_BYTES = 16;
+
+    // the GF(256) values FileSecretShare writes
+    public static final int GF256_VALUE_BYTES = 1;
+
+    // the biggest modulus or string in a header
+    private static final int MAXIMUM_FIELD_BYTES = 64 * 1024;
+
+    // the values are mapped in pieces of this size [a power of 2, below the 2 GB limit of a mapping]
+    static final int SEGMENT_BYTES = 1 << 30;
+
+    // ==================================================
+    // class static methods
+    // ==================================================
+
+    /**
+     * @param fileLength values in the file
+     * @param chunkSize values per chunk
+     * @return number of chunks
+     */
+    public static int computeNumberOfChunks(final long fileLength,
+                                            final int chunkSize)
+    {
+        final long ret = (fileLength + chunkSize - 1) / chunkSize;
+        if (ret > Integer.MAX_VALUE)
+        {
+            throw new SecretShareException("File of " + fileLength + " bytes needs a chunk size bigger than " +
+                                           chunkSize);
+        }
+        return (int) ret;
+    }
+
+    /**
+     * @param splitId the same for every share file of one split
+     * @param publicInfo n, k, modulus and the descriptive fields
+     * @param x share number
+     * @param chunkSize values per chunk
+     * @param fileLength number of values
+     * @return header and index, ready to write; the values go right after them
+     */
+    static ByteBuffer createHeader(final byte[] splitId,
+                                   final PublicInfo publicInfo,
+                                   final int x,
+                                   final int chunkSize,
+                                   final long fileLength)
+    {
+        if (splitId.length != SPLIT_ID_BYTES)
+        {
+            throw new SecretShareException("split id must be " + SPLIT_ID_BYTES + " bytes");
+        }
+        final byte[] modulus = (publicInfo.getPrimeModulus() == null) ? new byte[0] :
+                                                                       publicInfo.getPrimeModulus().toByteArray();
+        final byte[] description = utf8(publicInfo.getDescription());
+        final byte[] uuid = utf8(publicInfo.getUuid());
+        final int numberOfChunks = computeNumberOfChunks(fileLength, chunkSize);
+
+        final int headerBytes = 4 + 1 + SPLIT_ID_BYTES + 4 + 4 + 4 + 8 + 4 + 4 +
+                                (4 + modulus.length) + fieldBytes(description) + fieldBytes(uuid) + 8;
+        final long indexBytes = 4 + 8L * numberOfChunks;
+        if (headerBytes + indexBytes > Integer.MAX_VALUE)
+        {
+            throw new SecretShareException("Too many chunks [" + numberOfChunks + "], use a bigger chunk size");
+        }
+        ByteBuffer ret = ByteBuffer.allocate((int) (headerBytes + indexBytes));
+        ret.putInt(MAGIC).put(VERSION).put(splitId);
+        ret.putInt(x).putInt(GF256_VALUE_BYTES).putInt(chunkSize).putLong(fileLength);
+        ret.putInt(publicInfo.getN()).putInt(publicInfo.getK());
+        ret.putInt(modulus.length).put(modulus);
+        putField(ret, description);
+        putField(ret, uuid);
+        ret.putLong(publicInfo.getDateMillis());
+
+        ret.putInt(numberOfChunks);
+        final long valuesStart = headerBytes + indexBytes;
+        for (int i = 0; i < numberOfChunks; i++)
+        {
+            ret.putLong(valuesStart + (long) i * chunkSize * GF256_VALUE_BYTES);
+        }
+        ret.flip();
+        return ret;
+    }
+
+    /**
+     * @param path a share file
+     * @return the share file, with its header read and its index and values mapped
+     * @throws IOException on read failure
+     * @throws SecretShareException if the file is not a complete share file
+     */
+    public static ShareFile open(final Path path)
+        throws IOException
+    {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try
+        {
+            return new ShareFile(path, channel);
+        }
+        catch (IOException | RuntimeException e)
+        {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static byte[] utf8(final String value)
+    {
+        return (value == null) ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int fieldBytes(final byte[] field)
+    {
+        return 4 + ((field == null) ? 0 : field.length);
+    }
+
+    private static void putField(final ByteBuffer buffer,
+                                 final byte[] field)
+    {
+        if (field == null)
+        {
+            buffer.putInt(-1);
+        }
+        else
+        {
+            buffer.putInt(field.length).put(field);
+        }
+    }
+
+    // ==================================================
+    // instance data
+    // ==================================================
+
+    private final Path path;
+    private final FileChannel channel;
+
+    private final byte[] splitId = new byte[SPLIT_ID_BYTES];
+    private final int x;
+    private final int chunkSize;
+    private final long fileLength;
+    private final PublicInfo publicInfo;
+
+    // the index, mapped
+    private final MappedByteBuffer offsets;
+    private final int numberOfChunks;
+
+    // the values, mapped: value region position p is segments[p / SEGMENT_BYTES] at p % SEGMENT_BYTES
+    private final long valuesStart;
+    private final MappedByteBuffer[] segments;
+
+    // ==================================================
+    // factories
+    // ==================================================
+
+    // ==================================================
+    // constructors
+    // ==================================================
+
+    private ShareFile(final Path inPath,
+                      final FileChannel inChannel)
+        throws IOException
+    {
+        path = inPath;
+        channel = inChannel;
+
+        // the header is variable length, but small; read it in two steps:
+        final int fixedBytes = 4 + 1 + SPLIT_ID_BYTES + 4 + 4 + 4 + 8 + 4 + 4;
+        ByteBuffer header = mapHeader(0, fixedBytes);
+        if ((header.getInt() != MAGIC) || (header.get() != VERSION))
+        {
+            throw new SecretShareException("File " + path + " is not a version " + VERSION + " share file");
+        }
+        header.get(splitId);
+        x = header.getInt();
+        final int valueBytes = header.getInt();
+        chunkSize = header.getInt();
+        fileLength = header.getLong();
+        final int n = header.getInt();
+        final int k = header.getInt();
+        if ((x < 1) || (x > Gf256SecretShare.MAXIMUM_N) ||
+            (valueBytes != GF256_VALUE_BYTES) || (chunkSize < 1) || (fileLength < 0) || (k < 1))
+        {
+            throw new SecretShareException("File " + path + " has a damaged header");
+        }
+
+        long position = fixedBytes;
+        final byte[] modulus = readField(position, false);
+        position += fieldBytes(modulus);
+        final byte[] description = readField(position, true);
+        position += fieldBytes(description);
+        final byte[] uuid = readField(position, true);
+        position += fieldBytes(uuid);
+        final long date = mapHeader(position, 8).getLong();
+        position += 8;
+        publicInfo = createPublicInfo(n, k, modulus, description, uuid, date);
+
+        numberOfChunks = mapHeader(position, 4).getInt();
+        position += 4;
+        if (numberOfChunks != computeNumberOfChunks(fileLength, chunkSize))
+        {
+            throw new SecretShareException("File " + path + " index has " + numberOfChunks + " chunks, should be " +
+                                           computeNumberOfChunks(fileLength, chunkSize));
+        }
+        valuesStart = position + 8L * numberOfChunks;
+        final long expectedSize = valuesStart + fileLength * valueBytes;
+        if (channel.size() != expectedSize)
+        {
+            throw new SecretShareException("File " + path + " is " + channel.size() + " bytes, should be " +
+                                           expectedSize);
+        }
+        offsets = channel.map(FileChannel.MapMode.READ_ONLY, position, 8L * numberOfChunks);
+        for (int i = 0; i < numberOfChunks; i++)
+        {
+            final long offset = getChunkOffset(i);
+            if ((offset < valuesStart) || (offset + getChunkLength(i) > expectedSize))
+            {
+                throw new SecretShareException("File " + path + " index has chunk " + i + " at " + offset +
+                                               ", outside the values");
+            }
+        }
+
+        final long valuesBytes = expectedSize - valuesStart;
+        segments = new MappedByteBuffer[(int) ((valuesBytes + SEGMENT_BYTES - 1) / SEGMENT_BYTES)];
+        for (int i = 0; i < segments.length; i++)
+        {
+            final long segmentStart = (long) i * SEGMENT_BYTES;
+            segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, valuesStart + segmentStart,
+                                      Math.min(SEGMENT_BYTES, valuesBytes - segmentStart));
+        }
+    }
+
+    // ==================================================
+    // public methods
+    // ==================================================
+
+    public final Path getPath()
+    {
+        return path;
+    }
+
+    public final int getX()
+    {
+        return x;
+    }
+
+    /**
+     * @return n, k, modulus [null for GF(256)], description, uuid and date of the split
+     */
+    public final PublicInfo getPublicInfo()
+    {
+        return publicInfo;
+    }
+
+    public int getChunkSize()
+    {
+        return chunkSize;
+    }
+
+    /**
+     * @return the number of bytes in the original file
+     */
+    public long getFileLength()
+    {
+        return fileLength;
+    }
+
+    public int getNumberOfChunks()
+    {
+        return numberOfChunks;
+    }
+
+    /**
+     * @param chunkIndex 0 .. numberOfChunks - 1
+     * @return position of the chunk's values in this file
+     */
+    public long getChunkOffset(final int chunkIndex)
+    {
+        checkChunkIndex(chunkIndex);
+        return offsets.getLong(8 * chunkIndex);
+    }
+
+    /**
+     * @param chunkIndex 0 .. numberOfChunks - 1
+     * @return number of values in the chunk
+     */
+    public int getChunkLength(final int chunkIndex)
+    {
+        checkChunkIndex(chunkIndex);
+        return (int) Math.min(chunkSize, fileLength - (long) chunkIndex * chunkSize);
+    }
+
+    /**
+     * @param other another share file
+     * @return true if both came from the same split [only x differs]
+     */
+    public boolean isSameSplit(final ShareFile other)
+    {
+        return Arrays.equals(splitId, other.splitId) &&
+               (chunkSize == other.chunkSize) &&
+               (fileLength == other.fileLength) &&
+               (publicInfo.getK() == other.publicInfo.getK()) &&
+               (publicInfo.getN() == other.publicInfo.getN());
+    }
+
+    /**
+     * Copy out the values [start, start + length) from the mapping open() made.
+     * Safe to call from several threads at once.
+     *
+     * @param start first value, 0 .. fileLength
+     * @param length number of values
+     * @return this share of original bytes [start, start + length)
+     * @throws IOException on read failure
+     */
+    public byte[] read(final long start,
+                       final int length)
+        throws IOException
+    {
+        if ((start < 0) || (length < 0) || (start + length > fileLength))
+        {
+            throw new SecretShareException("Range " + start + "+" + length + " is outside 0.." + fileLength);
+        }
+        byte[] ret = new byte[length];
+        int done = 0;
+        while (done < length)
+        {
+            final long value = start + done;
+            final int chunkIndex = (int) (value / chunkSize);
+            final int inChunk = (int) (value % chunkSize);
+            final int count = Math.min(length - done, getChunkLength(chunkIndex) - inChunk);
+            copyValues(getChunkOffset(chunkIndex) + inChunk - valuesStart, ret, done, count);
+            done += count;
+        }
+        return ret;
+    }
+
+    @Override
+    public void close()
+        throws IOException
+    {
+        channel.close();
+    }
+
+    @Override
+    public String toString()
+    {
+        return "ShareFile[" + path + ", x=" + x + ", k=" + publicInfo.getK() + ", bytes=" + fileLength + "]";
+    }
+
+    // ==================================================
+    // non public methods
+    // ==================================================
+
+    private ByteBuffer mapHeader(final long position,
+                                 final int length)
+        throws IOException
+    {
+        if (position + length > channel.size())
+        {
+            throw new SecretShareException("File " + path + " ended early, in the header");
+        }
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+    }
+
+    /**
+     * Copy count bytes at position of the values region to ret[done ..], across segments if need be.
+     */
+    private void copyValues(final long position,
+                            final byte[] ret,
+                            final int done,
+                            final int count)
+    {
+        int copied = 0;
+        while (copied < count)
+        {
+            final long at = position + copied;
+            final int inSegment = (int) (at % SEGMENT_BYTES);
+            final int piece = Math.min(count - copied, SEGMENT_BYTES - inSegment);
+            // a duplicate has its own position, so readers do not share one:
+            ByteBuffer segment = segments[(int) (at / SEGMENT_BYTES)].duplicate();
+            segment.position(inSegment);
+            segment.get(ret, done + copied, piece);
+            copied += piece;
+        }
+    }
+
+    private void checkChunkIndex(final int chunkIndex)
+    {
+        if ((chunkIndex < 0) || (chunkIndex >= numberOfChunks))
+        {
+            throw new SecretShareException("Chunk " + chunkIndex + " is not 0.." + (numberOfChunks - 1));
+        }
+    }
+
+    private byte[] readField(final long position,
+                             final boolean nullable)
+        throws IOException
+    {
+        final int length = mapHeader(position, 4).getInt();
+        if ((length == -1) && nullable)
+        {
+            return null;
+        }
+        if ((length < 0) || (length > MAXIMUM_FIELD_BYTES))
+        {
+            throw new SecretShareException("File " + path + " has a damaged header field, length " + length);
+        }
+        byte[] ret = new byte[length];
+        mapHeader(position + 4, length).get(ret);
+        return ret;
+    }
+
+    private PublicInfo createPublicInfo(final int n,
+                                        final int k,
+                                        final byte[] modulus,
+                                        final byte[] description,
+                                        final byte[] uuid,
+                                        final long date)
+    {
+        final BigInteger primeModulus = (modulus.length == 0) ? null : new BigInteger(modulus);
+        try
+        {
+            final UUID uuidobj = (uuid == null) ? null : UUID.fromString(new String(uuid, StandardCharsets.UTF_8));
+            return new PublicInfo((n < 0) ? null : n, k, primeModulus,
+                                  (description == null) ? null : new String(description, StandardCharsets.UTF_8),
+                                  uuidobj, date);
+        }
+        catch (IllegalArgumentException e)
+        {
+            throw new SecretShareException("File " + path + " has a damaged uuid", e);
+        }
+    }
+}
@@ -22,16 +22,28 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.PrintStream;
 import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
+import com.tiemens.secretshare.engine.FileSecretShare;
+import com.tiemens.secretshare.engine.Gf256SecretShare;
+import com.tiemens.secretshare.engine.Mersenne61SecretShare;
+import com.tiemens.secretshare.engine.ShareFile;
 import com.tiemens.secretshare.engine.SecretShare;
 import com.tiemens.secretshare.engine.SecretShare.ParanoidInput;
 import com.tiemens.secretshare.engine.SecretShare.ParanoidOutput;
 import com.tiemens.secretshare.engine.SecretShare.PublicInfo;
 import com.tiemens.secretshare.engine.SecretShare.ShareInfo;
 import com.tiemens.secretshare.exceptions.SecretShareException;
+import com.tiemens.secretshare.math.field.Mersenne61;
 import com.tiemens.secretshare.math.type.BigIntUtilities;
+import com.tiemens.secretshare.math.type.HexByteUtilities;
 
 /**
  * Main command line for the "combine" (aka "recover") of a secret.
@@ -76,7 +88,10 @@ public final class MainCombine
     {
         out.println("Usage:");
         out.println(" combine -k <k>  -s<a> <share-A> -s<b> <share-B> [...]" +             // required
-                    "  [-prime8192|-prime4096|-prime384|-prime192|-primeN <m>|-primeNone] [-stdin]"); // optional
+                    "  [-prime8192|-prime4096|-prime384|-prime192|-primeN <m>|-primeNone] [-stdin]" +  // optional
+                    " [-errorCorrect]");
+        out.println(" combine -inFile <share-file-A> -inFile <share-file-B> [...] -outFile <file> [-threads <t>]" +
+                    " [-offset <o> -length <l>]");
         out.println("  -k <k>        the threshold");
         out.println("  -s<a> <A>     share:a as a number or bingintcs, e.g. '-s1 124332' means " +
                                      "share x:1 value was 124332");
@@ -86,14 +101,32 @@ public final class MainCombine
         out.println("  -prime4096    for modulus, use built-in 4096-bit prime");
         out.println("  -prime384     for modulus, use built-in 384-bit prime [default]");
         out.println("  -prime192     for modulus, use built-in 192-bit prime");
+        out.println("  -prime521     for modulus, use built-in sparse prime 2^521-1");
         out.println("  -primeN <m>   for modulus use m, e.g. '59561' or 'bigintcs:12345-DC0AE1'");
         out.println("  -primeNone    modulus, do NOT use any modulus");
+        out.println("  -s<a> gf256:<hex>  a share written by 'split -gf256', the secret is recombined over GF(256)");
+        out.println("  -s<a> m61:<hex>    a share written by 'split -mersenne61', recombined over 2^61-1");
+        out.println("  -inFile <f>   a share file written by 'split -inFile', repeat it k times [k is in the file]");
+        out.println("  -outFile <f>  write the file recovered from the -inFile share files to <f>");
+        out.println("  -threads <t>  worker threads for -inFile [default: one per processor]");
+        out.println("  -offset <o>   with -inFile, recover only bytes <o> .. <o>+<l>-1 of the file,");
+        out.println("  -length <l>    reading only the chunks of the share files that hold them");
+        out.println("  -errorCorrect use all shares, and correct up to (shares - k)/2 bad shares " +
+                                     "[Berlekamp-Welch]");
         out.println("  -paranoid <P> perform multiple combinations of the shares, P is comma-separated of these:");
         out.println("                 maxCombinationsAllowedToTest=50  the number of combines to perform");
         out.println("                 stopCombiningWhenAnyCount=3      stop combining once a secret is seen " +
                                       "this many times");
         out.println("                 limitPrint=22                    in the final output, only print this " +
                                       "many secrets");
+        out.println("                 mode=consistency                 interpolate once, check the other shares " +
+                                      "are on it [default]");
+        out.println("                 mode=exhaustive                  combine every subset of k shares");
+        out.println("                 mode=sampling                    combine random subsets of k shares, " +
+                                      "until confidence is reached");
+        out.println("                 confidence=0.999                 for mode=sampling [default 0.999]");
+        out.println("                 threads=8                        exhaustive combines on 8 threads " +
+                                      "(0 = one per processor)");
 
 
     }
@@ -130,6 +163,19 @@ public final class MainCombine
 
         private final List<SecretShare.ShareInfo> shares = new ArrayList<SecretShare.ShareInfo>();
 
+        // shares written by 'split -gf256', x to share bytes
+        private final Map<Integer, byte[]> gf256Shares = new TreeMap<Integer, byte[]>();
+
+        // shares written by 'split -mersenne61', x to share limb values
+        private final Map<Integer, long[]> mersenne61Shares = new TreeMap<Integer, long[]>();
+
+        // share files written by 'split -inFile', streamed back into outFile with FileSecretShare
+        private final List<Path> shareFiles = new ArrayList<Path>();
+        private Path outFile = null;
+        private Integer threads = null;
+        private Long offset = null;
+        private Integer length = null;
+
         // optional:  if null, then do not use modulus
         // default to 384-bit
         private BigInteger modulus = SecretShare.getPrimeUsedFor384bitSecretPayload();
@@ -141,6 +187,10 @@ public final class MainCombine
         //    paranoidInput: null = do nothing;  non-null means run paranoid tests
         private ParanoidInput paranoidInput = null;
 
+        // optional:
+        //    errorCorrect: true means combine all shares with error correction
+        private boolean errorCorrect = false;
+
         // not an input.  used to cache the PublicInfo, so that after the first ShareInfo is
         //  created with this PublicInfo, then they are all created with the same PublicInfo
         private PublicInfo publicInfo;
@@ -220,6 +270,10 @@ public final class MainCombine
                 {
                     ret.modulus = SecretShare.getPrimeUsedFor192bitSecretPayload();
                 }
+                else if ("-prime521".equals(args[i]))
+                {
+                    ret.modulus = SecretShare.getSparsePrimeUsedFor521bitSecretPayload();
+                }
                 else if ("-primeN".equals(args[i]))
                 {
                     i++;
@@ -236,9 +290,38 @@ public final class MainCombine
                     MainSplit.checkIndex("s", args, i);
                     // put in "standard" format and parse that string:
                     String line = "Share (x:" + number + ") = " + args[i];
-                    SecretShare.ShareInfo share = ret.parseEqualShare("-s", line);
-
-                    ret.addIfNotDuplicate(share);
+                    ret.addShareLine("-s", line);
+                }
+                else if ("-inFile".equals(args[i]))
+                {
+                    i++;
+                    MainSplit.checkIndex("inFile", args, i);
+                    ret.shareFiles.add(Paths.get(args[i]));
+                }
+                else if ("-outFile".equals(args[i]))
+                {
+                    i++;
+                    MainSplit.checkIndex("outFile", args, i);
+                    ret.outFile = Paths.get(args[i]);
+                }
+                else if ("-threads".equals(args[i]))
+                {
+                    i++;
+                    ret.threads = parseInt("threads", args, i);
+                }
+                else if ("-offset".equals(args[i]))
+                {
+                    i++;
+                    ret.offset = MainSplit.parseLong("offset", args, i);
+                }
+                else if ("-length".equals(args[i]))
+                {
+                    i++;
+                    ret.length = parseInt("length", args, i);
+                }
+                else if ("-errorCorrect".equals(args[i]))
+                {
+                    ret.errorCorrect = true;
                 }
                 else if ("-paranoid".equals(args[i]))
                 {
@@ -257,11 +340,38 @@ public final class MainCombine
                     throw new SecretShareException(m);
                 }
             }
+            if (! ret.shareFiles.isEmpty())
+            {
+                // k, and the number of files needed, come from the share files
+                checkRequired("-outFile", ret.outFile);
+                if ((! ret.shares.isEmpty()) || (! ret.gf256Shares.isEmpty()) || (! ret.mersenne61Shares.isEmpty()))
+                {
+                    throw new SecretShareException("-inFile cannot be used with -s or -stdin shares");
+                }
+                if ((ret.offset == null) != (ret.length == null))
+                {
+                    throw new SecretShareException("-offset and -length must be used together");
+                }
+                if (ret.threads == null)
+                {
+                    ret.threads = Runtime.getRuntime().availableProcessors();
+                }
+                return ret;
+            }
             checkRequired("-k", ret.k);
-            if (ret.shares.size() < ret.k)
+            if ((! ret.shares.isEmpty()) && (! ret.gf256Shares.isEmpty()))
+            {
+                throw new SecretShareException("gf256 shares cannot be combined with modulus shares");
+            }
+            if ((! ret.mersenne61Shares.isEmpty()) && ((! ret.shares.isEmpty()) || (! ret.gf256Shares.isEmpty())))
+            {
+                throw new SecretShareException("m61 shares cannot be combined with gf256 or modulus shares");
+            }
+            final int provided = ret.shares.size() + ret.gf256Shares.size() + ret.mersenne61Shares.size();
+            if (provided < ret.k)
             {
                 throw new SecretShareException("k set to " + ret.k + " but only " +
-                                               ret.shares.size() + " shares provided");
+                                               provided + " shares provided");
             }
 
             return ret;
@@ -313,8 +423,7 @@ public final class MainCombine
                 }
                 else if (line.startsWith("Share ("))
                 {
-                    SecretShare.ShareInfo share = parseEqualShare("share", line);
-                    addIfNotDuplicate(share);
+                    addShareLine("share", line);
                 }
                 else
                 {
@@ -324,6 +433,54 @@ public final class MainCombine
             }
         }
 
+        /**
+         * @param fieldname description of source of data
+         * @param line "Share (x:2) = ..." with a number, bigintcs, gf256 or m61 value
+         */
+        private void addShareLine(String fieldname,
+                                  String line)
+        {
+            final String value = after(line, "=");
+            if (value.startsWith(MainSplit.GF256_SHARE_PREFIX))
+            {
+                final String hex = value.substring(MainSplit.GF256_SHARE_PREFIX.length());
+                if ((hex.length() == 0) || ((hex.length() % 2) != 0) || (! hex.matches("[0-9a-fA-F]*")))
+                {
+                    throw new SecretShareException(fieldname + " gf256 share is not an even number of hex digits");
+                }
+                final int x = parseXcolon(line);
+                final byte[] data = HexByteUtilities.hexToBytes(hex);
+                final byte[] previous = gf256Shares.put(x, data);
+                if ((previous != null) && (! Arrays.equals(previous, data)))
+                {
+                    throw new SecretShareException("share x:" + x + " was entered with two different values");
+                }
+            }
+            else if (value.startsWith(MainSplit.MERSENNE61_SHARE_PREFIX))
+            {
+                final String hex = value.substring(MainSplit.MERSENNE61_SHARE_PREFIX.length());
+                if ((hex.length() == 0) || ((hex.length() % 16) != 0) || (! hex.matches("[0-9a-fA-F]*")))
+                {
+                    throw new SecretShareException(fieldname + " m61 share is not a multiple of 16 hex digits");
+                }
+                final int x = parseXcolon(line);
+                long[] data = new long[hex.length() / 16];
+                for (int i = 0; i < data.length; i++)
+                {
+                    data[i] = Long.parseUnsignedLong(hex.substring(16 * i, 16 * i + 16), 16);
+                }
+                final long[] previous = mersenne61Shares.put(x, data);
+                if ((previous != null) && (! Arrays.equals(previous, data)))
+                {
+                    throw new SecretShareException("share x:" + x + " was entered with two different values");
+                }
+            }
+            else
+            {
+                addIfNotDuplicate(parseEqualShare(fieldname, line));
+            }
+        }
+
         public void addIfNotDuplicate(ShareInfo add)
         {
             boolean shouldadd = true;
@@ -442,14 +599,96 @@ public final class MainCombine
             CombineOutput ret = new CombineOutput();
             ret.combineInput = this;
 
+            if (! shareFiles.isEmpty())
+            {
+                if (errorCorrect || (paranoidInput != null))
+                {
+                    throw new SecretShareException("-errorCorrect and -paranoid are not available for -inFile");
+                }
+                FileSecretShare fileSecretShare = new FileSecretShare(threads, FileSecretShare.DEFAULT_CHUNK_SIZE);
+                try
+                {
+                    ShareFile first = ShareFile.open(shareFiles.get(0));
+                    try
+                    {
+                        ret.publicInfo = first.getPublicInfo();
+                    }
+                    finally
+                    {
+                        first.close();
+                    }
+                    if (offset != null)
+                    {
+                        Files.write(outFile, fileSecretShare.recoverRange(shareFiles, offset, length));
+                    }
+                    else
+                    {
+                        fileSecretShare.combine(shareFiles, outFile);
+                    }
+                }
+                catch (IOException e)
+                {
+                    throw new SecretShareException("Failed to combine into " + outFile + ": " + e.getMessage(), e);
+                }
+                ret.outFile = outFile;
+                return ret;
+            }
+
             // it is a "copy" since it should be equal to this.publicInfo
+            if (! gf256Shares.isEmpty())
+            {
+                if (errorCorrect || (paranoidInput != null))
+                {
+                    throw new SecretShareException("-errorCorrect and -paranoid are not available for gf256 shares");
+                }
+                Gf256SecretShare gf256SecretShare = new Gf256SecretShare(Math.max(k, gf256Shares.size()), k);
+                List<Gf256SecretShare.Gf256ShareInfo> use = new ArrayList<Gf256SecretShare.Gf256ShareInfo>();
+                for (Map.Entry<Integer, byte[]> entry : gf256Shares.entrySet())
+                {
+                    use.add(new Gf256SecretShare.Gf256ShareInfo(entry.getKey(), entry.getValue(), k));
+                }
+                // split -gf256 shares the bytes of the secret as a BigInteger:
+                ret.secret = new BigInteger(gf256SecretShare.combine(use));
+                return ret;
+            }
+            if (! mersenne61Shares.isEmpty())
+            {
+                if (errorCorrect || (paranoidInput != null))
+                {
+                    throw new SecretShareException("-errorCorrect and -paranoid are not available for m61 shares");
+                }
+                Mersenne61SecretShare mersenne61SecretShare =
+                    new Mersenne61SecretShare(new SecretShare.PublicInfo(null, k, Mersenne61.MODULUS,
+                                                                         "MainCombine:output"));
+                int[] xs = new int[mersenne61Shares.size()];
+                long[][] values = new long[xs.length][];
+                int i = 0;
+                for (Map.Entry<Integer, long[]> entry : mersenne61Shares.entrySet())
+                {
+                    xs[i] = entry.getKey();
+                    values[i] = entry.getValue();
+                    i++;
+                }
+                ret.secret = Mersenne61SecretShare.fromLimbs(mersenne61SecretShare.combine(xs, values));
+                return ret;
+            }
+
             SecretShare.PublicInfo copyPublicInfo = constructPublicInfoFromFields("output");
 
             SecretShare secretShare = new SecretShare(copyPublicInfo);
 
-            SecretShare.CombineOutput combine = secretShare.combine(shares);
+            if (errorCorrect)
+            {
+                SecretShare.CorrectedCombineOutput corrected = secretShare.combineWithErrorCorrection(shares);
+                ret.secret = corrected.getSecret();
+                ret.correctedCombineOutput = corrected;
+            }
+            else
+            {
+                SecretShare.CombineOutput combine = secretShare.combine(shares);
 
-            ret.secret = combine.getSecret();
+                ret.secret = combine.getSecret();
+            }
 
             if (paranoidInput != null)
             {
@@ -473,6 +712,11 @@ public final class MainCombine
 
         private ParanoidOutput paranoidOutput = null; // can be null
 
+        private SecretShare.CorrectedCombineOutput correctedCombineOutput = null; // can be null
+
+        private Path outFile = null; // only with -inFile
+        private PublicInfo publicInfo = null; // only with -inFile, from the share file header
+
         @SuppressWarnings("unused")
         private SecretShare.CombineOutput combineOutput;
         @SuppressWarnings("unused")
@@ -488,6 +732,14 @@ public final class MainCombine
             //final SecretShare.PublicInfo publicInfo = combineOutput.getPublicInfo();
 
             out.println("Secret Share version " + Main.getVersionString());
+            if (outFile != null)
+            {
+                out.println("Description = " + publicInfo.getDescription());
+                out.println("UUID = " + publicInfo.getUuid());
+                out.println("Date = " + publicInfo.getDate());
+                out.println("outFile = " + outFile);
+                return;
+            }
             //field(out, "Date", publicInfo.getDate());
             //field(out, "UUID", publicInfo.getUuid());
             //field(out, "Description", publicInfo.getDescription());
@@ -496,6 +748,11 @@ public final class MainCombine
             String secretAsString = (getRecoveredSecret() == null) ? "null" : "'" + getRecoveredSecretAsString() + "'";
             out.println("secret.number = " + secretNumber);
             out.println("secret.string = " + secretAsString);
+            if (correctedCombineOutput != null)
+            {
+                out.println("errorCorrect.correctable = " + correctedCombineOutput.getMaximumCorrectableErrors());
+                out.println("errorCorrect.rejected = " + correctedCombineOutput.getRejectedShareIndexes());
+            }
             printParanoidOutput(out);
         }
 
@@ -518,11 +775,24 @@ public final class MainCombine
             return BigIntUtilities.Human.createHumanString(secret);
         }
 
+        /**
+         * @return the recovered file, with -inFile, otherwise null
+         */
+        public Path getOutFile()
+        {
+            return outFile;
+        }
+
         public ParanoidOutput getParanoidOutput()
         {
             return paranoidOutput;
         }
 
+        public SecretShare.CorrectedCombineOutput getCorrectedCombineOutput()
+        {
+            return correctedCombineOutput;
+        }
+
         // ==================================================
         // instance data
         // ==================================================
@@ -22,6 +22,7 @@ import java.math.BigInteger;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
+import com.tiemens.secretshare.engine.PrimeLadder;
 import com.tiemens.secretshare.engine.SecretShare;
 import com.tiemens.secretshare.exceptions.SecretShareException;
 import com.tiemens.secretshare.math.type.BigIntUtilities;
@@ -158,6 +159,17 @@ public final class MainInfo
                                         SecretShare.getPrimeUsedFor4096bigSecretPayload());
             description2BigInteger.put("Modulus 8192 bits",
                     SecretShare.getPrimeUsedFor8192bigSecretPayload());
+            // opt-in [split -primeSparse], reduced with shifts and adds:
+            description2BigInteger.put("Sparse modulus 192 bits [2^192-2^64-1]",
+                                        SecretShare.getSparsePrimeUsedFor192bitSecretPayload());
+            description2BigInteger.put("Sparse modulus 384 bits [2^384-2^128-2^96+2^32-1]",
+                                        SecretShare.getSparsePrimeUsedFor384bitSecretPayload());
+            description2BigInteger.put("Sparse modulus 521 bits [2^521-1]",
+                                        SecretShare.getSparsePrimeUsedFor521bitSecretPayload());
+            description2BigInteger.put("Sparse modulus 4096 bits [2^4096-2549]",
+                                        SecretShare.getSparsePrimeUsedFor4096bitSecretPayload());
+            description2BigInteger.put("Sparse modulus 8192 bits [2^8192-2439]",
+                                        SecretShare.getSparsePrimeUsedFor8192bitSecretPayload());
         }
 
         public void print(PrintStream out)
@@ -172,6 +184,7 @@ public final class MainInfo
             }
             printHeaderInfo(out);
             printBuiltinPrimes(out);
+            printPrimeLadder(out);
         }
 
         // ==================================================
@@ -200,6 +213,18 @@ public final class MainInfo
 
         }
 
+        private void printPrimeLadder(PrintStream out)
+        {
+            // opt-in [split -primeLadder]; the primes are too big to print, so just 2^bits-c for each
+            StringBuilder sb = new StringBuilder();
+            for (BigInteger prime : PrimeLadder.getPrimes())
+            {
+                final int bits = prime.bitLength();
+                sb.append((sb.length() == 0) ? "" : ", ");
+                sb.append("2^" + bits + "-" + BigInteger.ONE.shiftLeft(bits).subtract(prime));
+            }
+            out.println("Prime ladder = " + sb.toString());
+        }
 
         private void printHeaderInfo(PrintStream out)
         {
@@ -17,13 +17,20 @@
 package com.tiemens.secretshare.main.cli;
 
 import java.io.InputStream;
+import java.io.IOException;
 import java.io.PrintStream;
 import java.math.BigInteger;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.security.SecureRandom;
 import java.util.List;
 import java.util.Random;
 import java.util.UUID;
 
+import com.tiemens.secretshare.engine.FileSecretShare;
+import com.tiemens.secretshare.engine.Gf256SecretShare;
+import com.tiemens.secretshare.engine.Gf256SecretShare.Gf256ShareInfo;
+import com.tiemens.secretshare.engine.Mersenne61SecretShare;
 import com.tiemens.secretshare.engine.SecretShare;
 import com.tiemens.secretshare.engine.SecretShare.ParanoidInput;
 import com.tiemens.secretshare.engine.SecretShare.ParanoidOutput;
@@ -31,7 +38,9 @@ import com.tiemens.secretshare.engine.SecretShare.PublicInfo;
 import com.tiemens.secretshare.engine.SecretShare.ShareInfo;
 import com.tiemens.secretshare.engine.SecretShare.SplitSecretOutput;
 import com.tiemens.secretshare.exceptions.SecretShareException;
+import com.tiemens.secretshare.math.field.Mersenne61;
 import com.tiemens.secretshare.math.type.BigIntUtilities;
+import com.tiemens.secretshare.math.type.HexByteUtilities;
 
 /**
  * Main command line for the "split" (aka "create") of a secret.
@@ -44,6 +53,11 @@ import com.tiemens.secretshare.math.type.BigIntUtilities;
  */
 public final class MainSplit
 {
+    // -gf256 shares are written as "Share (x:1) = gf256:<hex>"
+    public static final String GF256_SHARE_PREFIX = "gf256:";
+
+    // -mersenne61 shares are written as "Share (x:1) = m61:<16 hex digits per limb>"
+    public static final String MERSENNE61_SHARE_PREFIX = "m61:";
 
     /**
      * @param args from command line
@@ -75,7 +89,9 @@ public final class MainSplit
     {
         out.println("Usage:");
         out.println(" split -k <k> -n <n> -sN|-sS <secret> " +               // required
-                    "  [-prime8192|-prime4096|-prime384|-prime192|-primeN] [-d <desc>] [-paranoid <p>] "); // optional
+                    "  [-prime8192|-prime4096|-prime384|-prime192|-primeN|-gf256|-mersenne61]" +       // optional
+                    " [-d <desc>] [-paranoid <p>] ");
+        out.println(" split -k <k> -n <n> -inFile <file> -outDir <dir> [-threads <t>]");
         out.println("  -k <k>        the threshold");
         out.println("  -n <k>        the number of shares to generate");
         out.println("  -sN <secret>  the secret as a number, e.g. '-sN 124332' or '-sN bigintcs:01e5ac-787852'");
@@ -85,13 +101,30 @@ public final class MainSplit
         out.println("  -prime4096    for modulus, use built-in 4096-bit prime");
         out.println("  -prime384     for modulus, use built-in 384-bit prime [default]");
         out.println("  -prime192     for modulus, use built-in 192-bit prime");
-        out.println("  -primeAuto    for modulus, use 192, 384, 4096, 8192 " +
-                       "or a random prime (that is bigger than secret)");
+        out.println("  -prime521     for modulus, use built-in sparse prime 2^521-1");
+        out.println("  -primeAuto    for modulus, use 192, 384, 4096, 8192, " +
+                       "then the smallest prime ladder prime (that is bigger than secret)");
+        out.println("  -primeSparse  for modulus, use the sparse 192, 384, 521, 4096, 8192 [faster reduction], " +
+                       "then the smallest prime ladder prime");
+        out.println("  -primeLadder  for modulus, use the smallest prime ladder prime, 128 bits and up " +
+                       "[tightest fit, faster reduction]");
         out.println("  -primeN       same as -primeRandom");
         out.println("  -primeRandom  for modulus, use a random prime (that is bigger than secret)");
         out.println("  -m <modulus>  for modulus, use <modulus>, e.g. '11753999' or 'bigintcs:b35a0f-F89BEC'");
         out.println("  -primeNone    no modulus, do NOT use any modulus");
+        out.println("  -gf256        split each byte of the secret over GF(256), no modulus, n <= 255;");
+        out.println("                 every share is as long as the secret, written as 'gf256:<hex>'");
+        out.println("  -mersenne61   split the secret in 56-bit limbs over the prime 2^61-1, with long arithmetic;");
+        out.println("                 every share has one value per limb, written as 'm61:<hex>'");
+        out.println("  -inFile <f>   split the file <f> [instead of -sN/-sS] over GF(256), streaming it in chunks;");
+        out.println("                 writes <dir>/<f>.share1 .. <dir>/<f>.share<n>, each about as big as <f>");
+        out.println("  -outDir <dir> directory for the -inFile share files");
+        out.println("  -threads <t>  worker threads for -inFile [default: one per processor]");
         out.println("  -paranoid <p> test combine combinations, up to a maximum of <p> tests");
+        out.println("                 <p> can be followed by ',mode=exhaustive' to combine every subset of k shares,");
+        out.println("                 the default is ',mode=consistency' - check all shares are on one polynomial");
+        out.println("                 or ',mode=sampling,confidence=0.999' to combine random subsets of k shares,");
+        out.println("                 and ',threads=8' to run the exhaustive combines on 8 threads");
         out.println("  -printOne     put all shares on 1 sheet of paper");
         out.println("  -printIndiv   put 1 share per sheet, use 'n' sheets of paper");
 
@@ -259,6 +292,17 @@ public final class MainSplit
         // if true, print the original equation
         private boolean debugPrintEquationCoefficients = false;
 
+        // if true, split the secret's bytes with Gf256SecretShare instead of SecretShare
+        private boolean gf256 = false;
+
+        // if true, split the secret's limbs with Mersenne61SecretShare instead of SecretShare
+        private boolean mersenne61 = false;
+
+        // if not null, stream this file into share files in outDir, with FileSecretShare
+        private Path inFile = null;
+        private Path outDir = null;
+        private Integer threads = null;
+
         // ==================================================
         // constructors
         // ==================================================
@@ -270,6 +314,8 @@ public final class MainSplit
 
             boolean calculateModulus = false;
             boolean calculateModulusAuto = true;
+            boolean calculateModulusSparse = false;
+            boolean calculateModulusLadder = false;
             for (int i = 0, n = args.length; i < n; i++)
             {
                 if (args[i] == null)
@@ -337,10 +383,30 @@ public final class MainSplit
                 {
                     ret.modulus = SecretShare.getPrimeUsedFor192bitSecretPayload();
                 }
+                else if ("-prime521".equals(args[i]))
+                {
+                    ret.modulus = SecretShare.getSparsePrimeUsedFor521bitSecretPayload();
+                }
                 else if ("-primeAuto".equals(args[i]))
                 {
                     calculateModulus = true;
                     calculateModulusAuto = true;
+                    calculateModulusSparse = false;
+                    calculateModulusLadder = false;
+                }
+                else if ("-primeSparse".equals(args[i]))
+                {
+                    calculateModulus = true;
+                    calculateModulusAuto = true;
+                    calculateModulusSparse = true;
+                    calculateModulusLadder = false;
+                }
+                else if ("-primeLadder".equals(args[i]))
+                {
+                    calculateModulus = true;
+                    calculateModulusAuto = true;
+                    calculateModulusSparse = false;
+                    calculateModulusLadder = true;
                 }
                 else if (("-primeRandom".equals(args[i])) ||
                          ("-primeN".equals(args[i])))    // backward-compatible
@@ -353,6 +419,31 @@ public final class MainSplit
                     calculateModulus = false;
                     ret.modulus = null;
                 }
+                else if ("-gf256".equals(args[i]))
+                {
+                    ret.gf256 = true;
+                }
+                else if ("-mersenne61".equals(args[i]))
+                {
+                    ret.mersenne61 = true;
+                }
+                else if ("-inFile".equals(args[i]))
+                {
+                    i++;
+                    checkIndex("inFile", args, i);
+                    ret.inFile = Paths.get(args[i]);
+                }
+                else if ("-outDir".equals(args[i]))
+                {
+                    i++;
+                    checkIndex("outDir", args, i);
+                    ret.outDir = Paths.get(args[i]);
+                }
+                else if ("-threads".equals(args[i]))
+                {
+                    i++;
+                    ret.threads = parseInt("threads", args, i);
+                }
                 else if ("-m".equals(args[i]))
                 {
                     calculateModulus = false;
@@ -399,13 +490,72 @@ public final class MainSplit
 
             checkRequired("-k", ret.k);
             checkRequired("-n", ret.n);
+            if (ret.inFile != null)
+            {
+                checkRequired("-outDir", ret.outDir);
+                if (ret.secret != null)
+                {
+                    throw new SecretShareException("-inFile cannot be used with -sN or -sS");
+                }
+                if (ret.paranoidInput != null)
+                {
+                    throw new SecretShareException("-paranoid is not available with -inFile");
+                }
+                if (ret.threads == null)
+                {
+                    ret.threads = Runtime.getRuntime().availableProcessors();
+                }
+                if (ret.random == null)
+                {
+                    ret.random = new SecureRandom();
+                }
+                ret.modulus = null;
+                return ret;
+            }
             checkRequired("-sN or -sS", ret.secret);
 
+            if (ret.gf256)
+            {
+                if (ret.paranoidInput != null)
+                {
+                    throw new SecretShareException("-paranoid is not available with -gf256");
+                }
+                calculateModulus = false;
+                ret.modulus = null;
+            }
+
+            if (ret.mersenne61)
+            {
+                if (ret.gf256)
+                {
+                    throw new SecretShareException("-mersenne61 and -gf256 cannot be used together");
+                }
+                if (ret.paranoidInput != null)
+                {
+                    throw new SecretShareException("-paranoid is not available with -mersenne61");
+                }
+                if (ret.secret.signum() < 0)
+                {
+                    throw new SecretShareException("The secret cannot be negative with -mersenne61");
+                }
+                // the modulus is the marker for the field, the secret is split in limbs so its size does not matter:
+                ret.modulus = Mersenne61.MODULUS;
+                if (ret.random == null)
+                {
+                    ret.random = new SecureRandom();
+                }
+                return ret;
+            }
+
             if (calculateModulus)
             {
-                if (calculateModulusAuto)
+                if (calculateModulusLadder)
                 {
-                    ret.modulus = SecretShare.createAppropriateModulusForSecret(ret.secret);
+                    ret.modulus = SecretShare.createLadderModulusForSecret(ret.secret);
+                }
+                else if (calculateModulusAuto)
+                {
+                    ret.modulus = SecretShare.createAppropriateModulusForSecret(ret.secret, calculateModulusSparse);
                 }
                 else
                 {
@@ -478,6 +628,36 @@ public final class MainSplit
                                            this.uuid,
                                            this.datetimeMillis);
 
+            ret.publicInfo = publicInfo;
+            if (inFile != null)
+            {
+                FileSecretShare fileSecretShare = new FileSecretShare(this.threads, FileSecretShare.DEFAULT_CHUNK_SIZE);
+                try
+                {
+                    ret.shareFiles = fileSecretShare.split(this.inFile, this.outDir, publicInfo, this.random);
+                }
+                catch (IOException e)
+                {
+                    throw new SecretShareException("Failed to split " + inFile + ": " + e.getMessage(), e);
+                }
+                return ret;
+            }
+            if (gf256)
+            {
+                Gf256SecretShare gf256SecretShare = new Gf256SecretShare(this.n, this.k);
+                ret.gf256Shares = gf256SecretShare.split(this.secret.toByteArray(), this.random);
+                ret.paranoidOutput = null;
+                return ret;
+            }
+            if (mersenne61)
+            {
+                Mersenne61SecretShare mersenne61SecretShare = new Mersenne61SecretShare(publicInfo);
+                ret.mersenne61Shares = mersenne61SecretShare.split(Mersenne61SecretShare.toLimbs(this.secret),
+                                                                   this.random);
+                ret.paranoidOutput = null;
+                return ret;
+            }
+
             SecretShare secretShare = new SecretShare(publicInfo);
 
             SecretShare.SplitSecretOutput generate = secretShare.split(this.secret, this.random);
@@ -511,6 +691,10 @@ public final class MainSplit
 
         private final SplitInput splitInput;
         private SplitSecretOutput splitSecretOutput;
+        private PublicInfo publicInfo;
+        private List<Gf256ShareInfo> gf256Shares = null; // only with -gf256
+        private long[][] mersenne61Shares = null; // only with -mersenne61, [x - 1][limb]
+        private List<Path> shareFiles = null; // only with -inFile
         private ParanoidOutput paranoidOutput = null; // can be null
 
         public SplitOutput(SplitInput inSplitInput)
@@ -530,7 +714,31 @@ public final class MainSplit
         }
         public final PublicInfo getPublicInfo()
         {
-            return splitSecretOutput.getPublicInfo();
+            return publicInfo;
+        }
+
+        /**
+         * @return the shares, with -gf256, otherwise null
+         */
+        public final List<Gf256ShareInfo> getGf256Shares()
+        {
+            return gf256Shares;
+        }
+
+        /**
+         * @return the shares, [x - 1][limb], with -mersenne61, otherwise null
+         */
+        public final long[][] getMersenne61Shares()
+        {
+            return mersenne61Shares;
+        }
+
+        /**
+         * @return the share files, with -inFile, otherwise null
+         */
+        public final List<Path> getShareFiles()
+        {
+            return shareFiles;
         }
 
         public void setPrintAllSharesAtOnce(boolean val)
@@ -540,7 +748,16 @@ public final class MainSplit
 
         public void print(PrintStream out)
         {
-            if (printAllSharesAtOnce)
+            if (shareFiles != null)
+            {
+                printHeaderInfo(out);
+                out.println("");
+                for (int i = 0; i < shareFiles.size(); i++)
+                {
+                    out.println("Share (x:" + (i + 1) + ") file = " + shareFiles.get(i));
+                }
+            }
+            else if (printAllSharesAtOnce)
             {
                 printParanoidCompleteOutput(out);
                 printPolynomialEquation(out);
@@ -572,7 +789,7 @@ public final class MainSplit
 
         private void printPolynomialEquation(PrintStream out)
         {
-            if (splitInput.debugPrintEquationCoefficients)
+            if (splitInput.debugPrintEquationCoefficients && (splitSecretOutput != null))
             {
                 splitSecretOutput.debugPrintEquationCoefficients(out);
             }
@@ -604,6 +821,36 @@ public final class MainSplit
 
         private void printSharesOnePerPage(PrintStream out)
         {
+            if (gf256Shares != null)
+            {
+                boolean first = true;
+                for (Gf256ShareInfo share : gf256Shares)
+                {
+                    if (! first)
+                    {
+                        printSeparatePage(out);
+                    }
+                    first = false;
+
+                    printHeaderInfo(out);
+                    printGf256Share(out, share);
+                }
+                return;
+            }
+            if (mersenne61Shares != null)
+            {
+                for (int i = 0; i < mersenne61Shares.length; i++)
+                {
+                    if (i > 0)
+                    {
+                        printSeparatePage(out);
+                    }
+                    printHeaderInfo(out);
+                    printMersenne61Share(out, i + 1, mersenne61Shares[i]);
+                }
+                return;
+            }
+
             final List<SecretShare.ShareInfo> shares = splitSecretOutput.getShareInfos();
             boolean first = true;
             for (SecretShare.ShareInfo share : shares)
@@ -636,8 +883,6 @@ public final class MainSplit
 
         private void printHeaderInfo(PrintStream out)
         {
-            final SecretShare.PublicInfo publicInfo = splitSecretOutput.getPublicInfo();
-
             field(out, "Secret Share version " + Main.getVersionString(), "");
             field(out, "Date", publicInfo.getDate());
             field(out, "UUID", publicInfo.getUuid());
@@ -647,10 +892,40 @@ public final class MainSplit
             markedValue(out, "k", publicInfo.getK());
             markedValue(out, "modulus", publicInfo.getPrimeModulus(), false);
             markedValue(out, "modulus", publicInfo.getPrimeModulus(), true);
+            if (gf256Shares != null)
+            {
+                out.println("mode = gf256");
+            }
+            if (mersenne61Shares != null)
+            {
+                out.println("mode = mersenne61");
+            }
+            if (shareFiles != null)
+            {
+                out.println("mode = gf256 file");
+            }
         }
 
         private void printSharesAllAtOnce(PrintStream out)
         {
+            if (gf256Shares != null)
+            {
+                out.println("");
+                for (Gf256ShareInfo share : gf256Shares)
+                {
+                    printGf256Share(out, share);
+                }
+                return;
+            }
+            if (mersenne61Shares != null)
+            {
+                out.println("");
+                for (int i = 0; i < mersenne61Shares.length; i++)
+                {
+                    printMersenne61Share(out, i + 1, mersenne61Shares[i]);
+                }
+                return;
+            }
             List<SecretShare.ShareInfo> shares = splitSecretOutput.getShareInfos();
             out.println("");
             for (SecretShare.ShareInfo share : shares)
@@ -733,6 +1008,25 @@ public final class MainSplit
         {
             markedValue(out, "Share (x:" + share.getIndex() + ")", share.getShare(), printAsBigIntCs);
         }
+
+        private void printGf256Share(PrintStream out,
+                                     Gf256ShareInfo share)
+        {
+            out.println("Share (x:" + share.getX() + ") = " + GF256_SHARE_PREFIX +
+                        HexByteUtilities.bytesToHexString(share.getData()));
+        }
+
+        private void printMersenne61Share(PrintStream out,
+                                          int x,
+                                          long[] values)
+        {
+            StringBuilder sb = new StringBuilder();
+            for (long value : values)
+            {
+                sb.append(String.format("%016x", value));
+            }
+            out.println("Share (x:" + x + ") = " + MERSENNE61_SHARE_PREFIX + sb);
+        }
     } // class SplitOutput
 
 }
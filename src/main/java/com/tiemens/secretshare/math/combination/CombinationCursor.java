@@ -0,0 +1,222 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2014 Tim Tiemens.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ *
+ * Contributors:
+ *     Tim Tiemens - initial API and implementation
+ *******************************************************************************/
+package com.tiemens.secretshare.math.combination;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+import com.tiemens.secretshare.exceptions.SecretShareException;
+
+/**
+ * Allocation-free walk over the "n choose k" index arrays, in the same
+ *   (lexicographic) order as CombinationGenerator.
+ *
+ * Usage:
+ *   CombinationCursor cursor = new CombinationCursor(n, k);
+ *   while (cursor.advance())
+ *   {
+ *       int[] indexes = cursor.getIndexes();   // same array every time, do not modify
+ *       ...
+ *   }
+ *
+ * advance() only changes the int[] in place and bumps a long.
+ * The combination number only spills into a BigInteger when C(n,k) is bigger
+ *   than Long.MAX_VALUE, and then only once every Long.MAX_VALUE steps.
+ * getIndexesAsString() is built on demand, and cached until the next advance().
+ *
+ * @author tiemens
+ *
+ */
+public class CombinationCursor
+{
+    // ==================================================
+    // class static data
+    // ==================================================
+
+    private static final BigInteger LONG_MAX = BigInteger.valueOf(Long.MAX_VALUE);
+
+    // ==================================================
+    // instance data
+    // ==================================================
+
+    private final int n;
+    private final BigInteger totalNumberOfCombinations;
+
+    // the CURRENT combination's indexes
+    private final int[] indexes;
+
+    // false before the first advance(), and after the last
+    private boolean valid;
+    private boolean done;
+
+    // current combination number = overflowBase + count, 1-based like CombinationGenerator
+    private long count;
+    // null unless count has wrapped [only possible if C(n,k) > Long.MAX_VALUE]
+    private BigInteger overflowBase;
+
+    // null or the CURRENT iteration's indexes
+    private String indexesAsString;
+
+    // ==================================================
+    // constructors
+    // ==================================================
+
+    public CombinationCursor(final int inN,
+                             final int inK)
+    {
+        if (inK < 1)
+        {
+            throw new SecretShareException("choice size cannot be less than 1:" + inK);
+        }
+        if (inK > inN)
+        {
+            throw new SecretShareException("choice size cannot be greater than size");
+        }
+        n = inN;
+        totalNumberOfCombinations = CombinationGenerator.binomial(inN, inK);
+        indexes = new int[inK];
+        moveToCombinationNumber(BigInteger.ZERO);
+    }
+
+    // ==================================================
+    // public methods
+    // ==================================================
+
+    /**
+     * Move to the next combination.
+     *
+     * @return false if there are no more combinations
+     */
+    public boolean advance()
+    {
+        if (done)
+        {
+            return false;
+        }
+
+        if (! valid)
+        {
+            valid = true;
+        }
+        else if (! CombinationGenerator.moveToNextCombination(indexes, n))
+        {
+            valid = false;
+            done = true;
+            indexesAsString = null;
+            return false;
+        }
+
+        if (count == Long.MAX_VALUE)
+        {
+            overflowBase = getCurrentCombinationNumberAsBigInteger();
+            count = 0;
+        }
+        count++;
+        indexesAsString = null;
+        return true;
+    }
+
+    /**
+     * @return the current indexes, ascending - the same array is updated in place by advance(),
+     *         so do not modify it, and copy it to keep it
+     */
+    public int[] getIndexes()
+    {
+        if (! valid)
+        {
+            throw new SecretShareException("no current combination, advance() first");
+        }
+        return indexes;
+    }
+
+    /**
+     * @return the current combination number, 1-based, 0 before the first advance()
+     * @throws SecretShareException if the number does not fit in a long
+     */
+    public long getCurrentCombinationNumber()
+    {
+        if (overflowBase != null)
+        {
+            throw new SecretShareException("combination number is larger than Long.MAX_VALUE, " +
+                                           "use getCurrentCombinationNumberAsBigInteger()");
+        }
+        return count;
+    }
+
+    public BigInteger getCurrentCombinationNumberAsBigInteger()
+    {
+        BigInteger ret = BigInteger.valueOf(count);
+        if (overflowBase != null)
+        {
+            ret = ret.add(overflowBase);
+        }
+        return ret;
+    }
+
+    /**
+     * @return the current indexes as "[0, 1, 2]", same format as CombinationGenerator
+     */
+    public String getIndexesAsString()
+    {
+        if ((indexesAsString == null) && valid)
+        {
+            indexesAsString = Arrays.toString(indexes);
+        }
+        return indexesAsString;
+    }
+
+    public BigInteger getTotalNumberOfCombinations()
+    {
+        return totalNumberOfCombinations;
+    }
+
+    /**
+     * Position this cursor so that getCurrentCombinationNumber() returns
+     *   inCombinationNumber, and advance() moves to the combination with that rank.
+     *
+     * @param inCombinationNumber 0 to getTotalNumberOfCombinations(), inclusive
+     */
+    public final void moveToCombinationNumber(final BigInteger inCombinationNumber)
+    {
+        if ((inCombinationNumber.signum() < 0) ||
+            (inCombinationNumber.compareTo(totalNumberOfCombinations) > 0))
+        {
+            throw new SecretShareException("combination number " + inCombinationNumber +
+                                           " out of range [0, " + totalNumberOfCombinations + "]");
+        }
+
+        valid = false;
+        indexesAsString = null;
+        done = inCombinationNumber.equals(totalNumberOfCombinations);
+        if (! done)
+        {
+            int[] start = CombinationGenerator.unrank(n, indexes.length, inCombinationNumber);
+            System.arraycopy(start, 0, indexes, 0, indexes.length);
+        }
+
+        if (inCombinationNumber.compareTo(LONG_MAX) <= 0)
+        {
+            overflowBase = null;
+            count = inCombinationNumber.longValue();
+        }
+        else
+        {
+            overflowBase = inCombinationNumber;
+            count = 0;
+        }
+    }
+}
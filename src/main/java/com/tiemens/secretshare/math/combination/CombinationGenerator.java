@@ -23,9 +23,20 @@ import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
 
 import com.tiemens.secretshare.exceptions.SecretShareException;
 
+/**
+ * Generate all "n choose k" combinations of a list, in lexicographic order of the indexes.
+ *
+ * Combination numbers are 1-based when iterating (getCurrentCombinationNumber()),
+ *   and 0-based when ranking/unranking: the combination returned by the
+ *   N-th call to next() has rank (N - 1).
+ *
+ * Ranking and unranking use the combinatorial number system, so any combination
+ *   can be reached without walking the ones before it.
+ */
 public class CombinationGenerator<E>
         implements Iterator<List<E>>,
                    Iterable<List<E>>
@@ -48,21 +59,202 @@ public class CombinationGenerator<E>
         System.out.println("Total number=" + combos.getTotalNumberOfCombinations());
         for (List<String> combination : combos)
         {
-            System.out.println(count + ": " + combination + " {" + combos.indexesAsString + "}");
+            System.out.println(count + ": " + combination + " {" + combos.getIndexesAsString() + "}");
             count++;
         }
     }
 
+    /**
+     * @param n total number of items
+     * @param k number chosen
+     * @return n! / ( k! * (n-k)! ), or 0 if k is out of range
+     */
+    public static BigInteger binomial(final int n,
+                                      final int k)
+    {
+        if ((k < 0) || (k > n))
+        {
+            return BigInteger.ZERO;
+        }
+        final int smaller = Math.min(k, n - k);
+        BigInteger ret = BigInteger.ONE;
+        for (int i = 1; i <= smaller; i++)
+        {
+            // exact at every step: the product of i consecutive integers is divisible by i!
+            ret = ret.multiply(BigInteger.valueOf(n - smaller + i)).divide(BigInteger.valueOf(i));
+        }
+        return ret;
+    }
+
+    /**
+     * Compute the combination with the given lexicographic rank.
+     *
+     * Lexicographic rank r of (a[0] &lt; ... &lt; a[k-1]) is tied to the combinatorial number system:
+     *   with c[j] = (n - 1 - a[j]),
+     *   C(n,k) - 1 - r = sum( C(c[j], k - j) )
+     * so each c[j] is the largest value with C(c[j], k - j) &lt;= what is left.
+     * The c[j] only ever decrease, and the binomials are updated incrementally,
+     *   so this is at most (n + k) small multiply/divides in total.
+     *
+     * @param n total number of items
+     * @param k number chosen
+     * @param rank 0-based, 0 &lt;= rank &lt; C(n,k)
+     * @return indexes, ascending, each in [0, n)
+     */
+    public static int[] unrank(final int n,
+                               final int k,
+                               final BigInteger rank)
+    {
+        checkChoiceSize(n, k);
+        final BigInteger total = binomial(n, k);
+        if ((rank.signum() < 0) || (rank.compareTo(total) >= 0))
+        {
+            throw new SecretShareException("rank " + rank + " out of range [0, " + total + ")");
+        }
+
+        BigInteger remainder = total.subtract(BigInteger.ONE).subtract(rank);
+        int[] ret = new int[k];
+
+        int c = n - 1;
+        BigInteger binom = binomial(n - 1, k);
+        for (int j = 0; j < k; j++)
+        {
+            final int i = k - j;
+            while (binom.compareTo(remainder) > 0)
+            {
+                // C(c-1, i) = C(c, i) * (c - i) / c
+                binom = binom.multiply(BigInteger.valueOf(c - i)).divide(BigInteger.valueOf(c));
+                c--;
+            }
+            ret[j] = n - 1 - c;
+            remainder = remainder.subtract(binom);
+
+            if (j + 1 < k)
+            {
+                // C(c-1, i-1) = C(c, i) * i / c       [c >= i - 1 >= 1 here]
+                binom = binom.multiply(BigInteger.valueOf(i)).divide(BigInteger.valueOf(c));
+                c--;
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * Inverse of unrank().
+     *
+     * @param n total number of items
+     * @param indexes ascending, each in [0, n)
+     * @return 0-based lexicographic rank
+     */
+    public static BigInteger rank(final int n,
+                                  final int[] indexes)
+    {
+        final int k = indexes.length;
+        checkChoiceSize(n, k);
+
+        BigInteger sum = BigInteger.ZERO;
+        int previous = -1;
+        for (int j = 0; j < k; j++)
+        {
+            if ((indexes[j] <= previous) || (indexes[j] >= n))
+            {
+                throw new SecretShareException("indexes must be ascending and less than " + n + ": " +
+                                               Arrays.toString(indexes));
+            }
+            previous = indexes[j];
+            sum = sum.add(binomial(n - 1 - indexes[j], k - j));
+        }
+        return binomial(n, k).subtract(BigInteger.ONE).subtract(sum);
+    }
+
+    /**
+     * @param n total number of items
+     * @param k number chosen
+     * @return a spliterator over all C(n,k) index arrays, in lexicographic order
+     */
+    public static Spliterator<int[]> indexSpliterator(final int n,
+                                                      final int k)
+    {
+        return indexSpliterator(n, k, BigInteger.ZERO, binomial(n, k));
+    }
+
+    /**
+     * @param n total number of items
+     * @param k number chosen
+     * @param fromRank first rank, inclusive
+     * @param toRank last rank, exclusive
+     * @return a spliterator over the index arrays with ranks in [fromRank, toRank)
+     */
+    public static Spliterator<int[]> indexSpliterator(final int n,
+                                                      final int k,
+                                                      final BigInteger fromRank,
+                                                      final BigInteger toRank)
+    {
+        checkChoiceSize(n, k);
+        if ((fromRank.signum() < 0) ||
+            (fromRank.compareTo(toRank) > 0) ||
+            (toRank.compareTo(binomial(n, k)) > 0))
+        {
+            throw new SecretShareException("rank range [" + fromRank + ", " + toRank + ") is not valid " +
+                                           "for C(" + n + "," + k + ")");
+        }
+        return new CombinationSpliterator(n, k, fromRank, toRank);
+    }
+
+    /**
+     * Move indexes to the next combination, in place.
+     *
+     * @param indexes ascending, each in [0, n)
+     * @param n total number of items
+     * @return false if indexes was the last combination (indexes are then unchanged)
+     */
+    static boolean moveToNextCombination(final int[] indexes,
+                                         final int n)
+    {
+        for (int i = indexes.length - 1, j = n - 1; i >= 0; i--, j--)
+        {
+            if (indexes[i] != j)
+            {
+                indexes[i]++;
+                for (int k = i + 1; k < indexes.length; k++)
+                {
+                    indexes[k] = indexes[k - 1] + 1;
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void checkChoiceSize(final int n,
+                                        final int k)
+    {
+        if (k < 1)
+        {
+            throw new SecretShareException("choice size cannot be less than 1:" + k);
+        }
+
+        if (k > n)
+        {
+            throw new SecretShareException("choice size cannot be greater than size");
+        }
+    }
+
     // ==================================================
     // instance data
     // ==================================================
 
     private final List<E> list;
+    private final int choiceSize;
 
     // currentIndexes contains the indexes to use for the NEXT iteration
     private int[] currentIndexes;
 
-    // indexesAsString contains either null or the CURRENT iteration's indexes
+    // the CURRENT iteration's indexes, null before the first next()
+    private int[] lastIndexes;
+
+    // indexesAsString contains either null or the CURRENT iteration's indexes,
+    //   built on demand from lastIndexes
     private String indexesAsString;
 
     //
@@ -81,19 +273,12 @@ public class CombinationGenerator<E>
     public CombinationGenerator(final List<E> inList,
                                 final int inChoiceSize)
     {
-        if (inChoiceSize < 1)
-        {
-            throw new SecretShareException("choice size cannot be less than 1:" + inChoiceSize);
-        }
-
-        if (inChoiceSize > inList.size())
-        {
-            throw new SecretShareException("choice size cannot be greater than size");
-        }
+        checkChoiceSize(inList.size(), inChoiceSize);
 
         List<E> ourlist = new ArrayList<E>(inList);
 
         this.list = Collections.unmodifiableList(ourlist);
+        this.choiceSize = inChoiceSize;
 
         this.currentIndexes = new int[inChoiceSize];
         for (int i = 0; i < inChoiceSize; i++)
@@ -101,31 +286,12 @@ public class CombinationGenerator<E>
             this.currentIndexes[i] = i;
         }
 
-        totalNumberOfCombinations = computeNfactdivkNkFact(this.list.size(), inChoiceSize);
+        totalNumberOfCombinations = binomial(this.list.size(), inChoiceSize);
         combinationNumber = BigInteger.ZERO;
     }
 
 
 
-    /**
-     * Return (n!) / ( k! * (n-k)! ).
-     *
-     * @param n
-     * @param k
-     * @return value from equation above
-     */
-    private BigInteger computeNfactdivkNkFact(final int n,
-                                              final int k)
-    {
-        final int nminusk = n - k;
-
-        BigInteger kfactTimesnmkfact = factorial(k).multiply(factorial(nminusk));
-        BigInteger nfactorial = factorial(n);
-
-        return nfactorial.divide(kfactTimesnmkfact);
-    }
-
-
 
     // ==================================================
     // public methods
@@ -153,8 +319,40 @@ public class CombinationGenerator<E>
         return (currentIndexes != null);
     }
 
+    /**
+     * Position this generator so that getCurrentCombinationNumber() returns
+     *   inCombinationNumber, and next() returns the combination with that rank.
+     * Used to resume, or to start part way through, without replaying next().
+     *
+     * @param inCombinationNumber 0 to getTotalNumberOfCombinations(), inclusive
+     */
+    public void moveToCombinationNumber(final BigInteger inCombinationNumber)
+    {
+        if ((inCombinationNumber.signum() < 0) ||
+            (inCombinationNumber.compareTo(totalNumberOfCombinations) > 0))
+        {
+            throw new SecretShareException("combination number " + inCombinationNumber +
+                                           " out of range [0, " + totalNumberOfCombinations + "]");
+        }
+        if (inCombinationNumber.equals(totalNumberOfCombinations))
+        {
+            currentIndexes = null;
+        }
+        else
+        {
+            currentIndexes = unrank(list.size(), choiceSize, inCombinationNumber);
+        }
+        combinationNumber = inCombinationNumber;
+        lastIndexes = null;
+        indexesAsString = null;
+    }
+
     public String getIndexesAsString()
     {
+        if ((indexesAsString == null) && (lastIndexes != null))
+        {
+            indexesAsString = Arrays.toString(lastIndexes);
+        }
         return indexesAsString;
     }
 
@@ -177,7 +375,12 @@ public class CombinationGenerator<E>
         }
 
         // capture before moving the indexes:
-        indexesAsString = Arrays.toString(currentIndexes);
+        if (lastIndexes == null)
+        {
+            lastIndexes = new int[currentIndexes.length];
+        }
+        System.arraycopy(currentIndexes, 0, lastIndexes, 0, currentIndexes.length);
+        indexesAsString = null;
 
         moveIndexesToNextCombination();
 
@@ -197,20 +400,11 @@ public class CombinationGenerator<E>
 
     private void moveIndexesToNextCombination()
     {
-        for (int i = currentIndexes.length - 1, j = list.size() - 1; i >= 0; i--, j--)
+        if (! moveToNextCombination(currentIndexes, list.size()))
         {
-            if (currentIndexes[i] != j)
-            {
-                currentIndexes[i]++;
-                for (int k = i + 1; k < currentIndexes.length; k++)
-                {
-                    currentIndexes[k] = currentIndexes[k - 1] + 1;
-                }
-                return;
-            }
+            // we are all done:
+            currentIndexes = null;
         }
-        // otherwise, we are all done:
-        currentIndexes = null;
     }
 //    int i = r - 1;
 //    while (a[i] == (n - r + i))
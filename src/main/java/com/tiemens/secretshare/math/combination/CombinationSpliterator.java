@@ -0,0 +1,150 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2014 Tim Tiemens.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ *
+ * Contributors:
+ *     Tim Tiemens - initial API and implementation
+ *******************************************************************************/
+package com.tiemens.secretshare.math.combination;
+
+import java.math.BigInteger;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Spliterator over a range of combination ranks, [from, to).
+ *
+ * trySplit() hands off the first half of the range, and unranks the start of
+ *   the second half lazily, so splitting never walks the combinations.
+ *
+ * Each int[] given to the action is a new array, and is safe to keep.
+ *
+ * Use CombinationGenerator.indexSpliterator() to create one.
+ *
+ * @author tiemens
+ *
+ */
+final class CombinationSpliterator
+    implements Spliterator<int[]>
+{
+    // ==================================================
+    // class static data
+    // ==================================================
+
+    private static final BigInteger LONG_MAX = BigInteger.valueOf(Long.MAX_VALUE);
+
+    // ==================================================
+    // instance data
+    // ==================================================
+
+    private final int n;
+    private final int k;
+
+    // rank of the next combination to hand out
+    private BigInteger next;
+    // exclusive
+    private final BigInteger end;
+
+    // indexes for "next", or null if not unranked yet
+    private int[] indexes;
+
+    // ==================================================
+    // constructors
+    // ==================================================
+
+    CombinationSpliterator(final int inN,
+                           final int inK,
+                           final BigInteger inFrom,
+                           final BigInteger inTo)
+    {
+        this(inN, inK, inFrom, inTo, null);
+    }
+
+    private CombinationSpliterator(final int inN,
+                                   final int inK,
+                                   final BigInteger inFrom,
+                                   final BigInteger inTo,
+                                   final int[] inIndexes)
+    {
+        n = inN;
+        k = inK;
+        next = inFrom;
+        end = inTo;
+        indexes = inIndexes;
+    }
+
+    // ==================================================
+    // public methods
+    // ==================================================
+
+    @Override
+    public boolean tryAdvance(Consumer<? super int[]> action)
+    {
+        if (next.compareTo(end) >= 0)
+        {
+            return false;
+        }
+        if (indexes == null)
+        {
+            indexes = CombinationGenerator.unrank(n, k, next);
+        }
+
+        int[] current = indexes.clone();
+        next = next.add(BigInteger.ONE);
+        if (next.compareTo(end) < 0)
+        {
+            CombinationGenerator.moveToNextCombination(indexes, n);
+        }
+        action.accept(current);
+        return true;
+    }
+
+    @Override
+    public Spliterator<int[]> trySplit()
+    {
+        BigInteger remaining = end.subtract(next);
+        if (remaining.compareTo(BigInteger.valueOf(2)) < 0)
+        {
+            return null;
+        }
+        BigInteger middle = next.add(remaining.shiftRight(1));
+        Spliterator<int[]> ret = new CombinationSpliterator(n, k, next, middle, indexes);
+        next = middle;
+        indexes = null;
+        return ret;
+    }
+
+    @Override
+    public long estimateSize()
+    {
+        BigInteger remaining = end.subtract(next);
+        if (remaining.compareTo(LONG_MAX) > 0)
+        {
+            return Long.MAX_VALUE;
+        }
+        else
+        {
+            return remaining.longValue();
+        }
+    }
+
+    @Override
+    public int characteristics()
+    {
+        int ret = ORDERED | DISTINCT | NONNULL | IMMUTABLE;
+        if (end.subtract(next).compareTo(LONG_MAX) <= 0)
+        {
+            ret |= SIZED | SUBSIZED;
+        }
+        return ret;
+    }
+}
@@ -0,0 +1,249 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2014 Tim Tiemens.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ *
+ * Contributors:
+ *     Tim Tiemens - initial API and implementation
+ *******************************************************************************/
+package com.tiemens.secretshare.math.equation;
+
+import java.math.BigInteger;
+
+import com.tiemens.secretshare.exceptions.SecretShareException;
+import com.tiemens.secretshare.math.field.ModularField;
+
+/**
+ * Berlekamp-Welch decoding over GF(p): recover the polynomial P of degree &lt; k
+ *   from m points (xs[i], ys[i]), when up to e = (m - k) / 2 of the ys are wrong.
+ *
+ * Find E (monic, degree e, the "error locator") and Q (degree &lt; k + e) with
+ *
+ *   Q(xs[i]) = ys[i] * E(xs[i])     for every i
+ *
+ * That is m linear equations in (k + 2e) unknowns, solved once by Gaussian elimination mod p.
+ * Any solution has Q = P * E, so P = Q / E.
+ *
+ * This is O(m^3) modular operations [in the ModularField of the modulus],
+ *   instead of combining all C(m,k) subsets.
+ *
+ * NOTE: if the modulus is not prime, a pivot may not have an inverse,
+ *       and decode() will throw ArithmeticException.
+ *
+ * @author tiemens
+ *
+ */
+public final class BerlekampWelchDecoder
+{
+    // ==================================================
+    // class static data
+    // ==================================================
+
+    // ==================================================
+    // class static methods
+    // ==================================================
+
+    /**
+     * @param m number of points
+     * @param k number of coefficients (the threshold)
+     * @return the number of wrong points that can be corrected, (m - k) / 2
+     */
+    public static int maximumCorrectableErrors(final int m,
+                                               final int k)
+    {
+        return Math.max(0, (m - k) / 2);
+    }
+
+    /**
+     * @param xs the x values, must be distinct modulo the modulus
+     * @param ys the y values, up to maximumCorrectableErrors() of them may be wrong
+     * @param k number of coefficients of the polynomial (the threshold)
+     * @param modulus the (prime) modulus
+     * @return coefficients, in PolyEquationImpl order: [0] is the constant term,
+     *         or null if there are too many wrong ys to correct
+     * @throws ArithmeticException if a pivot has no inverse (modulus is not prime)
+     */
+    public static BigInteger[] decode(final BigInteger[] xs,
+                                      final BigInteger[] ys,
+                                      final int k,
+                                      final BigInteger modulus)
+    {
+        if (modulus == null)
+        {
+            throw new SecretShareException("modulus cannot be null");
+        }
+        if (xs.length != ys.length)
+        {
+            throw new SecretShareException("xs.length=" + xs.length +
+                                           " does not match ys.length=" + ys.length);
+        }
+        final int m = xs.length;
+        if ((k < 1) || (k > m))
+        {
+            throw new SecretShareException("Must have at least k=" + k + " points, only have " + m);
+        }
+        final int e = maximumCorrectableErrors(m, k);
+        final ModularField field = ModularField.forModulus(modulus);
+
+        // unknowns: q[0] .. q[k+e-1], then E[0] .. E[e-1]   (E[e] = 1)
+        //   sum(q[j] * x^j) - y * sum(E[j] * x^j) = y * x^e
+        final int unknowns = k + 2 * e;
+        BigInteger[][] rows = new BigInteger[m][unknowns + 1];
+        for (int i = 0; i < m; i++)
+        {
+            final BigInteger x = field.reduce(xs[i]);
+            final BigInteger y = field.reduce(ys[i]);
+            BigInteger power = BigInteger.ONE;
+            for (int j = 0; j < k + e; j++)
+            {
+                rows[i][j] = power;
+                if (j < e)
+                {
+                    rows[i][k + e + j] = field.negate(field.multiply(y, power));
+                }
+                else if (j == e)
+                {
+                    rows[i][unknowns] = field.multiply(y, power);
+                }
+                power = field.multiply(power, x);
+            }
+        }
+
+        BigInteger[] solution = solve(rows, unknowns, field);
+        if (solution == null)
+        {
+            return null;
+        }
+
+        BigInteger[] q = new BigInteger[k + e];
+        System.arraycopy(solution, 0, q, 0, k + e);
+        BigInteger[] locator = new BigInteger[e + 1];
+        System.arraycopy(solution, k + e, locator, 0, e);
+        locator[e] = BigInteger.ONE;
+
+        return divideExactly(q, locator, field);
+    }
+
+    /**
+     * Gaussian elimination, mod p.
+     *
+     * @param rows augmented matrix, [i][unknowns] is the right hand side; modified
+     * @return one solution (free unknowns are zero), or null if the system is inconsistent
+     */
+    private static BigInteger[] solve(final BigInteger[][] rows,
+                                      final int unknowns,
+                                      final ModularField field)
+    {
+        final int m = rows.length;
+        int[] pivotColumnOfRow = new int[m];
+        int row = 0;
+        for (int col = 0; (col < unknowns) && (row < m); col++)
+        {
+            int pivot = -1;
+            for (int r = row; r < m; r++)
+            {
+                if (rows[r][col].signum() != 0)
+                {
+                    pivot = r;
+                    break;
+                }
+            }
+            if (pivot < 0)
+            {
+                continue;
+            }
+            BigInteger[] swap = rows[row];
+            rows[row] = rows[pivot];
+            rows[pivot] = swap;
+
+            final BigInteger inverse = field.inverse(rows[row][col]);
+            for (int c = col; c <= unknowns; c++)
+            {
+                rows[row][c] = field.multiply(rows[row][c], inverse);
+            }
+            for (int r = 0; r < m; r++)
+            {
+                if ((r != row) && (rows[r][col].signum() != 0))
+                {
+                    final BigInteger factor = rows[r][col];
+                    for (int c = col; c <= unknowns; c++)
+                    {
+                        rows[r][c] = field.subtract(rows[r][c], field.multiply(factor, rows[row][c]));
+                    }
+                }
+            }
+            pivotColumnOfRow[row] = col;
+            row++;
+        }
+
+        // any remaining row is 0 = rhs:
+        for (int r = row; r < m; r++)
+        {
+            if (rows[r][unknowns].signum() != 0)
+            {
+                return null;
+            }
+        }
+
+        BigInteger[] ret = new BigInteger[unknowns];
+        for (int c = 0; c < unknowns; c++)
+        {
+            ret[c] = BigInteger.ZERO;
+        }
+        for (int r = 0; r < row; r++)
+        {
+            ret[pivotColumnOfRow[r]] = rows[r][unknowns];
+        }
+        return ret;
+    }
+
+    /**
+     * @param numerator coefficients, [0] is the constant term
+     * @param monic coefficients, [last] is 1
+     * @return numerator / monic, or null if the remainder is not zero
+     */
+    private static BigInteger[] divideExactly(final BigInteger[] numerator,
+                                              final BigInteger[] monic,
+                                              final ModularField field)
+    {
+        BigInteger[] remainder = numerator.clone();
+        final int degree = monic.length - 1;
+        final int quotientLength = numerator.length - degree;
+        BigInteger[] quotient = new BigInteger[quotientLength];
+
+        for (int t = quotientLength - 1; t >= 0; t--)
+        {
+            final BigInteger lead = remainder[t + degree];
+            quotient[t] = lead;
+            for (int j = 0; j <= degree; j++)
+            {
+                remainder[t + j] = field.subtract(remainder[t + j], field.multiply(lead, monic[j]));
+            }
+        }
+        for (int j = 0; j < degree; j++)
+        {
+            if (remainder[j].signum() != 0)
+            {
+                return null;
+            }
+        }
+        return quotient;
+    }
+
+    // ==================================================
+    // constructors
+    // ==================================================
+
+    private BerlekampWelchDecoder()
+    {
+        // no instances
+    }
+}
@@ -0,0 +1,301 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2014 Tim Tiemens.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ *
+ * Contributors:
+ *     Tim Tiemens - initial API and implementation
+ *******************************************************************************/
+package com.tiemens.secretshare.math.equation;
+
+import java.math.BigInteger;
+
+import com.tiemens.secretshare.exceptions.SecretShareException;
+import com.tiemens.secretshare.math.field.ModularField;
+
+/**
+ * Lagrange interpolation over the integers modulo a prime, GF(p).
+ *
+ * The secret is f(0), so the only thing combine needs is:
+ *
+ *   f(0) = sum( y[i] * w[i] )   mod p
+ *
+ *   where the "weight" w[i] = product( x[j] / (x[j] - x[i]) ),  j != i
+ *
+ * This takes k modular inverses and O(k^2) modular multiplies,
+ *   with no BigRational and no matrix.
+ * All of the arithmetic is in the ModularField of the modulus [Barrett reduction, no long division].
+ *
+ * The weights only depend on the x values and the modulus,
+ *   not on the y values (aka the shares).
+ *
+ * NOTE: if the modulus is not prime, some (x[j] - x[i]) may not have an inverse,
+ *       and the methods below will throw ArithmeticException.
+ *
+ * @author tiemens
+ *
+ */
+public final class LagrangeInterpolator
+{
+    // ==================================================
+    // class static data
+    // ==================================================
+
+    // ==================================================
+    // class static methods
+    // ==================================================
+
+    /**
+     * Compute the Lagrange basis weights at x=0.
+     *
+     * @param xs the x values, must be distinct modulo the modulus
+     * @param modulus the (prime) modulus
+     * @return weights, weights[i] goes with xs[i]
+     * @throws ArithmeticException if a denominator has no inverse (modulus is not prime)
+     */
+    public static BigInteger[] computeWeightsAtZero(final BigInteger[] xs,
+                                                    final BigInteger modulus)
+    {
+        checkArguments(xs, modulus);
+        return computeWeightsAtZero(xs, ModularField.forModulus(modulus));
+    }
+
+    /**
+     * Compute the Lagrange basis weights at x=0.
+     *
+     * @param xs the x values, must be distinct modulo the modulus
+     * @param field the (prime) modulus
+     * @return weights, weights[i] goes with xs[i]
+     * @throws ArithmeticException if a denominator has no inverse (modulus is not prime)
+     */
+    public static BigInteger[] computeWeightsAtZero(final BigInteger[] xs,
+                                                    final ModularField field)
+    {
+        checkArguments(xs, field.getModulus());
+
+        final int k = xs.length;
+        BigInteger[] reduced = new BigInteger[k];
+        for (int i = 0; i < k; i++)
+        {
+            reduced[i] = field.reduce(xs[i]);
+        }
+
+        BigInteger[] ret = new BigInteger[k];
+        for (int i = 0; i < k; i++)
+        {
+            BigInteger numerator = BigInteger.ONE;
+            BigInteger denominator = BigInteger.ONE;
+            for (int j = 0; j < k; j++)
+            {
+                if (j != i)
+                {
+                    if (reduced[j].equals(reduced[i]))
+                    {
+                        throw new SecretShareException("Duplicate x value " + xs[i] + " modulo " +
+                                                       field.getModulus());
+                    }
+                    numerator = field.multiply(numerator, reduced[j]);
+                    denominator = field.multiply(denominator, field.subtract(reduced[j], reduced[i]));
+                }
+            }
+            ret[i] = field.multiply(numerator, field.inverse(denominator));
+        }
+        return ret;
+    }
+
+    /**
+     * @param weights from computeWeightsAtZero()
+     * @param ys the y values, ys[i] goes with weights[i]
+     * @param modulus the (prime) modulus
+     * @return sum(weights[i] * ys[i]) mod modulus
+     */
+    public static BigInteger combineWeights(final BigInteger[] weights,
+                                            final BigInteger[] ys,
+                                            final BigInteger modulus)
+    {
+        return combineWeights(weights, ys, ModularField.forModulus(modulus));
+    }
+
+    /**
+     * @param weights from computeWeightsAtZero()
+     * @param ys the y values, ys[i] goes with weights[i]
+     * @param field the (prime) modulus
+     * @return sum(weights[i] * ys[i]) mod modulus
+     */
+    public static BigInteger combineWeights(final BigInteger[] weights,
+                                            final BigInteger[] ys,
+                                            final ModularField field)
+    {
+        if (weights.length != ys.length)
+        {
+            throw new SecretShareException("weights.length=" + weights.length +
+                                           " does not match ys.length=" + ys.length);
+        }
+        return field.dot(weights, ys);
+    }
+
+    /**
+     * Compute f(0), where f is the unique polynomial of degree (xs.length - 1)
+     *   that goes through all of the (xs[i], ys[i]) points, modulo the modulus.
+     *
+     * @param xs the x values, must be distinct modulo the modulus
+     * @param ys the y values
+     * @param modulus the (prime) modulus
+     * @return f(0) mod modulus
+     * @throws ArithmeticException if a denominator has no inverse (modulus is not prime)
+     */
+    public static BigInteger interpolateAtZero(final BigInteger[] xs,
+                                               final BigInteger[] ys,
+                                               final BigInteger modulus)
+    {
+        if (xs.length != ys.length)
+        {
+            throw new SecretShareException("xs.length=" + xs.length +
+                                           " does not match ys.length=" + ys.length);
+        }
+        checkArguments(xs, modulus);
+        final ModularField field = ModularField.forModulus(modulus);
+        BigInteger[] weights = computeWeightsAtZero(xs, field);
+        return combineWeights(weights, ys, field);
+    }
+
+    /**
+     * Compute all of the coefficients of the unique polynomial of degree (xs.length - 1)
+     *   that goes through all of the (xs[i], ys[i]) points, modulo the modulus.
+     *
+     * Uses the "master polynomial" M(x) = product(x - xs[j]),
+     *   and synthetic division by (x - xs[i]) for each basis polynomial,
+     *   so this is O(k^2) modular multiplies.
+     *
+     * @param xs the x values, must be distinct modulo the modulus
+     * @param ys the y values
+     * @param modulus the (prime) modulus
+     * @return coefficients, in PolyEquationImpl order: [0] is the constant term
+     * @throws ArithmeticException if a denominator has no inverse (modulus is not prime)
+     */
+    public static BigInteger[] interpolateCoefficients(final BigInteger[] xs,
+                                                       final BigInteger[] ys,
+                                                       final BigInteger modulus)
+    {
+        checkArguments(xs, modulus);
+        return interpolateCoefficients(xs, ys, ModularField.forModulus(modulus));
+    }
+
+    /**
+     * Same as interpolateCoefficients(xs, ys, modulus), with the field already resolved.
+     *
+     * @param xs the x values, must be distinct modulo the modulus
+     * @param ys the y values
+     * @param field the (prime) modulus
+     * @return coefficients, in PolyEquationImpl order: [0] is the constant term
+     * @throws ArithmeticException if a denominator has no inverse (modulus is not prime)
+     */
+    public static BigInteger[] interpolateCoefficients(final BigInteger[] xs,
+                                                       final BigInteger[] ys,
+                                                       final ModularField field)
+    {
+        checkArguments(xs, field.getModulus());
+        if (xs.length != ys.length)
+        {
+            throw new SecretShareException("xs.length=" + xs.length +
+                                           " does not match ys.length=" + ys.length);
+        }
+
+        final int k = xs.length;
+        BigInteger[] reduced = new BigInteger[k];
+        for (int i = 0; i < k; i++)
+        {
+            reduced[i] = field.reduce(xs[i]);
+        }
+
+        // master[t] is the coefficient of x^t in product(x - xs[j]), degree k
+        BigInteger[] master = new BigInteger[k + 1];
+        master[0] = BigInteger.ONE;
+        for (int t = 1; t <= k; t++)
+        {
+            master[t] = BigInteger.ZERO;
+        }
+        for (int j = 0; j < k; j++)
+        {
+            // multiply by (x - xs[j]), from the top down:
+            for (int t = j + 1; t >= 1; t--)
+            {
+                master[t] = field.subtract(master[t - 1], field.multiply(reduced[j], master[t]));
+            }
+            master[0] = field.negate(field.multiply(reduced[j], master[0]));
+        }
+
+        BigInteger[] ret = new BigInteger[k];
+        for (int t = 0; t < k; t++)
+        {
+            ret[t] = BigInteger.ZERO;
+        }
+
+        BigInteger[] basis = new BigInteger[k];
+        for (int i = 0; i < k; i++)
+        {
+            // basis = master / (x - xs[i])   [synthetic division, remainder is zero]
+            basis[k - 1] = master[k];
+            for (int t = k - 1; t >= 1; t--)
+            {
+                basis[t - 1] = field.add(master[t], field.multiply(reduced[i], basis[t]));
+            }
+
+            // denominator = product(xs[i] - xs[j]), j != i
+            BigInteger denominator = BigInteger.ONE;
+            for (int j = 0; j < k; j++)
+            {
+                if (j != i)
+                {
+                    if (reduced[j].equals(reduced[i]))
+                    {
+                        throw new SecretShareException("Duplicate x value " + xs[i] + " modulo " +
+                                                       field.getModulus());
+                    }
+                    denominator = field.multiply(denominator, field.subtract(reduced[i], reduced[j]));
+                }
+            }
+            BigInteger scale = field.multiply(ys[i], field.inverse(denominator));
+
+            for (int t = 0; t < k; t++)
+            {
+                ret[t] = field.add(ret[t], field.multiply(scale, basis[t]));
+            }
+        }
+        return ret;
+    }
+
+    private static void checkArguments(final BigInteger[] xs,
+                                       final BigInteger modulus)
+    {
+        if (modulus == null)
+        {
+            throw new SecretShareException("modulus cannot be null");
+        }
+        if (modulus.signum() <= 0)
+        {
+            throw new SecretShareException("modulus must be positive, modulus=" + modulus);
+        }
+        if ((xs == null) || (xs.length == 0))
+        {
+            throw new SecretShareException("Must have at least 1 x value");
+        }
+    }
+
+    // ==================================================
+    // constructors
+    // ==================================================
+
+    private LagrangeInterpolator()
+    {
+        // no instances
+    }
+}
@@ -0,0 +1,263 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2014 Tim Tiemens.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ *
+ * Contributors:
+ *     Tim Tiemens - initial API and implementation
+ *******************************************************************************/
+package com.tiemens.secretshare.math.equation;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.tiemens.secretshare.exceptions.SecretShareException;
+
+/**
+ * Bounded LRU cache of Lagrange weights at x=0.
+ *
+ * The weights depend only on the set of x values and the modulus,
+ *   so when many secrets are combined with the same share holders,
+ *   a repeat combine is just k modular multiply-adds.
+ *
+ * The key is the x-set: the x values are sorted before lookup,
+ *   and the weights are returned in the caller's order.
+ *
+ * Instances are thread-safe.
+ *
+ * @author tiemens
+ *
+ */
+public class LagrangeWeightCache
+{
+    // ==================================================
+    // class static data
+    // ==================================================
+    public static final int DEFAULT_MAXIMUM_SIZE = 256;
+
+    // ==================================================
+    // class static methods
+    // ==================================================
+
+    // ==================================================
+    // instance data
+    // ==================================================
+
+    private final int maximumSize;
+
+    // access-ordered, so the eldest entry is the least recently used
+    private final Map<Key, BigInteger[]> map;
+
+    private long hitCount = 0;
+    private long missCount = 0;
+
+    // ==================================================
+    // constructors
+    // ==================================================
+
+    public LagrangeWeightCache()
+    {
+        this(DEFAULT_MAXIMUM_SIZE);
+    }
+
+    public LagrangeWeightCache(final int inMaximumSize)
+    {
+        if (inMaximumSize < 1)
+        {
+            throw new SecretShareException("maximum size must be at least 1, was " + inMaximumSize);
+        }
+        maximumSize = inMaximumSize;
+
+        final float loadFactor = 0.75f;
+        map = new LinkedHashMap<Key, BigInteger[]>(16, loadFactor, true)
+        {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, BigInteger[]> eldest)
+            {
+                return size() > maximumSize;
+            }
+        };
+    }
+
+    // ==================================================
+    // public methods
+    // ==================================================
+
+    /**
+     * Same answer as LagrangeInterpolator.computeWeightsAtZero(), but cached.
+     *
+     * @param xs the x values, must be distinct modulo the modulus
+     * @param modulus the (prime) modulus
+     * @return weights, weights[i] goes with xs[i]
+     * @throws ArithmeticException if a denominator has no inverse (modulus is not prime)
+     */
+    public BigInteger[] getWeightsAtZero(final BigInteger[] xs,
+                                         final BigInteger modulus)
+    {
+        if (modulus == null)
+        {
+            throw new SecretShareException("modulus cannot be null");
+        }
+        final Integer[] order = sortedOrder(xs);
+        final BigInteger[] sortedXs = new BigInteger[xs.length];
+        for (int i = 0; i < xs.length; i++)
+        {
+            sortedXs[i] = xs[order[i]];
+        }
+        final Key key = new Key(sortedXs, modulus);
+
+        BigInteger[] sortedWeights;
+        synchronized (map)
+        {
+            sortedWeights = map.get(key);
+            if (sortedWeights != null)
+            {
+                hitCount++;
+            }
+            else
+            {
+                missCount++;
+            }
+        }
+
+        if (sortedWeights == null)
+        {
+            // compute outside of the lock, other threads may be combining too:
+            sortedWeights = LagrangeInterpolator.computeWeightsAtZero(sortedXs, modulus);
+            synchronized (map)
+            {
+                map.put(key, sortedWeights);
+            }
+        }
+
+        BigInteger[] ret = new BigInteger[xs.length];
+        for (int i = 0; i < xs.length; i++)
+        {
+            ret[order[i]] = sortedWeights[i];
+        }
+        return ret;
+    }
+
+    public long getHitCount()
+    {
+        synchronized (map)
+        {
+            return hitCount;
+        }
+    }
+
+    public long getMissCount()
+    {
+        synchronized (map)
+        {
+            return missCount;
+        }
+    }
+
+    public int size()
+    {
+        synchronized (map)
+        {
+            return map.size();
+        }
+    }
+
+    public int getMaximumSize()
+    {
+        return maximumSize;
+    }
+
+    /**
+     * Remove all entries and reset the hit/miss counters.
+     */
+    public void clear()
+    {
+        synchronized (map)
+        {
+            map.clear();
+            hitCount = 0;
+            missCount = 0;
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return "LagrangeWeightCache[size=" + size() + ", maximumSize=" + maximumSize +
+                ", hits=" + getHitCount() + ", misses=" + getMissCount() + "]";
+    }
+
+    // ==================================================
+    // non public methods
+    // ==================================================
+
+    private static Integer[] sortedOrder(final BigInteger[] xs)
+    {
+        Integer[] ret = new Integer[xs.length];
+        for (int i = 0; i < xs.length; i++)
+        {
+            ret[i] = i;
+        }
+        Arrays.sort(ret, new Comparator<Integer>()
+        {
+            @Override
+            public int compare(Integer a, Integer b)
+            {
+                return xs[a].compareTo(xs[b]);
+            }
+        });
+        return ret;
+    }
+
+    /**
+     * (sorted x values, modulus).
+     */
+    private static final class Key
+    {
+        private final BigInteger[] xs;
+        private final BigInteger modulus;
+        private final int hash;
+
+        private Key(BigInteger[] inXs, BigInteger inModulus)
+        {
+            xs = inXs;
+            modulus = inModulus;
+            hash = Arrays.hashCode(xs) * 31 + modulus.hashCode();
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (obj instanceof Key)
+            {
+                Key other = (Key) obj;
+                return ((hash == other.hash) &&
+                        modulus.equals(other.modulus) &&
+                        Arrays.equals(xs, other.xs));
+            }
+            else
+            {
+                return false;
+            }
+        }
+    }
+}
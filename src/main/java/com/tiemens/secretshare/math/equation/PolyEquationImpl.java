@@ -20,6 +20,7 @@ import java.io.PrintStream;
 import java.math.BigInteger;
 
 import com.tiemens.secretshare.exceptions.SecretShareException;
+import com.tiemens.secretshare.math.field.ModularField;
 
 /**
  * Polynomial equation implementation.
@@ -116,25 +117,136 @@ public class PolyEquationImpl
     // public methods
     // ==================================================
 
+    /**
+     * Evaluate using Horner's rule:
+     *   c0 + x*(c1 + x*(c2 + x*(c3)))
+     * which is (k-1) multiplies, instead of a pow() for every term.
+     *
+     * @param x value
+     * @return f(x), exact
+     */
     public BigInteger calculateFofX(final BigInteger x)
     {
-        // pick up the 0th term directly:
-        BigInteger ret = coefficients[0];
+        // start with the highest term, and work down to the 0th term:
+        BigInteger ret = coefficients[coefficients.length - 1];
+        for (int term = coefficients.length - 2; term >= 0; term--)
+        {
+            ret = ret.multiply(x).add(coefficients[term]);
+        }
+        return ret;
+    }
+
+    /**
+     * Evaluate using Horner's rule, reducing after every step,
+     *   so every intermediate value stays below modulus^2.
+     *
+     * @param x value
+     * @param modulus if null, same as calculateFofX(x)
+     * @return f(x) mod modulus, in [0, modulus)
+     */
+    public BigInteger calculateFofX(final BigInteger x,
+                                    final BigInteger modulus)
+    {
+        if (modulus == null)
+        {
+            return calculateFofX(x);
+        }
+        return calculateFofXInField(x, ModularField.forModulus(modulus));
+    }
+
+    /**
+     * Evaluate using Horner's rule, reducing after every step.
+     *
+     * @param x value
+     * @param field the modulus
+     * @return f(x) mod modulus, in [0, modulus)
+     */
+    public BigInteger calculateFofXInField(final BigInteger x,
+                                           final ModularField field)
+    {
+        final BigInteger xmod = field.reduce(x);
+        BigInteger ret = field.reduce(coefficients[coefficients.length - 1]);
+        for (int term = coefficients.length - 2; term >= 0; term--)
+        {
+            ret = field.reduce(ret.multiply(xmod).add(coefficients[term]));
+        }
+        return ret;
+    }
+
+    /**
+     * Evaluate at the consecutive values x = firstX, firstX+1, ... firstX+count-1.
+     *
+     * Uses forward differences: after the first (degree+1) values are computed
+     *   with Horner's rule, and turned into the differences
+     *   f(x), delta f(x), delta^2 f(x), ... delta^degree f(x)  [delta^degree is constant]
+     *   each next value is just "degree" additions:
+     *     delta^j f(x+1) = delta^j f(x) + delta^(j+1) f(x)
+     * So n values cost O(k^2 + n*k) additions instead of O(n*k) multiplies.
+     *
+     * @param firstX first value of x
+     * @param count how many consecutive values
+     * @param modulus if null, the values are exact
+     * @return f(firstX + i) [mod modulus] in [i]
+     */
+    public BigInteger[] calculateFofXConsecutive(final int firstX,
+                                                 final int count,
+                                                 final BigInteger modulus)
+    {
+        return calculateFofXConsecutiveInField(firstX, count,
+                                                (modulus == null) ? null : ModularField.forModulus(modulus));
+    }
 
-        // for each of the other terms:
-        for (int term = 1, n = coefficients.length; term < n; term++)
+    /**
+     * Evaluate at the consecutive values x = firstX, firstX+1, ... firstX+count-1, by forward differences.
+     *
+     * @param firstX first value of x
+     * @param count how many consecutive values
+     * @param field the modulus, if null, the values are exact
+     * @return f(firstX + i) [mod modulus] in [i]
+     */
+    public BigInteger[] calculateFofXConsecutiveInField(final int firstX,
+                                                        final int count,
+                                                        final ModularField field)
+    {
+        if (count < 0)
+        {
+            throw new SecretShareException("count cannot be negative, was " + count);
+        }
+        BigInteger[] ret = new BigInteger[count];
+        final int degree = coefficients.length - 1;
+        final int direct = Math.min(count, degree + 1);
+        for (int i = 0; i < direct; i++)
+        {
+            final BigInteger x = BigInteger.valueOf((long) firstX + i);
+            ret[i] = (field == null) ? calculateFofX(x) : calculateFofXInField(x, field);
+        }
+        if (count <= direct)
         {
-            // the index of term N is N:
-            final int indexOfTerm = term;
+            return ret;
+        }
 
-            // the exponent of term N is N:
-            final int powerOfTerm = term;
+        // differences[j] = delta^j f(firstX)
+        BigInteger[] differences = new BigInteger[degree + 1];
+        System.arraycopy(ret, 0, differences, 0, degree + 1);
+        for (int j = 1; j <= degree; j++)
+        {
+            for (int i = degree; i >= j; i--)
+            {
+                differences[i] = (field == null) ? differences[i].subtract(differences[i - 1]) :
+                                                   field.subtract(differences[i], differences[i - 1]);
+            }
+        }
 
-            BigInteger base = x;
-            BigInteger power = base.pow(powerOfTerm);
+        // step differences to x = firstX + degree, the last value computed directly:
+        for (int t = 0; t < degree; t++)
+        {
+            stepDifferences(differences, field);
+        }
 
-            BigInteger add = coefficients[indexOfTerm].multiply(power);
-            ret = ret.add(add);
+        for (int i = direct; i < count; i++)
+        {
+            stepDifferences(differences, field);
+            ret[i] = differences[0];
         }
         return ret;
     }
@@ -173,4 +285,15 @@ public class PolyEquationImpl
     // ==================================================
     // non public methods
     // ==================================================
+
+    private static void stepDifferences(final BigInteger[] differences,
+                                        final ModularField field)
+    {
+        for (int j = 0, n = differences.length - 1; j < n; j++)
+        {
+            // both are in [0, modulus), so add() only has to subtract once:
+            differences[j] = (field == null) ? differences[j].add(differences[j + 1]) :
+                                              field.add(differences[j], differences[j + 1]);
+        }
+    }
 }
@@ -0,0 +1,386 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2014 Tim Tiemens.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ *
+ * Contributors:
+ *     Tim Tiemens - initial API and implementation
+ *******************************************************************************/
+package com.tiemens.secretshare.math.field;
+
+import com.tiemens.secretshare.exceptions.SecretShareException;
+
+/**
+ * Arithmetic in GF(2^128), with the polynomial x^128 + x^7 + x^2 + x + 1 [the GCM polynomial, not bit-reflected].
+ *
+ * A value is two longs: high holds the coefficients of x^64 .. x^127, low holds x^0 .. x^63.
+ * In a long[], a value is at [offset] = high, [offset + 1] = low.
+ *
+ * Addition (and subtraction) is XOR.
+ * Multiplication is carry-less, Karatsuba on longs:
+ *   three 64x64 carry-less products [low*low, high*high, (low^high)*(low^high)],
+ *   then the 256-bit product is folded back with x^128 = x^7 + x^2 + x + 1.
+ * A 64x64 carry-less product is 16 integer multiplies of the bits 4 apart, keeping every 4th bit:
+ *   the 3 zero bits between them hold the carries [as in BearSSL's ctmul64].
+ *   That gives the low 64 bits; the high 64 bits are the same, on the bit-reversed values.
+ * There are no branches or tables, so the time does not depend on the [secret] values.
+ *
+ * multiplyByInt() is for a small b that is not secret [like x of a share]: one shift and XOR per bit of b.
+ * square() is linear in GF(2^n): the bits are spread apart [a zero between each], then folded.
+ * inverse() is Itoh-Tsujii: a^-1 = a^(2^128 - 2), with 127 squares but only 12 multiplies.
+ *
+ * multiply() writes its result into a long[], so nothing is allocated.
+ *
+ * @author tiemens
+ *
+ */
+public final class GF2128
+{
+    // ==================================================
+    // class static data
+    // ==================================================
+
+    // the number of bytes in a value
+    public static final int BYTES = 16;
+
+    // ==================================================
+    // class static methods
+    // ==================================================
+
+    /**
+     * result = a * b
+     *
+     * @param result where to write the product, may be where a or b came from
+     * @param offset of the product in result
+     */
+    public static void multiply(final long aHigh,
+                                final long aLow,
+                                final long bHigh,
+                                final long bLow,
+                                final long[] result,
+                                final int offset)
+    {
+        multiply(aHigh, aLow, bHigh, bLow, result, offset, false);
+    }
+
+    /**
+     * result = result + a * b   [for sums of products]
+     *
+     * @param result holds the value to add to, and gets the sum
+     * @param offset of the sum in result
+     */
+    public static void multiplyAndAdd(final long aHigh,
+                                      final long aLow,
+                                      final long bHigh,
+                                      final long bLow,
+                                      final long[] result,
+                                      final int offset)
+    {
+        multiply(aHigh, aLow, bHigh, bLow, result, offset, true);
+    }
+
+    /**
+     * result = a * b, for b a value of at most 32 bits [the coefficients of x^0 .. x^31]
+     * The time depends on b, so b should not be secret.
+     *
+     * @param b the value (0, b), as unsigned
+     * @param result where to write the product, may be where a came from
+     * @param offset of the product in result
+     */
+    public static void multiplyByInt(final long aHigh,
+                                     final long aLow,
+                                     final int b,
+                                     final long[] result,
+                                     final int offset)
+    {
+        long p0 = 0;
+        long p1 = 0;
+        // the bits above x^127, at most 31 of them:
+        long p2 = 0;
+        int i = 0;
+        for (int bits = b; bits != 0; bits >>>= 1)
+        {
+            if ((bits & 1) != 0)
+            {
+                p0 ^= aLow << i;
+                p1 ^= (aHigh << i) | ((aLow >>> 1) >>> (63 - i));
+                p2 ^= (aHigh >>> 1) >>> (63 - i);
+            }
+            i++;
+        }
+        // x^128 = x^7 + x^2 + x + 1, and p2 is small enough that this does not overflow:
+        p0 ^= p2 ^ (p2 << 1) ^ (p2 << 2) ^ (p2 << 7);
+        result[offset] = p1;
+        result[offset + 1] = p0;
+    }
+
+    /**
+     * result = a * a
+     *
+     * @param result where to write the square, may be where a came from
+     * @param offset of the square in result
+     */
+    public static void square(final long aHigh,
+                              final long aLow,
+                              final long[] result,
+                              final int offset)
+    {
+        reduce(spread((int) aLow), spread((int) (aLow >>> 32)), spread((int) aHigh), spread((int) (aHigh >>> 32)),
+               result, offset, false);
+    }
+
+    /**
+     * Itoh-Tsujii: with b(e) = a^(2^e - 1), b(2e) = b(e)^(2^e) * b(e) and b(e + 1) = b(e)^2 * a,
+     *   so the bits of 127 [all ones] give b(127) in 6 doublings and 6 increments,
+     *   and a^-1 = a^(2^128 - 2) = b(127)^2.
+     *
+     * @param result where to write the inverse
+     * @param offset of the inverse in result
+     * @throws SecretShareException if a is zero
+     */
+    public static void inverse(final long aHigh,
+                               final long aLow,
+                               final long[] result,
+                               final int offset)
+    {
+        if ((aHigh == 0) && (aLow == 0))
+        {
+            throw new SecretShareException("0 has no inverse in GF(2^128)");
+        }
+        // [0, 1] is b(e), [2, 3] is for b(e)^(2^e)
+        long[] work = {aHigh, aLow, 0, 0};
+        int e = 1;
+        while (e < 127)
+        {
+            work[2] = work[0];
+            work[3] = work[1];
+            for (int i = 0; i < e; i++)
+            {
+                square(work[2], work[3], work, 2);
+            }
+            multiply(work[2], work[3], work[0], work[1], work, 0);
+            e = 2 * e;
+
+            square(work[0], work[1], work, 0);
+            multiply(work[0], work[1], aHigh, aLow, work, 0);
+            e = e + 1;
+        }
+        square(work[0], work[1], result, offset);
+    }
+
+    /**
+     * The Lagrange basis weights at x=0, in GF(2^128), for small integer x values [x is the value (0, x)].
+     *   w[i] = product( x[j] / (x[j] - x[i]) ),  j != i      [and minus is XOR]
+     *
+     * @param xs the x values, at least 1, must be distinct
+     * @return weights, weight i is at [2 * i] [2 * i + 1]
+     * @throws SecretShareException if an x is out of range or a duplicate
+     */
+    public static long[] computeWeightsAtZero(final int[] xs)
+    {
+        final int k = xs.length;
+        long[] ret = new long[2 * k];
+        // the numerators go in ret, the denominators in denominators
+        long[] denominators = new long[2 * k];
+        for (int i = 0; i < k; i++)
+        {
+            if (xs[i] < 1)
+            {
+                throw new SecretShareException("x must be at least 1, was " + xs[i]);
+            }
+            ret[2 * i + 1] = 1;
+            denominators[2 * i + 1] = 1;
+            for (int j = 0; j < k; j++)
+            {
+                if (j != i)
+                {
+                    if (xs[j] == xs[i])
+                    {
+                        throw new SecretShareException("Duplicate x value " + xs[i]);
+                    }
+                    multiplyByInt(ret[2 * i], ret[2 * i + 1], xs[j], ret, 2 * i);
+                    multiplyByInt(denominators[2 * i], denominators[2 * i + 1], xs[j] ^ xs[i], denominators, 2 * i);
+                }
+            }
+        }
+
+        // one inverse for all of the denominators:
+        //   prefix[i] = d[0] * .. * d[i], then walk back with inverse = 1 / prefix[i]
+        long[] prefix = new long[2 * k + 2];
+        prefix[1] = 1;
+        for (int i = 0; i < k; i++)
+        {
+            multiply(prefix[2 * i], prefix[2 * i + 1], denominators[2 * i], denominators[2 * i + 1],
+                     prefix, 2 * i + 2);
+        }
+        long[] inverse = new long[2];
+        inverse(prefix[2 * k], prefix[2 * k + 1], inverse, 0);
+        for (int i = k - 1; i >= 0; i--)
+        {
+            // 1 / d[i] = prefix[i - 1] / prefix[i]:
+            multiply(ret[2 * i], ret[2 * i + 1], prefix[2 * i], prefix[2 * i + 1], ret, 2 * i);
+            multiply(ret[2 * i], ret[2 * i + 1], inverse[0], inverse[1], ret, 2 * i);
+            multiply(inverse[0], inverse[1], denominators[2 * i], denominators[2 * i + 1], inverse, 0);
+        }
+        return ret;
+    }
+
+    /**
+     * @param bytes 16 per value, high long first, each long big-endian
+     * @return the values, 2 longs each
+     */
+    public static long[] fromBytes(final byte[] bytes,
+                                   final int offset,
+                                   final int length)
+    {
+        if ((length % BYTES) != 0)
+        {
+            throw new SecretShareException("GF(2^128) values must be a multiple of " + BYTES + " bytes, was " +
+                                           length);
+        }
+        long[] ret = new long[length / 8];
+        for (int i = 0; i < ret.length; i++)
+        {
+            long value = 0;
+            for (int b = 0; b < 8; b++)
+            {
+                value = (value << 8) | (bytes[offset + 8 * i + b] & 0xFF);
+            }
+            ret[i] = value;
+        }
+        return ret;
+    }
+
+    /**
+     * The reverse of fromBytes().
+     */
+    public static void toBytes(final long[] values,
+                               final byte[] bytes,
+                               final int offset)
+    {
+        for (int i = 0; i < values.length; i++)
+        {
+            long value = values[i];
+            for (int b = 7; b >= 0; b--)
+            {
+                bytes[offset + 8 * i + b] = (byte) value;
+                value >>>= 8;
+            }
+        }
+    }
+
+    private static void multiply(final long aHigh,
+                                 final long aLow,
+                                 final long bHigh,
+                                 final long bLow,
+                                 final long[] result,
+                                 final int offset,
+                                 final boolean add)
+    {
+        final long aMiddle = aHigh ^ aLow;
+        final long bMiddle = bHigh ^ bLow;
+        // 128-bit carry-less products, [1] is the high long:
+        final long low0 = multiplyLow(aLow, bLow);
+        final long low1 = multiplyHigh(aLow, bLow);
+        final long high0 = multiplyLow(aHigh, bHigh);
+        final long high1 = multiplyHigh(aHigh, bHigh);
+        long middle0 = multiplyLow(aMiddle, bMiddle);
+        long middle1 = multiplyHigh(aMiddle, bMiddle);
+        middle0 ^= low0 ^ high0;
+        middle1 ^= low1 ^ high1;
+
+        reduce(low0, low1 ^ middle0, high0 ^ middle1, high1, result, offset, add);
+    }
+
+    /**
+     * @return the low 64 bits of the carry-less product of a and b
+     */
+    private static long multiplyLow(final long a,
+                                    final long b)
+    {
+        final long a0 = a & 0x1111111111111111L;
+        final long a1 = a & 0x2222222222222222L;
+        final long a2 = a & 0x4444444444444444L;
+        final long a3 = a & 0x8888888888888888L;
+        final long b0 = b & 0x1111111111111111L;
+        final long b1 = b & 0x2222222222222222L;
+        final long b2 = b & 0x4444444444444444L;
+        final long b3 = b & 0x8888888888888888L;
+        final long z0 = ((a0 * b0) ^ (a1 * b3) ^ (a2 * b2) ^ (a3 * b1)) & 0x1111111111111111L;
+        final long z1 = ((a0 * b1) ^ (a1 * b0) ^ (a2 * b3) ^ (a3 * b2)) & 0x2222222222222222L;
+        final long z2 = ((a0 * b2) ^ (a1 * b1) ^ (a2 * b0) ^ (a3 * b3)) & 0x4444444444444444L;
+        final long z3 = ((a0 * b3) ^ (a1 * b2) ^ (a2 * b1) ^ (a3 * b0)) & 0x8888888888888888L;
+        return z0 | z1 | z2 | z3;
+    }
+
+    /**
+     * Reversing the bits of a and b reverses the 127-bit product, so its low 64 bits are the high ones.
+     *
+     * @return the high 64 bits of the carry-less product of a and b
+     */
+    private static long multiplyHigh(final long a,
+                                     final long b)
+    {
+        return Long.reverse(multiplyLow(Long.reverse(a), Long.reverse(b))) >>> 1;
+    }
+
+    /**
+     * Reduce the 256-bit p3:p2:p1:p0 [p3 is the top long] mod x^128 + x^7 + x^2 + x + 1.
+     */
+    private static void reduce(long p0,
+                               long p1,
+                               long p2,
+                               final long p3,
+                               final long[] result,
+                               final int offset,
+                               final boolean add)
+    {
+        // x^128 = x^7 + x^2 + x + 1: fold p3 into p2:p1, then p2 into p1:p0
+        p1 ^= p3 ^ (p3 << 1) ^ (p3 << 2) ^ (p3 << 7);
+        p2 ^= (p3 >>> 63) ^ (p3 >>> 62) ^ (p3 >>> 57);
+        p0 ^= p2 ^ (p2 << 1) ^ (p2 << 2) ^ (p2 << 7);
+        p1 ^= (p2 >>> 63) ^ (p2 >>> 62) ^ (p2 >>> 57);
+
+        if (add)
+        {
+            result[offset] ^= p1;
+            result[offset + 1] ^= p0;
+        }
+        else
+        {
+            result[offset] = p1;
+            result[offset + 1] = p0;
+        }
+    }
+
+    /**
+     * @return the 32 bits of x, with a zero bit after each one [x as a polynomial, squared]
+     */
+    private static long spread(final int x)
+    {
+        long ret = x & 0xFFFFFFFFL;
+        ret = (ret | (ret << 16)) & 0x0000FFFF0000FFFFL;
+        ret = (ret | (ret << 8)) & 0x00FF00FF00FF00FFL;
+        ret = (ret | (ret << 4)) & 0x0F0F0F0F0F0F0F0FL;
+        ret = (ret | (ret << 2)) & 0x3333333333333333L;
+        ret = (ret | (ret << 1)) & 0x5555555555555555L;
+        return ret;
+    }
+
+    // ==================================================
+    // constructors
+    // ==================================================
+
+    private GF2128()
+    {
+        // no instances
+    }
+}
@@ -0,0 +1,239 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2014 Tim Tiemens.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ *
+ * Contributors:
+ *     Tim Tiemens - initial API and implementation
+ *******************************************************************************/
+package com.tiemens.secretshare.math.field;
+
+import com.tiemens.secretshare.exceptions.SecretShareException;
+
+/**
+ * Arithmetic in GF(2^8), the field of bytes, with the AES polynomial x^8 + x^4 + x^3 + x + 1.
+ *
+ * Addition (and subtraction) is XOR.
+ * Multiplication uses log/exp tables for the generator 3:
+ *   a * b = exp[ log[a] + log[b] ]     [the exp table is doubled, so no "mod 255" is needed]
+ *
+ * Values are ints 0..255 [use "b &amp; 0xFF" to get one from a byte].
+ *
+ * @author tiemens
+ *
+ */
+public final class GF256
+{
+    // ==================================================
+    // class static data
+    // ==================================================
+
+    public static final int ORDER = 256;
+
+    // x^8 + x^4 + x^3 + x + 1
+    private static final int POLYNOMIAL = 0x11B;
+
+    // EXP[i] = 3^i, for i = 0 .. 509
+    private static final int[] EXP = new int[2 * (ORDER - 1)];
+    // LOG[3^i] = i; LOG[0] is not used
+    private static final int[] LOG = new int[ORDER];
+
+    static
+    {
+        int value = 1;
+        for (int i = 0; i < ORDER - 1; i++)
+        {
+            EXP[i] = value;
+            EXP[i + ORDER - 1] = value;
+            LOG[value] = i;
+            // value *= 3, i.e. value * 2 + value:
+            int times2 = value << 1;
+            if (times2 >= ORDER)
+            {
+                times2 ^= POLYNOMIAL;
+            }
+            value = times2 ^ value;
+        }
+    }
+
+    // ==================================================
+    // class static methods
+    // ==================================================
+
+    public static int add(final int a,
+                          final int b)
+    {
+        return a ^ b;
+    }
+
+    public static int multiply(final int a,
+                               final int b)
+    {
+        if ((a == 0) || (b == 0))
+        {
+            return 0;
+        }
+        return EXP[LOG[a] + LOG[b]];
+    }
+
+    /**
+     * @param a value, 1..255
+     * @return the multiplicative inverse of a
+     * @throws SecretShareException if a is zero
+     */
+    public static int inverse(final int a)
+    {
+        if (a == 0)
+        {
+            throw new SecretShareException("0 has no inverse in GF(256)");
+        }
+        return EXP[ORDER - 1 - LOG[a]];
+    }
+
+    public static int divide(final int a,
+                             final int b)
+    {
+        return multiply(a, inverse(b));
+    }
+
+    /**
+     * For loops that multiply many bytes by the same value:
+     *   table[b] = value * b, so the loop is one array lookup per byte.
+     *
+     * @param value 0..255
+     * @return the multiplication table of value, 256 entries
+     */
+    public static byte[] multiplicationTable(final int value)
+    {
+        byte[] ret = new byte[ORDER];
+        for (int b = 0; b < ORDER; b++)
+        {
+            ret[b] = (byte) multiply(value, b);
+        }
+        return ret;
+    }
+
+    /**
+     * The Lagrange basis weights at x=0, in GF(256).
+     *   w[i] = product( x[j] / (x[j] - x[i]) ),  j != i      [and minus is XOR]
+     *
+     * @param xs the x values, 1..255, must be distinct
+     * @return weights, weights[i] goes with xs[i]
+     * @throws SecretShareException if an x is out of range or a duplicate
+     */
+    public static int[] computeWeightsAtZero(final int[] xs)
+    {
+        final int k = xs.length;
+        int[] ret = new int[k];
+        for (int i = 0; i < k; i++)
+        {
+            if ((xs[i] < 1) || (xs[i] >= ORDER))
+            {
+                throw new SecretShareException("x must be 1..255, was " + xs[i]);
+            }
+            int numerator = 1;
+            int denominator = 1;
+            for (int j = 0; j < k; j++)
+            {
+                if (j != i)
+                {
+                    if (xs[j] == xs[i])
+                    {
+                        throw new SecretShareException("Duplicate x value " + xs[i]);
+                    }
+                    numerator = multiply(numerator, xs[j]);
+                    denominator = multiply(denominator, xs[j] ^ xs[i]);
+                }
+            }
+            ret[i] = divide(numerator, denominator);
+        }
+        return ret;
+    }
+
+    /**
+     * Invert the Vandermonde matrix V[i][j] = xs[i]^j, by Gauss-Jordan elimination in GF(256).
+     *
+     * If y = V * c  [y[i] is the polynomial with coefficients c evaluated at xs[i]],
+     *   then c = inverse * y.
+     *
+     * @param xs the x values, 1..255, must be distinct
+     * @return the inverse, k by k
+     * @throws SecretShareException if an x is out of range or a duplicate
+     */
+    public static int[][] invertVandermonde(final int[] xs)
+    {
+        final int k = xs.length;
+        int[][] matrix = new int[k][2 * k];
+        for (int i = 0; i < k; i++)
+        {
+            if ((xs[i] < 1) || (xs[i] >= ORDER))
+            {
+                throw new SecretShareException("x must be 1..255, was " + xs[i]);
+            }
+            int power = 1;
+            for (int j = 0; j < k; j++)
+            {
+                matrix[i][j] = power;
+                power = multiply(power, xs[i]);
+            }
+            matrix[i][k + i] = 1;
+        }
+
+        for (int col = 0; col < k; col++)
+        {
+            int pivot = col;
+            while ((pivot < k) && (matrix[pivot][col] == 0))
+            {
+                pivot++;
+            }
+            if (pivot == k)
+            {
+                throw new SecretShareException("Duplicate x value, the matrix is singular");
+            }
+            int[] swap = matrix[col];
+            matrix[col] = matrix[pivot];
+            matrix[pivot] = swap;
+
+            final int scale = inverse(matrix[col][col]);
+            for (int c = 0; c < 2 * k; c++)
+            {
+                matrix[col][c] = multiply(matrix[col][c], scale);
+            }
+            for (int r = 0; r < k; r++)
+            {
+                final int factor = matrix[r][col];
+                if ((r != col) && (factor != 0))
+                {
+                    for (int c = 0; c < 2 * k; c++)
+                    {
+                        matrix[r][c] ^= multiply(factor, matrix[col][c]);
+                    }
+                }
+            }
+        }
+
+        int[][] ret = new int[k][k];
+        for (int i = 0; i < k; i++)
+        {
+            System.arraycopy(matrix[i], k, ret[i], 0, k);
+        }
+        return ret;
+    }
+
+    // ==================================================
+    // constructors
+    // ==================================================
+
+    private GF256()
+    {
+        // no instances
+    }
+}
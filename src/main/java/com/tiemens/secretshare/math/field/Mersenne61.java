@@ -0,0 +1,161 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2014 Tim Tiemens.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ *
+ * Contributors:
+ *     Tim Tiemens - initial API and implementation
+ *******************************************************************************/
+package com.tiemens.secretshare.math.field;
+
+import java.math.BigInteger;
+
+import com.tiemens.secretshare.exceptions.SecretShareException;
+
+/**
+ * Arithmetic in GF(p) for the Mersenne prime p = 2^61 - 1, with long values only.
+ *
+ * Since 2^61 = 1 mod p, a value is reduced by adding its high bits to its low 61 bits:
+ *   x mod p = (x &amp; p) + (x &gt;&gt;&gt; 61)     [then subtract p at most once]
+ * A product of two values is 122 bits: Math.multiplyHigh() gives the top 64, and
+ *   (top &lt;&lt; 3) | (low &gt;&gt;&gt; 61) is the part above 2^61.
+ *
+ * Values are longs in [0, p).
+ *
+ * @author tiemens
+ *
+ */
+public final class Mersenne61
+{
+    // ==================================================
+    // class static data
+    // ==================================================
+
+    // 2^61 - 1
+    public static final long P = (1L << 61) - 1;
+
+    public static final BigInteger MODULUS = BigInteger.valueOf(P);
+
+    // ==================================================
+    // class static methods
+    // ==================================================
+
+    /**
+     * @param x any value, including negative
+     * @return x mod p
+     */
+    public static long reduce(final long x)
+    {
+        if (x < 0)
+        {
+            // -x mod p is (p - (-x mod p)), and Long.MIN_VALUE is -(2^63) = -4 mod p:
+            final long positive = (x == Long.MIN_VALUE) ? 4 : reduce(-x);
+            return (positive == 0) ? 0 : P - positive;
+        }
+        final long ret = (x & P) + (x >>> 61);
+        return (ret >= P) ? ret - P : ret;
+    }
+
+    public static long add(final long a,
+                           final long b)
+    {
+        final long ret = a + b;
+        return (ret >= P) ? ret - P : ret;
+    }
+
+    public static long subtract(final long a,
+                                final long b)
+    {
+        final long ret = a - b;
+        return (ret < 0) ? ret + P : ret;
+    }
+
+    public static long multiply(final long a,
+                                final long b)
+    {
+        final long high = Math.multiplyHigh(a, b);
+        final long low = a * b;
+        final long ret = (low & P) + ((high << 3) | (low >>> 61));
+        return (ret >= P) ? ret - P : ret;
+    }
+
+    /**
+     * a^(p - 2), by square and multiply.
+     *
+     * @param a value, 1 .. p-1
+     * @return the multiplicative inverse of a
+     * @throws SecretShareException if a is zero
+     */
+    public static long inverse(final long a)
+    {
+        if (a == 0)
+        {
+            throw new SecretShareException("0 has no inverse mod 2^61-1");
+        }
+        long ret = 1;
+        long square = a;
+        for (long e = P - 2; e != 0; e >>>= 1)
+        {
+            if ((e & 1) != 0)
+            {
+                ret = multiply(ret, square);
+            }
+            square = multiply(square, square);
+        }
+        return ret;
+    }
+
+    /**
+     * The Lagrange basis weights at x=0, mod 2^61-1.
+     *   w[i] = product( x[j] / (x[j] - x[i]) ),  j != i
+     *
+     * @param xs the x values, 1 .. p-1, must be distinct
+     * @return weights, weights[i] goes with xs[i]
+     * @throws SecretShareException if an x is out of range or a duplicate
+     */
+    public static long[] computeWeightsAtZero(final long[] xs)
+    {
+        final int k = xs.length;
+        long[] ret = new long[k];
+        for (int i = 0; i < k; i++)
+        {
+            if ((xs[i] < 1) || (xs[i] >= P))
+            {
+                throw new SecretShareException("x must be 1..2^61-2, was " + xs[i]);
+            }
+            long numerator = 1;
+            long denominator = 1;
+            for (int j = 0; j < k; j++)
+            {
+                if (j != i)
+                {
+                    if (xs[j] == xs[i])
+                    {
+                        throw new SecretShareException("Duplicate x value " + xs[i]);
+                    }
+                    numerator = multiply(numerator, xs[j]);
+                    denominator = multiply(denominator, subtract(xs[j], xs[i]));
+                }
+            }
+            ret[i] = multiply(numerator, inverse(denominator));
+        }
+        return ret;
+    }
+
+    // ==================================================
+    // constructors
+    // ==================================================
+
+    private Mersenne61()
+    {
+        // no instances
+    }
+}
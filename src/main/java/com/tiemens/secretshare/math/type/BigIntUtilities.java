@@ -257,10 +257,23 @@ public final class BigIntUtilities
 
     public static BigInteger createPrimeBigger(BigInteger valueThatDeterminesNumberOfBits,
                                                Random random)
+    {
+        return createPrimeBigger(valueThatDeterminesNumberOfBits, random, new PrimeSearch());
+    }
+
+    /**
+     * @param valueThatDeterminesNumberOfBits the prime has one more bit than this
+     * @param random for the search
+     * @param primeSearch threads, certainty and timeout for the search
+     * @return a probable prime bigger than valueThatDeterminesNumberOfBits
+     */
+    public static BigInteger createPrimeBigger(BigInteger valueThatDeterminesNumberOfBits,
+                                               Random random,
+                                               PrimeSearch primeSearch)
     {
         int numbits = valueThatDeterminesNumberOfBits.bitLength() + 1;
 
-        BigInteger ret = BigInteger.probablePrime(numbits, random);
+        BigInteger ret = primeSearch.probablePrime(numbits, random);
         return ret;
     }
 
@@ -77,12 +77,13 @@ public final class HexByteUtilities
 
     public static String bytesToHexString(byte[] bytes)
     {
-        String ret = "";
+        // StringBuilder: this is used on whole gf256 shares, not just keys
+        StringBuilder ret = new StringBuilder(bytes.length * 2);
         for (byte b : bytes)
         {
-            ret += byteToHexString(b);
+            ret.append(byteToHexString(b));
         }
-        return ret;
+        return ret.toString();
     }
 
 
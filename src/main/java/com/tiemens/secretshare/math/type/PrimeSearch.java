@@ -0,0 +1,343 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2014 Tim Tiemens.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ *
+ * Contributors:
+ *     Tim Tiemens - initial API and implementation
+ *******************************************************************************/
+package com.tiemens.secretshare.math.type;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.tiemens.secretshare.exceptions.SecretShareException;
+
+/**
+ * A replacement for BigInteger.probablePrime() that tests candidates on several threads.
+ *
+ * A window of odd candidates after a random start is sieved with the odd primes below SIEVE_LIMIT
+ *   [which removes about 90% of them], and the workers take the survivors in order and run
+ *   isProbablePrime(certainty) on them.  The answer is the smallest probable prime of the window,
+ *   so for the same Random it is the same no matter how many threads there are.
+ * A window without a prime [rare] is followed by another random start.
+ *
+ * Below MINIMUM_BITS this is BigInteger.probablePrime(), which takes milliseconds there
+ *   [and gives the same values it always has].
+ *
+ * A search can be given a timeout, and cancel() stops the searches that are running;
+ *   either way probablePrime() throws SecretShareException.  A worker only sees the stop between
+ *   candidates, so that can take as long as one test [a few seconds at 16384 bits].
+ *
+ * @author tiemens
+ *
+ */
+public final class PrimeSearch
+{
+    // ==================================================
+    // class static data
+    // ==================================================
+
+    // the certainty of BigInteger.probablePrime(): a composite passes with probability under 2^-100
+    public static final int DEFAULT_CERTAINTY = 100;
+
+    public static final int MINIMUM_BITS = 1024;
+
+    public static final int SIEVE_LIMIT = 1 << 16;
+
+    // the odd primes below SIEVE_LIMIT
+    private static final int[] SIEVE_PRIMES = createSievePrimes(SIEVE_LIMIT);
+
+    // ==================================================
+    // class static methods
+    // ==================================================
+
+    private static int[] createSievePrimes(final int limit)
+    {
+        boolean[] composite = new boolean[limit];
+        List<Integer> primes = new ArrayList<Integer>();
+        for (int i = 3; i < limit; i += 2)
+        {
+            if (! composite[i])
+            {
+                primes.add(i);
+                for (long j = (long) i * i; j < limit; j += 2L * i)
+                {
+                    composite[(int) j] = true;
+                }
+            }
+        }
+        int[] ret = new int[primes.size()];
+        for (int i = 0; i < ret.length; i++)
+        {
+            ret[i] = primes.get(i);
+        }
+        return ret;
+    }
+
+    // ==================================================
+    // instance data
+    // ==================================================
+
+    private final int threads;
+    private final int certainty;
+    // 0 is no timeout
+    private final long timeoutMillis;
+
+    // the stop flags of the searches that are running
+    private final Set<AtomicBoolean> running = new HashSet<AtomicBoolean>();
+
+    // ==================================================
+    // constructors
+    // ==================================================
+
+    /**
+     * One thread per processor, DEFAULT_CERTAINTY, no timeout.
+     */
+    public PrimeSearch()
+    {
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_CERTAINTY, 0);
+    }
+
+    /**
+     * @param inThreads worker threads, at least 1
+     * @param inCertainty for isProbablePrime(), at least 1
+     * @param inTimeoutMillis how long probablePrime() may take, or 0 for no limit
+     */
+    public PrimeSearch(final int inThreads,
+                       final int inCertainty,
+                       final long inTimeoutMillis)
+    {
+        if (inThreads < 1)
+        {
+            throw new SecretShareException("threads must be at least 1, was " + inThreads);
+        }
+        if (inCertainty < 1)
+        {
+            throw new SecretShareException("certainty must be at least 1, was " + inCertainty);
+        }
+        if (inTimeoutMillis < 0)
+        {
+            throw new SecretShareException("timeoutMillis cannot be negative, was " + inTimeoutMillis);
+        }
+        threads = inThreads;
+        certainty = inCertainty;
+        timeoutMillis = inTimeoutMillis;
+    }
+
+    // ==================================================
+    // public methods
+    // ==================================================
+
+    public int getThreads()
+    {
+        return threads;
+    }
+
+    public int getCertainty()
+    {
+        return certainty;
+    }
+
+    public long getTimeoutMillis()
+    {
+        return timeoutMillis;
+    }
+
+    /**
+     * @param bits bit length of the prime, at least 2
+     * @param random for the start of each window
+     * @return a probable prime of exactly bits bits
+     * @throws SecretShareException if the search timed out, was cancelled or was interrupted
+     */
+    public BigInteger probablePrime(final int bits,
+                                    final Random random)
+    {
+        if (bits < 2)
+        {
+            throw new SecretShareException("bits must be at least 2, was " + bits);
+        }
+        if (bits < MINIMUM_BITS)
+        {
+            return BigInteger.probablePrime(bits, random);
+        }
+
+        final long deadline = System.nanoTime() + timeoutMillis * 1000000L;
+        final AtomicBoolean stop = new AtomicBoolean(false);
+        synchronized (running)
+        {
+            running.add(stop);
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try
+        {
+            // one odd number in ln(2^bits) / 2 = 0.35 * bits is prime, so a window has about 6 primes,
+            //   and the chance of none is about e^-6
+            final int window = 2 * bits;
+            BigInteger ret = null;
+            while (ret == null)
+            {
+                final BigInteger start = new BigInteger(bits, random).setBit(bits - 1).setBit(0);
+                ret = searchWindow(start, window, bits, pool, stop, deadline);
+            }
+            return ret;
+        }
+        finally
+        {
+            stop.set(true);
+            pool.shutdownNow();
+            synchronized (running)
+            {
+                running.remove(stop);
+            }
+        }
+    }
+
+    /**
+     * Stop every probablePrime() that is running now; each of them throws SecretShareException.
+     */
+    public void cancel()
+    {
+        synchronized (running)
+        {
+            for (AtomicBoolean stop : running)
+            {
+                stop.set(true);
+            }
+        }
+    }
+
+    // ==================================================
+    // non public methods
+    // ==================================================
+
+    /**
+     * @return the smallest probable prime in start, start + 2, ... start + 2 * (window - 1)
+     *         that has bits bits, or null if there is none
+     */
+    private BigInteger searchWindow(final BigInteger start,
+                                    final int window,
+                                    final int bits,
+                                    final ExecutorService pool,
+                                    final AtomicBoolean stop,
+                                    final long deadline)
+    {
+        // start + 2i is a multiple of q when i = -start / 2 mod q:
+        final boolean[] composite = new boolean[window];
+        for (int q : SIEVE_PRIMES)
+        {
+            final int r = start.mod(BigInteger.valueOf(q)).intValue();
+            final long half = (q + 1) / 2;
+            for (int i = (int) (((q - r) % q) * half % q); i < window; i += q)
+            {
+                composite[i] = true;
+            }
+        }
+        final List<BigInteger> candidates = new ArrayList<BigInteger>();
+        for (int i = 0; i < window; i++)
+        {
+            if (! composite[i])
+            {
+                final BigInteger candidate = start.add(BigInteger.valueOf(2L * i));
+                if (candidate.bitLength() > bits)
+                {
+                    break;
+                }
+                candidates.add(candidate);
+            }
+        }
+
+        final AtomicInteger next = new AtomicInteger(0);
+        final AtomicInteger found = new AtomicInteger(Integer.MAX_VALUE);
+        List<Future<Void>> futures = new ArrayList<Future<Void>>();
+        for (int t = 0; t < threads; t++)
+        {
+            futures.add(pool.submit(new Callable<Void>()
+            {
+                @Override
+                public Void call()
+                {
+                    int index;
+                    while (((index = next.getAndIncrement()) < candidates.size()) &&
+                           (index < found.get()) &&
+                           (! stop.get()))
+                    {
+                        if (candidates.get(index).isProbablePrime(certainty))
+                        {
+                            int previous;
+                            while ((index < (previous = found.get())) && (! found.compareAndSet(previous, index)))
+                            {
+                                // retry
+                            }
+                        }
+                    }
+                    return null;
+                }
+            }));
+        }
+
+        try
+        {
+            for (Future<Void> future : futures)
+            {
+                if (timeoutMillis == 0)
+                {
+                    future.get();
+                }
+                else
+                {
+                    future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                }
+            }
+        }
+        catch (TimeoutException e)
+        {
+            stop.set(true);
+            throw new SecretShareException("Prime search for " + bits + " bits timed out after " +
+                                           timeoutMillis + " milliseconds");
+        }
+        catch (InterruptedException e)
+        {
+            stop.set(true);
+            Thread.currentThread().interrupt();
+            throw new SecretShareException("Interrupted during prime search", e);
+        }
+        catch (ExecutionException e)
+        {
+            if (e.getCause() instanceof RuntimeException)
+            {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new SecretShareException("Prime search failed", e.getCause());
+        }
+
+        // after a stop, the candidates before a found prime may not all have been tested:
+        if (stop.get())
+        {
+            throw new SecretShareException("Prime search for " + bits + " bits was cancelled");
+        }
+        final int index = found.get();
+        return (index != Integer.MAX_VALUE) ? candidates.get(index) : null;
+    }
+}
@@ -0,0 +1,113 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2014 Tim Tiemens.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ *
+ * Contributors:
+ *     Tim Tiemens - initial API and implementation
+ *******************************************************************************/
+package com.tiemens.secretshare.engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.tiemens.secretshare.engine.BlockSecretShare.BlockShareInfo;
+import com.tiemens.secretshare.exceptions.SecretShareException;
+
+public class BlockSecretShareTest
+{
+    // ==================================================
+    // class static data
+    // ==================================================
+
+    // ==================================================
+    // class static methods
+    // ==================================================
+
+    // ==================================================
+    // instance data
+    // ==================================================
+
+    // ==================================================
+    // factories
+    // ==================================================
+
+    // ==================================================
+    // constructors
+    // ==================================================
+
+    // ==================================================
+    // public methods
+    // ==================================================
+
+    @Test
+    public void testBlocksRoundTrip()
+    {
+        // zero blocks in the middle, and a secret that is exactly 2 blocks:
+        BigInteger secret = BigInteger.ONE.shiftLeft(2 * 176).subtract(BigInteger.ONE)
+                .xor(BigInteger.ONE.shiftLeft(176).subtract(BigInteger.ONE));
+        List<BigInteger> blocks = BlockSecretShare.toBlocks(secret, 176);
+        assertEquals(2, blocks.size());
+        assertEquals(BigInteger.ONE, blocks.get(0));
+        assertEquals(secret, BlockSecretShare.fromBlocks(blocks.toArray(new BigInteger[0]), 176));
+    }
+
+    @Test
+    public void testLargeSecret()
+    {
+        // a 20000-bit secret is bigger than the 8192-bit prime:
+        final BigInteger secret = new BigInteger(20000, new Random(15L)).setBit(19999);
+        SecretShare.PublicInfo publicInfo =
+            new SecretShare.PublicInfo(5, 3, SecretShare.getPrimeUsedFor4096bigSecretPayload(), "blocks");
+        BlockSecretShare blockSecretShare = new BlockSecretShare(publicInfo);
+
+        List<BlockShareInfo> shares = blockSecretShare.split(secret, new Random(15L));
+        assertEquals(5, shares.size());
+        assertEquals((20000 + 4016 - 1) / 4016, shares.get(0).getNumberOfBlocks());
+
+        List<BlockShareInfo> use = new ArrayList<BlockShareInfo>();
+        use.add(shares.get(4));
+        use.add(shares.get(0));
+        use.add(shares.get(2));
+        assertEquals(secret, new BlockSecretShare(publicInfo).combine(use));
+
+        try
+        {
+            blockSecretShare.combine(shares.subList(0, 2));
+            fail("two shares should not be enough");
+        }
+        catch (SecretShareException e)
+        {
+            // ok
+        }
+    }
+
+    @Test
+    public void testNeedsBuiltinPrime()
+    {
+        try
+        {
+            new BlockSecretShare(new SecretShare.PublicInfo(5, 3, BigInteger.valueOf(1613), "small"));
+            fail("block mode needs a builtin prime");
+        }
+        catch (SecretShareException e)
+        {
+            // ok
+        }
+    }
+}
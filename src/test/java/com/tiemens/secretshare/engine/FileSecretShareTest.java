@@ -0,0 +1,334 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2014 Tim Tiemens.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ *
+ * Contributors:
+ *     Tim Tiemens - initial API and implementation
+ *******************************************************************************/
+package com.tiemens.secretshare.engine;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.tiemens.secretshare.engine.SecretShare.PublicInfo;
+import com.tiemens.secretshare.exceptions.SecretShareException;
+
+public class FileSecretShareTest
+{
+    // ==================================================
+    // class static data
+    // ==================================================
+
+    // ==================================================
+    // class static methods
+    // ==================================================
+
+    // ==================================================
+    // instance data
+    // ==================================================
+
+    private Path dir;
+
+    // ==================================================
+    // factories
+    // ==================================================
+
+    // ==================================================
+    // constructors
+    // ==================================================
+
+    // ==================================================
+    // public methods
+    // ==================================================
+
+    @BeforeEach
+    public void setUp()
+        throws IOException
+    {
+        dir = Files.createTempDirectory("filesecretshare");
+    }
+
+    @AfterEach
+    public void tearDown()
+    {
+        for (File file : dir.toFile().listFiles())
+        {
+            file.delete();
+        }
+        dir.toFile().delete();
+    }
+
+    @Test
+    public void testSplitCombineManyChunks()
+        throws IOException
+    {
+        // 100 chunks of 1000, and a short last chunk, through 3 workers:
+        final byte[] payload = new byte[100 * 1000 + 17];
+        new Random(5).nextBytes(payload);
+        final Path inFile = Files.write(dir.resolve("payload.bin"), payload);
+
+        FileSecretShare fileSecretShare = new FileSecretShare(3, 1000);
+        List<Path> shareFiles = fileSecretShare.split(inFile, dir, 5, 3, new Random(6));
+        assertEquals(5, shareFiles.size());
+        assertEquals(FileSecretShare.getShareFile(inFile, dir, 5), shareFiles.get(4));
+
+        // any 3 of the 5, in any order, and combine ignores the extras:
+        Path outFile = dir.resolve("out.bin");
+        fileSecretShare.combine(Arrays.asList(shareFiles.get(4), shareFiles.get(0), shareFiles.get(2)), outFile);
+        assertArrayEquals(payload, Files.readAllBytes(outFile));
+
+        new FileSecretShare(1, 64).combine(Arrays.asList(shareFiles.get(1), shareFiles.get(3), shareFiles.get(0),
+                                                         shareFiles.get(2)), outFile);
+        assertArrayEquals(payload, Files.readAllBytes(outFile));
+    }
+
+    @Test
+    public void testRecoverRange()
+        throws IOException
+    {
+        final byte[] payload = new byte[10 * 1000 + 3];
+        new Random(8).nextBytes(payload);
+        final Path inFile = Files.write(dir.resolve("payload.bin"), payload);
+        FileSecretShare fileSecretShare = new FileSecretShare(2, 1000);
+        List<Path> shareFiles = fileSecretShare.split(inFile, dir, 4, 2);
+        List<Path> two = Arrays.asList(shareFiles.get(3), shareFiles.get(1));
+
+        // inside one chunk, across chunk boundaries, the short last chunk, empty, and everything:
+        final long[][] ranges = {{10, 20}, {990, 2020}, {9999, 4}, {500, 0}, {0, payload.length}};
+        for (long[] range : ranges)
+        {
+            final int start = (int) range[0];
+            final int length = (int) range[1];
+            assertArrayEquals(Arrays.copyOfRange(payload, start, start + length),
+                              fileSecretShare.recoverRange(two, start, length));
+        }
+
+        try
+        {
+            fileSecretShare.recoverRange(two, payload.length - 2, 3);
+            fail("range past the end of the file should fail");
+        }
+        catch (SecretShareException e)
+        {
+            assertTrue(e.getMessage().contains("outside"), e.getMessage());
+        }
+    }
+
+    @Test
+    public void testShareFileHeader()
+        throws IOException
+    {
+        final Path inFile = Files.write(dir.resolve("payload.bin"), new byte[2500]);
+        final UUID uuid = UUID.randomUUID();
+        PublicInfo publicInfo = new PublicInfo(3, 2, null, "the description", uuid, 1234567890123L);
+        List<Path> shareFiles = new FileSecretShare(1, 1000).split(inFile, dir, publicInfo, new Random(9));
+
+        ShareFile shareFile = ShareFile.open(shareFiles.get(2));
+        try
+        {
+            assertEquals(3, shareFile.getX());
+            assertEquals(2500, shareFile.getFileLength());
+            assertEquals(3, shareFile.getNumberOfChunks());
+            assertEquals(500, shareFile.getChunkLength(2));
+            assertEquals(shareFile.getChunkOffset(0) + 2000, shareFile.getChunkOffset(2));
+            assertEquals(Files.size(shareFiles.get(2)), shareFile.getChunkOffset(2) + 500);
+
+            PublicInfo read = shareFile.getPublicInfo();
+            assertEquals(3, read.getN());
+            assertEquals(2, read.getK());
+            assertEquals(null, read.getPrimeModulus());
+            assertEquals("the description", read.getDescription());
+            assertEquals(uuid.toString(), read.getUuid());
+            assertEquals(publicInfo.getDate(), read.getDate());
+            assertEquals(1234567890123L, read.getDateMillis());
+        }
+        finally
+        {
+            shareFile.close();
+        }
+
+        // read in another time zone, the date is the same instant:
+        final TimeZone original = TimeZone.getDefault();
+        try
+        {
+            TimeZone.setDefault(TimeZone.getTimeZone((original.getRawOffset() == 0) ? "Asia/Kolkata" : "UTC"));
+            shareFile = ShareFile.open(shareFiles.get(2));
+            try
+            {
+                assertEquals(1234567890123L, shareFile.getPublicInfo().getDateMillis());
+            }
+            finally
+            {
+                shareFile.close();
+            }
+        }
+        finally
+        {
+            TimeZone.setDefault(original);
+        }
+
+        // x is checked at open [it is right after the magic, version and split id]:
+        final byte[] raw = Files.readAllBytes(shareFiles.get(2));
+        ByteBuffer.wrap(raw).putInt(4 + 1 + ShareFile.SPLIT_ID_BYTES, 0);
+        final Path damaged = Files.write(dir.resolve("damaged-x.share"), raw);
+        try
+        {
+            ShareFile.open(damaged).close();
+            fail("x=0 should fail at open");
+        }
+        catch (SecretShareException e)
+        {
+            assertTrue(e.getMessage().contains("damaged header"), e.getMessage());
+        }
+    }
+
+    @Test
+    public void testShareFileRead()
+        throws IOException
+    {
+        final Path inFile = Files.write(dir.resolve("payload.bin"), new byte[2500]);
+        List<Path> shareFiles = new FileSecretShare(1, 1000).split(inFile, dir, 3, 2);
+        final byte[] raw = Files.readAllBytes(shareFiles.get(0));
+
+        long valuesStart;
+        ShareFile shareFile = ShareFile.open(shareFiles.get(0));
+        try
+        {
+            valuesStart = shareFile.getChunkOffset(0);
+            // across chunks 0, 1 and 2:
+            assertArrayEquals(Arrays.copyOfRange(raw, (int) valuesStart + 900, (int) valuesStart + 2100),
+                              shareFile.read(900, 1200));
+            assertArrayEquals(new byte[0], shareFile.read(2500, 0));
+        }
+        finally
+        {
+            shareFile.close();
+        }
+
+        // the last index entry is right before the values; point it past the end [in a copy, the share is mapped]:
+        ByteBuffer.wrap(raw).putLong((int) valuesStart - 8, raw.length);
+        final Path damaged = Files.write(dir.resolve("damaged.share"), raw);
+        try
+        {
+            ShareFile.open(damaged).close();
+            fail("an index outside the values should fail");
+        }
+        catch (SecretShareException e)
+        {
+            assertTrue(e.getMessage().contains("outside the values"), e.getMessage());
+        }
+    }
+
+    @Test
+    public void testQueueIsBoundedByMemory()
+        throws IOException
+    {
+        // n = 255 with 1 MB chunks: one 256 MB result fits the default budget
+        FileSecretShare big = new FileSecretShare(16, FileSecretShare.DEFAULT_CHUNK_SIZE);
+        assertEquals(1, big.getQueueCapacity(256L * FileSecretShare.DEFAULT_CHUNK_SIZE));
+        assertEquals(32, big.getQueueCapacity(4L * FileSecretShare.DEFAULT_CHUNK_SIZE));
+        assertEquals(1, new FileSecretShare(4, 1000, 1).getQueueCapacity(4000));
+
+        // the smallest budget still splits and combines:
+        final byte[] payload = new byte[5500];
+        new Random(5).nextBytes(payload);
+        final Path inFile = Files.write(dir.resolve("payload.bin"), payload);
+        FileSecretShare fileSecretShare = new FileSecretShare(4, 1000, 1);
+        List<Path> shareFiles = fileSecretShare.split(inFile, dir, 5, 3);
+        Path outFile = dir.resolve("out.bin");
+        fileSecretShare.combine(shareFiles.subList(1, 4), outFile);
+        assertArrayEquals(payload, Files.readAllBytes(outFile));
+    }
+
+    @Test
+    public void testEmptyFile()
+        throws IOException
+    {
+        final Path inFile = Files.write(dir.resolve("empty.bin"), new byte[0]);
+        FileSecretShare fileSecretShare = new FileSecretShare(2, 1000);
+        List<Path> shareFiles = fileSecretShare.split(inFile, dir, 2, 2);
+        Path outFile = dir.resolve("out.bin");
+        fileSecretShare.combine(shareFiles, outFile);
+        assertEquals(0, Files.size(outFile));
+    }
+
+    @Test
+    public void testRejectsMixedSplits()
+        throws IOException
+    {
+        final Path first = Files.write(dir.resolve("first.bin"), new byte[] {1, 2, 3, 4, 5});
+        final Path second = Files.write(dir.resolve("second.bin"), new byte[] {1, 2, 3, 4, 5});
+        FileSecretShare fileSecretShare = new FileSecretShare(2, 1000);
+        List<Path> firstShares = fileSecretShare.split(first, dir, 3, 2);
+        List<Path> secondShares = fileSecretShare.split(second, dir, 3, 2);
+        Path outFile = dir.resolve("out.bin");
+        try
+        {
+            fileSecretShare.combine(Arrays.asList(firstShares.get(0), secondShares.get(1)), outFile);
+            fail("share files from two different splits should not combine");
+        }
+        catch (SecretShareException e)
+        {
+            assertTrue(e.getMessage().contains("different split"), e.getMessage());
+        }
+
+        try
+        {
+            fileSecretShare.combine(Arrays.asList(firstShares.get(0)), outFile);
+            fail("1 share file should not be enough for k=2");
+        }
+        catch (SecretShareException e)
+        {
+            assertTrue(e.getMessage().contains("Must have 2"), e.getMessage());
+        }
+    }
+
+    @Test
+    public void testTruncatedShareFile()
+        throws IOException
+    {
+        final byte[] payload = new byte[5000];
+        new Random(7).nextBytes(payload);
+        final Path inFile = Files.write(dir.resolve("payload.bin"), payload);
+        FileSecretShare fileSecretShare = new FileSecretShare(2, 1000);
+        List<Path> shareFiles = fileSecretShare.split(inFile, dir, 3, 2);
+
+        byte[] truncated = Files.readAllBytes(shareFiles.get(1));
+        Files.write(shareFiles.get(1), Arrays.copyOf(truncated, truncated.length - 10));
+        try
+        {
+            fileSecretShare.combine(shareFiles, dir.resolve("out.bin"));
+            fail("a truncated share file should fail");
+        }
+        catch (SecretShareException e)
+        {
+            assertTrue(e.getMessage().contains("should be"), e.getMessage());
+        }
+    }
+}
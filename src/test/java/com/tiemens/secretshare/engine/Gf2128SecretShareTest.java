@@ -0,0 +1,139 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2014 Tim Tiemens.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ *
+ * Contributors:
+ *     Tim Tiemens - initial API and implementation
+ *******************************************************************************/
+package com.tiemens.secretshare.engine;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.tiemens.secretshare.exceptions.SecretShareException;
+import com.tiemens.secretshare.math.field.GF2128;
+
+public class Gf2128SecretShareTest
+{
+    // ==================================================
+    // class static data
+    // ==================================================
+
+    // ==================================================
+    // class static methods
+    // ==================================================
+
+    // ==================================================
+    // instance data
+    // ==================================================
+
+    // ==================================================
+    // factories
+    // ==================================================
+
+    // ==================================================
+    // constructors
+    // ==================================================
+
+    // ==================================================
+    // public methods
+    // ==================================================
+
+    @Test
+    public void testAesKeys()
+    {
+        Random random = new Random(25);
+        for (int keyBytes : new int[] {16, 32})
+        {
+            final byte[] key = new byte[keyBytes];
+            random.nextBytes(key);
+
+            Gf2128SecretShare engine = new Gf2128SecretShare(6, 3);
+            byte[][] shares = engine.split(key, random);
+            assertEquals(6, shares.length);
+            assertEquals(1 + keyBytes, shares[5].length);
+            assertEquals(6, Gf2128SecretShare.getShareX(shares[5]));
+
+            // any 3, in any order:
+            assertArrayEquals(key, engine.combine(Arrays.asList(shares[4], shares[0], shares[2])));
+            assertArrayEquals(key, engine.combine(Arrays.asList(shares[1], shares[5], shares[3], shares[0])));
+
+            // 2 of them, as if k were 2, do not give the key:
+            assertFalse(Arrays.equals(key, new Gf2128SecretShare(6, 2).combine(Arrays.asList(shares[4],
+                                                                                              shares[0]))));
+        }
+    }
+
+    @Test
+    public void testBuffers()
+    {
+        // the allocation-free methods, with weights computed once:
+        Gf2128SecretShare engine = new Gf2128SecretShare(4, 2);
+        final long[] secret = {0x0123456789abcdefL, -2L};
+        long[][] shares = new long[4][2];
+        engine.split(secret, new Random(26), shares);
+
+        final long[] weights = GF2128.computeWeightsAtZero(new int[] {4, 2});
+        long[] out = new long[2];
+        engine.combine(weights, new long[][] {shares[3], shares[1]}, out);
+        assertArrayEquals(secret, out);
+
+        // k=1 shares are the secret:
+        long[][] one = new long[2][2];
+        new Gf2128SecretShare(2, 1).split(secret, new Random(27), one);
+        assertArrayEquals(secret, one[1]);
+    }
+
+    @Test
+    public void testRejects()
+    {
+        Gf2128SecretShare engine = new Gf2128SecretShare(3, 2);
+        try
+        {
+            engine.split(new byte[15]);
+            fail("a key that is not a multiple of 16 bytes should fail");
+        }
+        catch (SecretShareException e)
+        {
+            assertTrue(e.getMessage().contains("multiple of 16"), e.getMessage());
+        }
+
+        byte[][] shares = engine.split(new byte[16]);
+        try
+        {
+            engine.combine(Arrays.asList(shares[1], shares[1]));
+            fail("duplicate shares should fail");
+        }
+        catch (SecretShareException e)
+        {
+            assertTrue(e.getMessage().contains("Duplicate"), e.getMessage());
+        }
+
+        try
+        {
+            new Gf2128SecretShare(256, 2);
+            fail("n=256 should fail");
+        }
+        catch (SecretShareException e)
+        {
+            assertTrue(e.getMessage().contains("255"), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2014 Tim Tiemens.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ *
+ * Contributors:
+ *     Tim Tiemens - initial API and implementation
+ *******************************************************************************/
+package com.tiemens.secretshare.engine;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.tiemens.secretshare.engine.Gf256SecretShare.Gf256ShareInfo;
+import com.tiemens.secretshare.exceptions.SecretShareException;
+
+public class Gf256SecretShareTest
+{
+    // ==================================================
+    // class static data
+    // ==================================================
+
+    // ==================================================
+    // class static methods
+    // ==================================================
+
+    // ==================================================
+    // instance data
+    // ==================================================
+
+    // ==================================================
+    // factories
+    // ==================================================
+
+    // ==================================================
+    // constructors
+    // ==================================================
+
+    // ==================================================
+    // public methods
+    // ==================================================
+
+    @Test
+    public void testSplitCombine()
+    {
+        byte[] secret = new byte[10000];
+        new Random(16L).nextBytes(secret);
+        secret[0] = 0;
+
+        Gf256SecretShare gf256 = new Gf256SecretShare(7, 4);
+        List<Gf256ShareInfo> shares = gf256.split(secret, new Random(16L));
+        assertEquals(7, shares.size());
+        assertEquals(secret.length, shares.get(6).getLength());
+
+        List<Gf256ShareInfo> use = new ArrayList<Gf256ShareInfo>();
+        use.add(shares.get(6));
+        use.add(shares.get(1));
+        use.add(shares.get(3));
+        use.add(shares.get(4));
+        assertArrayEquals(secret, gf256.combine(use));
+
+        // k - 1 shares are not enough:
+        use.remove(0);
+        try
+        {
+            gf256.combine(use);
+            fail("3 shares is not enough");
+        }
+        catch (SecretShareException e)
+        {
+            // ok
+        }
+        assertArrayEquals(secret, new Gf256SecretShare(3, 1).combine(new Gf256SecretShare(3, 1).split(secret)));
+    }
+
+    @Test
+    public void testRejectsOtherK()
+    {
+        byte[] secret = {1, 2, 3};
+        List<Gf256ShareInfo> shares = new Gf256SecretShare(5, 3).split(secret, new Random(16L));
+        try
+        {
+            new Gf256SecretShare(5, 2).combine(shares);
+            fail("k=3 shares should not combine with k=2");
+        }
+        catch (SecretShareException e)
+        {
+            assertTrue(e.getMessage().contains("k=3"), e.getMessage());
+        }
+    }
+
+    @Test
+    public void testShareInfoCopiesData()
+    {
+        byte[] data = {4, 5, 6};
+        Gf256ShareInfo share = new Gf256ShareInfo(1, data, 1);
+        data[0] = 0;
+        assertArrayEquals(new byte[] {4, 5, 6}, share.getData());
+    }
+
+    @Test
+    public void testMaximumN()
+    {
+        byte[] secret = {1, 2, 3};
+        Gf256SecretShare gf256 = new Gf256SecretShare(Gf256SecretShare.MAXIMUM_N, 2);
+        List<Gf256ShareInfo> shares = gf256.split(secret);
+        List<Gf256ShareInfo> use = new ArrayList<Gf256ShareInfo>();
+        use.add(shares.get(254));
+        use.add(shares.get(100));
+        assertArrayEquals(secret, gf256.combine(use));
+
+        try
+        {
+            new Gf256SecretShare(256, 2);
+            fail("n=256 is too big for GF(256)");
+        }
+        catch (SecretShareException e)
+        {
+            // ok
+        }
+    }
+}
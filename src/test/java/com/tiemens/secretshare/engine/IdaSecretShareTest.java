@@ -0,0 +1,195 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2014 Tim Tiemens.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ *
+ * Contributors:
+ *     Tim Tiemens - initial API and implementation
+ *******************************************************************************/
+package com.tiemens.secretshare.engine;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.tiemens.secretshare.exceptions.SecretShareException;
+
+public class IdaSecretShareTest
+{
+    // ==================================================
+    // class static data
+    // ==================================================
+
+    // ==================================================
+    // class static methods
+    // ==================================================
+
+    // ==================================================
+    // instance data
+    // ==================================================
+
+    // ==================================================
+    // factories
+    // ==================================================
+
+    // ==================================================
+    // constructors
+    // ==================================================
+
+    // ==================================================
+    // public methods
+    // ==================================================
+
+    @Test
+    public void testSplitCombine()
+        throws IOException
+    {
+        // more than one chunk, and not a multiple of k:
+        final int k = 3;
+        byte[] payload = new byte[3 * 16 * 1024 * 2 + 1001];
+        new Random(17L).nextBytes(payload);
+        byte[][] shares = split(payload, 5, k);
+
+        // each share is about 1/k of the payload:
+        for (byte[] share : shares)
+        {
+            assertTrue(share.length < payload.length / k + 200, "share length " + share.length);
+        }
+
+        assertArrayEquals(payload, combine(k, shares[4], shares[0], shares[2]));
+        assertArrayEquals(payload, combine(k, shares[1], shares[2], shares[3]));
+
+        // empty and tiny payloads:
+        assertArrayEquals(new byte[0], combine(2, split(new byte[0], 2, 2)));
+        assertArrayEquals(new byte[] {42}, combine(1, split(new byte[] {42}, 1, 1)));
+    }
+
+    @Test
+    public void testDamagedShareFails()
+        throws IOException
+    {
+        byte[] payload = new byte[5000];
+        new Random(17L).nextBytes(payload);
+        byte[][] shares = split(payload, 4, 2);
+        shares[1][shares[1].length - 100] ^= 1;
+        try
+        {
+            combine(2, shares[0], shares[1]);
+            fail("damaged share should fail authentication");
+        }
+        catch (SecretShareException e)
+        {
+            // ok
+        }
+    }
+
+    @Test
+    public void testDamagedChunkIsNotReleased()
+        throws IOException
+    {
+        // chunk 0 is released, chunk 1 is damaged, chunk 2 is never reached:
+        final int k = 2;
+        final int chunkSize = k * 16 * 1024;
+        byte[] payload = new byte[chunkSize * 2 + 500];
+        new Random(17L).nextBytes(payload);
+        byte[][] shares = split(payload, 3, k);
+        shares[0][shares[0].length - 16 * 1024] ^= 1;
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try
+        {
+            new IdaSecretShare(3, k).combine(new InputStream[] {new ByteArrayInputStream(shares[0]),
+                                                                 new ByteArrayInputStream(shares[1])},
+                                             out);
+            fail("damaged chunk should fail authentication");
+        }
+        catch (SecretShareException e)
+        {
+            // ok
+        }
+        assertArrayEquals(Arrays.copyOf(payload, chunkSize), out.toByteArray());
+    }
+
+    @Test
+    public void testTruncatedSharesFail()
+        throws IOException
+    {
+        // 2 full chunks, then an empty last chunk: drop it, and mark chunk 1 as the last one
+        final int k = 2;
+        final int chunkSize = k * 16 * 1024;
+        byte[] payload = new byte[chunkSize * 2];
+        new Random(17L).nextBytes(payload);
+        byte[][] shares = split(payload, 2, k);
+        final int lastRecord = 4 + 1 + (32 + k - 1) / k;
+        final int fullRecord = 4 + 1 + (chunkSize + 32 + k - 1) / k;
+        for (int i = 0; i < shares.length; i++)
+        {
+            shares[i] = Arrays.copyOf(shares[i], shares[i].length - lastRecord);
+            shares[i][shares[i].length - fullRecord + 4] = 1;
+        }
+        try
+        {
+            combine(k, shares);
+            fail("truncated shares should fail authentication");
+        }
+        catch (SecretShareException e)
+        {
+            // ok
+        }
+    }
+
+    // ==================================================
+    // non public methods
+    // ==================================================
+
+    private byte[][] split(byte[] payload,
+                           int n,
+                           int k)
+        throws IOException
+    {
+        ByteArrayOutputStream[] outs = new ByteArrayOutputStream[n];
+        for (int i = 0; i < n; i++)
+        {
+            outs[i] = new ByteArrayOutputStream();
+        }
+        new IdaSecretShare(n, k).split(new ByteArrayInputStream(payload), outs, new Random(17L));
+        byte[][] ret = new byte[n][];
+        for (int i = 0; i < n; i++)
+        {
+            ret[i] = outs[i].toByteArray();
+        }
+        return ret;
+    }
+
+    private byte[] combine(int k,
+                           byte[]... shares)
+        throws IOException
+    {
+        InputStream[] ins = new InputStream[shares.length];
+        for (int i = 0; i < shares.length; i++)
+        {
+            ins[i] = new ByteArrayInputStream(shares[i]);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new IdaSecretShare(shares.length, k).combine(ins, out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,149 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2014 Tim Tiemens.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ *
+ * Contributors:
+ *     Tim Tiemens - initial API and implementation
+ *******************************************************************************/
+package com.tiemens.secretshare.engine;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.tiemens.secretshare.engine.SecretShare.PublicInfo;
+import com.tiemens.secretshare.engine.SecretShare.ShareInfo;
+import com.tiemens.secretshare.exceptions.SecretShareException;
+import com.tiemens.secretshare.math.field.Mersenne61;
+
+public class Mersenne61SecretShareTest
+{
+    // ==================================================
+    // class static data
+    // ==================================================
+
+    // ==================================================
+    // class static methods
+    // ==================================================
+
+    // ==================================================
+    // instance data
+    // ==================================================
+
+    // ==================================================
+    // factories
+    // ==================================================
+
+    // ==================================================
+    // constructors
+    // ==================================================
+
+    // ==================================================
+    // public methods
+    // ==================================================
+
+    @Test
+    public void testSplitCombine()
+    {
+        Random random = new Random(23);
+        final BigInteger secret = new BigInteger(1000, random);
+        final long[] limbs = Mersenne61SecretShare.toLimbs(secret);
+        assertEquals((1000 + 55) / 56, limbs.length);
+        assertEquals(secret, Mersenne61SecretShare.fromLimbs(limbs));
+
+        Mersenne61SecretShare engine = new Mersenne61SecretShare(new PublicInfo(7, 4, Mersenne61.MODULUS, null));
+        long[][] shares = engine.split(limbs, random);
+        assertEquals(7, shares.length);
+
+        // any 4, in any order:
+        final int[] xs = {7, 2, 5, 3};
+        long[][] use = new long[xs.length][];
+        for (int i = 0; i < xs.length; i++)
+        {
+            use[i] = shares[xs[i] - 1];
+        }
+        assertArrayEquals(limbs, engine.combine(xs, use));
+
+        // 3 is not enough to get the secret:
+        Mersenne61SecretShare three = new Mersenne61SecretShare(new PublicInfo(7, 3, Mersenne61.MODULUS, null));
+        assertFalse(Arrays.equals(limbs, three.combine(xs, use)));
+    }
+
+    @Test
+    public void testSameAsSecretShare()
+    {
+        // a 1-limb share is a SecretShare share over 2^61-1:
+        PublicInfo publicInfo = new PublicInfo(5, 3, Mersenne61.MODULUS, null);
+        final long limb = 1234567890123456789L;
+        long[][] shares = new Mersenne61SecretShare(publicInfo).split(new long[] {limb}, new Random(24));
+
+        List<ShareInfo> shareInfos = new ArrayList<ShareInfo>();
+        for (int x = 1; x <= 3; x++)
+        {
+            shareInfos.add(new ShareInfo(x, BigInteger.valueOf(shares[x - 1][0]), publicInfo));
+        }
+        assertEquals(BigInteger.valueOf(limb), new SecretShare(publicInfo).combine(shareInfos).getSecret());
+    }
+
+    @Test
+    public void testLimbs()
+    {
+        assertArrayEquals(new long[] {0}, Mersenne61SecretShare.toLimbs(BigInteger.ZERO));
+        assertEquals(BigInteger.ZERO, Mersenne61SecretShare.fromLimbs(new long[] {0}));
+        final BigInteger twoLimbs = BigInteger.ONE.shiftLeft(56).add(BigInteger.valueOf(9));
+        assertArrayEquals(new long[] {1, 9}, Mersenne61SecretShare.toLimbs(twoLimbs));
+    }
+
+    @Test
+    public void testRejects()
+    {
+        try
+        {
+            new Mersenne61SecretShare(new PublicInfo(3, 2, SecretShare.getPrimeUsedFor384bitSecretPayload(), null));
+            fail("any other modulus should fail");
+        }
+        catch (SecretShareException e)
+        {
+            assertTrue(e.getMessage().contains("2^61-1"), e.getMessage());
+        }
+
+        Mersenne61SecretShare engine = new Mersenne61SecretShare(new PublicInfo(3, 2, Mersenne61.MODULUS, null));
+        try
+        {
+            engine.split(new long[] {Mersenne61.P});
+            fail("a limb of p should fail");
+        }
+        catch (SecretShareException e)
+        {
+            assertTrue(e.getMessage().contains("not in"), e.getMessage());
+        }
+        try
+        {
+            engine.combine(new int[] {1}, new long[][] {{5}});
+            fail("1 share should not be enough for k=2");
+        }
+        catch (SecretShareException e)
+        {
+            assertTrue(e.getMessage().contains("Must have 2"), e.getMessage());
+        }
+    }
+}
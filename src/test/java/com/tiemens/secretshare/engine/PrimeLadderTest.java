@@ -0,0 +1,155 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2014 Tim Tiemens.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ *
+ * Contributors:
+ *     Tim Tiemens - initial API and implementation
+ *******************************************************************************/
+package com.tiemens.secretshare.engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigInteger;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.tiemens.secretshare.exceptions.SecretShareException;
+import com.tiemens.secretshare.math.field.ModularField;
+
+public class PrimeLadderTest
+{
+    // ==================================================
+    // class static data
+    // ==================================================
+
+    // ==================================================
+    // class static methods
+    // ==================================================
+
+    // ==================================================
+    // instance data
+    // ==================================================
+
+    // ==================================================
+    // factories
+    // ==================================================
+
+    // ==================================================
+    // constructors
+    // ==================================================
+
+    // ==================================================
+    // public methods
+    // ==================================================
+
+    @Test
+    public void testLadder()
+    {
+        List<BigInteger> primes = PrimeLadder.getPrimes();
+        assertEquals(128, primes.get(0).bitLength());
+        assertTrue(primes.get(primes.size() - 1).bitLength() > 65536);
+
+        int previousBits = 0;
+        for (BigInteger prime : primes)
+        {
+            final int bits = prime.bitLength();
+            // never more than a quarter octave [or a Mersenne prime] above the one before it:
+            assertTrue((previousBits == 0) || (bits <= previousBits + previousBits / 4) ||
+                       (prime.bitCount() == bits), "gap before " + bits);
+            assertTrue(ModularField.forModulus(prime).isSparse(), bits + " is not sparse");
+            previousBits = bits;
+        }
+        for (int bits = 128; bits <= 16384; bits *= 2)
+        {
+            assertTrue(primes.contains(PrimeLadder.getPrimeForSecret(BigInteger.ONE.shiftLeft(bits - 80))));
+        }
+
+        // the same as SecretShare's 4096 and 8192 sparse primes:
+        assertTrue(primes.contains(SecretShare.getSparsePrimeUsedFor4096bitSecretPayload()));
+        assertTrue(primes.contains(SecretShare.getSparsePrimeUsedFor8192bitSecretPayload()));
+    }
+
+    @Test
+    public void testSmallPrimesAreProbablePrime()
+    {
+        for (BigInteger prime : PrimeLadder.getPrimes())
+        {
+            if (prime.bitLength() <= 1024)
+            {
+                assertTrue(prime.isProbablePrime(20), prime.bitLength() + " bits");
+            }
+        }
+    }
+
+    @Test
+    public void testTightestFit()
+    {
+        List<BigInteger> primes = PrimeLadder.getPrimes();
+        for (int i = 0; i < primes.size(); i++)
+        {
+            final int cutoff = PrimeLadder.getSecretBitsCutoff(primes.get(i).bitLength());
+            final BigInteger biggest = BigInteger.ONE.shiftLeft(cutoff - 1).subtract(BigInteger.ONE);
+            assertEquals(primes.get(i), PrimeLadder.getPrimeForSecret(biggest));
+            if (i + 1 < primes.size())
+            {
+                assertEquals(primes.get(i + 1), PrimeLadder.getPrimeForSecret(biggest.add(BigInteger.ONE)));
+            }
+        }
+        assertEquals(primes.get(0), PrimeLadder.getPrimeForSecret(BigInteger.ZERO));
+        assertEquals(4024, PrimeLadder.getSecretBitsCutoff(4096));
+
+        final int top = primes.get(primes.size() - 1).bitLength();
+        assertNull(PrimeLadder.getPrimeForSecret(BigInteger.ONE.shiftLeft(top)));
+    }
+
+    @Test
+    public void testParse()
+        throws IOException
+    {
+        List<BigInteger> primes = PrimeLadder.parse(new StringReader("# comment\n\n  5 3\n7   1\n"));
+        assertEquals(2, primes.size());
+        assertEquals(BigInteger.valueOf(29), primes.get(0));
+        assertEquals(BigInteger.valueOf(127), primes.get(1));
+
+        checkParseFails("5 3 1\n", "line 1");
+        checkParseFails("5 x\n", "line 1");
+        checkParseFails("# c\n7 1\n5 3\n", "line 3");
+        checkParseFails("9 4\n", "line 1");
+        checkParseFails("9 -1\n", "line 1");
+        checkParseFails("9 255\n", "line 1");
+    }
+
+    // ==================================================
+    // non public methods
+    // ==================================================
+
+    private void checkParseFails(String text,
+                                 String expected)
+        throws IOException
+    {
+        try
+        {
+            PrimeLadder.parse(new StringReader(text));
+            fail("should fail: " + text);
+        }
+        catch (SecretShareException e)
+        {
+            assertTrue(e.getMessage().contains(expected), e.getMessage());
+        }
+    }
+}
@@ -17,12 +17,15 @@
 package com.tiemens.secretshare.engine;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
 
 import java.math.BigInteger;
 
 import org.junit.jupiter.api.Test;
 
 import com.tiemens.secretshare.engine.SecretShare.ParanoidInput;
+import com.tiemens.secretshare.engine.SecretShare.ParanoidMode;
+import com.tiemens.secretshare.exceptions.SecretShareException;
 
 public class SecretShareParanoidInputTest
 {
@@ -66,6 +69,52 @@ public class SecretShareParanoidInputTest
         validate("maxCombinationsAllowedToTest=50,stopCombiningWhenAnyCount=3,limitPrint=22", 50, 3, 22);
     }
 
+    @Test
+    public void testMode()
+    {
+        assertEquals(ParanoidMode.EXHAUSTIVE, ParanoidInput.createAll().getMode());
+        assertEquals(ParanoidMode.CONSISTENCY, ParanoidInput.parseForCombine("paranoid", "5").getMode());
+        assertEquals(ParanoidMode.EXHAUSTIVE,
+                     ParanoidInput.parseForCombine("paranoid", "5,mode=exhaustive").getMode());
+        validate("mode=Exhaustive,50,limitPrint=22", 50, null, 22);
+
+        assertEquals(ParanoidMode.CONSISTENCY, ParanoidInput.parseForSplit("paranoid", "all").getMode());
+        ParanoidInput split = ParanoidInput.parseForSplit("paranoid", "20,mode=exhaustive");
+        assertEquals(ParanoidMode.EXHAUSTIVE, split.getMode());
+        assertEquals(BigInteger.valueOf(20), split.getMaximumCombinationsToTest());
+    }
+
+    @Test
+    public void testThreads()
+    {
+        assertEquals(1, ParanoidInput.createAll().getThreads());
+        assertEquals(8, ParanoidInput.parseForCombine("paranoid", "threads=8").getThreads());
+        assertEquals(3, ParanoidInput.parseForSplit("paranoid", "20,threads=3").getThreads());
+        assertEquals(Runtime.getRuntime().availableProcessors(),
+                     ParanoidInput.parseForCombine("paranoid", "threads=0").getThreads());
+        validate("50,threads=2,limitPrint=22", 50, null, 22);
+    }
+
+    @Test
+    public void testConfidence()
+    {
+        assertEquals(ParanoidInput.DEFAULT_SAMPLING_CONFIDENCE, ParanoidInput.createAll().getConfidence());
+        ParanoidInput combine = ParanoidInput.parseForCombine("paranoid", "mode=sampling,confidence=0.95");
+        assertEquals(ParanoidMode.SAMPLING, combine.getMode());
+        assertEquals(0.95, combine.getConfidence());
+        assertEquals(0.9, ParanoidInput.parseForSplit("paranoid", "all,mode=sampling,confidence=0.9").getConfidence());
+
+        try
+        {
+            ParanoidInput.parseForCombine("paranoid", "confidence=1.0");
+            fail("confidence must be less than 1");
+        }
+        catch (SecretShareException e)
+        {
+            // ok
+        }
+    }
+
     // ==================================================
     // non public methods
     // ==================================================
@@ -25,14 +25,20 @@ import static org.junit.jupiter.api.Assertions.fail;
 import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
 
 import org.junit.jupiter.api.Test;
 
 import com.tiemens.secretshare.engine.SecretShare.ShareInfo;
 import com.tiemens.secretshare.exceptions.SecretShareException;
 import com.tiemens.secretshare.math.equation.EasyLinearEquationTest;
+import com.tiemens.secretshare.math.equation.LagrangeWeightCache;
 import com.tiemens.secretshare.math.type.BigIntStringChecksum;
 
 public class SecretShareTest
@@ -73,6 +79,46 @@ public class SecretShareTest
         assertNotNull(p);
     }
 
+    @Test
+    public void testSparseModulusIsOptIn()
+    {
+        final BigInteger secret450 = BigInteger.ONE.shiftLeft(450);
+        // the default is unchanged:
+        assertEquals(SecretShare.getPrimeUsedFor4096bigSecretPayload(),
+                     SecretShare.createAppropriateModulusForSecret(secret450));
+        assertEquals(SecretShare.getSparsePrimeUsedFor521bitSecretPayload(),
+                     SecretShare.createAppropriateModulusForSecret(secret450, true));
+        assertEquals(SecretShare.getSparsePrimeUsedFor192bitSecretPayload(),
+                     SecretShare.createAppropriateModulusForSecret(BigInteger.TEN, true));
+        assertEquals(SecretShare.getSparsePrimeUsedFor8192bitSecretPayload(),
+                     SecretShare.createAppropriateModulusForSecret(BigInteger.ONE.shiftLeft(5000), true));
+
+        final BigInteger modulus = SecretShare.createAppropriateModulusForSecret(secret450, true);
+        SecretShare secretShare = new SecretShare(new SecretShare.PublicInfo(5, 3, modulus, "sparse"));
+        List<ShareInfo> shares = secretShare.split(secret450.add(BigInteger.TEN), new Random(23)).getShareInfos();
+        assertEquals(secret450.add(BigInteger.TEN), secretShare.combine(shares.subList(2, 5)).getSecret());
+    }
+
+    @Test
+    public void testLadderModulusIsTightestFit()
+    {
+        final BigInteger secret450 = BigInteger.ONE.shiftLeft(450);
+        assertEquals(BigInteger.ONE.shiftLeft(512).subtract(BigInteger.valueOf(569)),
+                     SecretShare.createLadderModulusForSecret(secret450));
+        assertEquals(BigInteger.ONE.shiftLeft(128).subtract(BigInteger.valueOf(159)),
+                     SecretShare.createLadderModulusForSecret(BigInteger.TEN));
+        assertEquals(SecretShare.getSparsePrimeUsedFor4096bitSecretPayload(),
+                     SecretShare.createLadderModulusForSecret(BigInteger.ONE.shiftLeft(4000)));
+        assertEquals(5120, SecretShare.createLadderModulusForSecret(BigInteger.ONE.shiftLeft(5000)).bitLength());
+
+        // past 8120 bits, no mode searches for a random prime:
+        final BigInteger secret10000 = BigInteger.ONE.shiftLeft(10000);
+        assertEquals(SecretShare.createLadderModulusForSecret(secret10000),
+                     SecretShare.createAppropriateModulusForSecret(secret10000));
+        assertEquals(SecretShare.createLadderModulusForSecret(secret10000),
+                     SecretShare.createAppropriateModulusForSecret(secret10000, true));
+    }
+
     @Test
     public void testFirst()
     {
@@ -101,6 +147,489 @@ public class SecretShareTest
     }
 
 
+    @Test
+    public void testLagrangeMatchesSimplex()
+    {
+        final int n = 8;
+        final int k = 5;
+        final BigInteger prime = SecretShare.getPrimeUsedFor384bitSecretPayload();
+        final BigInteger secret = new BigInteger("3124312432451234512341234123412341234");
+        SecretShare.PublicInfo publicInfo = new SecretShare.PublicInfo(n, k, prime, "lagrange vs simplex");
+        SecretShare.SplitSecretOutput generate = new SecretShare(publicInfo).split(secret, new Random(4321L));
+
+        List<SecretShare.ShareInfo> shares = new ArrayList<SecretShare.ShareInfo>(generate.getShareInfos());
+        // use a non-sorted subset:
+        List<SecretShare.ShareInfo> usetheseshares = Arrays.asList(shares.get(6), shares.get(1), shares.get(3),
+                                                                   shares.get(7), shares.get(2));
+
+        SecretShare lagrange = new SecretShare(publicInfo);
+        assertEquals(SecretShare.CombineAlgorithm.LAGRANGE, lagrange.getCombineAlgorithm());
+        SecretShare simplex = new SecretShare(publicInfo);
+        simplex.setCombineAlgorithm(SecretShare.CombineAlgorithm.SIMPLEX);
+
+        assertEquals(secret, lagrange.combine(usetheseshares).getSecret());
+        assertEquals(secret, simplex.combine(usetheseshares).getSecret());
+
+        // a corrupt share must give the same (wrong) answer both ways:
+        List<SecretShare.ShareInfo> corrupt = new ArrayList<SecretShare.ShareInfo>(usetheseshares);
+        corrupt.set(2, new SecretShare.ShareInfo(corrupt.get(2).getX(), BigInteger.valueOf(12345L), publicInfo));
+        assertEquals(simplex.combine(corrupt).getSecret(), lagrange.combine(corrupt).getSecret());
+    }
+
+    @Test
+    public void testRepeatCombineUsesWeightCache()
+    {
+        final BigInteger prime = SecretShare.getPrimeUsedFor192bitSecretPayload();
+        SecretShare.PublicInfo publicInfo = new SecretShare.PublicInfo(5, 3, prime, "weight cache");
+        LagrangeWeightCache cache = new LagrangeWeightCache(8);
+        Random random = new Random(99L);
+
+        for (int i = 1; i <= 4; i++)
+        {
+            final BigInteger secret = BigInteger.valueOf(1000L * i + 7);
+            SecretShare splitter = new SecretShare(publicInfo);
+            List<SecretShare.ShareInfo> shares = splitter.split(secret, random).getShareInfos();
+
+            SecretShare combiner = new SecretShare(publicInfo);
+            combiner.setLagrangeWeightCache(cache);
+            // same holders every time, in a different order:
+            List<SecretShare.ShareInfo> usetheseshares = (i % 2 == 0) ?
+                    Arrays.asList(shares.get(1), shares.get(3), shares.get(4)) :
+                    Arrays.asList(shares.get(4), shares.get(1), shares.get(3));
+            assertEquals(secret, combiner.combine(usetheseshares).getSecret());
+        }
+        assertEquals(1, cache.getMissCount());
+        assertEquals(3, cache.getHitCount());
+    }
+
+    @Test
+    public void testParanoidConsistencyFindsCorruptShare()
+    {
+        final int n = 7;
+        final int k = 3;
+        final BigInteger prime = SecretShare.getPrimeUsedFor192bitSecretPayload();
+        final BigInteger secret = BigInteger.valueOf(2016L);
+        SecretShare.PublicInfo publicInfo = new SecretShare.PublicInfo(n, k, prime, "consistency");
+        SecretShare secretShare = new SecretShare(publicInfo);
+        List<SecretShare.ShareInfo> shares =
+                new ArrayList<SecretShare.ShareInfo>(secretShare.split(secret, new Random(7L)).getShareInfos());
+
+        SecretShare.ParanoidInput consistency = SecretShare.ParanoidInput.createAll();
+        consistency.setMode(SecretShare.ParanoidMode.CONSISTENCY);
+
+        SecretShare.ParanoidOutput good = secretShare.combineParanoid(shares, consistency);
+        assertEquals(secret, good.getAgreedAnswer());
+        assertEquals(BigInteger.ONE, good.getCount());
+        assertEquals(Arrays.asList(1, 2, 3), good.getConsistencyBaseIndexes());
+        assertEquals(n - k, good.getConsistencyCheckedCount());
+        assertTrue(good.getInconsistentShareIndexes().isEmpty());
+
+        // corrupt x=6:
+        shares.set(5, new SecretShare.ShareInfo(6, BigInteger.valueOf(123456L), publicInfo));
+        SecretShare.ParanoidOutput bad = secretShare.performParanoidCombines(shares, consistency);
+        assertEquals(Arrays.asList(6), bad.getInconsistentShareIndexes());
+        assertEquals(null, bad.getAgreedAnswer());
+
+        // same verdict as exhaustive:
+        SecretShare.ParanoidOutput exhaustive =
+                secretShare.performParanoidCombines(shares, SecretShare.ParanoidInput.createAll());
+        assertEquals(null, exhaustive.getAgreedAnswer());
+        assertFalse(exhaustive.isConsistencyChecked());
+
+        try
+        {
+            secretShare.combineParanoid(shares, consistency);
+            fail("should have thrown on the corrupt share");
+        }
+        catch (SecretShareException e)
+        {
+            assertTrue(e.getMessage().contains("[6]"), e.getMessage());
+        }
+
+        // a bad share in the base [x=2] does not make the good ones look bad:
+        shares.set(1, new SecretShare.ShareInfo(2, BigInteger.valueOf(654321L), publicInfo));
+        SecretShare.ParanoidOutput badBase = secretShare.performParanoidCombines(shares, consistency);
+        assertEquals(Arrays.asList(1, 2, 3), badBase.getConsistencyBaseIndexes());
+        assertEquals(Arrays.asList(2, 6), badBase.getInconsistentShareIndexes());
+        assertEquals(Arrays.asList(2, 6), secretShare.combineWithErrorCorrection(shares).getRejectedShareIndexes());
+    }
+
+    @Test
+    public void testParallelParanoidMatchesSequential()
+    {
+        final int n = 9;
+        final int k = 3;
+        final BigInteger prime = SecretShare.getPrimeUsedFor192bitSecretPayload();
+        SecretShare.PublicInfo publicInfo = new SecretShare.PublicInfo(n, k, prime, "parallel");
+        SecretShare secretShare = new SecretShare(publicInfo);
+        List<SecretShare.ShareInfo> shares =
+                new ArrayList<SecretShare.ShareInfo>(secretShare.split(BigInteger.valueOf(77L),
+                                                                       new Random(9L)).getShareInfos());
+        // corrupt x=4, so that there is more than one answer:
+        shares.set(3, new SecretShare.ShareInfo(4, BigInteger.valueOf(31337L), publicInfo));
+
+        for (BigInteger max : Arrays.asList(null, BigInteger.valueOf(50)))
+        {
+            SecretShare.ParanoidInput sequential = SecretShare.ParanoidInput.create(max);
+            SecretShare.ParanoidInput parallel = SecretShare.ParanoidInput.create(max);
+            parallel.setThreads(4);
+
+            SecretShare.ParanoidOutput expected = secretShare.performParanoidCombines(shares, sequential);
+            SecretShare.ParanoidOutput actual = secretShare.performParanoidCombines(shares, parallel);
+
+            assertEquals(expected.getCount(), actual.getCount());
+            assertEquals(expected.getReconstructedMap(), actual.getReconstructedMap());
+            assertEquals(expected.getParanoidCompleteOutput(), actual.getParanoidCompleteOutput());
+        }
+    }
+
+    @Test
+    public void testParallelParanoidStopCombiningWhenAnyCount()
+    {
+        final int n = 10;
+        final int k = 3;
+        final int stopWhen = 7;
+        final BigInteger prime = SecretShare.getPrimeUsedFor192bitSecretPayload();
+        SecretShare.PublicInfo publicInfo = new SecretShare.PublicInfo(n, k, prime, "parallel");
+        SecretShare secretShare = new SecretShare(publicInfo);
+        List<SecretShare.ShareInfo> shares =
+                secretShare.split(BigInteger.valueOf(4321L), new Random(10L)).getShareInfos();
+
+        SecretShare.ParanoidInput parallel =
+                SecretShare.ParanoidInput.parseForCombine("paranoid",
+                                                          "mode=exhaustive,threads=4," +
+                                                          "stopCombiningWhenAnyCount=" + stopWhen);
+        SecretShare.ParanoidOutput output = secretShare.performParanoidCombines(shares, parallel);
+
+        assertEquals(1, output.getReconstructedMap().size());
+        assertEquals(Integer.valueOf(stopWhen), output.getReconstructedMap().get(BigInteger.valueOf(4321L)));
+        assertEquals(BigInteger.valueOf(stopWhen), output.getCount());
+
+        // with a bad share there are many answers; the stop still means the winner was counted stopWhen times,
+        //   and the count is every combine that was counted, whatever the thread timing:
+        List<SecretShare.ShareInfo> withBad = new ArrayList<SecretShare.ShareInfo>(shares);
+        withBad.set(0, new SecretShare.ShareInfo(1, BigInteger.valueOf(555L), publicInfo));
+        for (int run = 0; run < 20; run++)
+        {
+            SecretShare.ParanoidOutput racy = secretShare.performParanoidCombines(withBad, parallel);
+            int total = 0;
+            for (Integer times : racy.getReconstructedMap().values())
+            {
+                assertTrue(times <= stopWhen, "counted more than stopWhen: " + times);
+                total += times;
+            }
+            assertEquals(Integer.valueOf(stopWhen), racy.getReconstructedMap().get(BigInteger.valueOf(4321L)));
+            assertEquals(BigInteger.valueOf(total), racy.getCount());
+        }
+    }
+
+    @Test
+    public void testParanoidSampling()
+    {
+        final int n = 30;
+        final int k = 5;
+        final BigInteger prime = SecretShare.getPrimeUsedFor192bitSecretPayload();
+        final BigInteger secret = BigInteger.valueOf(90210L);
+        SecretShare.PublicInfo publicInfo = new SecretShare.PublicInfo(n, k, prime, "sampling");
+        SecretShare secretShare = new SecretShare(publicInfo);
+        List<SecretShare.ShareInfo> shares =
+                new ArrayList<SecretShare.ShareInfo>(secretShare.split(secret, new Random(30L)).getShareInfos());
+
+        SecretShare.ParanoidInput sampling =
+                SecretShare.ParanoidInput.parseForCombine("paranoid", "mode=sampling,confidence=0.999");
+        sampling.setRandom(new Random(5L));
+
+        // 30 * (25/30)^m <= 0.001  at m = 57, out of 142506
+        assertEquals(BigInteger.valueOf(57), SecretShare.computeSamplesForConfidence(n, k, 0.999));
+
+        SecretShare.ParanoidOutput good = secretShare.performParanoidCombines(shares, sampling);
+        assertEquals(secret, good.getAgreedAnswer());
+        assertEquals(BigInteger.valueOf(57), good.getCount());
+        assertTrue(good.getSamplingConfidence() >= 0.999);
+        assertEquals(n, good.getShareCoverage().size());
+        int sum = 0;
+        for (Integer coverage : good.getShareCoverage().values())
+        {
+            sum += coverage;
+        }
+        assertEquals(57 * k, sum);
+
+        // corrupt x=17:
+        shares.set(16, new SecretShare.ShareInfo(17, BigInteger.valueOf(17L), publicInfo));
+        sampling.setRandom(new Random(5L));
+        SecretShare.ParanoidOutput bad = secretShare.performParanoidCombines(shares, sampling);
+        assertEquals(null, bad.getAgreedAnswer());
+        assertEquals(good.getShareCoverage().get(17).intValue(), bad.getReconstructedMap().size() - 1,
+                     "every subset with x=17 gives its own wrong secret");
+    }
+
+    @Test
+    public void testParanoidSamplingSmallTotalDrawsEverySubsetOnce()
+    {
+        SecretShare.PublicInfo publicInfo =
+                new SecretShare.PublicInfo(5, 3, SecretShare.getPrimeUsedFor192bitSecretPayload(), "sampling");
+        SecretShare secretShare = new SecretShare(publicInfo);
+        List<SecretShare.ShareInfo> shares =
+                secretShare.split(BigInteger.valueOf(55L), new Random(55L)).getShareInfos();
+
+        SecretShare.ParanoidInput sampling = SecretShare.ParanoidInput.createAll();
+        sampling.setMode(SecretShare.ParanoidMode.SAMPLING);
+        sampling.setRandom(new Random(3L));
+
+        SecretShare.ParanoidOutput output = secretShare.performParanoidCombines(shares, sampling);
+        assertEquals(BigInteger.TEN, output.getCount());
+        assertEquals(1.0, output.getSamplingConfidence());
+        for (Integer coverage : output.getShareCoverage().values())
+        {
+            // each share is in C(4,2) = 6 of the 10 subsets
+            assertEquals(Integer.valueOf(6), coverage);
+        }
+    }
+
+    @Test
+    public void testCombineWithErrorCorrection()
+    {
+        final int n = 9;
+        final int k = 3;
+        final BigInteger secret = BigInteger.valueOf(8675309L);
+        SecretShare.PublicInfo publicInfo =
+                new SecretShare.PublicInfo(n, k, SecretShare.getPrimeUsedFor384bitSecretPayload(), "errorCorrect");
+        SecretShare secretShare = new SecretShare(publicInfo);
+        List<SecretShare.ShareInfo> shares =
+                new ArrayList<SecretShare.ShareInfo>(secretShare.split(secret, new Random(9L)).getShareInfos());
+
+        SecretShare.CorrectedCombineOutput clean = secretShare.combineWithErrorCorrection(shares);
+        assertEquals(secret, clean.getSecret());
+        assertTrue(clean.getRejectedShareIndexes().isEmpty());
+        assertEquals(3, clean.getMaximumCorrectableErrors());
+
+        // corrupt x=2, x=5 and x=9:
+        shares.set(1, new SecretShare.ShareInfo(2, BigInteger.valueOf(2L), publicInfo));
+        shares.set(4, new SecretShare.ShareInfo(5, shares.get(4).getShare().add(BigInteger.ONE), publicInfo));
+        shares.set(8, new SecretShare.ShareInfo(9, BigInteger.valueOf(99L), publicInfo));
+        SecretShare.CorrectedCombineOutput corrected = secretShare.combineWithErrorCorrection(shares);
+        assertEquals(secret, corrected.getSecret());
+        assertEquals(Arrays.asList(2, 5, 9), corrected.getRejectedShareIndexes());
+
+        // and one more is too many:
+        shares.set(0, new SecretShare.ShareInfo(1, BigInteger.valueOf(11L), publicInfo));
+        try
+        {
+            secretShare.combineWithErrorCorrection(shares);
+            fail("4 bad shares out of 9 cannot be corrected with k=3");
+        }
+        catch (SecretShareException e)
+        {
+            // ok
+        }
+    }
+
+    @Test
+    public void testLargeSplitUsesConsecutiveEvaluation()
+    {
+        final int n = 300;
+        final int k = 7;
+        assertTrue(SecretShare.useConsecutiveEvaluation(n, k));
+        assertFalse(SecretShare.useConsecutiveEvaluation(6, 3));
+        assertFalse(SecretShare.useConsecutiveEvaluation(20, 11));
+
+        final BigInteger prime = SecretShare.getPrimeUsedFor384bitSecretPayload();
+        SecretShare.PublicInfo publicInfo = new SecretShare.PublicInfo(n, k, prime, "consecutive");
+        SecretShare.SplitSecretOutput output =
+                new SecretShare(publicInfo).split(BigInteger.valueOf(31415926L), new Random(300L));
+
+        List<SecretShare.ShareInfo> shares = output.getShareInfos();
+        assertEquals(n, shares.size());
+
+        // every share is on the polynomial through the first k:
+        SecretShare.ParanoidInput consistency = SecretShare.ParanoidInput.createAll();
+        consistency.setMode(SecretShare.ParanoidMode.CONSISTENCY);
+        SecretShare.ParanoidOutput checked = new SecretShare(publicInfo).combineParanoid(shares, consistency);
+        assertEquals(BigInteger.valueOf(31415926L), checked.getAgreedAnswer());
+        assertEquals(n - k, checked.getConsistencyCheckedCount());
+        assertTrue(checked.getInconsistentShareIndexes().isEmpty());
+    }
+
+    @Test
+    public void testParallelSplitMatchesSequential()
+    {
+        final BigInteger prime = SecretShare.getPrimeUsedFor384bitSecretPayload();
+        final BigInteger secret = BigInteger.valueOf(27182818L);
+        // n=301 does not divide evenly; k=5 gives differences on some ranges, Horner on others:
+        for (int[] nk : new int[][] {{301, 5}, {7, 3}, {40, 30}})
+        {
+            SecretShare.PublicInfo publicInfo = new SecretShare.PublicInfo(nk[0], nk[1], prime, "parallel");
+            List<ShareInfo> sequential =
+                    new SecretShare(publicInfo).split(secret, new Random(11L)).getShareInfos();
+
+            for (int threads : new int[] {2, 3, 8, 0})
+            {
+                SecretShare parallel = new SecretShare(publicInfo);
+                parallel.setSplitThreads(threads);
+                assertEquals(sequential, parallel.split(secret, new Random(11L)).getShareInfos(),
+                             "n=" + nk[0] + " k=" + nk[1] + " threads=" + threads);
+            }
+
+            ExecutorService executor = Executors.newFixedThreadPool(3);
+            try
+            {
+                SecretShare parallel = new SecretShare(publicInfo);
+                parallel.setSplitExecutor(executor);
+                assertEquals(sequential, parallel.split(secret, new Random(11L)).getShareInfos());
+            }
+            finally
+            {
+                executor.shutdown();
+            }
+        }
+
+        try
+        {
+            new SecretShare(new SecretShare.PublicInfo(6, 3, prime, "bad")).setSplitThreads(-1);
+            fail("negative split threads should throw");
+        }
+        catch (SecretShareException e)
+        {
+            // ok
+        }
+    }
+
+    @Test
+    public void testStreamingSplitMatchesSplit()
+    {
+        final BigInteger prime = SecretShare.getPrimeUsedFor384bitSecretPayload();
+        final BigInteger secret = BigInteger.valueOf(16180339L);
+        SecretShare.PublicInfo publicInfo = new SecretShare.PublicInfo(50, 4, prime, "streaming");
+        SecretShare secretShare = new SecretShare(publicInfo);
+        List<ShareInfo> expected = secretShare.split(secret, new Random(12L)).getShareInfos();
+
+        final List<ShareInfo> sunk = new ArrayList<ShareInfo>();
+        secretShare.split(secret, new Random(12L), new Consumer<ShareInfo>()
+        {
+            @Override
+            public void accept(ShareInfo share)
+            {
+                sunk.add(share);
+            }
+        });
+        assertEquals(expected, sunk);
+
+        List<ShareInfo> iterated = new ArrayList<ShareInfo>();
+        Iterator<ShareInfo> iterator = secretShare.splitIterator(secret, new Random(12L));
+        while (iterator.hasNext())
+        {
+            iterated.add(iterator.next());
+        }
+        assertEquals(expected, iterated);
+        try
+        {
+            iterator.next();
+            fail("iterator should be exhausted");
+        }
+        catch (NoSuchElementException e)
+        {
+            // ok
+        }
+
+        // a sink that fails stops the split:
+        final List<ShareInfo> partial = new ArrayList<ShareInfo>();
+        try
+        {
+            secretShare.split(secret, new Random(12L), new Consumer<ShareInfo>()
+            {
+                @Override
+                public void accept(ShareInfo share)
+                {
+                    partial.add(share);
+                    if (partial.size() == 3)
+                    {
+                        throw new SecretShareException("destination full");
+                    }
+                }
+            });
+            fail("sink exception should propagate");
+        }
+        catch (SecretShareException e)
+        {
+            assertEquals(expected.subList(0, 3), partial);
+        }
+    }
+
+    @Test
+    public void testSplitAllMatchesSplit()
+    {
+        final BigInteger prime = SecretShare.getPrimeUsedFor384bitSecretPayload();
+        SecretShare.PublicInfo publicInfo = new SecretShare.PublicInfo(5, 3, prime, "bulk");
+        SecretShare secretShare = new SecretShare(publicInfo);
+        List<BigInteger> secrets = Arrays.asList(BigInteger.valueOf(101L),
+                                                 BigInteger.valueOf(202L),
+                                                 new BigInteger("123456789012345678901234567890"));
+
+        SecretShare.BulkSplitOutput bulk = secretShare.splitAll(secrets, new Random(13L));
+        assertEquals(secrets.size(), bulk.getNumberOfSecrets());
+
+        Random random = new Random(13L);
+        for (int i = 0; i < secrets.size(); i++)
+        {
+            List<ShareInfo> expected = secretShare.split(secrets.get(i), random).getShareInfos();
+            assertEquals(expected, bulk.getShareInfos(i));
+            assertEquals(expected.get(1).getShare(), bulk.getShare(i, 2));
+            assertEquals(secrets.get(i), secretShare.combine(bulk.getShareInfos(i)).getSecret());
+        }
+
+        // the default random source works too:
+        SecretShare.BulkSplitOutput secure = secretShare.splitAll(secrets);
+        for (int i = 0; i < secrets.size(); i++)
+        {
+            assertEquals(secrets.get(i), secretShare.combine(secure.getShareInfos(i)).getSecret());
+        }
+    }
+
+    @Test
+    public void testCombineAll()
+    {
+        final BigInteger prime = SecretShare.getPrimeUsedFor384bitSecretPayload();
+        SecretShare.PublicInfo publicInfo = new SecretShare.PublicInfo(6, 3, prime, "combineAll");
+        SecretShare secretShare = new SecretShare(publicInfo);
+        List<BigInteger> secrets = new ArrayList<BigInteger>();
+        for (int i = 1; i <= 25; i++)
+        {
+            secrets.add(BigInteger.valueOf(1000L * i + 7));
+        }
+        SecretShare.BulkSplitOutput bulk = secretShare.splitAll(secrets, new Random(14L));
+
+        // the same custodians, x = 5, 2, 6:
+        final int[] custodians = {5, 2, 6};
+        BigInteger[] xs = new BigInteger[custodians.length];
+        BigInteger[][] shares = new BigInteger[secrets.size()][custodians.length];
+        for (int c = 0; c < custodians.length; c++)
+        {
+            xs[c] = BigInteger.valueOf(custodians[c]);
+            for (int s = 0; s < secrets.size(); s++)
+            {
+                shares[s][c] = bulk.getShare(s, custodians[c]);
+            }
+        }
+
+        for (int threads : new int[] {1, 4})
+        {
+            assertEquals(secrets, Arrays.asList(secretShare.combineAll(xs, shares, threads)), "threads=" + threads);
+        }
+
+        secretShare.setCombineAlgorithm(SecretShare.CombineAlgorithm.SIMPLEX);
+        assertEquals(secrets.subList(0, 3), Arrays.asList(secretShare.combineAll(xs, Arrays.copyOf(shares, 3))));
+
+        try
+        {
+            secretShare.combineAll(Arrays.copyOf(xs, 2), shares);
+            fail("too few x values should throw");
+        }
+        catch (SecretShareException e)
+        {
+            // ok
+        }
+    }
+
     private void subtestDuplicateSharesReconstruction(List<SecretShare.ShareInfo> shares)
     {
         // pick the first share's public info:
@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2014 Tim Tiemens.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ *
+ * Contributors:
+ *     Tim Tiemens - initial API and implementation
+ *******************************************************************************/
+package com.tiemens.secretshare.main.cli;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import com.tiemens.secretshare.BuildVersion;
+
+/**
+ * "split -inFile -outDir" to "combine -inFile -outFile", and a range with "-offset -length".
+ *
+ * @author tiemens
+ *
+ */
+public class MainFileTest
+{
+
+    @BeforeAll
+    public static void setUpBeforeClass()
+            throws Exception
+    {
+        BuildVersion.disableFailureInLoad();
+    }
+
+    @Test
+    public void testSplitCombineFile()
+        throws IOException
+    {
+        Path dir = Files.createTempDirectory("mainfile");
+        try
+        {
+            final byte[] payload = new byte[3 * 1024 * 1024 + 5];
+            new Random(3).nextBytes(payload);
+            Path inFile = Files.write(dir.resolve("payload.bin"), payload);
+
+            ByteArrayOutputStream splitBytes = new ByteArrayOutputStream();
+            Main.main(new String[] {"split", "-k", "2", "-n", "3", "-inFile", inFile.toString(),
+                                    "-outDir", dir.toString(), "-threads", "2"},
+                      new ByteArrayInputStream(new byte[0]), new PrintStream(splitBytes), false);
+            final String splitOutput = splitBytes.toString();
+            assertTrue(splitOutput.contains("mode = gf256 file"), splitOutput);
+            assertTrue(splitOutput.contains("Share (x:3) file = "), splitOutput);
+
+            Path outFile = dir.resolve("out.bin");
+            ByteArrayOutputStream combineBytes = new ByteArrayOutputStream();
+            Main.main(new String[] {"combine", "-inFile", dir.resolve("payload.bin.share3").toString(),
+                                    "-inFile", dir.resolve("payload.bin.share1").toString(),
+                                    "-outFile", outFile.toString()},
+                      new ByteArrayInputStream(new byte[0]), new PrintStream(combineBytes), false);
+            assertTrue(combineBytes.toString().contains("outFile = " + outFile), combineBytes.toString());
+            assertArrayEquals(payload, Files.readAllBytes(outFile));
+
+            // and just a range, across a chunk boundary:
+            combineBytes.reset();
+            Main.main(new String[] {"combine", "-inFile", dir.resolve("payload.bin.share2").toString(),
+                                    "-inFile", dir.resolve("payload.bin.share1").toString(),
+                                    "-outFile", outFile.toString(), "-offset", "1048000", "-length", "1000"},
+                      new ByteArrayInputStream(new byte[0]), new PrintStream(combineBytes), false);
+            assertTrue(combineBytes.toString().contains("outFile = " + outFile), combineBytes.toString());
+            assertArrayEquals(Arrays.copyOfRange(payload, 1048000, 1049000), Files.readAllBytes(outFile));
+        }
+        finally
+        {
+            for (File file : dir.toFile().listFiles())
+            {
+                file.delete();
+            }
+            dir.toFile().delete();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2014 Tim Tiemens.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ *
+ * Contributors:
+ *     Tim Tiemens - initial API and implementation
+ *******************************************************************************/
+package com.tiemens.secretshare.main.cli;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import com.tiemens.secretshare.BuildVersion;
+
+/**
+ * "split -gf256" piped to "combine -stdin".
+ *
+ * @author tiemens
+ *
+ */
+public class MainGf256Test
+{
+
+    @BeforeAll
+    public static void setUpBeforeClass()
+            throws Exception
+    {
+        BuildVersion.disableFailureInLoad();
+    }
+
+    @Test
+    public void testSplitPipeCombine()
+    {
+        // longer than the 384-bit default prime would allow:
+        final String secret = "The Cat In The Hat Comes Back, and brings Little Cats A through Z";
+        ByteArrayOutputStream splitBytes = new ByteArrayOutputStream();
+        Main.main(new String[] {"split", "-k", "3", "-n", "5", "-gf256", "-sS", secret},
+                  new ByteArrayInputStream(new byte[0]), new PrintStream(splitBytes), false);
+        final String splitOutput = splitBytes.toString();
+        assertTrue(splitOutput.contains("mode = gf256"), splitOutput);
+        assertTrue(splitOutput.contains("Share (x:5) = gf256:"), splitOutput);
+
+        ByteArrayOutputStream combineBytes = new ByteArrayOutputStream();
+        Main.main(new String[] {"combine", "-stdin"},
+                  new ByteArrayInputStream(splitBytes.toByteArray()), new PrintStream(combineBytes), false);
+        final String combineOutput = combineBytes.toString();
+        assertTrue(combineOutput.contains("secret.string = '" + secret + "'"), combineOutput);
+
+        // and from the command line, with only k shares:
+        String[] lines = splitOutput.split("\\r?\\n");
+        String[] args = new String[3 * 2 + 3];
+        int i = 0;
+        args[i++] = "combine";
+        args[i++] = "-k";
+        args[i++] = "3";
+        for (String line : lines)
+        {
+            if (line.startsWith("Share (x:2)") || line.startsWith("Share (x:4)") || line.startsWith("Share (x:5)"))
+            {
+                args[i++] = "-s" + line.substring("Share (x:".length(), line.indexOf(')'));
+                args[i++] = line.substring(line.indexOf('=') + 1).trim();
+            }
+        }
+        assertEquals(args.length, i);
+        combineBytes.reset();
+        Main.main(args, new ByteArrayInputStream(new byte[0]), new PrintStream(combineBytes), false);
+        assertTrue(combineBytes.toString().contains("secret.string = '" + secret + "'"), combineBytes.toString());
+    }
+}
@@ -0,0 +1,65 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2014 Tim Tiemens.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ *
+ * Contributors:
+ *     Tim Tiemens - initial API and implementation
+ *******************************************************************************/
+package com.tiemens.secretshare.main.cli;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import com.tiemens.secretshare.BuildVersion;
+
+/**
+ * "split -mersenne61" piped to "combine -stdin".
+ *
+ * @author tiemens
+ *
+ */
+public class MainMersenne61Test
+{
+
+    @BeforeAll
+    public static void setUpBeforeClass()
+            throws Exception
+    {
+        BuildVersion.disableFailureInLoad();
+    }
+
+    @Test
+    public void testSplitPipeCombine()
+    {
+        // 3 limbs, bigger than 2^61-1:
+        final String secret = "Twenty one bytes long";
+        ByteArrayOutputStream splitBytes = new ByteArrayOutputStream();
+        Main.main(new String[] {"split", "-k", "3", "-n", "5", "-mersenne61", "-sS", secret},
+                  new ByteArrayInputStream(new byte[0]), new PrintStream(splitBytes), false);
+        final String splitOutput = splitBytes.toString();
+        assertTrue(splitOutput.contains("mode = mersenne61"), splitOutput);
+        assertTrue(splitOutput.contains("modulus = 2305843009213693951"), splitOutput);
+        assertTrue(splitOutput.matches("(?s).*Share \\(x:5\\) = m61:[0-9a-f]{48}\\r?\\n.*"), splitOutput);
+
+        ByteArrayOutputStream combineBytes = new ByteArrayOutputStream();
+        Main.main(new String[] {"combine", "-stdin"},
+                  new ByteArrayInputStream(splitBytes.toByteArray()), new PrintStream(combineBytes), false);
+        final String combineOutput = combineBytes.toString();
+        assertTrue(combineOutput.contains("secret.string = '" + secret + "'"), combineOutput);
+    }
+}
@@ -0,0 +1,135 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2014 Tim Tiemens.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ *
+ * Contributors:
+ *     Tim Tiemens - initial API and implementation
+ *******************************************************************************/
+package com.tiemens.secretshare.math.combination;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.tiemens.secretshare.exceptions.SecretShareException;
+
+
+public class CombinationCursorTest
+{
+    // ==================================================
+    // class static data
+    // ==================================================
+
+    // ==================================================
+    // class static methods
+    // ==================================================
+
+    // ==================================================
+    // instance data
+    // ==================================================
+
+    // ==================================================
+    // factories
+    // ==================================================
+
+    // ==================================================
+    // constructors
+    // ==================================================
+
+    // ==================================================
+    // public methods
+    // ==================================================
+
+    @Test
+    public void testSameAsGenerator()
+    {
+        List<Integer> list = new ArrayList<Integer>();
+        for (int i = 0; i < 8; i++)
+        {
+            list.add(i);
+        }
+        CombinationGenerator<Integer> combos = new CombinationGenerator<Integer>(list, 3);
+        CombinationCursor cursor = new CombinationCursor(8, 3);
+        assertEquals(combos.getTotalNumberOfCombinations(), cursor.getTotalNumberOfCombinations());
+        assertEquals(0, cursor.getCurrentCombinationNumber());
+
+        int[] first = null;
+        while (combos.hasNext())
+        {
+            combos.next();
+            assertTrue(cursor.advance());
+            if (first == null)
+            {
+                first = cursor.getIndexes();
+            }
+            assertSame(first, cursor.getIndexes(), "indexes should be reused");
+            assertEquals(combos.getIndexesAsString(), cursor.getIndexesAsString());
+            assertEquals(combos.getCurrentCombinationNumber().longValue(), cursor.getCurrentCombinationNumber());
+        }
+        assertFalse(cursor.advance());
+        assertFalse(cursor.advance());
+    }
+
+    @Test
+    public void testMoveToCombinationNumber()
+    {
+        CombinationCursor cursor = new CombinationCursor(7, 4);
+        cursor.moveToCombinationNumber(BigInteger.valueOf(20));
+        assertEquals(20, cursor.getCurrentCombinationNumber());
+        assertTrue(cursor.advance());
+        assertEquals(21, cursor.getCurrentCombinationNumber());
+        assertEquals(BigInteger.valueOf(20), CombinationGenerator.rank(7, cursor.getIndexes()));
+
+        int more = 0;
+        while (cursor.advance())
+        {
+            more++;
+        }
+        assertEquals(35 - 21, more);
+    }
+
+    @Test
+    public void testBeyondLong()
+    {
+        // C(100, 50) is about 1.0e29
+        CombinationCursor cursor = new CombinationCursor(100, 50);
+        BigInteger start = BigInteger.valueOf(Long.MAX_VALUE).subtract(BigInteger.ONE);
+        cursor.moveToCombinationNumber(start);
+        assertTrue(cursor.advance());
+        assertEquals(Long.MAX_VALUE, cursor.getCurrentCombinationNumber());
+        assertTrue(cursor.advance());
+        assertEquals(start.add(BigInteger.valueOf(2)), cursor.getCurrentCombinationNumberAsBigInteger());
+        assertEquals(start.add(BigInteger.ONE), CombinationGenerator.rank(100, cursor.getIndexes()));
+        try
+        {
+            cursor.getCurrentCombinationNumber();
+            fail("combination number does not fit in a long");
+        }
+        catch (SecretShareException e)
+        {
+            // ok
+        }
+    }
+
+    // ==================================================
+    // non public methods
+    // ==================================================
+
+}
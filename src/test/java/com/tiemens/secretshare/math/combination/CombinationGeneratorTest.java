@@ -0,0 +1,196 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2014 Tim Tiemens.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ *
+ * Contributors:
+ *     Tim Tiemens - initial API and implementation
+ *******************************************************************************/
+package com.tiemens.secretshare.math.combination;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import org.junit.jupiter.api.Test;
+
+
+public class CombinationGeneratorTest
+{
+    // ==================================================
+    // class static data
+    // ==================================================
+
+    // ==================================================
+    // class static methods
+    // ==================================================
+
+    // ==================================================
+    // instance data
+    // ==================================================
+
+    // ==================================================
+    // factories
+    // ==================================================
+
+    // ==================================================
+    // constructors
+    // ==================================================
+
+    // ==================================================
+    // public methods
+    // ==================================================
+
+    @Test
+    public void testRankAndUnrankMatchIteration()
+    {
+        subtestRankAndUnrank(1, 1);
+        subtestRankAndUnrank(5, 1);
+        subtestRankAndUnrank(5, 3);
+        subtestRankAndUnrank(5, 5);
+        subtestRankAndUnrank(9, 4);
+        subtestRankAndUnrank(12, 2);
+    }
+
+    @Test
+    public void testUnrankLarge()
+    {
+        // C(200, 100) is far bigger than Long.MAX_VALUE
+        final int n = 200;
+        final int k = 100;
+        BigInteger total = CombinationGenerator.binomial(n, k);
+
+        int[] last = CombinationGenerator.unrank(n, k, total.subtract(BigInteger.ONE));
+        assertEquals(100, last[0]);
+        assertEquals(199, last[k - 1]);
+
+        BigInteger middle = total.shiftRight(1);
+        assertEquals(middle, CombinationGenerator.rank(n, CombinationGenerator.unrank(n, k, middle)));
+    }
+
+    @Test
+    public void testMoveToCombinationNumber()
+    {
+        List<String> list = Arrays.asList("a", "b", "c", "d", "e", "f");
+        CombinationGenerator<String> all = new CombinationGenerator<String>(list, 3);
+        List<List<String>> expected = new ArrayList<List<String>>();
+        for (List<String> combination : all)
+        {
+            expected.add(combination);
+        }
+
+        CombinationGenerator<String> resumed = new CombinationGenerator<String>(list, 3);
+        resumed.moveToCombinationNumber(BigInteger.valueOf(7));
+        assertEquals(BigInteger.valueOf(7), resumed.getCurrentCombinationNumber());
+        int i = 7;
+        for (List<String> combination : resumed)
+        {
+            assertEquals(expected.get(i), combination);
+            i++;
+            assertEquals(BigInteger.valueOf(i), resumed.getCurrentCombinationNumber());
+        }
+        assertEquals(expected.size(), i);
+
+        resumed.moveToCombinationNumber(resumed.getTotalNumberOfCombinations());
+        assertFalse(resumed.hasNext());
+    }
+
+    @Test
+    public void testSpliteratorSplitsInHalf()
+    {
+        Spliterator<int[]> second = CombinationGenerator.indexSpliterator(10, 4);
+        assertEquals(210, second.estimateSize());
+
+        Spliterator<int[]> first = second.trySplit();
+        assertNotNull(first);
+        assertEquals(105, first.estimateSize());
+        assertEquals(105, second.estimateSize());
+
+        final List<int[]> seen = new ArrayList<int[]>();
+        Consumer<int[]> collect = new Consumer<int[]>()
+        {
+            @Override
+            public void accept(int[] t)
+            {
+                seen.add(t);
+            }
+        };
+        first.forEachRemaining(collect);
+        second.forEachRemaining(collect);
+
+        assertEquals(210, seen.size());
+        for (int i = 0; i < seen.size(); i++)
+        {
+            assertArrayEquals(CombinationGenerator.unrank(10, 4, BigInteger.valueOf(i)), seen.get(i));
+        }
+    }
+
+    @Test
+    public void testParallelStream()
+    {
+        List<String> expected = new ArrayList<String>();
+        CombinationGenerator<Integer> combos = new CombinationGenerator<Integer>(range(11), 5);
+        while (combos.hasNext())
+        {
+            combos.next();
+            expected.add(combos.getIndexesAsString());
+        }
+
+        List<String> actual = StreamSupport.stream(CombinationGenerator.indexSpliterator(11, 5), true)
+                .map(Arrays::toString)
+                .collect(Collectors.toList());
+        assertEquals(expected, actual);
+    }
+
+    // ==================================================
+    // non public methods
+    // ==================================================
+
+    private void subtestRankAndUnrank(int n, int k)
+    {
+        CombinationGenerator<Integer> combos = new CombinationGenerator<Integer>(range(n), k);
+        assertEquals(CombinationGenerator.binomial(n, k), combos.getTotalNumberOfCombinations());
+
+        BigInteger rank = BigInteger.ZERO;
+        for (List<Integer> combination : combos)
+        {
+            int[] indexes = new int[k];
+            for (int i = 0; i < k; i++)
+            {
+                indexes[i] = combination.get(i);
+            }
+            assertArrayEquals(indexes, CombinationGenerator.unrank(n, k, rank), "n=" + n + " k=" + k);
+            assertEquals(rank, CombinationGenerator.rank(n, indexes));
+            rank = rank.add(BigInteger.ONE);
+        }
+        assertEquals(combos.getTotalNumberOfCombinations(), rank);
+    }
+
+    private List<Integer> range(int n)
+    {
+        List<Integer> ret = new ArrayList<Integer>();
+        for (int i = 0; i < n; i++)
+        {
+            ret.add(i);
+        }
+        return ret;
+    }
+}
@@ -0,0 +1,134 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2014 Tim Tiemens.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ *
+ * Contributors:
+ *     Tim Tiemens - initial API and implementation
+ *******************************************************************************/
+package com.tiemens.secretshare.math.equation;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+
+public class BerlekampWelchDecoderTest
+{
+    // ==================================================
+    // class static data
+    // ==================================================
+
+    // ==================================================
+    // class static methods
+    // ==================================================
+
+    // ==================================================
+    // instance data
+    // ==================================================
+
+    // ==================================================
+    // factories
+    // ==================================================
+
+    // ==================================================
+    // constructors
+    // ==================================================
+
+    // ==================================================
+    // public methods
+    // ==================================================
+
+    @Test
+    public void testNoErrors()
+    {
+        final BigInteger modulus = BigInteger.valueOf(1613);
+        BigInteger[] expected = bigs(1234, 166, 94);
+        BigInteger[] xs = bigs(1, 2, 3, 4, 5, 6);
+        BigInteger[] ys = evaluate(expected, xs, modulus);
+
+        assertArrayEquals(expected, BerlekampWelchDecoder.decode(xs, ys, 3, modulus));
+    }
+
+    @Test
+    public void testCorrectsUpToMaximum()
+    {
+        final BigInteger modulus = BigInteger.valueOf(16639793);
+        BigInteger[] expected = bigs(4444, 12, 99, 7);
+        BigInteger[] xs = bigs(1, 2, 3, 4, 5, 6, 7, 8, 9, 10);
+        BigInteger[] ys = evaluate(expected, xs, modulus);
+        assertEquals(3, BerlekampWelchDecoder.maximumCorrectableErrors(xs.length, 4));
+
+        // one bad:
+        ys[4] = BigInteger.valueOf(12345);
+        assertArrayEquals(expected, BerlekampWelchDecoder.decode(xs, ys, 4, modulus));
+
+        // three bad:
+        ys[0] = BigInteger.ZERO;
+        ys[9] = ys[9].add(BigInteger.ONE);
+        assertArrayEquals(expected, BerlekampWelchDecoder.decode(xs, ys, 4, modulus));
+    }
+
+    @Test
+    public void testTooManyErrors()
+    {
+        final BigInteger modulus = BigInteger.valueOf(16639793);
+        BigInteger[] expected = bigs(4444, 12, 99);
+        BigInteger[] xs = bigs(1, 2, 3, 4, 5);
+        BigInteger[] ys = evaluate(expected, xs, modulus);
+        ys[1] = BigInteger.valueOf(17);
+        ys[3] = BigInteger.valueOf(19);
+
+        // (5 - 3) / 2 = 1 correctable, 2 are bad:
+        BigInteger[] actual = BerlekampWelchDecoder.decode(xs, ys, 3, modulus);
+        if (actual != null)
+        {
+            // decoding may "succeed" to a different polynomial, but never to the original
+            assertFalse(Arrays.equals(expected, actual));
+        }
+
+        // with no redundancy, nothing can be corrected, and the 2 points cannot fit a line:
+        assertNull(BerlekampWelchDecoder.decode(bigs(1, 2, 3), bigs(5, 7, 10), 2, modulus));
+    }
+
+    // ==================================================
+    // non public methods
+    // ==================================================
+
+    private BigInteger[] evaluate(BigInteger[] coefficients,
+                                  BigInteger[] xs,
+                                  BigInteger modulus)
+    {
+        PolyEquationImpl poly = new PolyEquationImpl(coefficients);
+        BigInteger[] ret = new BigInteger[xs.length];
+        for (int i = 0; i < xs.length; i++)
+        {
+            ret[i] = poly.calculateFofX(xs[i]).mod(modulus);
+        }
+        return ret;
+    }
+
+    private BigInteger[] bigs(int... values)
+    {
+        BigInteger[] ret = new BigInteger[values.length];
+        for (int i = 0; i < values.length; i++)
+        {
+            ret[i] = BigInteger.valueOf(values[i]);
+        }
+        return ret;
+    }
+}
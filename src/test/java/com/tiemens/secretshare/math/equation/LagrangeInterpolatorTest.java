@@ -0,0 +1,150 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2014 Tim Tiemens.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ *
+ * Contributors:
+ *     Tim Tiemens - initial API and implementation
+ *******************************************************************************/
+package com.tiemens.secretshare.math.equation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.math.BigInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.tiemens.secretshare.exceptions.SecretShareException;
+
+
+public class LagrangeInterpolatorTest
+{
+    // ==================================================
+    // class static data
+    // ==================================================
+
+    // ==================================================
+    // class static methods
+    // ==================================================
+
+    // ==================================================
+    // instance data
+    // ==================================================
+
+    // ==================================================
+    // factories
+    // ==================================================
+
+    // ==================================================
+    // constructors
+    // ==================================================
+
+    // ==================================================
+    // public methods
+    // ==================================================
+
+    @Test
+    public void testSmallPrime()
+    {
+        // f(x) = 1234 + 166*x + 94*x^2   mod 1613   [Applied Cryptography example]
+        final BigInteger modulus = BigInteger.valueOf(1613);
+        PolyEquationImpl poly = PolyEquationImpl.create(1234, 166, 94);
+
+        subtest(poly, modulus, BigInteger.valueOf(1234), 1, 2, 3);
+        subtest(poly, modulus, BigInteger.valueOf(1234), 5, 3, 1);
+        subtest(poly, modulus, BigInteger.valueOf(1234), 2, 4, 6);
+    }
+
+    @Test
+    public void testWeightsDoNotDependOnShares()
+    {
+        final BigInteger modulus = BigInteger.valueOf(16639793);
+        BigInteger[] xs = bigs(1, 2, 3);
+        BigInteger[] weights = LagrangeInterpolator.computeWeightsAtZero(xs, modulus);
+
+        // for x = 1, 2, 3   the weights at zero are 3, -3, 1
+        assertEquals(BigInteger.valueOf(3), weights[0]);
+        assertEquals(modulus.subtract(BigInteger.valueOf(3)), weights[1]);
+        assertEquals(BigInteger.ONE, weights[2]);
+
+        PolyEquationImpl poly = PolyEquationImpl.create(4444, 12, 99);
+        BigInteger[] ys = evaluate(poly, xs, modulus);
+        assertEquals(BigInteger.valueOf(4444), LagrangeInterpolator.combineWeights(weights, ys, modulus));
+    }
+
+    @Test
+    public void testDuplicateX()
+    {
+        try
+        {
+            LagrangeInterpolator.computeWeightsAtZero(bigs(1, 2, 1), BigInteger.valueOf(1613));
+            fail("duplicate x values should throw");
+        }
+        catch (SecretShareException e)
+        {
+            // ok
+        }
+    }
+
+    @Test
+    public void testNonPrimeModulusHasNoInverse()
+    {
+        // 57 = 3 * 19, and (4 - 1) = 3 has no inverse mod 57
+        try
+        {
+            LagrangeInterpolator.computeWeightsAtZero(bigs(1, 4), BigInteger.valueOf(57));
+            fail("3 has no inverse modulo 57");
+        }
+        catch (ArithmeticException e)
+        {
+            // ok
+        }
+    }
+
+    // ==================================================
+    // non public methods
+    // ==================================================
+
+    private void subtest(PolyEquationImpl poly,
+                         BigInteger modulus,
+                         BigInteger expected,
+                         int... x)
+    {
+        BigInteger[] xs = bigs(x);
+        BigInteger[] ys = evaluate(poly, xs, modulus);
+
+        BigInteger actual = LagrangeInterpolator.interpolateAtZero(xs, ys, modulus);
+        assertEquals(expected, actual, "modulus=" + modulus);
+    }
+
+    private BigInteger[] evaluate(PolyEquationImpl poly,
+                                  BigInteger[] xs,
+                                  BigInteger modulus)
+    {
+        BigInteger[] ret = new BigInteger[xs.length];
+        for (int i = 0; i < xs.length; i++)
+        {
+            ret[i] = poly.calculateFofX(xs[i]).mod(modulus);
+        }
+        return ret;
+    }
+
+    private BigInteger[] bigs(int... values)
+    {
+        BigInteger[] ret = new BigInteger[values.length];
+        for (int i = 0; i < values.length; i++)
+        {
+            ret[i] = BigInteger.valueOf(values[i]);
+        }
+        return ret;
+    }
+}
@@ -0,0 +1,108 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2014 Tim Tiemens.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ *
+ * Contributors:
+ *     Tim Tiemens - initial API and implementation
+ *******************************************************************************/
+package com.tiemens.secretshare.math.equation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+import java.math.BigInteger;
+
+import org.junit.jupiter.api.Test;
+
+
+public class LagrangeWeightCacheTest
+{
+    // ==================================================
+    // class static data
+    // ==================================================
+
+    private static final BigInteger MODULUS = BigInteger.valueOf(16639793);
+
+    // ==================================================
+    // public methods
+    // ==================================================
+
+    @Test
+    public void testHitAndMiss()
+    {
+        LagrangeWeightCache cache = new LagrangeWeightCache(4);
+        BigInteger[] xs = bigs(1, 2, 3);
+
+        BigInteger[] first = cache.getWeightsAtZero(xs, MODULUS);
+        assertEquals(0, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+
+        BigInteger[] second = cache.getWeightsAtZero(xs, MODULUS);
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertArrayEquals(first, second);
+        assertArrayEquals(LagrangeInterpolator.computeWeightsAtZero(xs, MODULUS), second);
+
+        // different modulus is a different key:
+        cache.getWeightsAtZero(xs, BigInteger.valueOf(1613));
+        assertEquals(2, cache.getMissCount());
+        assertEquals(2, cache.size());
+
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getHitCount());
+        assertEquals(0, cache.getMissCount());
+    }
+
+    @Test
+    public void testOrderDoesNotMatter()
+    {
+        LagrangeWeightCache cache = new LagrangeWeightCache(4);
+        cache.getWeightsAtZero(bigs(1, 2, 5), MODULUS);
+
+        BigInteger[] xs = bigs(5, 1, 2);
+        BigInteger[] actual = cache.getWeightsAtZero(xs, MODULUS);
+        assertEquals(1, cache.getHitCount());
+        assertArrayEquals(LagrangeInterpolator.computeWeightsAtZero(xs, MODULUS), actual);
+    }
+
+    @Test
+    public void testLeastRecentlyUsedIsEvicted()
+    {
+        LagrangeWeightCache cache = new LagrangeWeightCache(2);
+        cache.getWeightsAtZero(bigs(1, 2), MODULUS);
+        cache.getWeightsAtZero(bigs(1, 3), MODULUS);
+        // touch (1,2), so (1,3) is the eldest:
+        cache.getWeightsAtZero(bigs(1, 2), MODULUS);
+        cache.getWeightsAtZero(bigs(1, 4), MODULUS);
+        assertEquals(2, cache.size());
+
+        cache.getWeightsAtZero(bigs(1, 2), MODULUS);
+        assertEquals(2, cache.getHitCount());
+        cache.getWeightsAtZero(bigs(1, 3), MODULUS);
+        assertEquals(4, cache.getMissCount());
+    }
+
+    // ==================================================
+    // non public methods
+    // ==================================================
+
+    private BigInteger[] bigs(int... values)
+    {
+        BigInteger[] ret = new BigInteger[values.length];
+        for (int i = 0; i < values.length; i++)
+        {
+            ret[i] = BigInteger.valueOf(values[i]);
+        }
+        return ret;
+    }
+}
@@ -64,6 +64,47 @@ public class PolyEquationImplTest
 
     }
 
+    @Test
+    public void testModular()
+    {
+        final BigInteger modulus = BigInteger.valueOf(1613);
+        PolyEquationImpl poly = PolyEquationImpl.create(1234, 166, 94);
+        for (int x = 0; x < 3000; x += 37)
+        {
+            BigInteger bigx = BigInteger.valueOf(x);
+            assertEquals(poly.calculateFofX(bigx).mod(modulus), poly.calculateFofX(bigx, modulus), "x=" + x);
+        }
+        assertEquals(poly.calculateFofX(BigInteger.TEN), poly.calculateFofX(BigInteger.TEN, null));
+
+        // negative coefficient and x still land in [0, modulus):
+        PolyEquationImpl negative = PolyEquationImpl.create(-5, 3);
+        assertEquals(BigInteger.valueOf(1613 - 5 - 3), negative.calculateFofX(BigInteger.valueOf(-1), modulus));
+    }
+
+    @Test
+    public void testConsecutive()
+    {
+        final BigInteger modulus = BigInteger.valueOf(16639793);
+        PolyEquationImpl poly = PolyEquationImpl.create(4444, -12, 99, 7, 1000001);
+        for (BigInteger m : new BigInteger[] {modulus, null})
+        {
+            for (int count : new int[] {0, 1, 3, 5, 6, 200})
+            {
+                BigInteger[] actual = poly.calculateFofXConsecutive(-3, count, m);
+                assertEquals(count, actual.length);
+                for (int i = 0; i < count; i++)
+                {
+                    BigInteger x = BigInteger.valueOf(-3 + i);
+                    assertEquals(poly.calculateFofX(x, m), actual[i], "x=" + x + " m=" + m);
+                }
+            }
+        }
+
+        // constant polynomial:
+        BigInteger[] constant = PolyEquationImpl.create(42).calculateFofXConsecutive(1, 10, modulus);
+        assertEquals(BigInteger.valueOf(42), constant[9]);
+    }
+
     // ==================================================
     // non public methods
     // ==================================================
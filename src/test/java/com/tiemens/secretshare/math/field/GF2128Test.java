@@ -0,0 +1,180 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2014 Tim Tiemens.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ *
+ * Contributors:
+ *     Tim Tiemens - initial API and implementation
+ *******************************************************************************/
+package com.tiemens.secretshare.math.field;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.tiemens.secretshare.exceptions.SecretShareException;
+
+public class GF2128Test
+{
+    // ==================================================
+    // class static data
+    // ==================================================
+
+    // ==================================================
+    // class static methods
+    // ==================================================
+
+    // ==================================================
+    // instance data
+    // ==================================================
+
+    // ==================================================
+    // factories
+    // ==================================================
+
+    // ==================================================
+    // constructors
+    // ==================================================
+
+    // ==================================================
+    // public methods
+    // ==================================================
+
+    @Test
+    public void testMatchesSchoolbook()
+    {
+        Random random = new Random(22);
+        long[] result = new long[2];
+        for (int i = 0; i < 500; i++)
+        {
+            final long aHigh = random.nextLong();
+            final long aLow = (i == 0) ? 1 : random.nextLong();
+            final long bHigh = (i == 1) ? -1 : random.nextLong();
+            final long bLow = (i == 1) ? -1 : random.nextLong();
+            GF2128.multiply(aHigh, aLow, bHigh, bLow, result, 0);
+            final BigInteger expected = schoolbook(toBig(aHigh, aLow), toBig(bHigh, bLow));
+            assertEquals(expected, toBig(result[0], result[1]), "i=" + i);
+
+            // multiplyAndAdd adds to what is there:
+            GF2128.multiplyAndAdd(aHigh, aLow, bHigh, bLow, result, 0);
+            assertArrayEquals(new long[] {0, 0}, result);
+
+            GF2128.square(aHigh, aLow, result, 0);
+            assertEquals(schoolbook(toBig(aHigh, aLow), toBig(aHigh, aLow)), toBig(result[0], result[1]), "i=" + i);
+
+            final int small = (i == 2) ? -1 : random.nextInt();
+            GF2128.multiplyByInt(aHigh, aLow, small, result, 0);
+            final BigInteger smallExpected = schoolbook(toBig(aHigh, aLow), toBig(0, small & 0xFFFFFFFFL));
+            assertEquals(smallExpected, toBig(result[0], result[1]), "i=" + i);
+        }
+    }
+
+    @Test
+    public void testInverse()
+    {
+        Random random = new Random(23);
+        long[] inverse = new long[2];
+        long[] one = new long[2];
+        final long[][] values = {{0, 1}, {0, 2}, {-1, -1}, {random.nextLong(), random.nextLong()}};
+        for (long[] a : values)
+        {
+            GF2128.inverse(a[0], a[1], inverse, 0);
+            GF2128.multiply(a[0], a[1], inverse[0], inverse[1], one, 0);
+            assertArrayEquals(new long[] {0, 1}, one);
+        }
+        try
+        {
+            GF2128.inverse(0, 0, inverse, 0);
+            fail("0 has no inverse");
+        }
+        catch (SecretShareException e)
+        {
+            // expected
+        }
+    }
+
+    @Test
+    public void testWeightsAtZero()
+    {
+        // the weights for any xs sum to 1 [they interpolate the constant polynomial 1]:
+        final long[] weights = GF2128.computeWeightsAtZero(new int[] {3, 7, 200, 1});
+        long high = 0;
+        long low = 0;
+        for (int i = 0; i < weights.length; i += 2)
+        {
+            high ^= weights[i];
+            low ^= weights[i + 1];
+        }
+        assertEquals(0, high);
+        assertEquals(1, low);
+
+        try
+        {
+            GF2128.computeWeightsAtZero(new int[] {3, 4, 3});
+            fail("duplicate x should fail");
+        }
+        catch (SecretShareException e)
+        {
+            // expected
+        }
+    }
+
+    @Test
+    public void testBytes()
+    {
+        final byte[] bytes = new byte[32];
+        new Random(24).nextBytes(bytes);
+        final long[] values = GF2128.fromBytes(bytes, 0, bytes.length);
+        assertEquals(new BigInteger(1, bytes).shiftRight(192).longValue(), values[0]);
+        byte[] back = new byte[32];
+        GF2128.toBytes(values, back, 0);
+        assertArrayEquals(bytes, back);
+    }
+
+    // ==================================================
+    // non public methods
+    // ==================================================
+
+    private static BigInteger toBig(final long high,
+                                    final long low)
+    {
+        return new BigInteger(Long.toUnsignedString(high)).shiftLeft(64)
+            .or(new BigInteger(Long.toUnsignedString(low)));
+    }
+
+    // bit-by-bit polynomial multiply, then reduce by x^128 + x^7 + x^2 + x + 1
+    private static BigInteger schoolbook(final BigInteger a,
+                                         final BigInteger b)
+    {
+        BigInteger product = BigInteger.ZERO;
+        for (int i = 0; i < b.bitLength(); i++)
+        {
+            if (b.testBit(i))
+            {
+                product = product.xor(a.shiftLeft(i));
+            }
+        }
+        final BigInteger polynomial = BigInteger.ONE.shiftLeft(128).or(BigInteger.valueOf(0x87));
+        for (int i = product.bitLength() - 1; i >= 128; i--)
+        {
+            if (product.testBit(i))
+            {
+                product = product.xor(polynomial.shiftLeft(i - 128));
+            }
+        }
+        return product;
+    }
+}
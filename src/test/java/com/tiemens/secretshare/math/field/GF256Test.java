@@ -0,0 +1,123 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2014 Tim Tiemens.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ *
+ * Contributors:
+ *     Tim Tiemens - initial API and implementation
+ *******************************************************************************/
+package com.tiemens.secretshare.math.field;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import org.junit.jupiter.api.Test;
+
+import com.tiemens.secretshare.exceptions.SecretShareException;
+
+public class GF256Test
+{
+    // ==================================================
+    // class static data
+    // ==================================================
+
+    // ==================================================
+    // class static methods
+    // ==================================================
+
+    // ==================================================
+    // instance data
+    // ==================================================
+
+    // ==================================================
+    // factories
+    // ==================================================
+
+    // ==================================================
+    // constructors
+    // ==================================================
+
+    // ==================================================
+    // public methods
+    // ==================================================
+
+    @Test
+    public void testMultiplyMatchesShiftAndAdd()
+    {
+        for (int a = 0; a < GF256.ORDER; a++)
+        {
+            for (int b = 0; b < GF256.ORDER; b++)
+            {
+                assertEquals(slowMultiply(a, b), GF256.multiply(a, b), "a=" + a + " b=" + b);
+            }
+        }
+        // the FIPS-197 example: {57} * {83} = {c1}
+        assertEquals(0xC1, GF256.multiply(0x57, 0x83));
+    }
+
+    @Test
+    public void testInverse()
+    {
+        for (int a = 1; a < GF256.ORDER; a++)
+        {
+            assertEquals(1, GF256.multiply(a, GF256.inverse(a)), "a=" + a);
+        }
+        try
+        {
+            GF256.inverse(0);
+            fail("0 has no inverse");
+        }
+        catch (SecretShareException e)
+        {
+            // ok
+        }
+    }
+
+    @Test
+    public void testWeightsAtZero()
+    {
+        // f(x) = 0x42 + 0x13 * x + 0xA7 * x^2
+        final int[] xs = {1, 7, 200};
+        int[] weights = GF256.computeWeightsAtZero(xs);
+        int secret = 0;
+        for (int i = 0; i < xs.length; i++)
+        {
+            final int x = xs[i];
+            final int y = 0x42 ^ GF256.multiply(0x13, x) ^ GF256.multiply(0xA7, GF256.multiply(x, x));
+            secret ^= GF256.multiply(weights[i], y);
+        }
+        assertEquals(0x42, secret);
+    }
+
+    // ==================================================
+    // non public methods
+    // ==================================================
+
+    private int slowMultiply(int a,
+                             int b)
+    {
+        int ret = 0;
+        while (b != 0)
+        {
+            if ((b & 1) != 0)
+            {
+                ret ^= a;
+            }
+            a <<= 1;
+            if (a >= GF256.ORDER)
+            {
+                a ^= 0x11B;
+            }
+            b >>= 1;
+        }
+        return ret;
+    }
+}
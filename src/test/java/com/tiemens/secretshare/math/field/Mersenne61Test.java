@@ -0,0 +1,138 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2014 Tim Tiemens.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ *
+ * Contributors:
+ *     Tim Tiemens - initial API and implementation
+ *******************************************************************************/
+package com.tiemens.secretshare.math.field;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.tiemens.secretshare.exceptions.SecretShareException;
+
+public class Mersenne61Test
+{
+    // ==================================================
+    // class static data
+    // ==================================================
+
+    // ==================================================
+    // class static methods
+    // ==================================================
+
+    // ==================================================
+    // instance data
+    // ==================================================
+
+    // ==================================================
+    // factories
+    // ==================================================
+
+    // ==================================================
+    // constructors
+    // ==================================================
+
+    // ==================================================
+    // public methods
+    // ==================================================
+
+    @Test
+    public void testMatchesBigIntegerMod()
+    {
+        final BigInteger p = Mersenne61.MODULUS;
+        assertEquals(BigInteger.ONE.shiftLeft(61).subtract(BigInteger.ONE), p);
+
+        Random random = new Random(21);
+        // the edges, then random values:
+        long[] values = new long[200];
+        values[0] = 0;
+        values[1] = 1;
+        values[2] = Mersenne61.P - 1;
+        values[3] = Mersenne61.P - 2;
+        for (int i = 4; i < values.length; i++)
+        {
+            values[i] = (random.nextLong() >>> 3) % Mersenne61.P;
+        }
+        for (long a : values)
+        {
+            for (int j = 0; j < 20; j++)
+            {
+                final long b = values[random.nextInt(values.length)];
+                final BigInteger bigA = BigInteger.valueOf(a);
+                final BigInteger bigB = BigInteger.valueOf(b);
+                assertEquals(bigA.multiply(bigB).mod(p).longValue(), Mersenne61.multiply(a, b));
+                assertEquals(bigA.add(bigB).mod(p).longValue(), Mersenne61.add(a, b));
+                assertEquals(bigA.subtract(bigB).mod(p).longValue(), Mersenne61.subtract(a, b));
+            }
+        }
+
+        final long[] any = {0, 1, -1, Mersenne61.P, -Mersenne61.P, Long.MAX_VALUE, Long.MIN_VALUE,
+                            random.nextLong(), random.nextLong()};
+        for (long x : any)
+        {
+            assertEquals(BigInteger.valueOf(x).mod(p).longValue(), Mersenne61.reduce(x), "x=" + x);
+        }
+    }
+
+    @Test
+    public void testInverse()
+    {
+        Random random = new Random(22);
+        final long[] values = {1, 2, Mersenne61.P - 1, (random.nextLong() >>> 3) % Mersenne61.P + 1};
+        for (long a : values)
+        {
+            assertEquals(BigInteger.valueOf(a).modInverse(Mersenne61.MODULUS).longValue(), Mersenne61.inverse(a));
+            assertEquals(1, Mersenne61.multiply(a, Mersenne61.inverse(a)));
+        }
+        try
+        {
+            Mersenne61.inverse(0);
+            fail("0 has no inverse");
+        }
+        catch (SecretShareException e)
+        {
+            // expected
+        }
+    }
+
+    @Test
+    public void testWeightsAtZero()
+    {
+        // f(x) = 5 + 3x + 7x^2, at x = 2, 5, 9:
+        final long[] xs = {2, 5, 9};
+        final long[] weights = Mersenne61.computeWeightsAtZero(xs);
+        long sum = 0;
+        for (int i = 0; i < xs.length; i++)
+        {
+            final long fx = 5 + 3 * xs[i] + 7 * xs[i] * xs[i];
+            sum = Mersenne61.add(sum, Mersenne61.multiply(weights[i], fx));
+        }
+        assertEquals(5, sum);
+
+        try
+        {
+            Mersenne61.computeWeightsAtZero(new long[] {3, 4, 3});
+            fail("duplicate x should fail");
+        }
+        catch (SecretShareException e)
+        {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,163 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2014 Tim Tiemens.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ *
+ * Contributors:
+ *     Tim Tiemens - initial API and implementation
+ *******************************************************************************/
+package com.tiemens.secretshare.math.field;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.tiemens.secretshare.engine.SecretShare;
+import com.tiemens.secretshare.exceptions.SecretShareException;
+
+public class ModularFieldTest
+{
+    // ==================================================
+    // class static data
+    // ==================================================
+
+    // ==================================================
+    // class static methods
+    // ==================================================
+
+    // ==================================================
+    // instance data
+    // ==================================================
+
+    // ==================================================
+    // factories
+    // ==================================================
+
+    // ==================================================
+    // constructors
+    // ==================================================
+
+    // ==================================================
+    // public methods
+    // ==================================================
+
+    @Test
+    public void testMatchesBigIntegerMod()
+    {
+        final BigInteger[] primes = {BigInteger.valueOf(59561),
+                                     SecretShare.getPrimeUsedFor192bitSecretPayload(),
+                                     SecretShare.getPrimeUsedFor384bitSecretPayload(),
+                                     SecretShare.getPrimeUsedFor4096bigSecretPayload(),
+                                     SecretShare.getPrimeUsedFor8192bigSecretPayload(),
+                                     SecretShare.getSparsePrimeUsedFor192bitSecretPayload(),
+                                     SecretShare.getSparsePrimeUsedFor384bitSecretPayload(),
+                                     SecretShare.getSparsePrimeUsedFor521bitSecretPayload(),
+                                     SecretShare.getSparsePrimeUsedFor4096bitSecretPayload(),
+                                     SecretShare.getSparsePrimeUsedFor8192bitSecretPayload(),
+                                     Mersenne61.MODULUS};
+        Random random = new Random(20);
+        for (BigInteger p : primes)
+        {
+            ModularField field = ModularField.forModulus(p);
+            final int bits = p.bitLength();
+            for (int i = 0; i < 50; i++)
+            {
+                final BigInteger a = new BigInteger(bits, random).mod(p);
+                final BigInteger b = new BigInteger(bits, random).mod(p);
+                assertEquals(a.multiply(b).mod(p), field.multiply(a, b));
+                assertEquals(a.add(b).mod(p), field.add(a, b));
+                assertEquals(a.subtract(b).mod(p), field.subtract(a, b));
+                assertEquals(a.negate().mod(p), field.negate(a));
+
+                // negative, in range, and bigger than the Barrett range:
+                final BigInteger big = new BigInteger(2 * bits + 32 + random.nextInt(64), random);
+                assertEquals(big.mod(p), field.reduce(big));
+                assertEquals(big.negate().mod(p), field.reduce(big.negate()));
+                assertEquals(a, field.reduce(a));
+                assertEquals(BigInteger.ZERO, field.reduce(p));
+            }
+
+            BigInteger[] weights = new BigInteger[5];
+            BigInteger[] ys = new BigInteger[5];
+            BigInteger expected = BigInteger.ZERO;
+            for (int i = 0; i < weights.length; i++)
+            {
+                weights[i] = new BigInteger(bits, random).mod(p);
+                ys[i] = new BigInteger(bits + 8, random);
+                expected = expected.add(weights[i].multiply(ys[i]));
+            }
+            assertEquals(expected.mod(p), field.dot(weights, ys));
+
+            final BigInteger a = new BigInteger(bits - 1, random).add(BigInteger.ONE);
+            assertEquals(BigInteger.ONE, field.multiply(a, field.inverse(a)));
+        }
+    }
+
+    @Test
+    public void testSparse()
+    {
+        // 2^m - c, and 2^m + c [the builtin 4096 and 8192]:
+        assertTrue(ModularField.forModulus(SecretShare.getSparsePrimeUsedFor521bitSecretPayload()).isSparse());
+        assertTrue(ModularField.forModulus(SecretShare.getSparsePrimeUsedFor384bitSecretPayload()).isSparse());
+        assertTrue(ModularField.forModulus(SecretShare.getPrimeUsedFor4096bigSecretPayload()).isSparse());
+        assertTrue(ModularField.forModulus(SecretShare.getPrimeUsedFor8192bigSecretPayload()).isSparse());
+        assertFalse(ModularField.forModulus(SecretShare.getPrimeUsedFor384bitSecretPayload()).isSparse());
+        assertFalse(ModularField.forModulus(BigInteger.valueOf(59561)).isSparse());
+
+        // values right at the edges of the folds:
+        final BigInteger p = SecretShare.getSparsePrimeUsedFor4096bitSecretPayload();
+        ModularField field = ModularField.forModulus(p);
+        final BigInteger[] edges = {p.subtract(BigInteger.ONE), p.add(BigInteger.ONE), BigInteger.ONE.shiftLeft(4096),
+                                    BigInteger.ONE.shiftLeft(4097).subtract(BigInteger.ONE),
+                                    p.subtract(BigInteger.ONE).pow(2), BigInteger.ONE.shiftLeft(9000).negate()};
+        for (BigInteger x : edges)
+        {
+            assertEquals(x.mod(p), field.reduce(x));
+        }
+    }
+
+    @Test
+    public void testCache()
+    {
+        final BigInteger p = SecretShare.getPrimeUsedFor4096bigSecretPayload();
+        assertSame(ModularField.forModulus(p), ModularField.forModulus(new BigInteger(p.toString())));
+        try
+        {
+            ModularField.forModulus(BigInteger.ZERO);
+            fail("0 is not a modulus");
+        }
+        catch (SecretShareException e)
+        {
+            // expected
+        }
+
+        // more moduli than CACHE_SIZE still get the right context:
+        for (int i = 0; i < 3 * ModularField.CACHE_SIZE; i++)
+        {
+            final BigInteger m = BigInteger.valueOf(1000003 + 2 * i);
+            assertEquals(m, ModularField.forModulus(m).getModulus());
+        }
+        assertEquals(p, ModularField.forModulus(p).getModulus());
+
+        // PublicInfo resolves its field once:
+        SecretShare.PublicInfo publicInfo = new SecretShare.PublicInfo(3, 2, p, null);
+        assertSame(publicInfo.getPrimeField(), publicInfo.getPrimeField());
+        assertEquals(p, publicInfo.getPrimeField().getModulus());
+        assertEquals(null, new SecretShare.PublicInfo(3, 2, null, null).getPrimeField());
+    }
+}
@@ -0,0 +1,158 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2014 Tim Tiemens.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the GNU Lesser Public License v2.1
+ * which accompanies this distribution, and is available at
+ * http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ *
+ * Contributors:
+ *     Tim Tiemens - initial API and implementation
+ *******************************************************************************/
+package com.tiemens.secretshare.math.type;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+import com.tiemens.secretshare.exceptions.SecretShareException;
+
+public class PrimeSearchTest
+{
+    // ==================================================
+    // class static data
+    // ==================================================
+
+    // ==================================================
+    // class static methods
+    // ==================================================
+
+    // ==================================================
+    // instance data
+    // ==================================================
+
+    // ==================================================
+    // factories
+    // ==================================================
+
+    // ==================================================
+    // constructors
+    // ==================================================
+
+    // ==================================================
+    // public methods
+    // ==================================================
+
+    @Test
+    public void testSmallestPrimeOfWindow()
+    {
+        final int bits = 1024;
+        for (long seed = 1; seed <= 3; seed++)
+        {
+            // the same start as probablePrime() draws:
+            final BigInteger start = new BigInteger(bits, new Random(seed)).setBit(bits - 1).setBit(0);
+            final BigInteger expected = start.subtract(BigInteger.ONE).nextProbablePrime();
+
+            // the same for any number of threads:
+            for (int threads = 1; threads <= 3; threads++)
+            {
+                BigInteger actual = new PrimeSearch(threads, PrimeSearch.DEFAULT_CERTAINTY, 0)
+                                        .probablePrime(bits, new Random(seed));
+                assertEquals(expected, actual, "seed=" + seed + " threads=" + threads);
+                assertEquals(bits, actual.bitLength());
+            }
+        }
+    }
+
+    @Test
+    public void testSmallIsBigIntegerProbablePrime()
+    {
+        assertEquals(BigInteger.probablePrime(100, new Random(5)),
+                     new PrimeSearch().probablePrime(100, new Random(5)));
+    }
+
+    @Test
+    public void testTimeout()
+    {
+        try
+        {
+            new PrimeSearch(1, PrimeSearch.DEFAULT_CERTAINTY, 1).probablePrime(8192, new Random(6));
+            fail("should time out");
+        }
+        catch (SecretShareException e)
+        {
+            assertTrue(e.getMessage().contains("timed out"), e.getMessage());
+        }
+    }
+
+    @Test
+    public void testCancel()
+        throws InterruptedException
+    {
+        final PrimeSearch primeSearch = new PrimeSearch(2, PrimeSearch.DEFAULT_CERTAINTY, 0);
+        final AtomicReference<Object> result = new AtomicReference<Object>();
+        Thread thread = new Thread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                try
+                {
+                    result.set(primeSearch.probablePrime(8192, new Random(7)));
+                }
+                catch (SecretShareException e)
+                {
+                    result.set(e);
+                }
+            }
+        });
+        thread.start();
+        Thread.sleep(100);
+        primeSearch.cancel();
+        thread.join();
+
+        assertNotNull(result.get());
+        assertTrue(result.get() instanceof SecretShareException, "should be cancelled: " + result.get());
+        assertTrue(((SecretShareException) result.get()).getMessage().contains("cancelled"));
+    }
+
+    @Test
+    public void testRejects()
+    {
+        checkRejects(0, 1, 0, "threads");
+        checkRejects(1, 0, 0, "certainty");
+        checkRejects(1, 1, -1, "timeoutMillis");
+    }
+
+    // ==================================================
+    // non public methods
+    // ==================================================
+
+    private void checkRejects(int threads,
+                              int certainty,
+                              long timeoutMillis,
+                              String expected)
+    {
+        try
+        {
+            new PrimeSearch(threads, certainty, timeoutMillis);
+            fail("should fail: " + expected);
+        }
+        catch (SecretShareException e)
+        {
+            assertTrue(e.getMessage().contains(expected), e.getMessage());
+        }
+    }
+}